@@ -0,0 +1,85 @@
+package com.samourai.whirlpool.client.benchmark;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse;
+import com.samourai.wallet.hd.java.HD_WalletFactoryJava;
+import com.samourai.wallet.segwit.bech32.Bech32UtilGeneric;
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.wallet.beans.*;
+import com.samourai.whirlpool.client.whirlpool.beans.Pool;
+import com.samourai.whirlpool.protocol.websocket.notifications.MixStatus;
+import java.util.ArrayList;
+import java.util.List;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.TestNet3Params;
+
+/** Common fixtures for benchmarks, same as AbstractTest for unit tests. */
+public abstract class AbstractBenchmark {
+  protected static final String SEED_WORDS = "all all all all all all all all all all all all";
+  protected static final String PASSPHRASE = "whirlpool";
+  protected static final String[] POOL_IDS =
+      new String[] {"0.001btc", "0.01btc", "0.05btc", "0.5btc"};
+
+  protected NetworkParameters params = TestNet3Params.get();
+  protected HD_WalletFactoryJava hdWalletFactory = HD_WalletFactoryJava.getInstance();
+  protected Bech32UtilGeneric bech32Util = Bech32UtilGeneric.getInstance();
+  protected Pool pool01btc;
+
+  public AbstractBenchmark() {
+    pool01btc = new Pool();
+    pool01btc.setPoolId("0.1btc");
+    pool01btc.setDenomination(1000000);
+    pool01btc.setFeeValue(50000);
+    pool01btc.setMinMustMix(3);
+    pool01btc.setMustMixBalanceMin(1000170);
+    pool01btc.setMustMixBalanceCap(1009500);
+    pool01btc.setMustMixBalanceMax(1010000);
+    pool01btc.setMinAnonymitySet(5);
+    pool01btc.setNbRegistered(0);
+    pool01btc.setMixAnonymitySet(5);
+    pool01btc.setMixStatus(MixStatus.CONFIRM_INPUT);
+    pool01btc.setElapsedTime(1000);
+    pool01btc.setNbConfirmed(0);
+  }
+
+  /** Deterministic tx hash, so that runs are comparable. */
+  protected static String computeHash(String prefix, int i) {
+    return ClientUtils.sha256Hash(prefix + i);
+  }
+
+  protected static UnspentResponse.UnspentOutput newUnspentOutput(
+      String hash, int index, long value) {
+    UnspentResponse.UnspentOutput spendFrom = new UnspentResponse.UnspentOutput();
+    spendFrom.tx_hash = hash;
+    spendFrom.tx_output_n = index;
+    spendFrom.value = value;
+    spendFrom.script = "foo";
+    spendFrom.addr = "foo";
+    spendFrom.confirmations = 1234;
+    spendFrom.xpub = new UnspentResponse.UnspentOutput.Xpub();
+    spendFrom.xpub.path = "foo";
+    return spendFrom;
+  }
+
+  /**
+   * Mixable utxos spread over {@link #POOL_IDS}, half PREMIX & half POSTMIX, 5 utxos per tx, 10%
+   * with an error.
+   */
+  protected static List<WhirlpoolUtxo> newQueuedUtxos(int nbUtxos) {
+    List<WhirlpoolUtxo> whirlpoolUtxos = new ArrayList<WhirlpoolUtxo>(nbUtxos);
+    for (int i = 0; i < nbUtxos; i++) {
+      UnspentResponse.UnspentOutput utxo =
+          newUnspentOutput(computeHash("queued", i / 5), i % 5, 1000000);
+      WhirlpoolAccount account = (i % 2 == 0 ? WhirlpoolAccount.PREMIX : WhirlpoolAccount.POSTMIX);
+      WhirlpoolUtxoConfig utxoConfig =
+          new WhirlpoolUtxoConfig(POOL_IDS[i % POOL_IDS.length], 5, 0, 0);
+      WhirlpoolUtxo whirlpoolUtxo =
+          new WhirlpoolUtxo(utxo, account, utxoConfig, WhirlpoolUtxoStatus.MIX_QUEUE);
+      whirlpoolUtxo.getUtxoState().setMixableStatus(MixableStatus.MIXABLE);
+      if (i % 10 == 0) {
+        whirlpoolUtxo.getUtxoState().setLastError((long) i);
+      }
+      whirlpoolUtxos.add(whirlpoolUtxo);
+    }
+    return whirlpoolUtxos;
+  }
+}
@@ -0,0 +1,100 @@
+package com.samourai.whirlpool.client.mix;
+
+import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.whirlpool.client.benchmark.AbstractBenchmark;
+import com.samourai.whirlpool.client.mix.handler.PremixHandler;
+import com.samourai.whirlpool.client.mix.handler.UtxoWithBalance;
+import com.samourai.whirlpool.client.utils.ClientCryptoService;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolServer;
+import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
+import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
+import com.samourai.whirlpool.protocol.beans.Utxo;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mix transaction verification before signing, by number of inputs. verifyTx() is private and
+ * depends on the mix state, which is set by reflection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixProcessBenchmark extends AbstractBenchmark {
+  private static final long DENOMINATION = 1000000;
+
+  @Param({"5", "100", "500"})
+  private int nbInputs;
+
+  private MixProcess mixProcess;
+  private Method verifyTx;
+  private Transaction tx;
+
+  @Setup
+  public void setup() throws Exception {
+    byte[] seed = hdWalletFactory.computeSeedFromWords(SEED_WORDS);
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, PASSPHRASE, params);
+
+    // mix tx: as many inputs as outputs, unique prev-txs & output addresses
+    tx = new Transaction(params);
+    List<Utxo> inputs = new ArrayList<Utxo>();
+    for (int i = 0; i < nbInputs; i++) {
+      String hash = computeHash("mix", i);
+      TransactionOutPoint outPoint = new TransactionOutPoint(params, i, Sha256Hash.wrap(hash));
+      tx.addInput(new TransactionInput(params, tx, new byte[0], outPoint));
+      inputs.add(new Utxo(hash, i));
+
+      String address =
+          bech32Util.toBech32(bip84w.getAccountAt(0).getChain(0).getAddressAt(i), params);
+      tx.addOutput(bech32Util.getTransactionOutput(address, DENOMINATION, params));
+    }
+
+    // my input & output are the last ones
+    int myIndex = nbInputs - 1;
+    UtxoWithBalance myUtxo =
+        new UtxoWithBalance(computeHash("mix", myIndex), myIndex, DENOMINATION + 1000);
+    String receiveAddress =
+        bech32Util.toBech32(bip84w.getAccountAt(0).getChain(0).getAddressAt(myIndex), params);
+
+    WhirlpoolServer server = WhirlpoolServer.LOCAL_TESTNET;
+    WhirlpoolClientConfig config =
+        new WhirlpoolClientConfig(
+            null, null, null, server.getServerUrlClear(), server.getParams(), false);
+    mixProcess =
+        new MixProcess(
+            config,
+            pool01btc.getPoolId(),
+            DENOMINATION,
+            new PremixHandler(myUtxo, new ECKey(), "userPreHash"),
+            null,
+            new ClientCryptoService());
+    setField("inputsHash", WhirlpoolProtocol.computeInputsHash(inputs));
+    setField("receiveAddress", receiveAddress);
+
+    verifyTx = MixProcess.class.getDeclaredMethod("verifyTx", Transaction.class);
+    verifyTx.setAccessible(true);
+    verifyTx(); // fail now if fixture is invalid
+  }
+
+  private void setField(String name, Object value) throws Exception {
+    Field field = MixProcess.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(mixProcess, value);
+  }
+
+  @Benchmark
+  public Object verifyTx() throws Exception {
+    return verifyTx.invoke(mixProcess, tx);
+  }
+}
@@ -0,0 +1,118 @@
+package com.samourai.whirlpool.client.tx0;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse;
+import com.samourai.wallet.client.Bip84Wallet;
+import com.samourai.wallet.client.indexHandler.MemoryIndexHandler;
+import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.whirlpool.client.benchmark.AbstractBenchmark;
+import com.samourai.whirlpool.client.utils.BIP69InputComparatorUnspentOutput;
+import com.samourai.whirlpool.client.wallet.WhirlpoolWalletConfig;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolServer;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolWalletAccount;
+import com.samourai.whirlpool.client.whirlpool.beans.Tx0Data;
+import com.samourai.whirlpool.protocol.fee.WhirlpoolFee;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bitcoinj.core.ECKey;
+import org.openjdk.jmh.annotations.*;
+
+/** Tx0 preview & build, by number of premix outputs. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Tx0ServiceBenchmark extends AbstractBenchmark {
+  private static final int NB_SPEND_FROMS = 10;
+  private static final long SPEND_FROM_VALUE = 70000000; // 10 inputs => 600 premixs max
+
+  @Param({"10", "100", "600"})
+  private int nbPremix;
+
+  @Param({"false", "true"})
+  private boolean parallelBuild;
+
+  private WhirlpoolWalletConfig config;
+  private Tx0Service tx0Service;
+  private List<UnspentOutputWithKey> spendFroms;
+  private Tx0Config tx0Config;
+  private Tx0Param tx0Param;
+  private Tx0Data tx0Data;
+  private Tx0Preview tx0Preview;
+  private Bip84Wallet premixWallet;
+  private Bip84Wallet changeWallet;
+  private byte[] opReturnValue;
+
+  @Setup
+  public void setup() throws Exception {
+    WhirlpoolServer server = WhirlpoolServer.LOCAL_TESTNET;
+    config =
+        new WhirlpoolWalletConfig(
+            null, null, null, server.getServerUrlClear(), server.getParams(), false, null);
+    config.setTx0ParallelBuild(parallelBuild);
+    tx0Service = new Tx0Service(config);
+
+    byte[] seed = hdWalletFactory.computeSeedFromWords(SEED_WORDS);
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, PASSPHRASE, params);
+
+    spendFroms = new ArrayList<UnspentOutputWithKey>();
+    for (int i = 0; i < NB_SPEND_FROMS; i++) {
+      ECKey spendFromKey = bip84w.getAccountAt(0).getChain(0).getAddressAt(i).getECKey();
+      UnspentResponse.UnspentOutput spendFrom =
+          newUnspentOutput(computeHash("tx0", i), i, SPEND_FROM_VALUE);
+      spendFroms.add(new UnspentOutputWithKey(spendFrom, spendFromKey.getPrivKeyBytes()));
+    }
+    Collections.sort(spendFroms, new BIP69InputComparatorUnspentOutput());
+
+    tx0Config = new Tx0Config().setMaxOutputs(nbPremix);
+    tx0Param = new Tx0Param(1, 1, pool01btc, null);
+    tx0Data =
+        new Tx0Data(
+            "PM8TJXp19gCE6hQzqRi719FGJzF6AreRwvoQKLRnQ7dpgaakakFns22jHUqhtPQWmfevPQRCyfFbdDrKvrfw9oZv5PjaCerQMa3BKkPyUf9yN1CDR3w6",
+            0,
+            10000,
+            100,
+            null,
+            "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym",
+            0);
+    tx0Preview = tx0Service.tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
+    if (tx0Preview.getNbPremix() != nbPremix) {
+      throw new IllegalStateException(
+          "Unexpected nbPremix=" + tx0Preview.getNbPremix() + " vs " + nbPremix);
+    }
+
+    premixWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.PREMIX.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+    changeWallet =
+        new Bip84Wallet(
+            bip84w,
+            WhirlpoolWalletAccount.DEPOSIT.getAccountIndex(),
+            new MemoryIndexHandler(),
+            new MemoryIndexHandler());
+    opReturnValue = new byte[WhirlpoolFee.FEE_LENGTH];
+  }
+
+  @Benchmark
+  public Tx0Preview tx0Preview() throws Exception {
+    return tx0Service.tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
+  }
+
+  @Benchmark
+  public Tx0 buildTx0() throws Exception {
+    return tx0Service.buildTx0(
+        spendFroms,
+        premixWallet,
+        tx0Preview,
+        opReturnValue,
+        "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym",
+        changeWallet,
+        params);
+  }
+}
@@ -0,0 +1,63 @@
+package com.samourai.whirlpool.client.utils;
+
+import com.samourai.whirlpool.client.benchmark.AbstractBenchmark;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.engines.RSAEngine;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.RSABlindingParameters;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.openjdk.jmh.annotations.*;
+
+/** Blinding of the receive address for REGISTER_OUTPUT, with a 2048 bits server key. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientCryptoServiceBenchmark extends AbstractBenchmark {
+  private static final String RECEIVE_ADDRESS = "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym";
+
+  private ClientCryptoService clientCryptoService;
+  private RSAKeyParameters publicKey;
+  private RSABlindingParameters blindingParams;
+  private byte[] signedBlindedOutput;
+
+  @Setup
+  public void setup() throws Exception {
+    clientCryptoService = new ClientCryptoService();
+
+    // server key
+    RSAKeyPairGenerator generator = new RSAKeyPairGenerator();
+    generator.init(
+        new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), new SecureRandom(), 2048, 80));
+    AsymmetricCipherKeyPair serverKeyPair = generator.generateKeyPair();
+    publicKey = (RSAKeyParameters) serverKeyPair.getPublic();
+
+    // blinded output signed by server
+    blindingParams = clientCryptoService.computeBlindingParams(publicKey);
+    byte[] blindedOutput = clientCryptoService.blind(RECEIVE_ADDRESS, blindingParams);
+    RSAEngine signer = new RSAEngine();
+    signer.init(true, serverKeyPair.getPrivate());
+    signedBlindedOutput = signer.processBlock(blindedOutput, 0, blindedOutput.length);
+  }
+
+  @Benchmark
+  public RSABlindingParameters computeBlindingParams() {
+    return clientCryptoService.computeBlindingParams(publicKey);
+  }
+
+  @Benchmark
+  public byte[] blind() throws Exception {
+    return clientCryptoService.blind(RECEIVE_ADDRESS, blindingParams);
+  }
+
+  @Benchmark
+  public byte[] unblind() {
+    return clientCryptoService.unblind(signedBlindedOutput, blindingParams);
+  }
+}
@@ -0,0 +1,94 @@
+package com.samourai.whirlpool.client.wallet;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.whirlpool.client.benchmark.AbstractBenchmark;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolServer;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoChanges;
+import com.samourai.whirlpool.client.wallet.persist.FileWhirlpoolWalletPersistHandler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Utxos refresh of an account, as run by {@link WhirlpoolDataService} on each fetch: unchanged
+ * utxos, 1% of utxos replaced, or first fetch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhirlpoolUtxoIndexBenchmark extends AbstractBenchmark {
+  private static final int CHURN_PERCENT = 1;
+
+  @Param({"10000", "100000"})
+  private int nbUtxos;
+
+  private File fileIndex;
+  private File fileUtxo;
+  private WhirlpoolWallet whirlpoolWallet;
+  private List<UnspentOutput> utxos;
+  private List<UnspentOutput> utxosChurned;
+  private WhirlpoolUtxoIndex index;
+  private boolean churned;
+
+  @Setup
+  public void setup() throws Exception {
+    fileIndex = File.createTempFile("benchmark-index", ".json");
+    fileUtxo = File.createTempFile("benchmark-utxos", ".json");
+    WhirlpoolServer server = WhirlpoolServer.LOCAL_TESTNET;
+    WhirlpoolWalletConfig config =
+        new WhirlpoolWalletConfig(
+            null,
+            null,
+            new FileWhirlpoolWalletPersistHandler(fileIndex, fileUtxo),
+            server.getServerUrlClear(),
+            server.getParams(),
+            false,
+            null);
+    WhirlpoolDataService dataService = new WhirlpoolDataService(config, null);
+    whirlpoolWallet =
+        new WhirlpoolWallet(config, dataService, bech32Util, null, null, null, null, null);
+
+    // same utxos, except CHURN_PERCENT% spent & replaced by new ones
+    utxos = new ArrayList<UnspentOutput>(nbUtxos);
+    utxosChurned = new ArrayList<UnspentOutput>(nbUtxos);
+    int nbChurned = nbUtxos * CHURN_PERCENT / 100;
+    for (int i = 0; i < nbUtxos; i++) {
+      UnspentOutput utxo = newUnspentOutput(computeHash("utxo", i), i % 5, 1000000);
+      utxos.add(utxo);
+      utxosChurned.add(
+          i < nbChurned ? newUnspentOutput(computeHash("churn", i), i % 5, 1000000) : utxo);
+    }
+
+    index = new WhirlpoolUtxoIndex(WhirlpoolAccount.POSTMIX);
+    index.replaceUtxos(utxos, whirlpoolWallet);
+    churned = false;
+  }
+
+  @TearDown
+  public void tearDown() {
+    fileIndex.delete();
+    fileUtxo.delete();
+  }
+
+  @Benchmark
+  public WhirlpoolUtxoChanges replaceUtxos_unchanged() {
+    return index.replaceUtxos(churned ? utxosChurned : utxos, whirlpoolWallet);
+  }
+
+  @Benchmark
+  public WhirlpoolUtxoChanges replaceUtxos_churn() {
+    churned = !churned;
+    return index.replaceUtxos(churned ? utxosChurned : utxos, whirlpoolWallet);
+  }
+
+  @Benchmark
+  public WhirlpoolUtxoChanges replaceUtxos_firstFetch() {
+    return new WhirlpoolUtxoIndex(WhirlpoolAccount.POSTMIX).replaceUtxos(utxos, whirlpoolWallet);
+  }
+}
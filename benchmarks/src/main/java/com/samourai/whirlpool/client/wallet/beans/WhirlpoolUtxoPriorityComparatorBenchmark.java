@@ -0,0 +1,46 @@
+package com.samourai.whirlpool.client.wallet.beans;
+
+import com.samourai.whirlpool.client.benchmark.AbstractBenchmark;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Utxos prioritization, by number of utxos. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhirlpoolUtxoPriorityComparatorBenchmark extends AbstractBenchmark {
+  @Param({"100", "1000", "10000"})
+  private int nbUtxos;
+
+  private List<WhirlpoolUtxo> whirlpoolUtxos;
+  private WhirlpoolUtxoPriorityComparator comparator;
+
+  @Setup
+  public void setup() {
+    whirlpoolUtxos = newQueuedUtxos(nbUtxos);
+
+    // one pool busy, a few txs mixing
+    Map<String, Integer> mixingPerPool = new HashMap<String, Integer>();
+    mixingPerPool.put(POOL_IDS[0], 1);
+    Set<String> mixingHashs = new HashSet<String>();
+    for (int i = 0; i < nbUtxos; i += 50) {
+      mixingHashs.add(whirlpoolUtxos.get(i).getUtxo().tx_hash);
+    }
+    comparator = new WhirlpoolUtxoPriorityComparator(mixingHashs, mixingPerPool);
+  }
+
+  @Benchmark
+  public List<WhirlpoolUtxo> sortShuffled() {
+    // input is shuffled anyway, no need to restore it
+    comparator.sortShuffled(whirlpoolUtxos);
+    return whirlpoolUtxos;
+  }
+}
@@ -0,0 +1,56 @@
+package com.samourai.whirlpool.client.wallet.orchestrator;
+
+import com.samourai.whirlpool.client.benchmark.AbstractBenchmark;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoStatus;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Next utxo selection by {@link MixOrchestrator}, by number of queued utxos. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixQueueBenchmark extends AbstractBenchmark {
+  @Param({"1000", "10000", "100000"})
+  private int nbQueued;
+
+  private MixQueue mixQueue;
+  private Map<String, Integer> mixingPerPool;
+  private long lastErrorMax;
+
+  @Setup
+  public void setup() {
+    mixQueue = new MixQueue();
+    List<WhirlpoolUtxo> whirlpoolUtxos = newQueuedUtxos(nbQueued);
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
+      mixQueue.onUtxoDetected(whirlpoolUtxo);
+    }
+
+    // one pool busy
+    mixingPerPool = new HashMap<String, Integer>();
+    mixingPerPool.put(POOL_IDS[0], 1);
+    lastErrorMax = nbQueued / 2; // skip half of utxos with error
+  }
+
+  @Benchmark
+  public WhirlpoolUtxo findMixable() {
+    return mixQueue.findMixable(mixingPerPool, 1, lastErrorMax);
+  }
+
+  /** Orchestrator loop: find next utxo, start mixing it, then requeue it. */
+  @Benchmark
+  public WhirlpoolUtxo findMixable_startMix_requeue() {
+    WhirlpoolUtxo whirlpoolUtxo = mixQueue.findMixable(mixingPerPool, 1, lastErrorMax);
+    whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.MIX_STARTED, false);
+    mixQueue.update(whirlpoolUtxo);
+    whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.MIX_QUEUE, false);
+    mixQueue.update(whirlpoolUtxo);
+    return whirlpoolUtxo;
+  }
+}
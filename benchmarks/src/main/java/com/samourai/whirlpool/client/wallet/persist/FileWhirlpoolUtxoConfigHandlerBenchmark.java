@@ -0,0 +1,77 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.samourai.whirlpool.client.benchmark.AbstractBenchmark;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
+import com.samourai.whirlpool.client.wallet.persist.FileWhirlpoolWalletPersistHandler.UtxoConfigFormat;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Utxo configs persistence, by storage format and number of utxos. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileWhirlpoolUtxoConfigHandlerBenchmark extends AbstractBenchmark {
+  @Param({"JSON", "JOURNAL", "MAPPED"})
+  private UtxoConfigFormat format;
+
+  @Param({"1000", "10000", "100000"})
+  private int nbUtxos;
+
+  private File fileUtxo;
+  private FileWhirlpoolUtxoConfigHandler handler;
+  private WhirlpoolUtxoConfig modifiedUtxoConfig;
+
+  @Setup
+  public void setup() throws Exception {
+    fileUtxo = File.createTempFile("benchmark-utxos", ".json");
+    fileUtxo.delete();
+
+    handler = load();
+    for (int i = 0; i < nbUtxos; i++) {
+      String key = computeHash("utxo", i);
+      handler.add(key, new WhirlpoolUtxoConfig(POOL_IDS[i % POOL_IDS.length], 5, i % 3, 0));
+    }
+    handler.write(); // compacted state: no journal records pending
+
+    // reload, as on startup
+    handler = load();
+    modifiedUtxoConfig = handler.get(computeHash("utxo", 0));
+  }
+
+  @TearDown
+  public void tearDown() {
+    for (File file : fileUtxo.getParentFile().listFiles()) {
+      if (file.getName().startsWith(fileUtxo.getName())) {
+        file.delete();
+      }
+    }
+  }
+
+  private FileWhirlpoolUtxoConfigHandler load() {
+    FileWhirlpoolUtxoConfigHandler handler =
+        FileWhirlpoolWalletPersistHandler.computeUtxoConfigHandler(fileUtxo, format);
+    handler.loadUtxoConfigs(null);
+    return handler;
+  }
+
+  @Benchmark
+  public FileWhirlpoolUtxoConfigHandler loadUtxoConfigs() {
+    return load();
+  }
+
+  /** Persist cycle after a mix: one utxoConfig modified since last save. */
+  @Benchmark
+  public boolean save_oneModified() throws Exception {
+    modifiedUtxoConfig.incrementMixsDone();
+    return handler.save();
+  }
+
+  @Benchmark
+  public void write() throws Exception {
+    handler.write();
+  }
+}
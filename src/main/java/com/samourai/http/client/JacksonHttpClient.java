@@ -3,21 +3,68 @@ package com.samourai.http.client;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samourai.wallet.api.backend.beans.HttpException;
+import com.samourai.whirlpool.client.utils.ClientUtils;
 import io.reactivex.Observable;
+import java.net.URL;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java8.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Thread-safe http client: requests run concurrently, with at most maxRequestsPerHost requests
+ * in progress per host and a timeout per request.
+ */
 public abstract class JacksonHttpClient implements IHttpClient {
   private static final Logger log = LoggerFactory.getLogger(JacksonHttpClient.class);
+  private static final long REQUEST_TIMEOUT_DEFAULT = 120000; // ms
+  private static final int MAX_REQUESTS_PER_HOST_DEFAULT = 8;
+  private static final int REQUEST_THREADS_MAX = 16;
 
   private ObjectMapper objectMapper;
+  private long requestTimeout; // ms
+  private int maxRequestsPerHost;
+  private ConcurrentMap<String, Semaphore> hostPermits;
+  private ThreadPoolExecutor requestExecutor;
 
   public JacksonHttpClient() {
+    this(REQUEST_TIMEOUT_DEFAULT, MAX_REQUESTS_PER_HOST_DEFAULT);
+  }
+
+  /**
+   * @param requestTimeout timeout for each request (ms), including time waiting for a host slot.
+   *     Requests still running on timeout are interrupted. Implementations should also apply it to
+   *     their connection, so that abandoned requests don't keep it open.
+   * @param maxRequestsPerHost maximum concurrent requests to a same host
+   */
+  public JacksonHttpClient(long requestTimeout, int maxRequestsPerHost) {
     this.objectMapper = new ObjectMapper();
     objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    this.requestTimeout = requestTimeout;
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    this.hostPermits = new ConcurrentHashMap<String, Semaphore>();
+    // bounded: requests ignoring interruption keep their thread (and host slot) until they return
+    int nbThreads = Math.max(REQUEST_THREADS_MAX, maxRequestsPerHost);
+    this.requestExecutor =
+        new ThreadPoolExecutor(
+            nbThreads,
+            nbThreads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            ClientUtils.newDaemonThreadFactory("http-request"));
+    requestExecutor.allowCoreThreadTimeOut(true);
   }
 
   protected abstract String requestJsonGet(String urlStr, Map<String, String> headers)
@@ -35,13 +82,13 @@ public abstract class JacksonHttpClient implements IHttpClient {
   protected void onRequestError(Exception e, boolean isRegisterOutput) {}
 
   @Override
-  public synchronized <T> T getJson(
+  public <T> T getJson(
       String urlStr, Class<T> responseType, Map<String, String> headers) throws HttpException {
     if (log.isDebugEnabled()) {
       log.debug("getJson: " + urlStr);
     }
     try {
-      String responseContent = requestJsonGet(urlStr, headers);
+      String responseContent = requestJsonGetLimited(urlStr, headers);
       T result = parseJson(responseContent, responseType);
       return result;
     } catch (Exception e) {
@@ -57,7 +104,7 @@ public abstract class JacksonHttpClient implements IHttpClient {
   }
 
   @Override
-  public synchronized <T> Observable<Optional<T>> postJson(
+  public <T> Observable<Optional<T>> postJson(
       final String urlStr,
       final Class<T> responseType,
       final Map<String, String> headers,
@@ -70,8 +117,16 @@ public abstract class JacksonHttpClient implements IHttpClient {
           @Override
           public T call() throws Exception {
             try {
-              String jsonBody = objectMapper.writeValueAsString(bodyObj);
-              String responseContent = requestJsonPost(urlStr, headers, jsonBody);
+              final String jsonBody = objectMapper.writeValueAsString(bodyObj);
+              String responseContent =
+                  requestLimited(
+                      urlStr,
+                      new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                          return requestJsonPost(urlStr, headers, jsonBody);
+                        }
+                      });
               T result = parseJson(responseContent, responseType);
               return result;
             } catch (Exception e) {
@@ -86,7 +141,7 @@ public abstract class JacksonHttpClient implements IHttpClient {
   }
 
   @Override
-  public synchronized <T> Observable<Optional<T>> postJsonOverTor(
+  public <T> Observable<Optional<T>> postJsonOverTor(
       final String urlStr,
       final Class<T> responseType,
       final Map<String, String> headers,
@@ -99,8 +154,16 @@ public abstract class JacksonHttpClient implements IHttpClient {
           @Override
           public T call() throws Exception {
             try {
-              String jsonBody = objectMapper.writeValueAsString(bodyObj);
-              String responseContent = requestJsonPostOverTor(urlStr, headers, jsonBody);
+              final String jsonBody = objectMapper.writeValueAsString(bodyObj);
+              String responseContent =
+                  requestLimited(
+                      urlStr,
+                      new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                          return requestJsonPostOverTor(urlStr, headers, jsonBody);
+                        }
+                      });
               T result = parseJson(responseContent, responseType);
               return result;
             } catch (Exception e) {
@@ -115,7 +178,7 @@ public abstract class JacksonHttpClient implements IHttpClient {
   }
 
   @Override
-  public synchronized <T> T postUrlEncoded(
+  public <T> T postUrlEncoded(
       String urlStr, Class<T> responseType, Map<String, String> headers, Map<String, String> body)
       throws HttpException {
     if (log.isDebugEnabled()) {
@@ -123,7 +186,7 @@ public abstract class JacksonHttpClient implements IHttpClient {
           "postUrlEncoded: " + urlStr + ", POST.body=" + (body != null ? body.keySet() : "null"));
     }
     try {
-      String responseContent = requestJsonPostUrlEncoded(urlStr, headers, body);
+      String responseContent = requestJsonPostUrlEncodedLimited(urlStr, headers, body);
       T result = parseJson(responseContent, responseType);
       return result;
     } catch (Exception e) {
@@ -138,6 +201,106 @@ public abstract class JacksonHttpClient implements IHttpClient {
     }
   }
 
+  private String requestJsonGetLimited(final String urlStr, final Map<String, String> headers)
+      throws Exception {
+    return requestLimited(
+        urlStr,
+        new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            return requestJsonGet(urlStr, headers);
+          }
+        });
+  }
+
+  private String requestJsonPostUrlEncodedLimited(
+      final String urlStr, final Map<String, String> headers, final Map<String, String> body)
+      throws Exception {
+    return requestLimited(
+        urlStr,
+        new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            return requestJsonPostUrlEncoded(urlStr, headers, body);
+          }
+        });
+  }
+
+  /**
+   * Run request when a slot is available for this host, or fail after requestTimeout. A request
+   * still running on timeout is interrupted and abandoned. Its slot is released when it actually
+   * returns, so that a blocking call ignoring interruption still counts for its host.
+   */
+  protected String requestLimited(String urlStr, final Callable<String> request) throws Exception {
+    long deadline = System.currentTimeMillis() + requestTimeout;
+    final Semaphore permits = getHostPermits(urlStr);
+    if (!permits.tryAcquire(requestTimeout, TimeUnit.MILLISECONDS)) {
+      throw new TimeoutException(
+          "Timeout waiting for host slot (" + maxRequestsPerHost + " requests in progress)");
+    }
+    // permit is released by whoever sets it: request task, or caller when task never ran
+    final AtomicBoolean started = new AtomicBoolean(false);
+    Future<String> future = null;
+    try {
+      future =
+          requestExecutor.submit(
+              new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                  if (!started.compareAndSet(false, true)) {
+                    return null; // abandoned before running
+                  }
+                  try {
+                    return request.call();
+                  } finally {
+                    permits.release();
+                  }
+                }
+              });
+      long remaining = Math.max(0, deadline - System.currentTimeMillis());
+      return future.get(remaining, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new TimeoutException("Request timeout after " + requestTimeout + "ms");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw e;
+    } finally {
+      if (future != null) {
+        // abandon request on timeout or interruption (no-op when completed)
+        future.cancel(true);
+      }
+      if (started.compareAndSet(false, true)) {
+        // request never ran (abandoned or rejected)
+        permits.release();
+      }
+    }
+  }
+
+  private Semaphore getHostPermits(String urlStr) {
+    String host = computeHost(urlStr);
+    Semaphore permits = hostPermits.get(host);
+    if (permits == null) {
+      permits = new Semaphore(maxRequestsPerHost, true);
+      Semaphore existing = hostPermits.putIfAbsent(host, permits);
+      if (existing != null) {
+        permits = existing;
+      }
+    }
+    return permits;
+  }
+
+  private static String computeHost(String urlStr) {
+    try {
+      URL url = new URL(urlStr);
+      return url.getHost() + ":" + url.getPort();
+    } catch (Exception e) {
+      return urlStr;
+    }
+  }
+
   private <T> T parseJson(String responseContent, Class<T> responseType) throws Exception {
     T result;
     if (log.isTraceEnabled()) {
@@ -176,6 +339,14 @@ public abstract class JacksonHttpClient implements IHttpClient {
         });
   }
 
+  public long getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  public int getMaxRequestsPerHost() {
+    return maxRequestsPerHost;
+  }
+
   protected ObjectMapper getObjectMapper() {
     return objectMapper;
   }
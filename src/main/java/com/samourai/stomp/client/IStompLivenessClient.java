@@ -0,0 +1,9 @@
+package com.samourai.stomp.client;
+
+/**
+ * Optional capability of {@link IStompClient}: notify each frame received from server, heartbeats
+ * included. Required by {@link StompTransport} to detect dead connections.
+ */
+public interface IStompLivenessClient extends IStompClient {
+  void setOnFrameReceived(Runnable onFrameReceived);
+}
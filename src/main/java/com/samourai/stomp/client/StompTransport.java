@@ -1,35 +1,88 @@
 package com.samourai.stomp.client;
 
-import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.utils.MessageErrorListener;
 import com.samourai.whirlpool.client.utils.MessageListener;
 import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** STOMP communication. */
+/**
+ * STOMP communication.
+ *
+ * <p>When heartbeatDelay is set and client is an {@link IStompLivenessClient}, server heartbeats
+ * are requested on connect ("0,heartbeatDelay": client doesn't send heartbeats) and a watchdog
+ * tears down the transport when nothing is received from server for {@link #LIVENESS_FACTOR}
+ * heartbeats. Other clients don't notify received heartbeats, so nothing is negotiated for them.
+ */
 public class StompTransport {
   // non-static logger to prefix it with stomp sessionId
   private Logger log;
   private static final String HEADER_USERNAME = "user-name";
   public static final String HEADER_DESTINATION = "destination";
+  public static final String HEADER_HEART_BEAT = "heart-beat";
+  public static final int LIVENESS_FACTOR = 3;
 
   private IStompClient stompClient;
   private IStompTransportListener listener;
+  private long heartbeatDelay;
+  private ScheduledExecutorService scheduler;
+  private boolean liveness; // heartbeats negotiated & watched
 
   private boolean done;
+  private volatile long lastReceived;
+  private ScheduledFuture<?> watchdog;
 
   public StompTransport(
       IStompClientService stompClientService, IStompTransportListener listener, String logPrefix) {
+    this(stompClientService, listener, logPrefix, 0, null);
+  }
+
+  /**
+   * @param heartbeatDelay server heartbeat delay (ms) to request, 0 to disable heartbeats. Ignored
+   *     when client is not an {@link IStompLivenessClient}.
+   * @param scheduler executor running the liveness watchdog, unused when heartbeats are disabled
+   */
+  public StompTransport(
+      IStompClientService stompClientService,
+      IStompTransportListener listener,
+      String logPrefix,
+      long heartbeatDelay,
+      ScheduledExecutorService scheduler) {
     this.log = LoggerFactory.getLogger(StompTransport.class + "[" + logPrefix + "]");
     this.stompClient = stompClientService.newStompClient();
     this.listener = listener;
+    this.heartbeatDelay = heartbeatDelay;
+    this.scheduler = scheduler;
+    this.watchdog = null;
+    this.liveness = heartbeatDelay > 0 && stompClient instanceof IStompLivenessClient;
+    if (liveness) {
+      ((IStompLivenessClient) stompClient)
+          .setOnFrameReceived(
+              new Runnable() {
+                @Override
+                public void run() {
+                  onReceived();
+                }
+              });
+    }
   }
 
   public synchronized void connect(String wsUrl, Map<String, String> connectHeaders) {
     done = false;
+    if (liveness) {
+      // negotiate heartbeats: "can send every x ms, want to receive every y ms"
+      // client never sends heartbeats, server ones are enough for watchdog
+      connectHeaders = new HashMap<String, String>(connectHeaders);
+      connectHeaders.put(HEADER_HEART_BEAT, "0," + heartbeatDelay);
+    } else if (heartbeatDelay > 0 && log.isDebugEnabled()) {
+      log.debug("heartbeats disabled: not supported by " + stompClient.getClass());
+    }
     stompClient.connect(
         wsUrl,
         connectHeaders,
@@ -38,6 +91,7 @@ public class StompTransport {
           @Override
           public void onMessage(Void foo) {
             if (!done) {
+              startWatchdog();
               listener.onTransportConnected();
             } /* else {
                 if (log.isDebugEnabled()) {
@@ -50,8 +104,7 @@ public class StompTransport {
           @Override
           public void onError(Throwable exception) {
             if (!done) {
-              disconnect();
-              listener.onTransportDisconnected(exception);
+              onTransportError(exception);
             } /* else {
                 if (log.isDebugEnabled()) {
                   log.debug("onError: message ignored (done=true)");
@@ -61,6 +114,53 @@ public class StompTransport {
         });
   }
 
+  private void onTransportError(Throwable exception) {
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      disconnect();
+    }
+    listener.onTransportDisconnected(exception);
+  }
+
+  private synchronized void startWatchdog() {
+    if (!liveness || watchdog != null) {
+      return;
+    }
+    onReceived();
+    watchdog =
+        scheduler.scheduleWithFixedDelay(
+            new Runnable() {
+              @Override
+              public void run() {
+                checkLiveness();
+              }
+            },
+            heartbeatDelay,
+            heartbeatDelay,
+            TimeUnit.MILLISECONDS);
+  }
+
+  private void stopWatchdog() {
+    if (watchdog != null) {
+      watchdog.cancel(false);
+      watchdog = null;
+    }
+  }
+
+  private void onReceived() {
+    lastReceived = System.currentTimeMillis();
+  }
+
+  private void checkLiveness() {
+    long elapsed = System.currentTimeMillis() - lastReceived;
+    if (elapsed > heartbeatDelay * LIVENESS_FACTOR) {
+      log.warn(" ! connexion dead: nothing received for " + elapsed + "ms");
+      onTransportError(new TimeoutException("No heartbeat received for " + elapsed + "ms"));
+    }
+  }
+
   public void subscribe(
       Map<String, String> subscribeHeaders,
       final MessageErrorListener<Object, String> listener,
@@ -75,6 +175,7 @@ public class StompTransport {
           @Override
           public void onMessage(IStompMessage stompMessage) {
             Object payload = stompMessage.getPayload();
+            onReceived();
             if (!done) {
               if (log.isDebugEnabled()) {
                 log.debug(
@@ -117,6 +218,7 @@ public class StompTransport {
       log.debug("disconnect");
     }
     this.done = true;
+    stopWatchdog();
     stompClient.disconnect();
   }
 
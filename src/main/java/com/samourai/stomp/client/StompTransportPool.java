@@ -0,0 +1,205 @@
+package com.samourai.stomp.client;
+
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of pre-connected transports, so that a new mix doesn't wait for a websocket handshake.
+ * Each transport is handed to a single session and never shared: server routes private replies
+ * per STOMP session, so sharing a transport would mix up (and link) the inputs of several mixes.
+ */
+public class StompTransportPool {
+  private final Logger log = LoggerFactory.getLogger(StompTransportPool.class);
+  private static final String LOG_PREFIX = "warmup";
+
+  private IStompClientService stompClientService;
+  private ScheduledExecutorService executorService;
+  private int nbWarmTransports;
+  private long heartbeatDelay;
+  private Map<String, Queue<WarmTransport>> warmTransports; // by connect key
+
+  /**
+   * @param stompClientService client service for new transports
+   * @param executorService executor notifying sessions which take an already connected transport,
+   *     and running liveness watchdogs of transports
+   * @param nbWarmTransports number of transports to keep pre-connected per server & pool
+   */
+  public StompTransportPool(
+      IStompClientService stompClientService,
+      ScheduledExecutorService executorService,
+      int nbWarmTransports) {
+    this(stompClientService, executorService, nbWarmTransports, 0);
+  }
+
+  /**
+   * @param heartbeatDelay heartbeat delay (ms) of transports, 0 to disable (see {@link
+   *     StompTransport})
+   */
+  public StompTransportPool(
+      IStompClientService stompClientService,
+      ScheduledExecutorService executorService,
+      int nbWarmTransports,
+      long heartbeatDelay) {
+    this.stompClientService = stompClientService;
+    this.executorService = executorService;
+    this.nbWarmTransports = nbWarmTransports;
+    this.heartbeatDelay = heartbeatDelay;
+    this.warmTransports = new HashMap<String, Queue<WarmTransport>>();
+  }
+
+  /**
+   * Take a connected (or connecting) transport for this server & headers, or connect a new one.
+   * The listener is notified of connection as usual.
+   */
+  public StompTransport take(
+      String wsUrl,
+      Map<String, String> connectHeaders,
+      IStompTransportListener listener,
+      String logPrefix) {
+    StompTransport transport = null;
+    synchronized (this) {
+      Queue<WarmTransport> queue = getQueue(wsUrl, connectHeaders);
+      while (transport == null && !queue.isEmpty()) {
+        WarmTransport warmTransport = queue.poll();
+        if (warmTransport.handOver(listener)) {
+          transport = warmTransport.transport;
+          if (log.isDebugEnabled()) {
+            log.debug("take: using warm transport (" + queue.size() + " left)");
+          }
+        }
+      }
+    }
+    // connect outside of pool lock: client may notify failure synchronously
+    if (transport == null) {
+      // no warm transport available => connect now
+      transport =
+          new StompTransport(
+              stompClientService, listener, logPrefix, heartbeatDelay, executorService);
+      transport.connect(wsUrl, connectHeaders);
+    }
+
+    // replenish for next session
+    warmup(wsUrl, connectHeaders);
+    return transport;
+  }
+
+  /**
+   * Pre-connect transports for this server & headers, up to nbWarmTransports. Each call connects
+   * at most the missing transports once: transports failing to connect are replaced on next call,
+   * not retried in a loop.
+   */
+  public void warmup(String wsUrl, Map<String, String> connectHeaders) {
+    List<WarmTransport> newTransports = new ArrayList<WarmTransport>();
+    synchronized (this) {
+      Queue<WarmTransport> queue = getQueue(wsUrl, connectHeaders);
+      for (int i = queue.size(); i < nbWarmTransports; i++) {
+        WarmTransport warmTransport = new WarmTransport(queue);
+        queue.add(warmTransport);
+        newTransports.add(warmTransport);
+      }
+    }
+    // connect outside of pool lock: client may notify failure synchronously
+    for (WarmTransport warmTransport : newTransports) {
+      warmTransport.connect(wsUrl, new HashMap<String, String>(connectHeaders));
+    }
+  }
+
+  /** @return number of idle transports for this server & headers */
+  public synchronized int getNbIdle(String wsUrl, Map<String, String> connectHeaders) {
+    return getQueue(wsUrl, connectHeaders).size();
+  }
+
+  /** Disconnect all idle transports. */
+  public synchronized void clear() {
+    for (Queue<WarmTransport> queue : warmTransports.values()) {
+      for (WarmTransport warmTransport : queue) {
+        warmTransport.transport.disconnect();
+      }
+      queue.clear();
+    }
+    warmTransports.clear();
+  }
+
+  private Queue<WarmTransport> getQueue(String wsUrl, Map<String, String> connectHeaders) {
+    String key = wsUrl + new TreeMap<String, String>(connectHeaders).toString();
+    Queue<WarmTransport> queue = warmTransports.get(key);
+    if (queue == null) {
+      queue = new LinkedList<WarmTransport>();
+      warmTransports.put(key, queue);
+    }
+    return queue;
+  }
+
+  private synchronized void onIdleDisconnected(Queue<WarmTransport> queue, WarmTransport w) {
+    // dropped while idle: will be replaced on next take()
+    queue.remove(w);
+  }
+
+  private class WarmTransport implements IStompTransportListener {
+    private final Queue<WarmTransport> queue;
+    private final StompTransport transport;
+    private IStompTransportListener target; // null while idle
+    private boolean connected;
+    private boolean failed;
+
+    WarmTransport(Queue<WarmTransport> queue) {
+      this.queue = queue;
+      this.transport =
+          new StompTransport(
+              stompClientService, this, LOG_PREFIX, heartbeatDelay, executorService);
+    }
+
+    void connect(String wsUrl, Map<String, String> connectHeaders) {
+      transport.connect(wsUrl, connectHeaders);
+    }
+
+    synchronized boolean handOver(final IStompTransportListener listener) {
+      if (failed) {
+        return false;
+      }
+      this.target = listener;
+      if (connected) {
+        // already connected => notify asynchronously, as transport would do
+        executorService.submit(
+            new Runnable() {
+              @Override
+              public void run() {
+                listener.onTransportConnected();
+              }
+            });
+      }
+      return true;
+    }
+
+    @Override
+    public void onTransportConnected() {
+      IStompTransportListener listener;
+      synchronized (this) {
+        connected = true;
+        listener = target;
+      }
+      if (listener != null) {
+        listener.onTransportConnected();
+      }
+    }
+
+    @Override
+    public void onTransportDisconnected(Throwable exception) {
+      IStompTransportListener listener;
+      synchronized (this) {
+        failed = true;
+        listener = target;
+      }
+      if (listener != null) {
+        listener.onTransportDisconnected(exception);
+      } else {
+        if (log.isDebugEnabled()) {
+          log.debug("warm transport disconnected while idle");
+        }
+        onIdleDisconnected(queue, this);
+      }
+    }
+  }
+}
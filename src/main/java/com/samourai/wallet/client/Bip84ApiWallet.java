@@ -57,6 +57,11 @@ public class Bip84ApiWallet extends Bip84Wallet {
 
   public void refreshIndexs() throws Exception {
     MultiAddrResponse.Address address = fetchAddress();
+    refreshIndexs(address);
+  }
+
+  /** Refresh indexs from an address fetched by caller. */
+  public void refreshIndexs(MultiAddrResponse.Address address) {
     setIndexMin(address.account_index, indexHandler);
     setIndexMin(address.change_index, indexChangeHandler);
   }
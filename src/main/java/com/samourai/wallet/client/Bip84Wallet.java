@@ -4,6 +4,13 @@ import com.samourai.wallet.api.backend.beans.UnspentResponse;
 import com.samourai.wallet.client.indexHandler.IIndexHandler;
 import com.samourai.wallet.hd.HD_Address;
 import com.samourai.wallet.hd.HD_Wallet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,12 +18,23 @@ public class Bip84Wallet {
   private static final Logger log = LoggerFactory.getLogger(Bip84Wallet.class);
   public static final int CHAIN_RECEIVE = 0;
   protected static final int CHAIN_CHANGE = 1;
+  private static final int ADDRESS_CACHE_SIZE = 1000;
+  private static final int LOOKAHEAD = 20;
 
   protected HD_Wallet bip84w;
   protected int accountIndex;
   protected IIndexHandler indexHandler;
   protected IIndexHandler indexChangeHandler;
 
+  // derived (or being derived) addresses by chain & index
+  private final Map<Long, FutureTask<CachedAddress>> addressCache =
+      new LinkedHashMap<Long, FutureTask<CachedAddress>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, FutureTask<CachedAddress>> eldest) {
+          return size() > ADDRESS_CACHE_SIZE;
+        }
+      };
+
   public Bip84Wallet(
       HD_Wallet bip84w,
       int accountIndex,
@@ -48,9 +66,70 @@ public class Bip84Wallet {
   }
 
   public HD_Address getAddressAt(int chainIndex, int addressIndex) {
+    // not cached, as it holds private key
     return getAddressBip84(accountIndex, chainIndex, addressIndex);
   }
 
+  /**
+   * Derived address from cache, or derived now. On cache miss, next addresses of the chain are
+   * derived by the same call. Concurrent callers wait for addresses being derived.
+   */
+  public CachedAddress getCachedAddressAt(int chainIndex, int addressIndex) {
+    Long key = computeCacheKey(chainIndex, addressIndex);
+    FutureTask<CachedAddress> derivation;
+    List<FutureTask<CachedAddress>> derivations = new ArrayList<FutureTask<CachedAddress>>();
+    synchronized (addressCache) {
+      derivation = addressCache.get(key);
+      if (derivation == null) {
+        boolean lookahead = (chainIndex == CHAIN_RECEIVE || chainIndex == CHAIN_CHANGE);
+        int until = lookahead ? addressIndex + LOOKAHEAD : addressIndex;
+        for (int i = addressIndex; i <= until && i >= 0; i++) {
+          Long lookaheadKey = computeCacheKey(chainIndex, i);
+          if (!addressCache.containsKey(lookaheadKey)) {
+            FutureTask<CachedAddress> lookaheadDerivation = computeDerivation(chainIndex, i);
+            addressCache.put(lookaheadKey, lookaheadDerivation);
+            derivations.add(lookaheadDerivation);
+          }
+        }
+        derivation = derivations.get(0);
+      }
+    }
+
+    // derive outside lock
+    for (FutureTask<CachedAddress> lookaheadDerivation : derivations) {
+      lookaheadDerivation.run();
+    }
+    try {
+      return derivation.get();
+    } catch (Exception e) {
+      // derivation failed => retry on next call
+      synchronized (addressCache) {
+        if (addressCache.get(key) == derivation) {
+          addressCache.remove(key);
+        }
+      }
+      Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      throw cause instanceof RuntimeException
+          ? (RuntimeException) cause
+          : new RuntimeException(cause);
+    }
+  }
+
+  private FutureTask<CachedAddress> computeDerivation(
+      final int chainIndex, final int addressIndex) {
+    return new FutureTask<CachedAddress>(
+        new Callable<CachedAddress>() {
+          @Override
+          public CachedAddress call() throws Exception {
+            return new CachedAddress(getAddressBip84(accountIndex, chainIndex, addressIndex));
+          }
+        });
+  }
+
+  private Long computeCacheKey(int chainIndex, int addressIndex) {
+    return ((long) chainIndex << 32) | (addressIndex & 0xFFFFFFFFL);
+  }
+
   public HD_Address getAddressAt(UnspentResponse.UnspentOutput utxo) {
     return getAddressAt(utxo.computePathChainIndex(), utxo.computePathAddressIndex());
   }
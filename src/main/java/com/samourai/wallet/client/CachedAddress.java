@@ -0,0 +1,39 @@
+package com.samourai.wallet.client;
+
+import com.samourai.wallet.hd.HD_Address;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.SegwitAddress;
+import org.bitcoinj.script.ScriptBuilder;
+
+/**
+ * Public data of a derived address: pubkey & scriptPubKey, with bech32 computed once on first use.
+ * Private key is not kept.
+ */
+public class CachedAddress {
+  private final ECKey pubKey;
+  private final byte[] scriptPubKey;
+  private String bech32;
+  private NetworkParameters bech32Params;
+
+  public CachedAddress(HD_Address hdAddress) {
+    this.pubKey = ECKey.fromPublicOnly(hdAddress.getECKey().getPubKey());
+    this.scriptPubKey = ScriptBuilder.createP2WPKHOutputScript(pubKey).getProgram();
+  }
+
+  public byte[] getPubKey() {
+    return pubKey.getPubKey();
+  }
+
+  public synchronized String getBech32(NetworkParameters params) {
+    if (bech32 == null || params != bech32Params) {
+      bech32 = SegwitAddress.fromKey(params, pubKey).toBech32();
+      bech32Params = params;
+    }
+    return bech32;
+  }
+
+  public byte[] getScriptPubKey() {
+    return scriptPubKey;
+  }
+}
@@ -6,18 +6,51 @@ import com.samourai.whirlpool.client.utils.ClientUtils;
 import java.io.File;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Indexes persisted as a JSON file, replaced with {@link ClientUtils#safeWriteValue}: new indexes
+ * are synced to a temp file in the same directory then renamed over the file.
+ *
+ * <p>With writeBehindDelay > 0, changes are coalesced and written at most once per delay. A crash
+ * loses changes of the last delay: indexes are then reloaded lower than they were. Call {@link
+ * #flush()} before an address is exposed outside of this process (deposit address, tx0 pushTx),
+ * so that it won't be given again after restart. {@link ItemFileIndexHandler} also flushes when
+ * handing out an unconfirmed index (postmix receive address). A failed write keeps changes pending
+ * and is retried after writeBehindDelay (or WRITE_RETRY_DELAY when writing on each change).
+ */
 public class FileIndexHandler {
   private static final Logger log = LoggerFactory.getLogger(FileIndexHandler.class);
+  private static final long WRITE_RETRY_DELAY = 10000; // ms
 
   private File file;
   private ObjectMapper mapper = new ObjectMapper();
   private Map<String, Integer> indexes = new ConcurrentHashMap<String, Integer>();
+  private final long writeBehindDelay; // ms, 0 = write on each change
+  private final ScheduledExecutorService scheduler;
+  private boolean dirty;
+  private ScheduledFuture<?> scheduledWrite;
 
   public FileIndexHandler(File file) {
+    this(file, 0);
+  }
+
+  /** @param writeBehindDelay max delay (ms) before writing changes, 0 to write on each change */
+  public FileIndexHandler(File file, long writeBehindDelay) {
+    this(file, writeBehindDelay, ClientUtils.getIoExecutor());
+  }
+
+  /** @param scheduler executor running delayed writes and retries */
+  public FileIndexHandler(File file, long writeBehindDelay, ScheduledExecutorService scheduler) {
     this.file = file;
+    this.writeBehindDelay = writeBehindDelay;
+    this.scheduler = scheduler;
+    this.dirty = false;
+    this.scheduledWrite = null;
     load();
   }
 
@@ -29,14 +62,71 @@ public class FileIndexHandler {
   }
 
   public synchronized int getAndIncrement(String key, int defaultValue) {
+    return getAndAdd(key, defaultValue, 1);
+  }
+
+  public synchronized int getAndAdd(String key, int defaultValue, int nb) {
     int value = get(key, defaultValue);
-    set(key, value + 1);
+    set(key, value + nb);
     return value;
   }
 
   public synchronized void set(String key, int value) {
     indexes.put(key, value);
-    write();
+    dirty = true;
+    if (writeBehindDelay > 0) {
+      scheduleWrite();
+    } else {
+      try {
+        write();
+      } catch (Exception e) {
+        // still dirty, retried later
+        log.error("Unable to write file " + file.getAbsolutePath(), e);
+        scheduleWrite();
+      }
+    }
+  }
+
+  private void scheduleWrite() {
+    if (scheduledWrite != null) {
+      // already scheduled, changes will be written together
+      return;
+    }
+    scheduledWrite =
+        scheduler.schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  flush();
+                } catch (Exception e) {
+                  // already rescheduled by flush()
+                  log.error("Unable to write file " + file.getAbsolutePath(), e);
+                }
+              }
+            },
+            writeBehindDelay > 0 ? writeBehindDelay : WRITE_RETRY_DELAY,
+            TimeUnit.MILLISECONDS);
+  }
+
+  /** Write pending changes now. On failure, changes are kept pending and write is rescheduled. */
+  public synchronized void flush() throws Exception {
+    if (scheduledWrite != null) {
+      scheduledWrite.cancel(false);
+      scheduledWrite = null;
+    }
+    if (dirty) {
+      try {
+        write();
+      } catch (Exception e) {
+        scheduleWrite();
+        throw e;
+      }
+    }
+  }
+
+  public synchronized boolean isDirty() {
+    return dirty;
   }
 
   public ItemFileIndexHandler getIndexHandler(String key, int defaultValue) {
@@ -54,11 +144,8 @@ public class FileIndexHandler {
     }
   }
 
-  private synchronized void write() {
-    try {
-      ClientUtils.safeWriteValue(mapper, indexes, file);
-    } catch (Exception e) {
-      log.error("Unable to write file " + file.getAbsolutePath());
-    }
+  private synchronized void write() throws Exception {
+    ClientUtils.safeWriteValue(mapper, indexes, file);
+    dirty = false;
   }
 }
@@ -5,6 +5,9 @@ public interface IIndexHandler {
 
   int getAndIncrement();
 
+  /** Reserve nb consecutive indexs at once. */
+  int getAndAdd(int nb);
+
   int get();
 
   void set(int value);
@@ -1,6 +1,11 @@
 package com.samourai.wallet.client.indexHandler;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public class ItemFileIndexHandler extends AbstractIndexHandler {
+  private static final Logger log = LoggerFactory.getLogger(ItemFileIndexHandler.class);
+
   private FileIndexHandler fileIndexHandler;
   private String key;
   private int defaultValue;
@@ -22,8 +27,26 @@ public class ItemFileIndexHandler extends AbstractIndexHandler {
     return fileIndexHandler.getAndIncrement(key, defaultValue);
   }
 
+  @Override
+  public synchronized int getAndAdd(int nb) {
+    return fileIndexHandler.getAndAdd(key, defaultValue, nb);
+  }
+
   @Override
   public synchronized void set(int value) {
     fileIndexHandler.set(key, value);
   }
+
+  @Override
+  public synchronized int getAndIncrementUnconfirmed() {
+    // unconfirmed index is about to be exposed: persist pending changes first
+    int index = super.getAndIncrementUnconfirmed();
+    try {
+      fileIndexHandler.flush();
+    } catch (Exception e) {
+      // still pending, write is retried later
+      log.error("Unable to persist unconfirmed index " + key + "=" + index, e);
+    }
+    return index;
+  }
 }
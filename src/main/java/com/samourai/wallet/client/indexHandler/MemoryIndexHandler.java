@@ -24,6 +24,13 @@ public class MemoryIndexHandler extends AbstractIndexHandler {
     return result;
   }
 
+  @Override
+  public synchronized int getAndAdd(int nb) {
+    int result = index;
+    index += nb;
+    return result;
+  }
+
   @Override
   public synchronized void set(int value) {
     index = value;
@@ -5,6 +5,8 @@ import com.samourai.whirlpool.client.mix.dialog.MixSession;
 import com.samourai.whirlpool.client.mix.listener.MixClientListener;
 import com.samourai.whirlpool.client.mix.listener.MixFailReason;
 import com.samourai.whirlpool.client.mix.listener.MixStep;
+import com.samourai.whirlpool.client.mix.timing.MixPhase;
+import com.samourai.whirlpool.client.mix.timing.MixTimer;
 import com.samourai.whirlpool.client.utils.ClientCryptoService;
 import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
@@ -37,6 +39,7 @@ public class MixClient {
   private WhirlpoolProtocol whirlpoolProtocol;
   private String logPrefix;
   private MixSession mixSession;
+  private MixTimer mixTimer;
 
   public MixClient(WhirlpoolClientConfig config, String logPrefix) {
     this(config, logPrefix, new ClientCryptoService(), new WhirlpoolProtocol());
@@ -71,6 +74,8 @@ public class MixClient {
     }
 
     listenerProgress(MixStep.CONNECTING);
+    mixTimer = config.getMixTimings().newTimer(mixParams.getPoolId());
+    mixTimer.start(MixPhase.CONNECT);
     mixSession =
         new MixSession(
             computeMixDialogListener(),
@@ -82,6 +87,10 @@ public class MixClient {
   }
 
   public void disconnect() {
+    if (mixParams != null) {
+      // release receive index reserved on confirmInput (no-op once confirmed)
+      mixParams.getPostmixHandler().cancelReceiveAddress();
+    }
     if (mixSession != null) {
       mixSession.disconnect();
       mixSession = null;
@@ -89,6 +98,9 @@ public class MixClient {
   }
 
   private void failAndExit(MixFailReason reason, String notifiableError) {
+    if (mixTimer != null) {
+      mixTimer.reset();
+    }
     mixParams.getPostmixHandler().cancelReceiveAddress();
     this.listener.fail(reason, notifiableError);
     disconnect();
@@ -115,6 +127,7 @@ public class MixClient {
 
       @Override
       public void onConnected() {
+        mixTimer.next(MixPhase.CONNECT, MixPhase.SUBSCRIBE);
         listenerProgress(MixStep.CONNECTED);
       }
 
@@ -125,6 +138,8 @@ public class MixClient {
 
       @Override
       public void onConnectionLostWillRetry() {
+        mixTimer.reset();
+        mixTimer.start(MixPhase.CONNECT);
         listenerProgress(MixStep.CONNECTING);
       }
 
@@ -165,7 +180,9 @@ public class MixClient {
       @Override
       public RegisterInputRequest registerInput(SubscribePoolResponse subscribePoolResponse)
           throws Exception {
+        mixTimer.next(MixPhase.SUBSCRIBE, MixPhase.REGISTER_INPUT);
         RegisterInputRequest registerInputRequest = mixProcess.registerInput(subscribePoolResponse);
+        mixTimer.next(MixPhase.REGISTER_INPUT, MixPhase.WAIT_MIX);
         listenerProgress(MixStep.REGISTERED_INPUT);
         return registerInputRequest;
       }
@@ -173,6 +190,7 @@ public class MixClient {
       @Override
       public ConfirmInputRequest confirmInput(
           ConfirmInputMixStatusNotification confirmInputMixStatusNotification) throws Exception {
+        mixTimer.next(MixPhase.WAIT_MIX, MixPhase.CONFIRM_INPUT);
         listenerProgress(MixStep.CONFIRMING_INPUT);
         return mixProcess.confirmInput(confirmInputMixStatusNotification);
       }
@@ -180,6 +198,7 @@ public class MixClient {
       @Override
       public void onConfirmInputResponse(ConfirmInputResponse confirmInputResponse)
           throws Exception {
+        mixTimer.end(MixPhase.CONFIRM_INPUT);
         listenerProgress(MixStep.CONFIRMED_INPUT);
         mixProcess.onConfirmInputResponse(confirmInputResponse);
 
@@ -194,6 +213,7 @@ public class MixClient {
           String registerOutputUrl)
           throws Exception {
         listenerProgress(MixStep.REGISTERING_OUTPUT);
+        mixTimer.start(MixPhase.REGISTER_OUTPUT);
         RegisterOutputRequest registerOutputRequest =
             mixProcess.registerOutput(registerOutputMixStatusNotification);
 
@@ -214,6 +234,7 @@ public class MixClient {
                 new Action() {
                   @Override
                   public void run() throws Exception {
+                    mixTimer.end(MixPhase.REGISTER_OUTPUT);
                     listenerProgress(MixStep.REGISTERED_OUTPUT);
                   }
                 });
@@ -223,6 +244,7 @@ public class MixClient {
 
       @Override
       public void onMixSuccess() {
+        mixTimer.end(MixPhase.SUCCESS);
         disconnect(); // disconnect before notifying listener to avoid reconnecting before
         // disconnect
         listener.progress(MixStep.SUCCESS);
@@ -242,7 +264,9 @@ public class MixClient {
       public SigningRequest signing(SigningMixStatusNotification signingMixStatusNotification)
           throws Exception {
         listenerProgress(MixStep.SIGNING);
+        mixTimer.start(MixPhase.SIGNING);
         SigningRequest signingRequest = mixProcess.signing(signingMixStatusNotification);
+        mixTimer.next(MixPhase.SIGNING, MixPhase.SUCCESS);
         listenerProgress(MixStep.SIGNED);
         return signingRequest;
       }
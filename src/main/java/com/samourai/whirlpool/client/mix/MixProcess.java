@@ -24,6 +24,7 @@ import com.samourai.whirlpool.protocol.websocket.notifications.RegisterOutputMix
 import com.samourai.whirlpool.protocol.websocket.notifications.RevealOutputMixStatusNotification;
 import com.samourai.whirlpool.protocol.websocket.notifications.SigningMixStatusNotification;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -61,6 +62,10 @@ public class MixProcess {
   private String receiveAddress;
   private Utxo receiveUtxo;
 
+  // precomputed values, reused on confirmInput retry
+  private byte[] blindingPublicKey; // server key of blindedBordereau64
+  private String blindedBordereau64;
+
   // security checks
   private boolean registeredInput;
   private boolean confirmedInput;
@@ -131,6 +136,7 @@ public class MixProcess {
     long mustMixBalanceMax = subscribePoolResponse.mustMixBalanceMax;
     checkUtxoBalance(mustMixBalanceMin, mustMixBalanceMax);
 
+    // deterministic signature, cached by premixHandler across mix resets
     String signature = premixHandler.signMessage(poolId);
     RegisterInputRequest registerInputRequest =
         new RegisterInputRequest(
@@ -151,20 +157,27 @@ public class MixProcess {
       throwProtocolException();
     }
 
-    NetworkParameters networkParameters = config.getNetworkParameters();
+    if (this.receiveAddress == null) {
+      // reserve receive index only once selected for a mix, not while waiting in queue. Kept on
+      // confirmInput retries, released on mix reset or failure
+      this.receiveAddress = postmixHandler.computeReceiveAddress(config.getNetworkParameters());
+    }
 
     // use receiveAddress as bordereau. keep it private, but transmit blindedBordereau
     // clear receiveAddress will be provided with unblindedSignedBordereau by connecting with
     // another identity for REGISTER_OUTPUT
     byte[] publicKey = WhirlpoolProtocol.decodeBytes(confirmInputMixStatusNotification.publicKey64);
-    RSAKeyParameters serverPublicKey = ClientUtils.publicKeyUnserialize(publicKey);
-    this.blindingParams = clientCryptoService.computeBlindingParams(serverPublicKey);
-    this.receiveAddress = postmixHandler.computeReceiveAddress(networkParameters);
+    if (blindedBordereau64 == null || !Arrays.equals(publicKey, blindingPublicKey)) {
+      // blind once per server key
+      RSAKeyParameters serverPublicKey = ClientUtils.publicKeyUnserialize(publicKey);
+      this.blindingParams = clientCryptoService.computeBlindingParams(serverPublicKey);
+      this.blindedBordereau64 =
+          WhirlpoolProtocol.encodeBytes(
+              clientCryptoService.blind(this.receiveAddress, blindingParams));
+      this.blindingPublicKey = publicKey;
+    }
 
     String mixId = confirmInputMixStatusNotification.mixId;
-    String blindedBordereau64 =
-        WhirlpoolProtocol.encodeBytes(
-            clientCryptoService.blind(this.receiveAddress, blindingParams));
     String userHash = premixHandler.computeUserHash(mixId);
     ConfirmInputRequest confirmInputRequest =
         new ConfirmInputRequest(mixId, blindedBordereau64, userHash);
@@ -2,6 +2,7 @@ package com.samourai.whirlpool.client.mix.dialog;
 
 import com.samourai.stomp.client.IStompTransportListener;
 import com.samourai.stomp.client.StompTransport;
+import com.samourai.stomp.client.StompTransportPool;
 import com.samourai.whirlpool.client.exception.NotifiableException;
 import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.utils.MessageErrorListener;
@@ -14,10 +15,13 @@ import com.samourai.whirlpool.protocol.websocket.messages.RegisterInputRequest;
 import com.samourai.whirlpool.protocol.websocket.messages.SubscribePoolResponse;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class MixSession {
+  private static final AtomicLong lastSessionId = new AtomicLong(0);
+
   // non-static logger to prefix it with stomp sessionId
   private Logger log;
 
@@ -27,10 +31,13 @@ public class MixSession {
   private String poolId;
   private StompTransport transport;
   private String logPrefix;
+  private final String sessionId; // unique, logPrefix may be shared by sessions
   private boolean done;
 
   // connect data
   private Long connectBeginTime;
+  private ReconnectCoordinator reconnectCoordinator;
+  private int reconnectAttempts;
 
   // session data
   private MixDialog dialog;
@@ -49,6 +56,9 @@ public class MixSession {
     this.poolId = poolId;
     this.transport = null;
     this.logPrefix = logPrefix;
+    this.sessionId = logPrefix + "#" + lastSessionId.incrementAndGet();
+    this.reconnectCoordinator = config.getReconnectCoordinator();
+    this.reconnectAttempts = 0;
     resetDialog();
   }
 
@@ -70,11 +80,45 @@ public class MixSession {
       log.debug("connecting to server: " + wsUrl);
     }
 
-    // connect with a new transport
     Map<String, String> connectHeaders = computeStompHeaders(null);
-    transport =
-        new StompTransport(config.getStompClientService(), computeTransportListener(), logPrefix);
-    transport.connect(wsUrl, connectHeaders);
+    StompTransportPool transportPool = config.getStompTransportPool();
+    if (transportPool != null) {
+      // take a pre-connected transport when available
+      transport = transportPool.take(wsUrl, connectHeaders, computeTransportListener(), logPrefix);
+    } else {
+      // connect with a new transport
+      transport =
+          new StompTransport(
+              config.getStompClientService(),
+              computeTransportListener(),
+              logPrefix,
+              config.getStompHeartbeatDelay(),
+              config.getIoExecutorService());
+      transport.connect(wsUrl, connectHeaders);
+    }
+  }
+
+  private synchronized void reconnect() {
+    if (done) {
+      if (log.isDebugEnabled()) {
+        log.debug("reconnect: done");
+      }
+      reconnectCoordinator.release(sessionId);
+      return;
+    }
+    connect();
+  }
+
+  private long scheduleReconnect() {
+    Runnable reconnect =
+        new Runnable() {
+          @Override
+          public void run() {
+            reconnect();
+          }
+        };
+    return reconnectCoordinator.schedule(
+        sessionId, config.getReconnectDelay(), reconnectAttempts++, reconnect);
   }
 
   private void subscribe() {
@@ -181,6 +225,7 @@ public class MixSession {
     }
     done = true;
     connectBeginTime = null;
+    reconnectCoordinator.cancel(sessionId);
     if (transport != null) {
       transport.disconnect();
     }
@@ -218,6 +263,8 @@ public class MixSession {
           log.debug("Connected in " + elapsedTime + "s");
         }
         connectBeginTime = null;
+        reconnectAttempts = 0;
+        reconnectCoordinator.onConnected(sessionId);
 
         // will get SubscribePoolResponse and start dialog
         subscribe();
@@ -229,6 +276,7 @@ public class MixSession {
       public synchronized void onTransportDisconnected(Throwable exception) {
         // transport cannot be used
         transport = null;
+        reconnectCoordinator.release(sessionId);
 
         if (done) {
           if (log.isDebugEnabled()) {
@@ -252,34 +300,34 @@ public class MixSession {
             return;
           }
 
-          // wait delay before retrying
-          log.info(" ! connexion failed, retrying in " + config.getReconnectDelay() + "s");
-          listener.onConnectionFailWillRetry(config.getReconnectDelay());
-          try {
-            wait(config.getReconnectDelay() * 1000);
-          } catch (Exception e) {
-            log.error("", e);
-          }
+          // retry after backoff, without blocking transport thread
+          long delay = scheduleReconnect();
+          int delaySeconds = (int) Math.ceil(delay / 1000.0);
+          log.info(" ! connexion failed, retrying in " + delaySeconds + "s");
+          listener.onConnectionFailWillRetry(delaySeconds);
         } else {
           // we just got disconnected
           log.error(" ! connexion lost, reconnecting for a new mix...");
           resetDialog();
           listener.onConnectionLostWillRetry();
-        }
 
-        if (done) {
-          if (log.isDebugEnabled()) {
-            log.debug("onTransportDisconnected: done");
-          }
-          return;
+          // reconnect with jitter, to not reconnect at same time as other sessions
+          scheduleReconnect();
         }
-
-        // reconnect
-        connect();
       }
     };
   }
 
+  /** @return reconnect stats of this session, or null when never reconnected */
+  public ReconnectStats getReconnectStats() {
+    return reconnectCoordinator.getStats(sessionId);
+  }
+
+  /** @return unique id of this session, for {@link ReconnectCoordinator} */
+  public String getSessionId() {
+    return sessionId;
+  }
+
   //
   protected StompTransport __getTransport() {
     return transport;
@@ -0,0 +1,258 @@
+package com.samourai.whirlpool.client.mix.dialog;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules reconnections of all {@link MixSession}s sharing it, so that they don't reconnect at
+ * the same instant when server gets unavailable. Each retry waits an exponential backoff with
+ * jitter, and no more than maxConcurrentHandshakes sessions connect at the same time: others wait
+ * for a slot.
+ *
+ * <p>A session holds its slot from reconnection until {@link #onConnected(String)} or {@link
+ * #release(String)}. A slot is released anyway after handshakeTimeout, to never block other
+ * sessions.
+ */
+public class ReconnectCoordinator {
+  private static final Logger log = LoggerFactory.getLogger(ReconnectCoordinator.class);
+  private static final int MAX_CONCURRENT_HANDSHAKES = 10;
+  private static final int MAX_DELAY = 120; // seconds
+  private static final int HANDSHAKE_TIMEOUT = 60; // seconds
+  private static final int MAX_BACKOFF_SHIFT = 16;
+
+  private final ScheduledExecutorService scheduler;
+  private final int maxConcurrentHandshakes;
+  private final int maxDelay;
+  private final int handshakeTimeout;
+  private final Random random;
+  private final Map<String, Object> handshakes; // slot token by sessionId
+  private final Queue<PendingReconnect> pendings; // waiting for a slot
+  private final Map<String, ReconnectStats> stats; // by sessionId
+  private long nbReconnects;
+  private long nbThrottled;
+
+  /**
+   * Coordinator with default limits.
+   *
+   * @param scheduler executor running reconnections, which block while connecting
+   */
+  public ReconnectCoordinator(ScheduledExecutorService scheduler) {
+    this(scheduler, MAX_CONCURRENT_HANDSHAKES, MAX_DELAY, HANDSHAKE_TIMEOUT);
+  }
+
+  /**
+   * @param scheduler executor running reconnections
+   * @param maxConcurrentHandshakes max sessions reconnecting at the same time
+   * @param maxDelay max delay (seconds) between retries
+   * @param handshakeTimeout delay (seconds) after which a slot is released anyway
+   */
+  public ReconnectCoordinator(
+      ScheduledExecutorService scheduler,
+      int maxConcurrentHandshakes,
+      int maxDelay,
+      int handshakeTimeout) {
+    this.scheduler = scheduler;
+    this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+    this.maxDelay = maxDelay;
+    this.handshakeTimeout = handshakeTimeout;
+    this.random = new Random();
+    this.handshakes = new HashMap<String, Object>();
+    this.pendings = new LinkedList<PendingReconnect>();
+    this.stats = new HashMap<String, ReconnectStats>();
+    this.nbReconnects = 0;
+    this.nbThrottled = 0;
+  }
+
+  /**
+   * Compute retry delay: baseDelay * 2^attempt, capped to maxDelay, with jitter in [delay/2,
+   * delay].
+   *
+   * @return delay in milliseconds
+   */
+  public long computeDelay(int baseDelay, int attempt) {
+    long delay = (long) baseDelay * 1000 << Math.min(attempt, MAX_BACKOFF_SHIFT);
+    delay = Math.min(delay, (long) maxDelay * 1000);
+    long half = delay / 2;
+    synchronized (random) {
+      return half + (long) (random.nextDouble() * (delay - half));
+    }
+  }
+
+  /**
+   * Schedule a reconnection. Reconnect runs off the caller thread, once delay elapsed and a
+   * handshake slot is available.
+   *
+   * @param baseDelay retry delay (seconds) for first attempt
+   * @param attempt number of retries since last successful connection
+   * @return delay in milliseconds
+   */
+  public long schedule(
+      final String sessionId, int baseDelay, int attempt, final Runnable reconnect) {
+    long delay = computeDelay(baseDelay, attempt);
+    synchronized (this) {
+      getStatsOrCreate(sessionId).onScheduled(delay);
+      nbReconnects++;
+    }
+    scheduler.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            acquire(new PendingReconnect(sessionId, reconnect));
+          }
+        },
+        delay,
+        TimeUnit.MILLISECONDS);
+    if (log.isDebugEnabled()) {
+      log.debug("[" + sessionId + "] reconnect #" + attempt + " scheduled in " + delay + "ms");
+    }
+    return delay;
+  }
+
+  private void acquire(PendingReconnect pending) {
+    synchronized (this) {
+      if (handshakes.size() >= maxConcurrentHandshakes) {
+        // wait for a slot
+        pendings.add(pending);
+        getStatsOrCreate(pending.sessionId).onThrottled();
+        nbThrottled++;
+        if (log.isDebugEnabled()) {
+          log.debug(
+              "["
+                  + pending.sessionId
+                  + "] reconnect throttled: "
+                  + handshakes.size()
+                  + " handshakes running, "
+                  + pendings.size()
+                  + " waiting");
+        }
+        return;
+      }
+      startHandshake(pending.sessionId);
+    }
+    pending.reconnect.run();
+  }
+
+  private void startHandshake(final String sessionId) {
+    final Object token = new Object();
+    handshakes.put(sessionId, token);
+    scheduler.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            releaseIfToken(sessionId, token);
+          }
+        },
+        handshakeTimeout,
+        TimeUnit.SECONDS);
+  }
+
+  private void releaseIfToken(String sessionId, Object token) {
+    synchronized (this) {
+      if (handshakes.get(sessionId) != token) {
+        return;
+      }
+      log.warn("[" + sessionId + "] handshake timeout, releasing slot");
+    }
+    release(sessionId);
+  }
+
+  /** Handshake succeeded: release slot and reset backoff. */
+  public void onConnected(String sessionId) {
+    synchronized (this) {
+      ReconnectStats sessionStats = stats.get(sessionId);
+      if (sessionStats != null) {
+        sessionStats.onConnected();
+      }
+    }
+    release(sessionId);
+  }
+
+  /** Handshake is over (failed or cancelled): release slot for next waiting session. */
+  public void release(String sessionId) {
+    PendingReconnect next = null;
+    synchronized (this) {
+      if (handshakes.remove(sessionId) == null) {
+        return; // no slot held
+      }
+      next = pendings.poll();
+      if (next != null) {
+        startHandshake(next.sessionId);
+      }
+    }
+    if (next != null) {
+      scheduler.execute(next.reconnect);
+    }
+  }
+
+  /** Session is done: forget its pending reconnect and stats. */
+  public void cancel(String sessionId) {
+    synchronized (this) {
+      Iterator<PendingReconnect> it = pendings.iterator();
+      while (it.hasNext()) {
+        if (it.next().sessionId.equals(sessionId)) {
+          it.remove();
+        }
+      }
+      stats.remove(sessionId);
+    }
+    release(sessionId);
+  }
+
+  private ReconnectStats getStatsOrCreate(String sessionId) {
+    ReconnectStats sessionStats = stats.get(sessionId);
+    if (sessionStats == null) {
+      sessionStats = new ReconnectStats();
+      stats.put(sessionId, sessionStats);
+    }
+    return sessionStats;
+  }
+
+  /** @return stats copy of a running session, or null */
+  public synchronized ReconnectStats getStats(String sessionId) {
+    ReconnectStats sessionStats = stats.get(sessionId);
+    return sessionStats != null ? sessionStats.copy() : null;
+  }
+
+  /** @return stats copy of running sessions */
+  public synchronized Map<String, ReconnectStats> getStats() {
+    Map<String, ReconnectStats> copy = new HashMap<String, ReconnectStats>();
+    for (Map.Entry<String, ReconnectStats> entry : stats.entrySet()) {
+      copy.put(entry.getKey(), entry.getValue().copy());
+    }
+    return copy;
+  }
+
+  public synchronized int getNbHandshakes() {
+    return handshakes.size();
+  }
+
+  public synchronized int getNbPendings() {
+    return pendings.size();
+  }
+
+  public synchronized long getNbReconnects() {
+    return nbReconnects;
+  }
+
+  public synchronized long getNbThrottled() {
+    return nbThrottled;
+  }
+
+  private static class PendingReconnect {
+    private final String sessionId;
+    private final Runnable reconnect;
+
+    PendingReconnect(String sessionId, Runnable reconnect) {
+      this.sessionId = sessionId;
+      this.reconnect = reconnect;
+    }
+  }
+}
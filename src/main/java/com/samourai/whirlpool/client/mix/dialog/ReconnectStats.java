@@ -0,0 +1,98 @@
+package com.samourai.whirlpool.client.mix.dialog;
+
+/** Reconnection statistics of a session. */
+public class ReconnectStats {
+  private int nbReconnects; // scheduled reconnections
+  private int nbConnected; // successful reconnections
+  private int nbThrottled; // reconnections delayed for a handshake slot
+  private int nbFailuresSinceConnected;
+  private long lastDelay; // ms
+  private long totalDelay; // ms
+  private Long lastReconnectTime;
+
+  protected ReconnectStats() {
+    this.nbReconnects = 0;
+    this.nbConnected = 0;
+    this.nbThrottled = 0;
+    this.nbFailuresSinceConnected = 0;
+    this.lastDelay = 0;
+    this.totalDelay = 0;
+    this.lastReconnectTime = null;
+  }
+
+  protected ReconnectStats copy() {
+    ReconnectStats copy = new ReconnectStats();
+    copy.nbReconnects = nbReconnects;
+    copy.nbConnected = nbConnected;
+    copy.nbThrottled = nbThrottled;
+    copy.nbFailuresSinceConnected = nbFailuresSinceConnected;
+    copy.lastDelay = lastDelay;
+    copy.totalDelay = totalDelay;
+    copy.lastReconnectTime = lastReconnectTime;
+    return copy;
+  }
+
+  protected void onScheduled(long delay) {
+    nbReconnects++;
+    nbFailuresSinceConnected++;
+    lastDelay = delay;
+    totalDelay += delay;
+    lastReconnectTime = System.currentTimeMillis();
+  }
+
+  protected void onThrottled() {
+    nbThrottled++;
+  }
+
+  protected void onConnected() {
+    if (nbFailuresSinceConnected > 0) {
+      nbConnected++;
+    }
+    nbFailuresSinceConnected = 0;
+  }
+
+  public int getNbReconnects() {
+    return nbReconnects;
+  }
+
+  public int getNbConnected() {
+    return nbConnected;
+  }
+
+  public int getNbThrottled() {
+    return nbThrottled;
+  }
+
+  public int getNbFailuresSinceConnected() {
+    return nbFailuresSinceConnected;
+  }
+
+  public long getLastDelay() {
+    return lastDelay;
+  }
+
+  public long getTotalDelay() {
+    return totalDelay;
+  }
+
+  public Long getLastReconnectTime() {
+    return lastReconnectTime;
+  }
+
+  @Override
+  public String toString() {
+    return "nbReconnects="
+        + nbReconnects
+        + ", nbConnected="
+        + nbConnected
+        + ", nbThrottled="
+        + nbThrottled
+        + ", nbFailuresSinceConnected="
+        + nbFailuresSinceConnected
+        + ", lastDelay="
+        + lastDelay
+        + "ms, totalDelay="
+        + totalDelay
+        + "ms";
+  }
+}
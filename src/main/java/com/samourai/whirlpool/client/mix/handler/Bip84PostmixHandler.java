@@ -1,24 +1,20 @@
 package com.samourai.whirlpool.client.mix.handler;
 
 import com.samourai.wallet.client.Bip84Wallet;
-import com.samourai.wallet.hd.HD_Address;
-import com.samourai.wallet.segwit.bech32.Bech32UtilGeneric;
+import com.samourai.wallet.client.CachedAddress;
 import org.bitcoinj.core.NetworkParameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class Bip84PostmixHandler implements IPostmixHandler {
   private static final Logger log = LoggerFactory.getLogger(Bip84PostmixHandler.class);
-  private Bech32UtilGeneric bech32Util = Bech32UtilGeneric.getInstance();
   private Bip84Wallet postmixWallet;
   private boolean mobile;
-  private HD_Address receiveAddress;
   private Integer receiveAddressIndex;
 
   public Bip84PostmixHandler(Bip84Wallet postmixWallet, boolean mobile) {
     this.postmixWallet = postmixWallet;
     this.mobile = mobile;
-    this.receiveAddress = null;
     this.receiveAddressIndex = null;
   }
 
@@ -26,18 +22,22 @@ public class Bip84PostmixHandler implements IPostmixHandler {
   public synchronized String computeReceiveAddress(NetworkParameters params) throws Exception {
     // use "unconfirmed" index to avoid huge index gaps on multiple mix failures
     this.receiveAddressIndex = computeNextReceiveAddressIndex();
-    this.receiveAddress =
-        postmixWallet.getAddressAt(Bip84Wallet.CHAIN_RECEIVE, this.receiveAddressIndex);
+    CachedAddress cachedAddress =
+        postmixWallet.getCachedAddressAt(Bip84Wallet.CHAIN_RECEIVE, this.receiveAddressIndex);
 
-    String bech32Address = bech32Util.toBech32(receiveAddress, params);
+    String bech32Address = cachedAddress.getBech32(params);
     if (log.isDebugEnabled()) {
       log.debug(
           "receiveAddressIndex="
               + receiveAddressIndex
               + ", receiveAddress="
               + bech32Address
-              + ", path="
-              + receiveAddress.toJSON().get("path"));
+              + ", path=m/84'/"
+              + postmixWallet.getAccountIndex()
+              + "'/"
+              + Bip84Wallet.CHAIN_RECEIVE
+              + "/"
+              + receiveAddressIndex);
     }
     return bech32Address;
   }
@@ -11,6 +11,10 @@ public class PremixHandler implements IPremixHandler {
   private ECKey utxoKey;
   private String userPreHash;
 
+  // last signed message, as signature is deterministic
+  private String signedMessage;
+  private String signature;
+
   public PremixHandler(UtxoWithBalance utxo, ECKey utxoKey, String userPreHash) {
     this.utxo = utxo;
     this.utxoKey = utxoKey;
@@ -30,8 +34,12 @@ public class PremixHandler implements IPremixHandler {
   }
 
   @Override
-  public String signMessage(String message) {
-    return utxoKey.signMessage(message);
+  public synchronized String signMessage(String message) {
+    if (!message.equals(signedMessage)) {
+      signature = utxoKey.signMessage(message);
+      signedMessage = message;
+    }
+    return signature;
   }
 
   @Override
@@ -0,0 +1,103 @@
+package com.samourai.whirlpool.client.mix.timing;
+
+/**
+ * Histogram of durations, with power-of-2 buckets in milliseconds: bucket i counts durations in
+ * [2^(i-1), 2^i[ (bucket 0 counts durations under 1ms). Percentiles are approximated by bucket
+ * upper bounds.
+ */
+public class LatencyHistogram {
+  private static final int NB_BUCKETS = 32;
+
+  private final long[] buckets;
+  private long count;
+  private long sum;
+  private long min;
+  private long max;
+
+  public LatencyHistogram() {
+    this.buckets = new long[NB_BUCKETS];
+    this.count = 0;
+    this.sum = 0;
+    this.min = 0;
+    this.max = 0;
+  }
+
+  public synchronized void record(long duration) {
+    if (duration < 0) {
+      duration = 0;
+    }
+    buckets[computeBucket(duration)]++;
+    min = count == 0 ? duration : Math.min(min, duration);
+    max = Math.max(max, duration);
+    count++;
+    sum += duration;
+  }
+
+  private static int computeBucket(long duration) {
+    int bucket = 64 - Long.numberOfLeadingZeros(duration); // bit length
+    return Math.min(bucket, NB_BUCKETS - 1);
+  }
+
+  public synchronized LatencyHistogram copy() {
+    LatencyHistogram copy = new LatencyHistogram();
+    System.arraycopy(buckets, 0, copy.buckets, 0, NB_BUCKETS);
+    copy.count = count;
+    copy.sum = sum;
+    copy.min = min;
+    copy.max = max;
+    return copy;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return approximated duration (ms) under which percentile of durations are
+   */
+  public synchronized long getPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(count * percentile / 100);
+    long cumulated = 0;
+    for (int i = 0; i < NB_BUCKETS; i++) {
+      cumulated += buckets[i];
+      if (cumulated >= rank && buckets[i] > 0) {
+        long upperBound = i == 0 ? 0 : (1L << i) - 1;
+        return Math.min(Math.max(upperBound, min), max);
+      }
+    }
+    return max;
+  }
+
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public synchronized long getMean() {
+    return count > 0 ? sum / count : 0;
+  }
+
+  public synchronized long getMin() {
+    return min;
+  }
+
+  public synchronized long getMax() {
+    return max;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "count="
+        + count
+        + ", mean="
+        + getMean()
+        + "ms, p50="
+        + getPercentile(50)
+        + "ms, p90="
+        + getPercentile(90)
+        + "ms, p99="
+        + getPercentile(99)
+        + "ms, max="
+        + max
+        + "ms";
+  }
+}
@@ -0,0 +1,22 @@
+package com.samourai.whirlpool.client.mix.timing;
+
+public enum MixPhase {
+  CONNECT("connect"),
+  SUBSCRIBE("subscribe"),
+  REGISTER_INPUT("register input"),
+  WAIT_MIX("waiting for a mix"),
+  CONFIRM_INPUT("confirm input"),
+  REGISTER_OUTPUT("register output"),
+  SIGNING("signing"),
+  SUCCESS("success");
+
+  private String label;
+
+  MixPhase(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
@@ -0,0 +1,44 @@
+package com.samourai.whirlpool.client.mix.timing;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/** Measures phases of a mix. A phase is recorded when ended after being started. */
+public class MixTimer {
+  private final MixTimings mixTimings;
+  private final String poolId;
+  private final Map<MixPhase, Long> startTimes;
+
+  protected MixTimer(MixTimings mixTimings, String poolId) {
+    this.mixTimings = mixTimings;
+    this.poolId = poolId;
+    this.startTimes = new EnumMap<MixPhase, Long>(MixPhase.class);
+  }
+
+  public void start(MixPhase phase) {
+    synchronized (this) {
+      startTimes.put(phase, System.currentTimeMillis());
+    }
+  }
+
+  /** End current phase and start next one. */
+  public void next(MixPhase phase, MixPhase nextPhase) {
+    end(phase);
+    start(nextPhase);
+  }
+
+  public void end(MixPhase phase) {
+    Long startTime;
+    synchronized (this) {
+      startTime = startTimes.remove(phase);
+    }
+    if (startTime != null) {
+      mixTimings.record(poolId, phase, System.currentTimeMillis() - startTime);
+    }
+  }
+
+  /** Forget started phases, when mix is reset. */
+  public synchronized void reset() {
+    startTimes.clear();
+  }
+}
@@ -0,0 +1,10 @@
+package com.samourai.whirlpool.client.mix.timing;
+
+public interface MixTimingListener {
+  /**
+   * Called when a mix phase ends.
+   *
+   * @param duration phase duration (ms)
+   */
+  void onPhase(String poolId, MixPhase phase, long duration);
+}
@@ -0,0 +1,80 @@
+package com.samourai.whirlpool.client.mix.timing;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Durations of mix phases, as histograms per pool. */
+public class MixTimings {
+  private static final Logger log = LoggerFactory.getLogger(MixTimings.class);
+
+  private final Map<String, Map<MixPhase, LatencyHistogram>> histograms; // by poolId
+  private final CopyOnWriteArrayList<MixTimingListener> listeners;
+
+  public MixTimings() {
+    this.histograms = new HashMap<String, Map<MixPhase, LatencyHistogram>>();
+    this.listeners = new CopyOnWriteArrayList<MixTimingListener>();
+  }
+
+  public MixTimer newTimer(String poolId) {
+    return new MixTimer(this, poolId);
+  }
+
+  public void record(String poolId, MixPhase phase, long duration) {
+    getHistogram(poolId, phase).record(duration);
+    if (log.isDebugEnabled()) {
+      log.debug("[" + poolId + "] " + phase.getLabel() + ": " + duration + "ms");
+    }
+    for (MixTimingListener listener : listeners) {
+      try {
+        listener.onPhase(poolId, phase, duration);
+      } catch (Exception e) {
+        log.error("listener failed", e);
+      }
+    }
+  }
+
+  private synchronized LatencyHistogram getHistogram(String poolId, MixPhase phase) {
+    Map<MixPhase, LatencyHistogram> poolHistograms = histograms.get(poolId);
+    if (poolHistograms == null) {
+      poolHistograms = new EnumMap<MixPhase, LatencyHistogram>(MixPhase.class);
+      histograms.put(poolId, poolHistograms);
+    }
+    LatencyHistogram histogram = poolHistograms.get(phase);
+    if (histogram == null) {
+      histogram = new LatencyHistogram();
+      poolHistograms.put(phase, histogram);
+    }
+    return histogram;
+  }
+
+  /** @return copy of histograms by poolId and phase */
+  public synchronized Map<String, Map<MixPhase, LatencyHistogram>> getSnapshot() {
+    Map<String, Map<MixPhase, LatencyHistogram>> snapshot =
+        new HashMap<String, Map<MixPhase, LatencyHistogram>>();
+    for (Map.Entry<String, Map<MixPhase, LatencyHistogram>> entry : histograms.entrySet()) {
+      Map<MixPhase, LatencyHistogram> poolSnapshot =
+          new EnumMap<MixPhase, LatencyHistogram>(MixPhase.class);
+      for (Map.Entry<MixPhase, LatencyHistogram> poolEntry : entry.getValue().entrySet()) {
+        poolSnapshot.put(poolEntry.getKey(), poolEntry.getValue().copy());
+      }
+      snapshot.put(entry.getKey(), poolSnapshot);
+    }
+    return snapshot;
+  }
+
+  public synchronized void clear() {
+    histograms.clear();
+  }
+
+  public void addListener(MixTimingListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(MixTimingListener listener) {
+    listeners.remove(listener);
+  }
+}
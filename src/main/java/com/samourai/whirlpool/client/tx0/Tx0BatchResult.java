@@ -0,0 +1,53 @@
+package com.samourai.whirlpool.client.tx0;
+
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/** Result of a tx0 batch: pushed tx0s, and spendFroms of tx0s which were not pushed. */
+public class Tx0BatchResult {
+  private List<Tx0> tx0s;
+  private List<Collection<WhirlpoolUtxo>> failedSpendFroms;
+  private Exception error;
+
+  public Tx0BatchResult() {
+    this.tx0s = new ArrayList<Tx0>();
+    this.failedSpendFroms = new ArrayList<Collection<WhirlpoolUtxo>>();
+    this.error = null;
+  }
+
+  public void addSuccess(Tx0 tx0) {
+    tx0s.add(tx0);
+  }
+
+  public void addFailure(Collection<WhirlpoolUtxo> spendFroms, Exception e) {
+    failedSpendFroms.add(spendFroms);
+    if (error == null) {
+      error = e;
+    }
+  }
+
+  public boolean isSuccess() {
+    return failedSpendFroms.isEmpty();
+  }
+
+  /** @return pushed tx0s, in push order */
+  public List<Tx0> getTx0s() {
+    return tx0s;
+  }
+
+  public List<Collection<WhirlpoolUtxo>> getFailedSpendFroms() {
+    return failedSpendFroms;
+  }
+
+  /** @return first error, or null when all tx0s were pushed */
+  public Exception getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return "tx0s=" + tx0s.size() + ", failed=" + failedSpendFroms.size() + ", error=" + error;
+  }
+}
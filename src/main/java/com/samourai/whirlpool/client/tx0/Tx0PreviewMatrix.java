@@ -0,0 +1,61 @@
+package com.samourai.whirlpool.client.tx0;
+
+import com.samourai.whirlpool.client.wallet.beans.Tx0FeeTarget;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Tx0 previews of a same spendFrom for several pools and fee targets. */
+public class Tx0PreviewMatrix {
+  private Map<String, Map<Tx0FeeTarget, Tx0Preview>> previews; // by poolId
+  private Map<String, Map<Tx0FeeTarget, Exception>> errors; // by poolId
+
+  public Tx0PreviewMatrix() {
+    this.previews = new LinkedHashMap<String, Map<Tx0FeeTarget, Tx0Preview>>();
+    this.errors = new LinkedHashMap<String, Map<Tx0FeeTarget, Exception>>();
+  }
+
+  protected void putPreview(String poolId, Tx0FeeTarget feeTarget, Tx0Preview tx0Preview) {
+    Map<Tx0FeeTarget, Tx0Preview> poolPreviews = previews.get(poolId);
+    if (poolPreviews == null) {
+      poolPreviews = new LinkedHashMap<Tx0FeeTarget, Tx0Preview>();
+      previews.put(poolId, poolPreviews);
+    }
+    poolPreviews.put(feeTarget, tx0Preview);
+  }
+
+  protected void putError(String poolId, Tx0FeeTarget feeTarget, Exception e) {
+    Map<Tx0FeeTarget, Exception> poolErrors = errors.get(poolId);
+    if (poolErrors == null) {
+      poolErrors = new LinkedHashMap<Tx0FeeTarget, Exception>();
+      errors.put(poolId, poolErrors);
+    }
+    poolErrors.put(feeTarget, e);
+  }
+
+  /** @return preview, or null when tx0 is not possible (see {@link #getError}) */
+  public Tx0Preview getPreview(String poolId, Tx0FeeTarget feeTarget) {
+    Map<Tx0FeeTarget, Tx0Preview> poolPreviews = previews.get(poolId);
+    return poolPreviews != null ? poolPreviews.get(feeTarget) : null;
+  }
+
+  public Exception getError(String poolId, Tx0FeeTarget feeTarget) {
+    Map<Tx0FeeTarget, Exception> poolErrors = errors.get(poolId);
+    return poolErrors != null ? poolErrors.get(feeTarget) : null;
+  }
+
+  /** @return poolIds with at least one possible tx0 */
+  public Collection<String> getPoolIds() {
+    return previews.keySet();
+  }
+
+  public Map<Tx0FeeTarget, Tx0Preview> getPreviews(String poolId) {
+    Map<Tx0FeeTarget, Tx0Preview> poolPreviews = previews.get(poolId);
+    return poolPreviews != null ? poolPreviews : new LinkedHashMap<Tx0FeeTarget, Tx0Preview>();
+  }
+
+  @Override
+  public String toString() {
+    return "previews=" + previews + ", errors=" + errors.keySet();
+  }
+}
@@ -11,15 +11,23 @@ import com.samourai.whirlpool.client.exception.NotifiableException;
 import com.samourai.whirlpool.client.utils.BIP69InputComparatorUnspentOutput;
 import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.wallet.WhirlpoolWalletConfig;
+import com.samourai.whirlpool.client.wallet.beans.Tx0FeeTarget;
 import com.samourai.whirlpool.client.whirlpool.beans.Pool;
 import com.samourai.whirlpool.client.whirlpool.beans.Tx0Data;
 import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
 import com.samourai.whirlpool.protocol.fee.WhirlpoolFee;
 import com.samourai.whirlpool.protocol.rest.Tx0DataResponse;
+import java.io.ByteArrayOutputStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java8.util.concurrent.ForkJoinPool;
 import java8.util.function.ToLongFunction;
 import java8.util.stream.StreamSupport;
 import org.bitcoinj.core.*;
+import org.bitcoinj.crypto.TransactionSignature;
 import org.bitcoinj.script.Script;
 import org.bitcoinj.script.ScriptBuilder;
 import org.bitcoinj.script.ScriptOpCodes;
@@ -30,6 +38,7 @@ import org.slf4j.LoggerFactory;
 public class Tx0Service {
   private Logger log = LoggerFactory.getLogger(Tx0Service.class);
   protected static final int NB_PREMIX_MAX = 600;
+  private static final int NB_PREMIX_MAX_CACHE_SIZE = 1000;
 
   private final Bech32UtilGeneric bech32Util = Bech32UtilGeneric.getInstance();
   private final WhirlpoolFee whirlpoolFee;
@@ -37,6 +46,23 @@ public class Tx0Service {
 
   private WhirlpoolWalletConfig config;
 
+  // nbPremixMax by balance, nbInputs, premixValue, fee value & fee rate
+  private final Map<String, Integer> nbPremixMaxCache =
+      new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+          return size() > NB_PREMIX_MAX_CACHE_SIZE;
+        }
+      };
+
+  // Tx0Data by poolId & scode
+  private final Map<String, Tx0DataCached> tx0DataCache =
+      new ConcurrentHashMap<String, Tx0DataCached>();
+  private final Set<String> tx0DataPrefetchs = new HashSet<String>();
+  // Tx0Data already used by a tx0 (weak keys, by identity)
+  private final Set<Tx0Data> usedTx0Datas =
+      Collections.newSetFromMap(new WeakHashMap<Tx0Data, Boolean>());
+
   public Tx0Service(WhirlpoolWalletConfig config) {
     this.config = config;
     whirlpoolFee = WhirlpoolFee.getInstance(config.getSecretPointFactory());
@@ -48,41 +74,53 @@ public class Tx0Service {
       long feeValueOrFeeChange,
       int feeTx0) {
     long spendFromBalance = computeSpendFromBalance(spendFrom);
+    int nbSpendFroms = spendFrom.size();
 
-    // compute nbPremix ignoring TX0 fee
-    int nbPremixInitial = (int) Math.ceil(spendFromBalance / premixValue);
+    String cacheKey =
+        spendFromBalance
+            + ":"
+            + nbSpendFroms
+            + ":"
+            + premixValue
+            + ":"
+            + feeValueOrFeeChange
+            + ":"
+            + feeTx0;
+    synchronized (nbPremixMaxCache) {
+      Integer cached = nbPremixMaxCache.get(cacheKey);
+      if (cached != null) {
+        return cached;
+      }
+    }
 
-    // compute nbPremix with TX0 fee
-    int nbPremix = nbPremixInitial;
-    while (true) {
-      // estimate TX0 fee for nbPremix
+    // spendValue grows with nbPremix => binary search highest nbPremix affordable with TX0 fee
+    int nbPremixInitial = (int) Math.min(spendFromBalance / premixValue, Integer.MAX_VALUE - 1);
+    int low = 0; // affordable (or nothing is)
+    int high = nbPremixInitial + 1; // not affordable
+    while (high - low > 1) {
+      int nbPremix = low + (high - low) / 2;
       long tx0MinerFee = computeTx0MinerFee(nbPremix, feeTx0, spendFrom);
       long spendValue =
           computeTx0SpendValue(premixValue, nbPremix, feeValueOrFeeChange, tx0MinerFee);
-      if (log.isDebugEnabled()) {
-        log.debug(
-            "computeNbPremixMax: nbPremix="
-                + nbPremix
-                + " => spendValue="
-                + spendValue
-                + ", tx0MinerFee="
-                + tx0MinerFee
-                + ", spendFromBalance="
-                + spendFromBalance
-                + ", nbPremixInitial="
-                + nbPremixInitial);
-      }
       if (spendFromBalance < spendValue) {
-        // if UTXO balance is insufficient, try with less nbPremix
-        nbPremix--;
+        high = nbPremix;
       } else {
-        // nbPremix found
-        break;
+        low = nbPremix;
       }
     }
-    // no negative value
-    if (nbPremix < 0) {
-      nbPremix = 0;
+    int nbPremix = low;
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "computeNbPremixMax: nbPremix="
+              + nbPremix
+              + ", spendFromBalance="
+              + spendFromBalance
+              + ", nbPremixInitial="
+              + nbPremixInitial);
+    }
+
+    synchronized (nbPremixMaxCache) {
+      nbPremixMaxCache.put(cacheKey, nbPremix);
     }
     return nbPremix;
   }
@@ -138,8 +176,8 @@ public class Tx0Service {
   public Tx0Preview tx0Preview(
       Collection<UnspentOutputWithKey> spendFroms, Tx0Config tx0Config, Tx0Param tx0Param)
       throws Exception {
-    // fetch fresh Tx0Data
-    Tx0Data tx0Data = fetchTx0Data(tx0Param.getPool().getPoolId());
+    // fetch Tx0Data (or recently fetched)
+    Tx0Data tx0Data = getTx0Data(tx0Param.getPool().getPoolId());
     return tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
   }
 
@@ -198,6 +236,208 @@ public class Tx0Service {
     return tx0Preview;
   }
 
+  /**
+   * Preview tx0 for each pool & fee target.
+   *
+   * @param tx0ParamsByFeeTarget fee params for each fee target
+   * @param tx0Datas Tx0Data by poolId, see {@link #fetchTx0Datas(Collection)}
+   */
+  public Tx0PreviewMatrix tx0PreviewMatrix(
+      Collection<UnspentOutputWithKey> spendFroms,
+      Tx0Config tx0Config,
+      Collection<Pool> pools,
+      Map<Tx0FeeTarget, Tx0ParamSimple> tx0ParamsByFeeTarget,
+      Map<String, Tx0Data> tx0Datas) {
+    Tx0PreviewMatrix tx0PreviewMatrix = new Tx0PreviewMatrix();
+    for (Pool pool : pools) {
+      String poolId = pool.getPoolId();
+      Tx0Data tx0Data = tx0Datas.get(poolId);
+      for (Map.Entry<Tx0FeeTarget, Tx0ParamSimple> entry : tx0ParamsByFeeTarget.entrySet()) {
+        Tx0FeeTarget feeTarget = entry.getKey();
+        try {
+          if (tx0Data == null) {
+            throw new NotifiableException("Tx0Data unavailable for pool " + poolId);
+          }
+          Tx0Param tx0Param = entry.getValue().computeTx0Param(pool);
+          Tx0Preview tx0Preview = tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
+          tx0PreviewMatrix.putPreview(poolId, feeTarget, tx0Preview);
+        } catch (Exception e) {
+          tx0PreviewMatrix.putError(poolId, feeTarget, e);
+        }
+      }
+    }
+    return tx0PreviewMatrix;
+  }
+
+  /** Get Tx0Data of several pools concurrently. Pools which failed are missing from result. */
+  public Map<String, Tx0Data> fetchTx0Datas(Collection<Pool> pools) {
+    Map<String, Future<Tx0Data>> futures = new LinkedHashMap<String, Future<Tx0Data>>();
+    for (Pool pool : pools) {
+      final String poolId = pool.getPoolId();
+      futures.put(
+          poolId,
+          config
+              .getIoExecutorService()
+              .submit(
+                  new Callable<Tx0Data>() {
+                    @Override
+                    public Tx0Data call() throws Exception {
+                      return getTx0Data(poolId);
+                    }
+                  }));
+    }
+
+    Map<String, Tx0Data> tx0Datas = new LinkedHashMap<String, Tx0Data>();
+    for (Map.Entry<String, Future<Tx0Data>> entry : futures.entrySet()) {
+      try {
+        tx0Datas.put(entry.getKey(), entry.getValue().get());
+      } catch (Exception e) {
+        log.error("fetchTx0Data failed for pool " + entry.getKey(), e);
+      }
+    }
+    return tx0Datas;
+  }
+
+  /**
+   * Split spendFroms into tx0s of {@link #NB_PREMIX_MAX} (or maxOutputs) premixs max. By default
+   * each utxo gets its own tx0, so that deposit utxos are never linked together. With
+   * consolidation, utxos are grouped biggest first until a group can fill a whole tx0.
+   *
+   * @return spendFroms of each tx0, utxos too small for a tx0 are left out
+   */
+  public <T extends UnspentResponse.UnspentOutput> List<List<T>> planTx0s(
+      Collection<T> spendFroms, Tx0Config tx0Config, Tx0Param tx0Param, boolean consolidate) {
+    int nbPremixMax = NB_PREMIX_MAX;
+    if (tx0Config.getMaxOutputs() != null) {
+      nbPremixMax = Math.min(nbPremixMax, tx0Config.getMaxOutputs());
+    }
+
+    // biggest first
+    List<T> sortedSpendFroms = new ArrayList<T>(spendFroms);
+    Collections.sort(
+        sortedSpendFroms,
+        new Comparator<T>() {
+          @Override
+          public int compare(T o1, T o2) {
+            return o2.value < o1.value ? -1 : (o2.value == o1.value ? 0 : 1);
+          }
+        });
+
+    List<List<T>> plans = new ArrayList<List<T>>();
+    List<T> group = new ArrayList<T>();
+    for (T spendFrom : sortedSpendFroms) {
+      group.add(spendFrom);
+      boolean full =
+          !consolidate
+              || computeSpendFromBalance(group)
+                  >= computeSpendFromBalanceMin(tx0Param, nbPremixMax, group);
+      if (full) {
+        if (isTx0Possible(group, tx0Param)) {
+          plans.add(group);
+        }
+        group = new ArrayList<T>();
+      }
+    }
+    // remaining utxos too small to fill a tx0
+    if (!group.isEmpty() && isTx0Possible(group, tx0Param)) {
+      plans.add(group);
+    }
+    return plans;
+  }
+
+  private long computeSpendFromBalanceMin(
+      Tx0Param tx0Param, int nbPremix, Collection<? extends UnspentResponse.UnspentOutput> group) {
+    long tx0MinerFee = computeTx0MinerFee(nbPremix, tx0Param.getFeeTx0(), group);
+    long samouraiFee = tx0Param.getPool().getFeeValue();
+    return computeTx0SpendValue(tx0Param.getPremixValue(), nbPremix, samouraiFee, tx0MinerFee);
+  }
+
+  private boolean isTx0Possible(
+      Collection<? extends UnspentResponse.UnspentOutput> group, Tx0Param tx0Param) {
+    return computeSpendFromBalance(group) >= computeSpendFromBalanceMin(tx0Param, 1, group);
+  }
+
+  /**
+   * Build & sign several tx0s in parallel (see {@link #planTx0s}). Each tx0 gets its own Tx0Data,
+   * as a fee indice can only be used once: they are all fetched concurrently before building.
+   * Nothing is pushed.
+   *
+   * @return tx0s in same order as spendFromsList
+   * @throws Exception when any tx0 could not be built
+   */
+  public List<Tx0> tx0s(
+      List<? extends Collection<UnspentOutputWithKey>> spendFromsList,
+      final Bip84Wallet depositWallet,
+      final Bip84Wallet premixWallet,
+      final Bip84Wallet postmixWallet,
+      final Bip84Wallet badbankWallet,
+      final Tx0Config tx0Config,
+      final Tx0Param tx0Param)
+      throws Exception {
+    // fetch Tx0Datas (network)
+    final String poolId = tx0Param.getPool().getPoolId();
+    List<Future<Tx0Data>> tx0DataFutures = new ArrayList<Future<Tx0Data>>();
+    for (int i = 0; i < spendFromsList.size(); i++) {
+      final boolean first = (i == 0);
+      tx0DataFutures.add(
+          config
+              .getIoExecutorService()
+              .submit(
+                  new Callable<Tx0Data>() {
+                    @Override
+                    public Tx0Data call() throws Exception {
+                      // first one may be prefetched
+                      return first ? takeTx0Data(poolId) : fetchTx0Data(poolId);
+                    }
+                  }));
+    }
+    List<Tx0Data> tx0Datas = getAll(tx0DataFutures);
+
+    // build & sign (cpu)
+    List<Future<Tx0>> futures = new ArrayList<Future<Tx0>>();
+    for (int i = 0; i < spendFromsList.size(); i++) {
+      final Collection<UnspentOutputWithKey> spendFroms = spendFromsList.get(i);
+      final Tx0Data tx0Data = tx0Datas.get(i);
+      futures.add(
+          config
+              .getExecutorService()
+              .submit(
+                  new Callable<Tx0>() {
+                    @Override
+                    public Tx0 call() throws Exception {
+                      Tx0Preview tx0Preview =
+                          tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
+                      return tx0(
+                          spendFroms,
+                          depositWallet,
+                          premixWallet,
+                          postmixWallet,
+                          badbankWallet,
+                          tx0Config,
+                          tx0Preview);
+                    }
+                  }));
+    }
+    return getAll(futures);
+  }
+
+  /** Wait for all futures, or cancel them all on first failure. */
+  private <T> List<T> getAll(List<Future<T>> futures) throws Exception {
+    List<T> results = new ArrayList<T>();
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (ExecutionException e) {
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+      Throwable cause = e.getCause();
+      throw (cause instanceof Exception ? (Exception) cause : e);
+    }
+    return results;
+  }
+
   /** Generate maxOutputs premixes outputs max. */
   public Tx0 tx0(
       Collection<UnspentOutputWithKey> spendFroms,
@@ -209,8 +449,9 @@ public class Tx0Service {
       Tx0Param tx0Param)
       throws Exception {
 
-    // compute & preview
-    Tx0Preview tx0Preview = tx0Preview(spendFroms, tx0Config, tx0Param);
+    // compute & preview, with a Tx0Data not shared with previews or other tx0s
+    Tx0Data tx0Data = takeTx0Data(tx0Param.getPool().getPoolId());
+    Tx0Preview tx0Preview = tx0Preview(spendFroms, tx0Config, tx0Param, tx0Data);
 
     log.info(
         " • Tx0: spendFrom="
@@ -248,6 +489,11 @@ public class Tx0Service {
 
     Tx0Data tx0Data = tx0Preview.getTx0Data();
 
+    // fee indice is used by this tx0
+    if (!claimTx0Data(tx0Data)) {
+      throw new NotifiableException("Tx0Data already used by another tx0, please retry");
+    }
+
     // compute opReturnValue for feePaymentCode and feePayload
     byte[] feePayload = tx0Data.getFeePayload();
     int feeIndice;
@@ -451,27 +697,32 @@ public class Tx0Service {
     //
     // premix outputs
     //
-    List<TransactionOutput> premixOutputs = new ArrayList<TransactionOutput>();
-    for (int j = 0; j < nbPremix; j++) {
-      // send to PREMIX
-      HD_Address toAddress = premixWallet.getNextAddress();
-      String toAddressBech32 = bech32Util.toBech32(toAddress, params);
-      if (log.isDebugEnabled()) {
-        log.debug(
-            "Tx0 out (premix): address="
-                + toAddressBech32
-                + ", path="
-                + toAddress.toJSON().get("path")
-                + " ("
-                + premixValue
-                + " sats)");
-      }
+    List<TransactionOutput> premixOutputs;
+    if (config.isTx0ParallelBuild()) {
+      premixOutputs = computePremixOutputsParallel(premixWallet, nbPremix, premixValue, params);
+    } else {
+      premixOutputs = new ArrayList<TransactionOutput>();
+      for (int j = 0; j < nbPremix; j++) {
+        // send to PREMIX
+        HD_Address toAddress = premixWallet.getNextAddress();
+        String toAddressBech32 = bech32Util.toBech32(toAddress, params);
+        if (log.isDebugEnabled()) {
+          log.debug(
+              "Tx0 out (premix): address="
+                  + toAddressBech32
+                  + ", path="
+                  + toAddress.toJSON().get("path")
+                  + " ("
+                  + premixValue
+                  + " sats)");
+        }
 
-      TransactionOutput txOutSpend =
-          bech32Util.getTransactionOutput(toAddressBech32, premixValue, params);
-      outputs.add(txOutSpend);
-      premixOutputs.add(txOutSpend);
+        TransactionOutput txOutSpend =
+            bech32Util.getTransactionOutput(toAddressBech32, premixValue, params);
+        premixOutputs.add(txOutSpend);
+      }
     }
+    outputs.addAll(premixOutputs);
 
     TransactionOutput changeOutput = null;
     if (changeValue > 0) {
@@ -539,10 +790,14 @@ public class Tx0Service {
     }
 
     // all inputs
-    for (UnspentOutputWithKey spendFrom : sortedSpendFroms) {
-      buildTx0Input(tx, spendFrom, params);
-      if (log.isDebugEnabled()) {
-        log.debug("Tx0 in: utxo=" + spendFrom);
+    if (config.isTx0ParallelBuild()) {
+      buildTx0InputsParallel(tx, sortedSpendFroms, params);
+    } else {
+      for (UnspentOutputWithKey spendFrom : sortedSpendFroms) {
+        buildTx0Input(tx, spendFrom, params);
+        if (log.isDebugEnabled()) {
+          log.debug("Tx0 in: utxo=" + spendFrom);
+        }
       }
     }
 
@@ -561,6 +816,134 @@ public class Tx0Service {
     tx.addSignedInput(depositSpendFrom, segwitPubkeyScript, spendFromKey);
   }
 
+  /** Reserve premix addresses at once, then derive them concurrently. */
+  private List<TransactionOutput> computePremixOutputsParallel(
+      final Bip84Wallet premixWallet,
+      int nbPremix,
+      final long premixValue,
+      final NetworkParameters params)
+      throws Exception {
+    final int firstIndex = premixWallet.getIndexHandler().getAndAdd(nbPremix);
+    List<Callable<TransactionOutput>> tasks = new ArrayList<Callable<TransactionOutput>>();
+    for (int j = 0; j < nbPremix; j++) {
+      final int addressIndex = firstIndex + j;
+      tasks.add(
+          new Callable<TransactionOutput>() {
+            @Override
+            public TransactionOutput call() throws Exception {
+              String toAddressBech32 =
+                  premixWallet
+                      .getCachedAddressAt(Bip84Wallet.CHAIN_RECEIVE, addressIndex)
+                      .getBech32(params);
+              return bech32Util.getTransactionOutput(toAddressBech32, premixValue, params);
+            }
+          });
+    }
+    List<TransactionOutput> premixOutputs = invokeAllParallel(tasks);
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "Tx0 out (premix): "
+              + nbPremix
+              + " addresses from index "
+              + firstIndex
+              + " ("
+              + premixValue
+              + " sats)");
+    }
+    return premixOutputs;
+  }
+
+  /**
+   * Add all inputs, then sign them concurrently. BIP143 hashes shared by all inputs are computed
+   * once from the unsigned tx, so that each input only hashes its own preimage before signing.
+   */
+  private void buildTx0InputsParallel(
+      Transaction tx, List<UnspentOutputWithKey> sortedSpendFroms, final NetworkParameters params)
+      throws Exception {
+    for (UnspentOutputWithKey spendFrom : sortedSpendFroms) {
+      TransactionOutPoint outPoint = spendFrom.computeOutpoint(params);
+      tx.addInput(
+          new TransactionInput(
+              params, null, new byte[] {}, outPoint, Coin.valueOf(spendFrom.value)));
+      if (log.isDebugEnabled()) {
+        log.debug("Tx0 in: utxo=" + spendFrom);
+      }
+    }
+
+    // shared by all inputs (SIGHASH_ALL)
+    int nbInputs = sortedSpendFroms.size();
+    final byte[][] outPoints = new byte[nbInputs][];
+    final long[] sequences = new long[nbInputs];
+    ByteArrayOutputStream prevoutsStream = new ByteArrayOutputStream();
+    ByteArrayOutputStream sequencesStream = new ByteArrayOutputStream();
+    for (int i = 0; i < nbInputs; i++) {
+      TransactionInput input = tx.getInput(i);
+      outPoints[i] = input.getOutpoint().bitcoinSerialize();
+      sequences[i] = input.getSequenceNumber();
+      prevoutsStream.write(outPoints[i]);
+      Utils.uint32ToByteStreamLE(sequences[i], sequencesStream);
+    }
+    ByteArrayOutputStream outputsStream = new ByteArrayOutputStream();
+    for (TransactionOutput output : tx.getOutputs()) {
+      outputsStream.write(output.bitcoinSerialize());
+    }
+    final byte[] hashPrevouts = Sha256Hash.hashTwice(prevoutsStream.toByteArray());
+    final byte[] hashSequence = Sha256Hash.hashTwice(sequencesStream.toByteArray());
+    final byte[] hashOutputs = Sha256Hash.hashTwice(outputsStream.toByteArray());
+    final long version = tx.getVersion();
+    final long lockTime = tx.getLockTime();
+
+    List<Callable<TransactionWitness>> tasks = new ArrayList<Callable<TransactionWitness>>();
+    for (int i = 0; i < nbInputs; i++) {
+      final int inputIndex = i;
+      final UnspentOutputWithKey spendFrom = sortedSpendFroms.get(i);
+      tasks.add(
+          new Callable<TransactionWitness>() {
+            @Override
+            public TransactionWitness call() throws Exception {
+              ECKey spendFromKey = ECKey.fromPrivate(spendFrom.getKey());
+
+              // BIP143 preimage for P2WPKH
+              ByteArrayOutputStream preimage = new ByteArrayOutputStream(182);
+              Utils.uint32ToByteStreamLE(version, preimage);
+              preimage.write(hashPrevouts);
+              preimage.write(hashSequence);
+              preimage.write(outPoints[inputIndex]);
+              preimage.write(0x19); // scriptCode length
+              preimage.write(ScriptBuilder.createP2PKHOutputScript(spendFromKey).getProgram());
+              Utils.int64ToByteStreamLE(spendFrom.value, preimage);
+              Utils.uint32ToByteStreamLE(sequences[inputIndex], preimage);
+              preimage.write(hashOutputs);
+              Utils.uint32ToByteStreamLE(lockTime, preimage);
+              Utils.uint32ToByteStreamLE(Transaction.SigHash.ALL.value, preimage);
+              Sha256Hash sigHash = Sha256Hash.twiceOf(preimage.toByteArray());
+
+              TransactionSignature signature =
+                  new TransactionSignature(
+                      spendFromKey.sign(sigHash), Transaction.SigHash.ALL, false);
+              return TransactionWitness.redeemP2WPKH(signature, spendFromKey);
+            }
+          });
+    }
+    List<TransactionWitness> witnesses = invokeAllParallel(tasks);
+    for (int i = 0; i < witnesses.size(); i++) {
+      tx.setWitness(i, witnesses.get(i));
+    }
+  }
+
+  private <T> List<T> invokeAllParallel(List<Callable<T>> tasks) throws Exception {
+    List<T> results = new ArrayList<T>(tasks.size());
+    for (Future<T> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        throw (cause instanceof Exception ? (Exception) cause : e);
+      }
+    }
+    return results;
+  }
+
   protected void signTx0(
       Transaction tx, Collection<UnspentOutputWithKey> inputs, NetworkParameters params) {
     // inputs were already signed
@@ -598,6 +981,90 @@ public class Tx0Service {
     return (utxoValue >= balanceMin);
   }
 
+  private String computeTx0DataKey(String poolId) {
+    return poolId + ":" + config.getScode();
+  }
+
+  /**
+   * Get Tx0Data for this pool, from cache when fetched less than refreshTx0DataDelay ago. For
+   * previews only, a real tx0 uses {@link #takeTx0Data(String)}.
+   */
+  public Tx0Data getTx0Data(String poolId) throws HttpException, NotifiableException {
+    String key = computeTx0DataKey(poolId);
+    Tx0DataCached cached = tx0DataCache.get(key);
+    if (cached != null && !cached.isExpired()) {
+      return cached.tx0Data;
+    }
+    Tx0Data tx0Data = fetchTx0Data(poolId);
+    long expiresAt = System.currentTimeMillis() + config.getRefreshTx0DataDelay() * 1000L;
+    tx0DataCache.put(key, new Tx0DataCached(tx0Data, expiresAt));
+    return tx0Data;
+  }
+
+  /** Fetch Tx0Data in background, so that next tx0 for this pool doesn't wait for it. */
+  public void prefetchTx0Data(final String poolId) {
+    final String key = computeTx0DataKey(poolId);
+    Tx0DataCached cached = tx0DataCache.get(key);
+    if (cached != null && !cached.isExpired()) {
+      return;
+    }
+    synchronized (tx0DataPrefetchs) {
+      if (!tx0DataPrefetchs.add(key)) {
+        // already prefetching
+        return;
+      }
+    }
+    config
+        .getIoExecutorService()
+        .submit(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  getTx0Data(poolId);
+                } catch (Exception e) {
+                  log.error("prefetchTx0Data failed for pool " + poolId, e);
+                } finally {
+                  synchronized (tx0DataPrefetchs) {
+                    tx0DataPrefetchs.remove(key);
+                  }
+                }
+              }
+            });
+  }
+
+  /**
+   * Get Tx0Data for a real tx0: cached Tx0Data is atomically removed from cache so that no other
+   * tx0 can get it, otherwise a fresh one is fetched.
+   */
+  protected Tx0Data takeTx0Data(String poolId) throws HttpException, NotifiableException {
+    Tx0DataCached cached = tx0DataCache.remove(computeTx0DataKey(poolId));
+    if (cached != null && !cached.isExpired()) {
+      return cached.tx0Data;
+    }
+    return fetchTx0Data(poolId);
+  }
+
+  /**
+   * A Tx0Data (and its fee indice) is used by one tx0 only.
+   *
+   * @return false when already used by another tx0
+   */
+  protected boolean claimTx0Data(Tx0Data tx0Data) {
+    synchronized (usedTx0Datas) {
+      if (!usedTx0Datas.add(tx0Data)) {
+        return false;
+      }
+    }
+    // not available for previews anymore
+    for (Map.Entry<String, Tx0DataCached> entry : tx0DataCache.entrySet()) {
+      if (entry.getValue().tx0Data == tx0Data) {
+        tx0DataCache.remove(entry.getKey(), entry.getValue());
+      }
+    }
+    return true;
+  }
+
   protected Tx0Data fetchTx0Data(String poolId) throws HttpException, NotifiableException {
     String url = WhirlpoolProtocol.getUrlTx0Data(config.getServer(), poolId, config.getScode());
     try {
@@ -623,4 +1090,18 @@ public class Tx0Service {
       throw e;
     }
   }
+
+  private static class Tx0DataCached {
+    private final Tx0Data tx0Data;
+    private final long expiresAt;
+
+    Tx0DataCached(Tx0Data tx0Data, long expiresAt) {
+      this.tx0Data = tx0Data;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired() {
+      return System.currentTimeMillis() >= expiresAt;
+    }
+  }
 }
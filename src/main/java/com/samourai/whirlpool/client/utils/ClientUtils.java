@@ -1,20 +1,24 @@
 package com.samourai.whirlpool.client.utils;
 
 import ch.qos.logback.classic.Level;
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samourai.wallet.api.backend.beans.HttpException;
 import com.samourai.wallet.api.backend.beans.UnspentResponse;
 import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
 import com.samourai.wallet.segwit.bech32.Bech32UtilGeneric;
-import com.samourai.wallet.util.FormatsUtilGeneric;
 import com.samourai.whirlpool.client.exception.NotifiableException;
+import com.samourai.whirlpool.client.wallet.beans.UtxoKey;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoState;
 import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
 import com.samourai.whirlpool.protocol.rest.RestErrorResponse;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.security.KeyFactory;
@@ -24,6 +28,14 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.bitcoinj.core.*;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
 import org.slf4j.Logger;
@@ -33,11 +45,26 @@ public class ClientUtils {
   private static final Logger log = LoggerFactory.getLogger(ClientUtils.class);
   private static final SecureRandom secureRandom = new SecureRandom();
 
-  private static final int SLEEP_REFRESH_UTXOS_TESTNET = 20000;
-  private static final int SLEEP_REFRESH_UTXOS_MAINNET = 10000;
   public static final String USER_AGENT = "whirlpool-client/" + WhirlpoolProtocol.PROTOCOL_VERSION;
 
   private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final String LOCK_SUFFIX = ".lock";
+
+  private static final int SHARED_EXECUTOR_THREADS =
+      Math.max(4, Runtime.getRuntime().availableProcessors());
+  private static ScheduledExecutorService sharedExecutor;
+  private static final int IO_EXECUTOR_THREADS = 8;
+  private static ScheduledExecutorService ioExecutor;
+
+  // parsed server keys, shared by all mixes
+  private static final int PUBLIC_KEYS_CACHE_SIZE = 16;
+  private static final Map<String, RSAKeyParameters> publicKeys =
+      new LinkedHashMap<String, RSAKeyParameters>(PUBLIC_KEYS_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RSAKeyParameters> eldest) {
+          return size() > PUBLIC_KEYS_CACHE_SIZE;
+        }
+      };
 
   public static void setupEnv() {
     // prevent user-agent tracking
@@ -68,7 +95,24 @@ public class ClientUtils {
     return serialized;
   }
 
+  /** Parse a server public key. Parsed keys are cached by serialized bytes. */
   public static RSAKeyParameters publicKeyUnserialize(byte[] publicKeySerialized) throws Exception {
+    String cacheKey = WhirlpoolProtocol.encodeBytes(publicKeySerialized);
+    synchronized (publicKeys) {
+      RSAKeyParameters publicKey = publicKeys.get(cacheKey);
+      if (publicKey != null) {
+        return publicKey;
+      }
+    }
+    RSAKeyParameters publicKey = doPublicKeyUnserialize(publicKeySerialized);
+    synchronized (publicKeys) {
+      publicKeys.put(cacheKey, publicKey);
+    }
+    return publicKey;
+  }
+
+  private static RSAKeyParameters doPublicKeyUnserialize(byte[] publicKeySerialized)
+      throws Exception {
     RSAPublicKey rsaPublicKey =
         (RSAPublicKey)
             KeyFactory.getInstance("RSA")
@@ -177,12 +221,12 @@ public class ClientUtils {
     return sat / 100000000.0;
   }
 
-  public static String utxoToKey(UnspentOutput unspentOutput) {
-    return unspentOutput.tx_hash + ':' + unspentOutput.tx_output_n;
+  public static UtxoKey utxoToKey(UnspentOutput unspentOutput) {
+    return UtxoKey.of(unspentOutput);
   }
 
-  public static String utxoToKey(String utxoHash, int utxoIndex) {
-    return utxoHash + ':' + utxoIndex;
+  public static UtxoKey utxoToKey(String utxoHash, int utxoIndex) {
+    return UtxoKey.of(utxoHash, utxoIndex);
   }
 
   public static String getTxHex(Transaction tx) {
@@ -190,18 +234,84 @@ public class ClientUtils {
     return txHex;
   }
 
-  public static void sleepRefreshUtxos(NetworkParameters params) {
-    if (log.isDebugEnabled()) {
-      log.debug("Refreshing utxos...");
+  /** Shared bounded executor for short client tasks (mix start, mix stop, scheduled tasks). */
+  public static synchronized ScheduledExecutorService getSharedExecutor() {
+    if (sharedExecutor == null) {
+      sharedExecutor =
+          Executors.newScheduledThreadPool(
+              SHARED_EXECUTOR_THREADS, newDaemonThreadFactory("whirlpool-executor"));
     }
-    boolean isTestnet = FormatsUtilGeneric.getInstance().isTestNet(params);
-    int sleepDelay = isTestnet ? SLEEP_REFRESH_UTXOS_TESTNET : SLEEP_REFRESH_UTXOS_MAINNET;
+    return sharedExecutor;
+  }
+
+  /**
+   * Executor for blocking I/O (backend & server requests through Tor, file writes), kept apart
+   * from {@link #getSharedExecutor()} so that slow requests don't delay mixes start/stop,
+   * reconnects or liveness checks.
+   */
+  public static synchronized ScheduledExecutorService getIoExecutor() {
+    if (ioExecutor == null) {
+      ioExecutor =
+          Executors.newScheduledThreadPool(
+              IO_EXECUTOR_THREADS, newDaemonThreadFactory("whirlpool-io"));
+    }
+    return ioExecutor;
+  }
+
+  /**
+   * Executor running each task in a new virtual thread. Only available when running on Java 21+.
+   */
+  public static ExecutorService newVirtualThreadExecutor() throws NotifiableException {
     try {
-      Thread.sleep(sleepDelay);
-    } catch (InterruptedException e) {
+      // resolved at runtime as we are compiled for older JDKs
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (Exception e) {
+      throw new NotifiableException("Virtual threads are not supported by this JVM");
     }
   }
 
+  /** Same as Suppliers.memoizeWithExpiration(), with a time source. */
+  public static <T> Supplier<T> memoizeWithExpiration(
+      final Supplier<T> delegate, long duration, final Ticker ticker) {
+    final long durationNanos = TimeUnit.MILLISECONDS.toNanos(duration);
+    return new Supplier<T>() {
+      private volatile T value;
+      private volatile long expiresAt; // nanos, 0 = not loaded
+
+      @Override
+      public T get() {
+        long nanos = expiresAt;
+        long now = ticker.read();
+        if (nanos == 0 || now - nanos >= 0) {
+          synchronized (this) {
+            if (nanos == expiresAt) {
+              T t = delegate.get();
+              value = t;
+              nanos = now + durationNanos;
+              expiresAt = (nanos == 0) ? 1 : nanos;
+              return t;
+            }
+          }
+        }
+        return value;
+      }
+    };
+  }
+
+  public static ThreadFactory newDaemonThreadFactory(final String namePrefix) {
+    return new ThreadFactory() {
+      private final AtomicInteger threadId = new AtomicInteger(0);
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, namePrefix + "-" + threadId.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+
   public static String sha256Hash(String str) {
     return sha256Hash(str.getBytes());
   }
@@ -227,23 +337,47 @@ public class ClientUtils {
     return secureRandom.nextInt(maxInclusive + 1 - minInclusive) + minInclusive;
   }
 
+  /**
+   * Replace file with value. Value is written and synced to a temp file in the same directory,
+   * then renamed over file with {@link #replaceFile}. Throws when any step fails, file is then left
+   * unchanged. Lock is held on a separate ".lock" file, as a file opened for locking cannot be
+   * replaced on Windows.
+   */
   public static void safeWriteValue(ObjectMapper mapper, Object value, File file) throws Exception {
-    FileLock fileLock = lockFile(file);
+    FileLock fileLock = lockFile(new File(file.getAbsolutePath() + LOCK_SUFFIX));
     try {
       File tempFile = null;
       try {
-        // write to temp file
-        tempFile = File.createTempFile(file.getName(), "");
-        mapper.writeValue(tempFile, value);
+        // write to temp file, in same directory as rename is not atomic across filesystems
+        tempFile =
+            File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        byte[] bytes = mapper.writeValueAsBytes(value);
+        FileOutputStream out = new FileOutputStream(tempFile);
+        try {
+          out.write(bytes);
+          out.getFD().sync();
+        } finally {
+          out.close();
+        }
 
         // then rename
-        tempFile.renameTo(file);
+        if (!replaceFile(tempFile, file)) {
+          throw new Exception("rename failed");
+        }
       } catch (Exception e) {
         log.error(
             "safeWriteValue failed for "
                 + (tempFile != null ? tempFile.getAbsolutePath() : "null")
                 + " ->"
                 + file.getAbsolutePath());
+        if (tempFile != null && tempFile.exists()) {
+          if (file.exists()) {
+            tempFile.delete();
+          } else {
+            // file was deleted before rename failed: don't lose new value
+            log.warn("new value kept in " + tempFile.getAbsolutePath());
+          }
+        }
         throw e;
       }
     } finally {
@@ -251,6 +385,19 @@ public class ClientUtils {
     }
   }
 
+  /**
+   * Rename source over target. renameTo() doesn't replace an existing file on Windows: target is
+   * then deleted before renaming again.
+   *
+   * @return true on success. On failure source is left in place, target may have been deleted.
+   */
+  public static boolean replaceFile(File source, File target) {
+    if (source.renameTo(target)) {
+      return true;
+    }
+    return target.delete() && source.renameTo(target);
+  }
+
   public static FileLock lockFile(File f) throws Exception {
     return lockFile(
         f,
@@ -0,0 +1,128 @@
+package com.samourai.whirlpool.client.utils;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memoizing supplier which reloads its value in background shortly before expiry, so that callers
+ * are served the current value immediately instead of blocking on reload. Values not requested
+ * since last load are not refreshed: they expire, and next caller reloads synchronously. Loads are
+ * single-flight: concurrent callers share the same load.
+ */
+public class RefreshAheadSupplier<T> implements Supplier<T> {
+  private static final Logger log = LoggerFactory.getLogger(RefreshAheadSupplier.class);
+  private static final Random random = new Random();
+  private static final double REFRESH_AHEAD_RATIO = 0.2;
+  private static final double JITTER_RATIO = 0.1;
+
+  private final Supplier<T> loader;
+  private final long ttl; // ms
+  private final ScheduledExecutorService scheduler;
+  private final Ticker ticker;
+
+  private final Object loadLock = new Object();
+  private volatile T value;
+  private volatile long expiresAt; // Long.MIN_VALUE = not loaded
+  private volatile boolean accessed; // since last load
+  private volatile boolean refreshing;
+  private volatile boolean stopped;
+  private ScheduledFuture<?> scheduledRefresh;
+
+  /**
+   * @param loader loads the value, should not throw
+   * @param ttl value lifetime (ms)
+   * @param scheduler scheduler running background refreshs
+   */
+  public RefreshAheadSupplier(Supplier<T> loader, long ttl, ScheduledExecutorService scheduler) {
+    this(loader, ttl, scheduler, Ticker.systemTicker());
+  }
+
+  /** @param ticker time source for expiry */
+  public RefreshAheadSupplier(
+      Supplier<T> loader, long ttl, ScheduledExecutorService scheduler, Ticker ticker) {
+    this.loader = loader;
+    this.ttl = ttl;
+    this.scheduler = scheduler;
+    this.ticker = ticker;
+    this.expiresAt = Long.MIN_VALUE;
+  }
+
+  @Override
+  public T get() {
+    accessed = true;
+    if (now() >= expiresAt) {
+      // not loaded or expired => load now
+      synchronized (loadLock) {
+        if (now() >= expiresAt) {
+          load();
+        }
+      }
+    }
+    return value;
+  }
+
+  private void load() {
+    T newValue = loader.get();
+    value = newValue;
+    accessed = false;
+    expiresAt = now() + ttl;
+    scheduleRefresh();
+  }
+
+  private long now() {
+    return TimeUnit.NANOSECONDS.toMillis(ticker.read());
+  }
+
+  private synchronized void scheduleRefresh() {
+    if (stopped) {
+      return;
+    }
+    if (scheduledRefresh != null) {
+      scheduledRefresh.cancel(false);
+    }
+    long jitter = (long) ((random.nextDouble() * 2 - 1) * JITTER_RATIO * ttl);
+    long delay = Math.max(0, (long) (ttl * (1 - REFRESH_AHEAD_RATIO)) + jitter);
+    scheduledRefresh =
+        scheduler.schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                refresh();
+              }
+            },
+            delay,
+            TimeUnit.MILLISECONDS);
+  }
+
+  private void refresh() {
+    if (stopped || !accessed || refreshing) {
+      // not used since last load => let it expire
+      return;
+    }
+    refreshing = true;
+    try {
+      synchronized (loadLock) {
+        load();
+      }
+    } catch (Exception e) {
+      log.error("refresh failed", e);
+    } finally {
+      refreshing = false;
+    }
+  }
+
+  /** Stop background refreshs. */
+  public synchronized void stop() {
+    stopped = true;
+    if (scheduledRefresh != null) {
+      scheduledRefresh.cancel(false);
+      scheduledRefresh = null;
+    }
+  }
+}
@@ -1,15 +1,19 @@
 package com.samourai.whirlpool.client.wallet;
 
 import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
+import com.google.common.base.Ticker;
 import com.samourai.wallet.api.backend.MinerFee;
 import com.samourai.wallet.api.backend.MinerFeeTarget;
 import com.samourai.wallet.api.backend.beans.HttpException;
+import com.samourai.wallet.api.backend.beans.MultiAddrResponse;
 import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
 import com.samourai.wallet.client.Bip84ApiWallet;
 import com.samourai.whirlpool.client.exception.NotifiableException;
 import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.utils.RefreshAheadSupplier;
 import com.samourai.whirlpool.client.wallet.beans.*;
+import com.samourai.whirlpool.client.wallet.utxo.UtxoSource;
+import com.samourai.whirlpool.client.wallet.utxo.UtxoSourceListener;
 import com.samourai.whirlpool.client.whirlpool.beans.Pool;
 import com.samourai.whirlpool.client.whirlpool.beans.Pools;
 import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
@@ -20,9 +24,9 @@ import com.zeroleak.throwingsupplier.Throwing;
 import com.zeroleak.throwingsupplier.ThrowingSupplier;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java8.util.Optional;
-import java8.util.function.Consumer;
 import java8.util.stream.Collectors;
 import java8.util.stream.StreamSupport;
 import org.slf4j.Logger;
@@ -34,6 +38,7 @@ public class WhirlpoolDataService {
 
   private WhirlpoolWalletConfig config;
   private WhirlpoolWalletService whirlpoolWalletService;
+  private Ticker ticker;
 
   // fee
   private Supplier<Throwing<MinerFee, Exception>> minerFee;
@@ -43,18 +48,30 @@ public class WhirlpoolDataService {
   private Supplier<Throwing<Collection<Pool>, Exception>> pools;
 
   // utxos
-  private Map<WhirlpoolAccount, Supplier<Throwing<Map<String, WhirlpoolUtxo>, Exception>>> utxos;
-  private Map<WhirlpoolAccount, Map<String, WhirlpoolUtxo>> previousUtxos;
+  private Map<WhirlpoolAccount, Supplier<Throwing<WhirlpoolUtxoIndex, Exception>>> utxos;
+  private Map<WhirlpoolAccount, WhirlpoolUtxoIndex> utxoIndexs;
+  private UtxoSource utxoSource; // started source, null when polling
+  private Map<WhirlpoolAccount, Long> lastUtxoFetchs;
+  private Map<WhirlpoolAccount, UtxoFetch> utxoFetchs; // running fetchs, by account
 
   private static final int ATTEMPTS = 2;
 
   public WhirlpoolDataService(
       WhirlpoolWalletConfig config, WhirlpoolWalletService whirlpoolWalletService) {
+    this(config, whirlpoolWalletService, Ticker.systemTicker());
+  }
+
+  /** @param ticker time source for cache expiry */
+  public WhirlpoolDataService(
+      WhirlpoolWalletConfig config, WhirlpoolWalletService whirlpoolWalletService, Ticker ticker) {
     this.config = config;
     this.whirlpoolWalletService = whirlpoolWalletService;
+    this.ticker = ticker;
     this.utxos =
         new ConcurrentHashMap<
-            WhirlpoolAccount, Supplier<Throwing<Map<String, WhirlpoolUtxo>, Exception>>>();
+            WhirlpoolAccount, Supplier<Throwing<WhirlpoolUtxoIndex, Exception>>>();
+    this.lastUtxoFetchs = new HashMap<WhirlpoolAccount, Long>();
+    this.utxoFetchs = new HashMap<WhirlpoolAccount, UtxoFetch>();
 
     clear();
   }
@@ -65,11 +82,29 @@ public class WhirlpoolDataService {
     clearUtxos();
   }
 
+  private <T> Supplier<T> memoize(Supplier<T> loader, int delaySeconds) {
+    if (config.isRefreshAhead()) {
+      // refresh in background before expiry
+      return new RefreshAheadSupplier<T>(
+          loader, delaySeconds * 1000L, config.getIoExecutorService(), ticker);
+    }
+    return ClientUtils.memoizeWithExpiration(loader, delaySeconds * 1000L, ticker);
+  }
+
+  private long now() {
+    return TimeUnit.NANOSECONDS.toMillis(ticker.read());
+  }
+
+  private void stop(Supplier<?> supplier) {
+    if (supplier instanceof RefreshAheadSupplier) {
+      ((RefreshAheadSupplier) supplier).stop();
+    }
+  }
+
   // FEES
   public void clearMinerFee() {
-    this.minerFee =
-        Suppliers.memoizeWithExpiration(
-            initMinerFee().attempts(ATTEMPTS), config.getRefreshFeeDelay(), TimeUnit.SECONDS);
+    stop(this.minerFee);
+    this.minerFee = memoize(initMinerFee().attempts(ATTEMPTS), config.getRefreshFeeDelay());
   }
 
   public int getFeeSatPerByte(MinerFeeTarget feeTarget) {
@@ -114,15 +149,12 @@ public class WhirlpoolDataService {
   // POOLS
 
   public void clearPools() {
+    stop(this.poolsResponse);
     this.poolsResponse =
-        Suppliers.memoizeWithExpiration(
-            initPoolsResponse().attempts(ATTEMPTS),
-            config.getRefreshPoolsDelay(),
-            TimeUnit.SECONDS);
+        memoize(initPoolsResponse().attempts(ATTEMPTS), config.getRefreshPoolsDelay());
 
-    this.pools =
-        Suppliers.memoizeWithExpiration(
-            initPools().attempts(ATTEMPTS), config.getRefreshPoolsDelay(), TimeUnit.SECONDS);
+    stop(this.pools);
+    this.pools = memoize(initPools().attempts(ATTEMPTS), config.getRefreshPoolsDelay());
   }
 
   public Pools getPoolsResponse() throws Exception {
@@ -208,8 +240,13 @@ public class WhirlpoolDataService {
   // UTXOS
 
   public void clearUtxos() {
-    this.previousUtxos = new ConcurrentHashMap<WhirlpoolAccount, Map<String, WhirlpoolUtxo>>();
+    this.utxoIndexs = new ConcurrentHashMap<WhirlpoolAccount, WhirlpoolUtxoIndex>();
+    synchronized (lastUtxoFetchs) {
+      lastUtxoFetchs.clear();
+      utxoFetchs.clear();
+    }
     for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+      utxoIndexs.put(whirlpoolAccount, new WhirlpoolUtxoIndex(whirlpoolAccount));
       clearUtxos(whirlpoolAccount);
     }
   }
@@ -218,12 +255,45 @@ public class WhirlpoolDataService {
     if (log.isDebugEnabled()) {
       log.debug("clearing utxos for " + whirlpoolAccount);
     }
-    this.utxos.put(
-        whirlpoolAccount,
-        Suppliers.memoizeWithExpiration(
-            initUtxos(whirlpoolAccount).attempts(ATTEMPTS),
-            config.getRefreshUtxoDelay(),
-            TimeUnit.SECONDS));
+    synchronized (lastUtxoFetchs) {
+      lastUtxoFetchs.remove(whirlpoolAccount);
+      utxoFetchs.remove(whirlpoolAccount);
+    }
+    Supplier<Throwing<WhirlpoolUtxoIndex, Exception>> loader =
+        initUtxos(whirlpoolAccount).attempts(ATTEMPTS);
+    Supplier<Throwing<WhirlpoolUtxoIndex, Exception>> previous =
+        this.utxos.put(
+            whirlpoolAccount,
+            utxoSource != null
+                ? memoizeSuccess(loader) // changes are pushed, fetch again only on gaps
+                : memoize(loader, config.getRefreshUtxoDelay()));
+    stop(previous);
+  }
+
+  /** Memoize forever once loaded, failures are not memoized and loaded again on next call. */
+  private <T> Supplier<Throwing<T, Exception>> memoizeSuccess(
+      final Supplier<Throwing<T, Exception>> loader) {
+    return new Supplier<Throwing<T, Exception>>() {
+      private volatile Throwing<T, Exception> value;
+
+      @Override
+      public Throwing<T, Exception> get() {
+        if (value == null) {
+          synchronized (this) {
+            if (value == null) {
+              Throwing<T, Exception> result = loader.get();
+              try {
+                result.getOrThrow();
+              } catch (Exception e) {
+                return result;
+              }
+              value = result;
+            }
+          }
+        }
+        return value;
+      }
+    };
   }
 
   public Collection<WhirlpoolUtxo> getUtxos(boolean clearCache, WhirlpoolAccount... accounts)
@@ -238,7 +308,7 @@ public class WhirlpoolDataService {
 
   public WhirlpoolUtxo findUtxo(
       String utxoHash, int utxoIndex, WhirlpoolAccount... whirlpoolAccounts) throws Exception {
-    String utxoKey = ClientUtils.utxoToKey(utxoHash, utxoIndex);
+    UtxoKey utxoKey = UtxoKey.of(utxoHash, utxoIndex);
     for (WhirlpoolAccount whirlpoolAccount : whirlpoolAccounts) {
       WhirlpoolUtxo whirlpoolUtxo = utxos.get(whirlpoolAccount).get().getOrThrow().get(utxoKey);
       if (whirlpoolUtxo != null) {
@@ -251,55 +321,253 @@ public class WhirlpoolDataService {
     return null;
   }
 
-  private ThrowingSupplier<Map<String, WhirlpoolUtxo>, Exception> initUtxos(
+  private ThrowingSupplier<WhirlpoolUtxoIndex, Exception> initUtxos(
       final WhirlpoolAccount whirlpoolAccount) {
-    return new LastValueFallbackSupplier<Map<String, WhirlpoolUtxo>, Exception>() {
+    return new LastValueFallbackSupplier<WhirlpoolUtxoIndex, Exception>() {
       @Override
-      public Map<String, WhirlpoolUtxo> getOrThrow() throws Exception {
+      public WhirlpoolUtxoIndex getOrThrow() throws Exception {
         Optional<WhirlpoolWallet> whirlpoolWalletOpt = whirlpoolWalletService.getWhirlpoolWallet();
         if (!whirlpoolWalletOpt.isPresent()) {
           throw new Exception("no WhirlpoolWallet opened");
         }
         WhirlpoolWallet whirlpoolWallet = whirlpoolWalletOpt.get();
-        try {
-          List<UnspentOutput> fetchedUtxos = fetchUtxos(whirlpoolAccount, whirlpoolWallet);
+        fetchUtxosBatch(whirlpoolAccount, whirlpoolWallet);
+        return utxoIndexs.get(whirlpoolAccount);
+      }
+    };
+  }
+
+  /**
+   * Fetch utxos of all accounts not fetched recently in a single request, and apply them to each
+   * account index. Concurrent callers wait for the same fetch, which runs outside of lock, and fail
+   * when their account was not fetched by it.
+   */
+  private void fetchUtxosBatch(WhirlpoolAccount whirlpoolAccount, WhirlpoolWallet whirlpoolWallet)
+      throws Exception {
+    UtxoFetch utxoFetch;
+    List<WhirlpoolAccount> accounts = null; // accounts to fetch when not fetching yet
+    synchronized (lastUtxoFetchs) {
+      long freshSince = now() - config.getRefreshUtxoDelay() * 1000L / 2;
+      Long lastFetch = lastUtxoFetchs.get(whirlpoolAccount);
+      if (lastFetch != null && lastFetch > freshSince) {
+        // already fetched with another account
+        return;
+      }
+
+      utxoFetch = utxoFetchs.get(whirlpoolAccount);
+      if (utxoFetch == null) {
+        // fetch all stale accounts which are not being fetched yet
+        accounts = new ArrayList<WhirlpoolAccount>();
+        for (WhirlpoolAccount account : WhirlpoolAccount.values()) {
+          lastFetch = lastUtxoFetchs.get(account);
+          if ((lastFetch == null || lastFetch <= freshSince) && !utxoFetchs.containsKey(account)) {
+            accounts.add(account);
+          }
+        }
+        utxoFetch = new UtxoFetch();
+        for (WhirlpoolAccount account : accounts) {
+          utxoFetchs.put(account, utxoFetch);
+        }
+      }
+    }
+
+    if (accounts != null) {
+      // network I/O outside of lock
+      try {
+        doFetchUtxosBatch(whirlpoolAccount, accounts, utxoFetch, whirlpoolWallet);
+      } catch (Exception e) {
+        utxoFetch.error = e;
+      } finally {
+        utxoFetch.done.countDown();
+      }
+    }
+
+    // batch may have failed and fallen back to another account
+    utxoFetch.await(whirlpoolAccount);
+  }
+
+  private void doFetchUtxosBatch(
+      WhirlpoolAccount whirlpoolAccount,
+      List<WhirlpoolAccount> accounts,
+      UtxoFetch utxoFetch,
+      WhirlpoolWallet whirlpoolWallet)
+      throws Exception {
+    List<WhirlpoolUtxoChanges> utxoChangesList = new ArrayList<WhirlpoolUtxoChanges>();
+    try {
+      Map<WhirlpoolAccount, List<UnspentOutput>> fetchedUtxos;
+      try {
+        fetchedUtxos = fetchUtxos(accounts, whirlpoolWallet);
+      } catch (Exception e) {
+        log.error("Failed to fetch utxos in batch => fetching " + whirlpoolAccount, e);
+        utxoFetch.error = e; // for other accounts
+        fetchedUtxos = new LinkedHashMap<WhirlpoolAccount, List<UnspentOutput>>();
+        // exception => keep current utxos (or retry when never fetched)
+        fetchedUtxos.put(whirlpoolAccount, fetchUtxos(whirlpoolAccount, whirlpoolWallet));
+      }
+
+      synchronized (lastUtxoFetchs) {
+        long now = now();
+        for (Map.Entry<WhirlpoolAccount, List<UnspentOutput>> entry : fetchedUtxos.entrySet()) {
+          WhirlpoolAccount account = entry.getKey();
+          if (utxoFetchs.get(account) != utxoFetch) {
+            // cleared while fetching => ignore outdated utxos
+            continue;
+          }
+          List<UnspentOutput> accountUtxos = entry.getValue();
           if (log.isDebugEnabled()) {
             log.debug(
-                "Fetching utxos from "
-                    + whirlpoolAccount
-                    + "... "
-                    + fetchedUtxos.size()
-                    + " utxos found");
-            // ClientUtils.logUtxos(fetchedUtxos);
-          }
-          final Map<String, UnspentOutput> freshUtxos =
-              new ConcurrentHashMap<String, UnspentOutput>();
-          for (UnspentOutput utxo : fetchedUtxos) {
-            freshUtxos.put(ClientUtils.utxoToKey(utxo), utxo);
+                "Fetching utxos from " + account + "... " + accountUtxos.size() + " utxos found");
+            // ClientUtils.logUtxos(accountUtxos);
           }
 
-          // replace utxos
-          boolean isFirstFetch = false;
-          if (previousUtxos.get(whirlpoolAccount) == null) {
-            previousUtxos.put(whirlpoolAccount, new ConcurrentHashMap<String, WhirlpoolUtxo>());
-            isFirstFetch = true;
+          // apply changes in place
+          WhirlpoolUtxoChanges utxoChanges =
+              utxoIndexs.get(account).replaceUtxos(accountUtxos, whirlpoolWallet);
+          if (!utxoChanges.isEmpty()) {
+            utxoChangesList.add(utxoChanges);
           }
-          Map<String, WhirlpoolUtxo> oldUtxos = previousUtxos.get(whirlpoolAccount);
-          Map<String, WhirlpoolUtxo> result =
-              replaceUtxos(whirlpoolAccount, whirlpoolWallet, oldUtxos, freshUtxos, isFirstFetch);
-
-          previousUtxos.get(whirlpoolAccount).clear();
-          previousUtxos.get(whirlpoolAccount).putAll(result);
-          return result;
-        } catch (Exception e) {
-          // exception
-          log.error("Failed to fetch utxos for " + whirlpoolAccount, e);
-          return new ConcurrentHashMap();
+          lastUtxoFetchs.put(account, now);
+          utxoFetch.fetched.add(account);
         }
       }
+    } finally {
+      synchronized (lastUtxoFetchs) {
+        for (WhirlpoolAccount account : accounts) {
+          if (utxoFetchs.get(account) == utxoFetch) {
+            utxoFetchs.remove(account);
+          }
+        }
+      }
+    }
+
+    // notify changes outside of lock
+    for (WhirlpoolUtxoChanges utxoChanges : utxoChangesList) {
+      whirlpoolWallet.onUtxoChanges(utxoChanges);
+    }
+  }
+
+  /** Running fetch, awaited by concurrent callers. */
+  private static class UtxoFetch {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final Set<WhirlpoolAccount> fetched =
+        Collections.synchronizedSet(EnumSet.noneOf(WhirlpoolAccount.class));
+    private volatile Exception error;
+
+    void await(WhirlpoolAccount account) throws Exception {
+      done.await();
+      if (!fetched.contains(account)) {
+        if (error != null) {
+          throw error;
+        }
+        throw new Exception("Failed to fetch utxos for " + account);
+      }
+    }
+  }
+
+  // UTXO SOURCE
+
+  /** Start receiving utxo changes from configured UtxoSource, if any. Polls on failure. */
+  public synchronized void startUtxoSource(WhirlpoolWallet whirlpoolWallet) {
+    UtxoSource source = config.getUtxoSource();
+    if (source == null || utxoSource != null) {
+      return;
+    }
+    Map<WhirlpoolAccount, String> zpubs = new LinkedHashMap<WhirlpoolAccount, String>();
+    for (WhirlpoolAccount whirlpoolAccount : WhirlpoolAccount.values()) {
+      zpubs.put(whirlpoolAccount, whirlpoolWallet.getWallet(whirlpoolAccount).getZpub());
+    }
+    try {
+      source.start(zpubs, computeUtxoSourceListener(whirlpoolWallet));
+      utxoSource = source;
+    } catch (Exception e) {
+      log.error("Failed to start utxoSource => polling utxos", e);
+    }
+  }
+
+  public synchronized void stopUtxoSource() {
+    if (utxoSource != null) {
+      utxoSource.stop();
+      utxoSource = null;
+    }
+  }
+
+  private UtxoSourceListener computeUtxoSourceListener(final WhirlpoolWallet whirlpoolWallet) {
+    return new UtxoSourceListener() {
+      @Override
+      public void onUtxosReceived(WhirlpoolAccount account, Collection<UnspentOutput> utxos) {
+        applyUtxos(account, utxos, new ArrayList<UtxoKey>(), whirlpoolWallet);
+      }
+
+      @Override
+      public void onUtxosSpent(WhirlpoolAccount account, Collection<UtxoKey> utxoKeys) {
+        applyUtxos(account, new ArrayList<UnspentOutput>(), utxoKeys, whirlpoolWallet);
+      }
+
+      @Override
+      public void onGap(WhirlpoolAccount account) {
+        log.warn("utxoSource: gap detected for " + account + " => fetching utxos");
+        clearUtxos(account);
+      }
     };
   }
 
+  private void applyUtxos(
+      WhirlpoolAccount whirlpoolAccount,
+      Collection<UnspentOutput> receivedUtxos,
+      Collection<UtxoKey> spentUtxos,
+      WhirlpoolWallet whirlpoolWallet) {
+    // changes received before first fetch are replayed by the index after it
+    WhirlpoolUtxoIndex utxoIndex = utxoIndexs.get(whirlpoolAccount);
+    WhirlpoolUtxoChanges utxoChanges =
+        utxoIndex.applyUtxos(receivedUtxos, spentUtxos, whirlpoolWallet);
+    if (!utxoChanges.isEmpty()) {
+      whirlpoolWallet.onUtxoChanges(utxoChanges);
+    }
+  }
+
+  /**
+   * Fetch utxos & indexs of several accounts with one request for each. BackendApi has no combined
+   * endpoint for utxos and indexs (/unspent and /multiaddr), so this takes two requests.
+   */
+  protected Map<WhirlpoolAccount, List<UnspentOutput>> fetchUtxos(
+      Collection<WhirlpoolAccount> whirlpoolAccounts, WhirlpoolWallet whirlpoolWallet)
+      throws Exception {
+    Map<String, WhirlpoolAccount> accountsByZpub = new HashMap<String, WhirlpoolAccount>();
+    Map<WhirlpoolAccount, List<UnspentOutput>> utxosByAccount =
+        new LinkedHashMap<WhirlpoolAccount, List<UnspentOutput>>();
+    for (WhirlpoolAccount whirlpoolAccount : whirlpoolAccounts) {
+      String zpub = whirlpoolWallet.getWallet(whirlpoolAccount).getZpub();
+      accountsByZpub.put(zpub, whirlpoolAccount);
+      utxosByAccount.put(whirlpoolAccount, new ArrayList<UnspentOutput>());
+    }
+    String[] zpubs = accountsByZpub.keySet().toArray(new String[] {});
+
+    // dispatch utxos by account
+    for (UnspentOutput utxo : config.getBackendApi().fetchUtxos(zpubs)) {
+      WhirlpoolAccount whirlpoolAccount =
+          (utxo.xpub != null ? accountsByZpub.get(utxo.xpub.m) : null);
+      if (whirlpoolAccount == null) {
+        throw new Exception("Unknown zpub for utxo " + utxo.tx_hash + ":" + utxo.tx_output_n);
+      }
+      utxosByAccount.get(whirlpoolAccount).add(utxo);
+    }
+
+    // refresh wallet indexs (to avoid address reuse while using mobile wallet)
+    try {
+      Map<String, MultiAddrResponse.Address> addresses =
+          config.getBackendApi().fetchAddresses(zpubs);
+      for (Map.Entry<String, WhirlpoolAccount> entry : accountsByZpub.entrySet()) {
+        MultiAddrResponse.Address address = addresses.get(entry.getKey());
+        if (address != null) {
+          whirlpoolWallet.getWallet(entry.getValue()).refreshIndexs(address);
+        }
+      }
+    } catch (Exception e) {
+      log.error("refreshIndexs failed", e);
+    }
+    return utxosByAccount;
+  }
+
   protected List<UnspentOutput> fetchUtxos(
       WhirlpoolAccount whirlpoolAccount, WhirlpoolWallet whirlpoolWallet) throws Exception {
     Bip84ApiWallet wallet = whirlpoolWallet.getWallet(whirlpoolAccount);
@@ -320,75 +588,9 @@ public class WhirlpoolDataService {
     List<WhirlpoolUtxo> result = new ArrayList<WhirlpoolUtxo>();
     for (WhirlpoolAccount whirlpoolAccount : whirlpoolAccounts) {
       Collection<WhirlpoolUtxo> accountUtxos =
-          utxos.get(whirlpoolAccount).get().getOrThrow().values();
+          utxos.get(whirlpoolAccount).get().getOrThrow().getUtxos();
       result.addAll(accountUtxos);
     }
     return result;
   }
-
-  private Map<String, WhirlpoolUtxo> replaceUtxos(
-      final WhirlpoolAccount account,
-      final WhirlpoolWallet whirlpoolWallet,
-      final Map<String, WhirlpoolUtxo> currentUtxos,
-      final Map<String, UnspentOutput> freshUtxos,
-      final boolean isFirstFetch) {
-    final Map<String, WhirlpoolUtxo> result = new ConcurrentHashMap<String, WhirlpoolUtxo>();
-
-    // add existing utxos
-    StreamSupport.stream(currentUtxos.values())
-        .forEach(
-            new Consumer<WhirlpoolUtxo>() {
-              @Override
-              public void accept(WhirlpoolUtxo whirlpoolUtxo) {
-                String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
-
-                UnspentOutput freshUtxo = freshUtxos.get(key);
-                if (freshUtxo != null) {
-                  UnspentOutput oldUtxo = whirlpoolUtxo.getUtxo();
-
-                  // set existing utxo
-                  whirlpoolUtxo.setUtxo(freshUtxo);
-                  whirlpoolWallet.onUtxoUpdated(whirlpoolUtxo, oldUtxo);
-
-                  // add
-                  result.put(key, whirlpoolUtxo);
-                } else {
-                  // ignore obsolete
-                  whirlpoolWallet.onUtxoRemoved(whirlpoolUtxo);
-                }
-              }
-            });
-
-    // add missing utxos
-    StreamSupport.stream(freshUtxos.values())
-        .forEach(
-            new Consumer<UnspentOutput>() {
-              @Override
-              public void accept(UnspentOutput utxo) {
-                String key = ClientUtils.utxoToKey(utxo);
-                if (!currentUtxos.containsKey(key)) {
-                  // add missing
-                  WhirlpoolUtxoConfig utxoConfig = whirlpoolWallet.computeUtxoConfig(utxo, account);
-                  WhirlpoolUtxo whirlpoolUtxo =
-                      new WhirlpoolUtxo(utxo, account, utxoConfig, WhirlpoolUtxoStatus.READY);
-                  if (!isFirstFetch) {
-                    // set lastActivity when utxo is detected but ignore on first fetch
-                    whirlpoolUtxo.getUtxoState().setLastActivity();
-                  }
-                  whirlpoolWallet.onUtxoDetected(whirlpoolUtxo, isFirstFetch);
-                  result.put(key, whirlpoolUtxo);
-                }
-              }
-            });
-    if (log.isDebugEnabled()) {
-      log.debug(
-          "replaceUtxos: current="
-              + currentUtxos.size()
-              + ", fresh="
-              + freshUtxos.size()
-              + ", result="
-              + result.size());
-    }
-    return result;
-  }
 }
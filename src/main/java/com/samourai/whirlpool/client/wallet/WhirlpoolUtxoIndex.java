@@ -0,0 +1,210 @@
+package com.samourai.whirlpool.client.wallet;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.whirlpool.client.wallet.beans.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Authoritative utxos of an account. Each refresh is diffed against the index in a single pass
+ * and applied in place, instead of rebuilding the whole map.
+ */
+public class WhirlpoolUtxoIndex {
+  private final Logger log = LoggerFactory.getLogger(WhirlpoolUtxoIndex.class);
+
+  private WhirlpoolAccount account;
+  private Map<UtxoKey, Entry> entries;
+  private long generation; // incremented on each refresh, 0 = never fetched
+  private List<PendingUtxos> pendingUtxos; // changes pushed before first refresh
+
+  public WhirlpoolUtxoIndex(WhirlpoolAccount account) {
+    this.account = account;
+    this.entries = new ConcurrentHashMap<UtxoKey, Entry>();
+    this.generation = 0;
+    this.pendingUtxos = new ArrayList<PendingUtxos>();
+  }
+
+  public WhirlpoolUtxo get(UtxoKey utxoKey) {
+    Entry entry = entries.get(utxoKey);
+    return entry != null ? entry.whirlpoolUtxo : null;
+  }
+
+  public Collection<WhirlpoolUtxo> getUtxos() {
+    List<WhirlpoolUtxo> result = new ArrayList<WhirlpoolUtxo>(entries.size());
+    for (Entry entry : entries.values()) {
+      result.add(entry.whirlpoolUtxo);
+    }
+    return result;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /** @return false until first full refresh */
+  public synchronized boolean isFetched() {
+    return generation > 0;
+  }
+
+  public synchronized WhirlpoolUtxoChanges replaceUtxos(
+      Collection<UnspentOutput> freshUtxos, WhirlpoolWallet whirlpoolWallet) {
+    boolean isFirstFetch = (generation == 0);
+    long currentGeneration = ++generation;
+    WhirlpoolUtxoChanges changes = new WhirlpoolUtxoChanges(isFirstFetch);
+
+    // update existing utxos & add missing utxos
+    int nbSeen = 0;
+    for (UnspentOutput freshUtxo : freshUtxos) {
+      if (applyUtxo(freshUtxo, currentGeneration, changes, whirlpoolWallet)) {
+        nbSeen++;
+      }
+    }
+
+    // remove obsoletes (only walk the index when some utxos were not seen)
+    if (entries.size() > nbSeen) {
+      Iterator<Entry> iter = entries.values().iterator();
+      while (iter.hasNext()) {
+        Entry entry = iter.next();
+        if (entry.generation != currentGeneration) {
+          iter.remove();
+          changes.getUtxosRemoved().add(entry.whirlpoolUtxo);
+        }
+      }
+    }
+
+    // replay changes pushed while first refresh was running
+    if (!pendingUtxos.isEmpty()) {
+      for (PendingUtxos pending : pendingUtxos) {
+        for (UnspentOutput receivedUtxo : pending.receivedUtxos) {
+          applyUtxo(receivedUtxo, currentGeneration, changes, whirlpoolWallet);
+        }
+        for (UtxoKey spentUtxo : pending.spentUtxos) {
+          removeUtxo(spentUtxo, changes);
+        }
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("replaceUtxos(" + account + "): replayed " + pendingUtxos.size() + " pushes");
+      }
+      pendingUtxos.clear();
+    }
+
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "replaceUtxos("
+              + account
+              + "): fresh="
+              + freshUtxos.size()
+              + ", result="
+              + entries.size()
+              + ", "
+              + changes);
+    }
+    return changes;
+  }
+
+  /**
+   * Apply incremental changes (from a pushing {@link
+   * com.samourai.whirlpool.client.wallet.utxo.UtxoSource}) without a full refresh. Changes received
+   * before the first refresh are kept and replayed over it.
+   *
+   * @param receivedUtxos new or updated utxos
+   * @param spentUtxos spent utxos
+   */
+  public synchronized WhirlpoolUtxoChanges applyUtxos(
+      Collection<UnspentOutput> receivedUtxos,
+      Collection<UtxoKey> spentUtxos,
+      WhirlpoolWallet whirlpoolWallet) {
+    WhirlpoolUtxoChanges changes = new WhirlpoolUtxoChanges(false);
+    if (generation == 0) {
+      // not fetched yet => apply on first refresh
+      pendingUtxos.add(
+          new PendingUtxos(
+              new ArrayList<UnspentOutput>(receivedUtxos), new ArrayList<UtxoKey>(spentUtxos)));
+      return changes;
+    }
+    for (UnspentOutput receivedUtxo : receivedUtxos) {
+      applyUtxo(receivedUtxo, generation, changes, whirlpoolWallet);
+    }
+    for (UtxoKey spentUtxo : spentUtxos) {
+      removeUtxo(spentUtxo, changes);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("applyUtxos(" + account + "): result=" + entries.size() + ", " + changes);
+    }
+    return changes;
+  }
+
+  /** @return true when utxo was not seen yet for this generation */
+  private boolean applyUtxo(
+      UnspentOutput freshUtxo,
+      long currentGeneration,
+      WhirlpoolUtxoChanges changes,
+      WhirlpoolWallet whirlpoolWallet) {
+    UtxoKey key = UtxoKey.of(freshUtxo);
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      boolean seen = false;
+      if (entry.generation != currentGeneration) {
+        entry.generation = currentGeneration;
+        seen = true;
+      }
+      WhirlpoolUtxo whirlpoolUtxo = entry.whirlpoolUtxo;
+      UnspentOutput oldUtxo = whirlpoolUtxo.getUtxo();
+      whirlpoolUtxo.setUtxo(freshUtxo);
+      if (oldUtxo.confirmations != freshUtxo.confirmations) {
+        changes.getUtxosUpdated().put(whirlpoolUtxo, oldUtxo);
+      }
+      return seen;
+    }
+
+    // add missing
+    WhirlpoolUtxoConfig utxoConfig = whirlpoolWallet.computeUtxoConfig(freshUtxo, account);
+    WhirlpoolUtxo whirlpoolUtxo =
+        new WhirlpoolUtxo(freshUtxo, account, utxoConfig, WhirlpoolUtxoStatus.READY);
+    if (!changes.isFirstFetch()) {
+      // set lastActivity when utxo is detected but ignore on first fetch
+      whirlpoolUtxo.getUtxoState().setLastActivity();
+    }
+    entries.put(key, new Entry(whirlpoolUtxo, currentGeneration));
+    changes.getUtxosAdded().add(whirlpoolUtxo);
+    return true;
+  }
+
+  private void removeUtxo(UtxoKey utxoKey, WhirlpoolUtxoChanges changes) {
+    Entry entry = entries.remove(utxoKey);
+    if (entry != null) {
+      WhirlpoolUtxo whirlpoolUtxo = entry.whirlpoolUtxo;
+      changes.getUtxosUpdated().remove(whirlpoolUtxo);
+      // utxo added by same changes is just never notified
+      if (!changes.getUtxosAdded().remove(whirlpoolUtxo)) {
+        changes.getUtxosRemoved().add(whirlpoolUtxo);
+      }
+    }
+  }
+
+  private static class PendingUtxos {
+    private Collection<UnspentOutput> receivedUtxos;
+    private Collection<UtxoKey> spentUtxos;
+
+    PendingUtxos(Collection<UnspentOutput> receivedUtxos, Collection<UtxoKey> spentUtxos) {
+      this.receivedUtxos = receivedUtxos;
+      this.spentUtxos = spentUtxos;
+    }
+  }
+
+  private static class Entry {
+    private WhirlpoolUtxo whirlpoolUtxo;
+    private long generation; // last refresh where this utxo was seen
+
+    Entry(WhirlpoolUtxo whirlpoolUtxo, long generation) {
+      this.whirlpoolUtxo = whirlpoolUtxo;
+      this.generation = generation;
+    }
+  }
+}
@@ -4,6 +4,8 @@ import com.samourai.wallet.api.backend.MinerFeeTarget;
 import com.samourai.wallet.api.backend.beans.UnspentResponse;
 import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
 import com.samourai.wallet.client.Bip84ApiWallet;
+import com.samourai.wallet.client.Bip84Wallet;
+import com.samourai.wallet.client.indexHandler.IIndexHandler;
 import com.samourai.wallet.hd.HD_Address;
 import com.samourai.wallet.segwit.bech32.Bech32UtilGeneric;
 import com.samourai.whirlpool.client.WhirlpoolClient;
@@ -23,12 +25,18 @@ import com.samourai.whirlpool.client.wallet.orchestrator.MixOrchestrator;
 import com.samourai.whirlpool.client.wallet.orchestrator.PersistOrchestrator;
 import com.samourai.whirlpool.client.whirlpool.beans.Pool;
 import com.samourai.whirlpool.client.whirlpool.beans.Pools;
+import com.samourai.whirlpool.client.whirlpool.beans.Tx0Data;
 import com.samourai.whirlpool.protocol.beans.Utxo;
 import io.reactivex.Observable;
+import io.reactivex.subjects.AsyncSubject;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java8.util.Lists;
 import java8.util.Optional;
 import org.bitcoinj.core.ECKey;
@@ -37,6 +45,9 @@ import org.slf4j.LoggerFactory;
 
 public class WhirlpoolWallet {
   private final Logger log = LoggerFactory.getLogger(WhirlpoolWallet.class);
+  private static final int AWAIT_TX0_DELAY_MIN = 1000; // ms
+  private static final int AWAIT_TX0_DELAY_MAX = 16000; // ms
+  private static final int AWAIT_TX0_TIMEOUT = 180000; // ms
   public static final int MIX_MIN_CONFIRMATIONS = 1;
 
   private WhirlpoolWalletConfig config;
@@ -50,6 +61,7 @@ public class WhirlpoolWallet {
   private Bip84ApiWallet premixWallet;
   private Bip84ApiWallet postmixWallet;
   private Bip84ApiWallet badbankWallet;
+  private volatile String userPreHash; // computed once from PREMIX(0,0)
 
   private PersistOrchestrator persistOrchestrator;
   protected MixOrchestrator mixOrchestrator;
@@ -127,6 +139,7 @@ public class WhirlpoolWallet {
 
   public void clearCache() {
     dataService.clear();
+    mixOrchestrator.clearQueue(); // utxos will be detected again
   }
 
   public void clearCache(WhirlpoolAccount account) {
@@ -176,6 +189,13 @@ public class WhirlpoolWallet {
         depositUtxosByPriority); // throws EmptyWalletException, UnconfirmedUtxoException
   }
 
+  private boolean isTx0Ready(WhirlpoolUtxo whirlpoolUtxo) {
+    WhirlpoolUtxoStatus utxoStatus = whirlpoolUtxo.getUtxoState().getStatus();
+    return WhirlpoolUtxoStatus.READY.equals(utxoStatus)
+        || WhirlpoolUtxoStatus.STOP.equals(utxoStatus)
+        || WhirlpoolUtxoStatus.TX0_FAILED.equals(utxoStatus);
+  }
+
   private WhirlpoolUtxoPriorityComparator getUtxoComparator() {
     return mixOrchestrator.computeWhirlpoolUtxoPriorityComparator();
   }
@@ -187,6 +207,10 @@ public class WhirlpoolWallet {
 
     WhirlpoolUtxo unconfirmedUtxo = null;
     for (WhirlpoolUtxo whirlpoolUtxo : depositUtxosByPriority) {
+      if (!isTx0Ready(whirlpoolUtxo)) {
+        // tx0 in progress, or spent by a tx0 not yet visible from backend
+        continue;
+      }
       Collection<Pool> eligiblePools =
           config
               .getTx0Service()
@@ -241,7 +265,13 @@ public class WhirlpoolWallet {
     return tx0ParamSimple;
   }
 
-  public Tx0 autoTx0() throws Exception { // throws UnconfirmedUtxoException, EmptyWalletException
+  /**
+   * Run tx0 for autoTx0 pool, throws UnconfirmedUtxoException or EmptyWalletException when no
+   * deposit utxo is ready.
+   *
+   * @return pushed tx0s: one tx0, or several with autoTx0Batch
+   */
+  public Tx0BatchResult autoTx0() throws Exception {
     String poolId = config.getAutoTx0PoolId();
     Pool pool = findPoolById(poolId);
     if (pool == null) {
@@ -252,10 +282,40 @@ public class WhirlpoolWallet {
     Tx0Param tx0Param = getTx0Param(pool, tx0FeeTarget, null);
 
     Tx0Config tx0Config = getTx0Config();
+    if (config.isAutoTx0Batch()) {
+      // spend all eligible deposit utxos at once
+      List<WhirlpoolUtxo> spendFroms = findTx0SpendFroms(tx0Param);
+      if (spendFroms.size() > 1) {
+        Tx0BatchResult tx0BatchResult =
+            tx0Batch(spendFroms, pool, tx0FeeTarget, tx0Config, false);
+        if (tx0BatchResult.getTx0s().isEmpty()) {
+          throw tx0BatchResult.getError();
+        }
+        return tx0BatchResult;
+      }
+    }
     WhirlpoolUtxo spendFrom =
         findTx0SpendFrom(tx0Param, 1); // throws UnconfirmedUtxoException, EmptyWalletException
 
-    return tx0(Lists.of(spendFrom), pool, tx0FeeTarget, tx0Config);
+    Tx0BatchResult tx0BatchResult = new Tx0BatchResult();
+    tx0BatchResult.addSuccess(tx0(Lists.of(spendFrom), pool, tx0FeeTarget, tx0Config));
+    return tx0BatchResult;
+  }
+
+  private List<WhirlpoolUtxo> findTx0SpendFroms(Tx0Param tx0Param) throws Exception {
+    List<WhirlpoolUtxo> spendFroms = new LinkedList<WhirlpoolUtxo>();
+    Pool pool = tx0Param.getPool();
+    for (WhirlpoolUtxo whirlpoolUtxo : getUtxosDeposit(true)) {
+      if (isTx0Ready(whirlpoolUtxo)
+          && whirlpoolUtxo.getUtxo().confirmations >= config.getTx0MinConfirmations()
+          && !config
+              .getTx0Service()
+              .findPools(tx0Param, 1, Lists.of(pool), whirlpoolUtxo.getUtxo().value)
+              .isEmpty()) {
+        spendFroms.add(whirlpoolUtxo);
+      }
+    }
+    return spendFroms;
   }
 
   public Tx0Preview tx0Preview(
@@ -280,6 +340,48 @@ public class WhirlpoolWallet {
     return config.getTx0Service().tx0Preview(spendFroms, tx0Config, tx0Param);
   }
 
+  /** Preview tx0 for all pools & fee targets, with one concurrent Tx0Data fetch per pool. */
+  public Tx0PreviewMatrix tx0PreviewMatrix(
+      Collection<WhirlpoolUtxo> whirlpoolUtxos, Tx0Config tx0Config) throws Exception {
+    List<Collection<WhirlpoolUtxo>> utxoSubsets = new ArrayList<Collection<WhirlpoolUtxo>>();
+    utxoSubsets.add(whirlpoolUtxos);
+    return tx0PreviewMatrix(utxoSubsets, getPools(), tx0Config, Tx0FeeTarget.values()).get(0);
+  }
+
+  /**
+   * Preview tx0 for each utxo subset, pool & fee target. Tx0Data is fetched once per pool,
+   * concurrently.
+   *
+   * @return one matrix per utxo subset
+   */
+  public List<Tx0PreviewMatrix> tx0PreviewMatrix(
+      List<Collection<WhirlpoolUtxo>> utxoSubsets,
+      Collection<Pool> pools,
+      Tx0Config tx0Config,
+      Tx0FeeTarget... feeTargets)
+      throws Exception {
+    Map<Tx0FeeTarget, Tx0ParamSimple> tx0ParamsByFeeTarget =
+        new LinkedHashMap<Tx0FeeTarget, Tx0ParamSimple>();
+    for (Tx0FeeTarget feeTarget : feeTargets) {
+      Tx0ParamSimple tx0ParamSimple = getTx0ParamSimple(feeTarget);
+      for (Pool pool : pools) {
+        tx0ParamSimple.setOverspend(pool.getPoolId(), tx0Config.getOverspend());
+      }
+      tx0ParamsByFeeTarget.put(feeTarget, tx0ParamSimple);
+    }
+
+    Tx0Service tx0Service = config.getTx0Service();
+    Map<String, Tx0Data> tx0Datas = tx0Service.fetchTx0Datas(pools);
+    List<Tx0PreviewMatrix> result = new ArrayList<Tx0PreviewMatrix>();
+    for (Collection<WhirlpoolUtxo> utxoSubset : utxoSubsets) {
+      Collection<UnspentOutputWithKey> spendFroms = toUnspentOutputWithKeys(utxoSubset);
+      result.add(
+          tx0Service.tx0PreviewMatrix(
+              spendFroms, tx0Config, pools, tx0ParamsByFeeTarget, tx0Datas));
+    }
+    return result;
+  }
+
   public Tx0 tx0(
       Collection<WhirlpoolUtxo> whirlpoolUtxos,
       Pool pool,
@@ -293,10 +395,8 @@ public class WhirlpoolWallet {
     String poolId = pool.getPoolId();
     for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
       // check status
-      WhirlpoolUtxoStatus utxoStatus = whirlpoolUtxo.getUtxoState().getStatus();
-      if (!WhirlpoolUtxoStatus.READY.equals(utxoStatus)
-          && !WhirlpoolUtxoStatus.STOP.equals(utxoStatus)
-          && !WhirlpoolUtxoStatus.TX0_FAILED.equals(utxoStatus)) {
+      if (!isTx0Ready(whirlpoolUtxo)) {
+        WhirlpoolUtxoStatus utxoStatus = whirlpoolUtxo.getUtxoState().getStatus();
         throw new NotifiableException("Cannot Tx0: utxoStatus=" + utxoStatus);
       }
     }
@@ -336,6 +436,148 @@ public class WhirlpoolWallet {
     }
   }
 
+  /**
+   * Spend utxos with as many tx0s as needed (see {@link Tx0Service#planTx0s}). Tx0s are built in
+   * parallel, then pushed one by one. Pushing stops on first failure: remaining tx0s are dropped
+   * and their utxos are set TX0_FAILED.
+   *
+   * @param consolidate true to spend several utxos per tx0 (links them together)
+   */
+  public Tx0BatchResult tx0Batch(
+      Collection<WhirlpoolUtxo> whirlpoolUtxos,
+      Pool pool,
+      Tx0FeeTarget feeTarget,
+      Tx0Config tx0Config,
+      boolean consolidate)
+      throws Exception {
+
+    // verify utxos
+    Map<UtxoKey, WhirlpoolUtxo> utxosByKey = new LinkedHashMap<UtxoKey, WhirlpoolUtxo>();
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxos) {
+      // check status
+      if (!isTx0Ready(whirlpoolUtxo)) {
+        WhirlpoolUtxoStatus utxoStatus = whirlpoolUtxo.getUtxoState().getStatus();
+        throw new NotifiableException("Cannot Tx0: utxoStatus=" + utxoStatus);
+      }
+      // check confirmations
+      if (whirlpoolUtxo.getUtxo().confirmations < config.getTx0MinConfirmations()) {
+        throw new UnconfirmedUtxoException(whirlpoolUtxo.getUtxo());
+      }
+      utxosByKey.put(UtxoKey.of(whirlpoolUtxo.getUtxo()), whirlpoolUtxo);
+    }
+
+    // plan tx0s
+    Tx0Service tx0Service = config.getTx0Service();
+    Tx0Param tx0Param = getTx0Param(pool, feeTarget, tx0Config.getOverspend());
+    List<List<UnspentOutputWithKey>> spendFromsList =
+        tx0Service.planTx0s(
+            toUnspentOutputWithKeys(whirlpoolUtxos), tx0Config, tx0Param, consolidate);
+    if (spendFromsList.isEmpty()) {
+      long requiredBalance = tx0Service.computeSpendFromBalanceMin(tx0Param, 1);
+      throw new EmptyWalletException("No UTXO found to spend TX0 from", requiredBalance);
+    }
+    List<Collection<WhirlpoolUtxo>> utxosList = new ArrayList<Collection<WhirlpoolUtxo>>();
+    String poolId = pool.getPoolId();
+    for (List<UnspentOutputWithKey> spendFroms : spendFromsList) {
+      List<WhirlpoolUtxo> utxos = new ArrayList<WhirlpoolUtxo>();
+      for (UnspentOutputWithKey spendFrom : spendFroms) {
+        WhirlpoolUtxo whirlpoolUtxo = utxosByKey.get(UtxoKey.of(spendFrom));
+        // set pool
+        if (!poolId.equals(whirlpoolUtxo.getUtxoConfig().getPoolId())) {
+          whirlpoolUtxo.getUtxoConfig().setPoolId(poolId);
+        }
+        // set status
+        whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.TX0, true);
+        utxos.add(whirlpoolUtxo);
+      }
+      utxosList.add(utxos);
+    }
+    log.info(
+        " • Tx0 batch: "
+            + spendFromsList.size()
+            + " tx0s for "
+            + whirlpoolUtxos.size()
+            + " utxos, consolidate="
+            + consolidate
+            + ", tx0Param=["
+            + tx0Param
+            + "]");
+
+    // build & sign all tx0s
+    List<Tx0> tx0s;
+    Map<IIndexHandler, Integer> initialIndexs = getTx0Indexs();
+    try {
+      tx0s =
+          tx0Service.tx0s(
+              spendFromsList,
+              depositWallet,
+              premixWallet,
+              postmixWallet,
+              badbankWallet,
+              tx0Config,
+              tx0Param);
+    } catch (Exception e) {
+      // nothing pushed: revert indexs
+      revertIndexs(initialIndexs);
+      for (Collection<WhirlpoolUtxo> utxos : utxosList) {
+        for (WhirlpoolUtxo whirlpoolUtxo : utxos) {
+          WhirlpoolUtxoState utxoState = whirlpoolUtxo.getUtxoState();
+          utxoState.setStatus(WhirlpoolUtxoStatus.TX0_FAILED, true);
+          utxoState.setError(e);
+        }
+      }
+      throw e;
+    }
+
+    // push one by one
+    Tx0BatchResult tx0BatchResult = new Tx0BatchResult();
+    Exception pushError = null;
+    // persist premix indexs before exposing premix addresses
+    saveIndexs();
+    for (int i = 0; i < tx0s.size(); i++) {
+      Tx0 tx0 = tx0s.get(i);
+      Collection<WhirlpoolUtxo> utxos = utxosList.get(i);
+      if (pushError == null) {
+        try {
+          config.getBackendApi().pushTx(ClientUtils.getTxHex(tx0.getTx()));
+        } catch (Exception e) {
+          // preserve pushTx message
+          pushError = new NotifiableException(e.getMessage());
+        }
+      }
+      if (pushError == null) {
+        // success
+        for (WhirlpoolUtxo whirlpoolUtxo : utxos) {
+          whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.TX0_SUCCESS, true);
+        }
+        // preserve utxo config
+        String tx0Txid = tx0.getTx().getHashAsString();
+        addUtxoConfig(utxos.iterator().next().getUtxoConfig().copy(), tx0Txid);
+        tx0BatchResult.addSuccess(tx0);
+      } else {
+        // not pushed
+        for (WhirlpoolUtxo whirlpoolUtxo : utxos) {
+          WhirlpoolUtxoState utxoState = whirlpoolUtxo.getUtxoState();
+          utxoState.setStatus(WhirlpoolUtxoStatus.TX0_FAILED, true);
+          utxoState.setError(pushError);
+        }
+        tx0BatchResult.addFailure(utxos, pushError);
+      }
+    }
+    log.info(" • Tx0 batch result: " + tx0BatchResult);
+    if (tx0BatchResult.getTx0s().isEmpty()) {
+      // nothing pushed: revert indexs
+      revertIndexs(initialIndexs);
+    }
+
+    // refresh utxos in background when last tx0 is visible
+    List<Tx0> pushedTx0s = tx0BatchResult.getTx0s();
+    if (!pushedTx0s.isEmpty()) {
+      awaitTx0Outputs(pushedTx0s.get(pushedTx0s.size() - 1));
+    }
+    return tx0BatchResult;
+  }
+
   public Tx0 tx0(
       Collection<UnspentOutputWithKey> spendFroms,
       Pool pool,
@@ -354,7 +596,7 @@ public class WhirlpoolWallet {
     Tx0Param tx0Param = getTx0Param(pool, tx0FeeTarget, tx0Config.getOverspend());
 
     // run tx0
-    int initialPremixIndex = premixWallet.getIndexHandler().get();
+    Map<IIndexHandler, Integer> initialIndexs = getTx0Indexs();
     try {
       Tx0 tx0 =
           config
@@ -377,6 +619,9 @@ public class WhirlpoolWallet {
         log.debug(tx0.getTx().toString());
       }
 
+      // persist premix indexs before exposing premix addresses
+      saveIndexs();
+
       // pushTx
       try {
         config.getBackendApi().pushTx(ClientUtils.getTxHex(tx0.getTx()));
@@ -385,18 +630,90 @@ public class WhirlpoolWallet {
         throw new NotifiableException(e.getMessage());
       }
 
-      // refresh utxos
-      ClientUtils.sleepRefreshUtxos(config.getNetworkParameters());
-      clearCache(WhirlpoolAccount.DEPOSIT);
-      clearCache(WhirlpoolAccount.PREMIX);
+      // refresh utxos in background when tx0 is visible
+      awaitTx0Outputs(tx0);
       return tx0;
     } catch (Exception e) {
-      // revert index
-      premixWallet.getIndexHandler().set(initialPremixIndex);
+      // revert indexs
+      revertIndexs(initialIndexs);
       throw e;
     }
   }
 
+  /** Indexs reserved by tx0: premix outputs, fee back address & change outputs. */
+  private Map<IIndexHandler, Integer> getTx0Indexs() {
+    Map<IIndexHandler, Integer> indexs = new LinkedHashMap<IIndexHandler, Integer>();
+    IIndexHandler premixIndexHandler = premixWallet.getIndexHandler();
+    indexs.put(premixIndexHandler, premixIndexHandler.get());
+    for (Bip84Wallet wallet : Lists.of(depositWallet, premixWallet, postmixWallet, badbankWallet)) {
+      IIndexHandler changeIndexHandler = wallet.getIndexChangeHandler();
+      indexs.put(changeIndexHandler, changeIndexHandler.get());
+    }
+    return indexs;
+  }
+
+  private void revertIndexs(Map<IIndexHandler, Integer> indexs) {
+    for (Map.Entry<IIndexHandler, Integer> entry : indexs.entrySet()) {
+      entry.getKey().set(entry.getValue());
+    }
+  }
+
+  /**
+   * Refresh DEPOSIT & PREMIX utxos as soon as tx0 outputs are visible from backend, by polling
+   * PREMIX utxos with exponential backoff in background.
+   *
+   * @return emits tx0 when its outputs are visible, or fails after timeout
+   */
+  public Observable<Tx0> awaitTx0Outputs(final Tx0 tx0) {
+    final String tx0Txid = tx0.getTx().getHashAsString();
+    final AsyncSubject<Tx0> tx0Subject = AsyncSubject.create();
+    final long timeoutAt = System.currentTimeMillis() + AWAIT_TX0_TIMEOUT;
+    final ScheduledExecutorService scheduler = config.getIoExecutorService();
+    scheduler.schedule(
+        new Runnable() {
+          private int delay = AWAIT_TX0_DELAY_MIN;
+
+          @Override
+          public void run() {
+            boolean visible = false;
+            try {
+              visible = isTx0OutputsVisible(tx0Txid);
+            } catch (Exception e) {
+              log.error("", e);
+            }
+            if (visible) {
+              if (log.isDebugEnabled()) {
+                log.debug("Tx0 outputs visible: " + tx0Txid);
+              }
+              clearCache(WhirlpoolAccount.DEPOSIT);
+              tx0Subject.onNext(tx0);
+              tx0Subject.onComplete();
+            } else if (System.currentTimeMillis() >= timeoutAt) {
+              log.warn("Tx0 outputs still not visible: " + tx0Txid);
+              clearCache(WhirlpoolAccount.DEPOSIT);
+              clearCache(WhirlpoolAccount.PREMIX);
+              tx0Subject.onError(new NotifiableException("Tx0 outputs not visible: " + tx0Txid));
+            } else {
+              // retry later
+              delay = Math.min(delay * 2, AWAIT_TX0_DELAY_MAX);
+              scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+            }
+          }
+        },
+        AWAIT_TX0_DELAY_MIN,
+        TimeUnit.MILLISECONDS);
+    return tx0Subject;
+  }
+
+  private boolean isTx0OutputsVisible(String tx0Txid) throws Exception {
+    for (WhirlpoolUtxo whirlpoolUtxo : getUtxos(true, WhirlpoolAccount.PREMIX)) {
+      if (tx0Txid.equals(whirlpoolUtxo.getUtxo().tx_hash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Collection<UnspentOutputWithKey> toUnspentOutputWithKeys(
       Collection<WhirlpoolUtxo> whirlpoolUtxos) {
     Collection<UnspentOutputWithKey> spendFroms = new LinkedList<UnspentOutputWithKey>();
@@ -422,6 +739,9 @@ public class WhirlpoolWallet {
     }
     log.info(" • Starting WhirlpoolWallet");
 
+    // receive utxo changes when configured
+    dataService.startUtxoSource(this);
+
     // reset utxos
     clearCache();
 
@@ -436,6 +756,7 @@ public class WhirlpoolWallet {
     persistOrchestrator.start(true);
     this.mixOrchestrator.start(true);
     if (this.autoTx0Orchestrator.isPresent()) {
+      config.getTx0Service().prefetchTx0Data(config.getAutoTx0PoolId());
       this.autoTx0Orchestrator.get().start(true);
     }
     if (this.autoMixOrchestrator.isPresent()) {
@@ -461,6 +782,7 @@ public class WhirlpoolWallet {
     persistOrchestrator.stop();
 
     mixingState.setStarted(false);
+    dataService.stopUtxoSource();
 
     // reset utxos
     clearCache();
@@ -484,6 +806,7 @@ public class WhirlpoolWallet {
     }
     // set pool
     whirlpoolUtxo.getUtxoConfig().setPoolId(poolId);
+    mixOrchestrator.onUtxoPoolChanged(whirlpoolUtxo);
   }
 
   public void setMixsTarget(WhirlpoolUtxo whirlpoolUtxo, Integer mixsTarget)
@@ -700,12 +1023,19 @@ public class WhirlpoolWallet {
             premixOrPostmixUtxo.tx_output_n,
             premixOrPostmixUtxo.value);
 
-    // use PREMIX(0,0) as userPreHash (not transmitted to server but rehashed with another salt)
-    HD_Address premix00 = getWallet(WhirlpoolAccount.PREMIX).getAddressAt(0, 0);
-    String premix00Bech32 = bech32Util.toBech32(premix00, config.getNetworkParameters());
-    String userPreHash = ClientUtils.sha256Hash(premix00Bech32);
+    return new PremixHandler(utxoWithBalance, premixKey, computeUserPreHash());
+  }
 
-    return new PremixHandler(utxoWithBalance, premixKey, userPreHash);
+  private String computeUserPreHash() {
+    if (userPreHash == null) {
+      // use PREMIX(0,0) as userPreHash (not transmitted to server but rehashed with another salt)
+      String premix00Bech32 =
+          getWallet(WhirlpoolAccount.PREMIX)
+              .getCachedAddressAt(0, 0)
+              .getBech32(config.getNetworkParameters());
+      userPreHash = ClientUtils.sha256Hash(premix00Bech32);
+    }
+    return userPreHash;
   }
 
   public IPostmixHandler computePostmixHandler() {
@@ -765,8 +1095,24 @@ public class WhirlpoolWallet {
   }
 
   public String getDepositAddress(boolean increment) {
-    return bech32Util.toBech32(
-        depositWallet.getNextAddress(increment), config.getNetworkParameters());
+    IIndexHandler indexHandler = depositWallet.getIndexHandler();
+    int addressIndex = increment ? indexHandler.getAndIncrement() : indexHandler.get();
+    if (increment) {
+      // persist deposit index before exposing deposit address
+      saveIndexs();
+    }
+    return depositWallet
+        .getCachedAddressAt(Bip84Wallet.CHAIN_RECEIVE, addressIndex)
+        .getBech32(config.getNetworkParameters());
+  }
+
+  /** Persist pending indexs now. On failure, changes stay pending and are written later. */
+  private void saveIndexs() {
+    try {
+      config.getPersistHandler().saveIndexs();
+    } catch (Exception e) {
+      log.error("Unable to persist indexs", e);
+    }
   }
 
   private void addUtxoConfig(WhirlpoolUtxoConfig utxoConfig, String txid) {
@@ -813,6 +1159,20 @@ public class WhirlpoolWallet {
     return utxoConfig;
   }
 
+  protected void onUtxoChanges(WhirlpoolUtxoChanges whirlpoolUtxoChanges) {
+    for (Map.Entry<WhirlpoolUtxo, UnspentOutput> entry :
+        whirlpoolUtxoChanges.getUtxosUpdated().entrySet()) {
+      onUtxoUpdated(entry.getKey(), entry.getValue());
+    }
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosRemoved()) {
+      onUtxoRemoved(whirlpoolUtxo);
+    }
+    boolean isFirstFetch = whirlpoolUtxoChanges.isFirstFetch();
+    for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolUtxoChanges.getUtxosAdded()) {
+      onUtxoDetected(whirlpoolUtxo, isFirstFetch);
+    }
+  }
+
   protected void onUtxoDetected(WhirlpoolUtxo whirlpoolUtxo, boolean isFirstFetch) {
     String firstFetchInfo = isFirstFetch ? "(init) " : "";
 
@@ -927,7 +1287,9 @@ public class WhirlpoolWallet {
     }
   }
 
-  protected void onUtxoRemoved(WhirlpoolUtxo whirlpoolUtxo) {}
+  protected void onUtxoRemoved(WhirlpoolUtxo whirlpoolUtxo) {
+    mixOrchestrator.onUtxoRemoved(whirlpoolUtxo);
+  }
 
   protected void onUtxoUpdated(WhirlpoolUtxo whirlpoolUtxo, UnspentOutput oldUtxo) {
     int oldConfirmations = oldUtxo.confirmations;
@@ -9,6 +9,7 @@ import com.samourai.wallet.bip47.rpc.secretPoint.ISecretPointFactory;
 import com.samourai.whirlpool.client.tx0.Tx0Service;
 import com.samourai.whirlpool.client.wallet.beans.Tx0FeeTarget;
 import com.samourai.whirlpool.client.wallet.persist.WhirlpoolWalletPersistHandler;
+import com.samourai.whirlpool.client.wallet.utxo.UtxoSource;
 import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
 import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
 import java.util.LinkedHashMap;
@@ -26,6 +27,8 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
   private int clientDelay;
   private String autoTx0PoolId;
   private Tx0FeeTarget autoTx0FeeTarget;
+  private boolean autoTx0Batch;
+  private boolean tx0ParallelBuild;
   private boolean autoMix;
 
   private BackendApi backendApi;
@@ -34,6 +37,9 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
   private int refreshUtxoDelay;
   private int refreshFeeDelay;
   private int refreshPoolsDelay;
+  private int refreshTx0DataDelay;
+  private boolean refreshAhead;
+  private UtxoSource utxoSource;
   private int mixsTarget;
   private int persistDelay;
   private int persistCleanDelay;
@@ -62,6 +68,8 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
     this.clientDelay = 30;
     this.autoTx0PoolId = null;
     this.autoTx0FeeTarget = Tx0FeeTarget.BLOCKS_4;
+    this.autoTx0Batch = false;
+    this.tx0ParallelBuild = false;
     this.autoMix = false;
 
     // technical settings
@@ -71,6 +79,9 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
     this.refreshUtxoDelay = 60; // 1min
     this.refreshFeeDelay = 300; // 5min
     this.refreshPoolsDelay = 300; // 5min
+    this.refreshTx0DataDelay = 60; // 1min
+    this.refreshAhead = false;
+    this.utxoSource = null;
     this.mixsTarget = 1;
     this.persistDelay = 4; // 4s
     this.persistCleanDelay = 300; // 5min
@@ -128,6 +139,23 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
     this.autoTx0FeeTarget = autoTx0FeeTarget;
   }
 
+  public boolean isAutoTx0Batch() {
+    return autoTx0Batch;
+  }
+
+  public void setAutoTx0Batch(boolean autoTx0Batch) {
+    this.autoTx0Batch = autoTx0Batch;
+  }
+
+  public boolean isTx0ParallelBuild() {
+    return tx0ParallelBuild;
+  }
+
+  /** Derive premix addresses and sign tx0 inputs concurrently, for big tx0s. */
+  public void setTx0ParallelBuild(boolean tx0ParallelBuild) {
+    this.tx0ParallelBuild = tx0ParallelBuild;
+  }
+
   public boolean isAutoMix() {
     return autoMix;
   }
@@ -180,6 +208,39 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
     this.refreshPoolsDelay = refreshPoolsDelay;
   }
 
+  public int getRefreshTx0DataDelay() {
+    return refreshTx0DataDelay;
+  }
+
+  public void setRefreshTx0DataDelay(int refreshTx0DataDelay) {
+    this.refreshTx0DataDelay = refreshTx0DataDelay;
+  }
+
+  public boolean isRefreshAhead() {
+    return refreshAhead;
+  }
+
+  /**
+   * Refresh utxos, fees and pools in background before they expire, instead of blocking the first
+   * caller after expiry.
+   */
+  public void setRefreshAhead(boolean refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  public UtxoSource getUtxoSource() {
+    return utxoSource;
+  }
+
+  /**
+   * Receive utxo changes from this source instead of polling them every refreshUtxoDelay (see
+   * {@link com.samourai.whirlpool.client.wallet.utxo.BackendUtxoSource}). Utxos are polled when
+   * null (default).
+   */
+  public void setUtxoSource(UtxoSource utxoSource) {
+    this.utxoSource = utxoSource;
+  }
+
   public int getMixsTarget() {
     return mixsTarget;
   }
@@ -271,7 +332,13 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
             + ", refreshFeeDelay"
             + refreshFeeDelay
             + ", refreshPoolsDelay="
-            + refreshPoolsDelay);
+            + refreshPoolsDelay
+            + ", refreshTx0DataDelay="
+            + refreshTx0DataDelay
+            + ", refreshAhead="
+            + refreshAhead
+            + ", utxoSource="
+            + (utxoSource != null ? utxoSource.getClass().getSimpleName() : "polling"));
     configInfo.put(
         "mix",
         "mobile="
@@ -284,10 +351,14 @@ public class WhirlpoolWalletConfig extends WhirlpoolClientConfig {
             + getClientDelay()
             + ", tx0Delay="
             + getTx0Delay()
+            + ", tx0ParallelBuild="
+            + isTx0ParallelBuild()
             + ", autoTx0="
             + (isAutoTx0() ? getAutoTx0PoolId() : "false")
             + ", autoTx0FeeTarget="
             + getAutoTx0FeeTarget().name()
+            + ", autoTx0Batch="
+            + isAutoTx0Batch()
             + ", autoMix="
             + isAutoMix()
             + ", mixsTarget="
@@ -0,0 +1,94 @@
+package com.samourai.whirlpool.client.wallet.beans;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/** Immutable utxo outpoint key: raw tx hash + output index, with precomputed hashCode. */
+public final class UtxoKey {
+  private static final int HASH_LENGTH = 32;
+  private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final byte[] hash;
+  private final int index;
+  private final boolean hexHash; // false when tx hash is not a 64-chars hex string
+  private final int hashCode;
+
+  private UtxoKey(byte[] hash, int index, boolean hexHash) {
+    this.hash = hash;
+    this.index = index;
+    this.hexHash = hexHash;
+    this.hashCode = 31 * (31 * Arrays.hashCode(hash) + index) + (hexHash ? 1 : 0);
+  }
+
+  public static UtxoKey of(String utxoHash, int utxoIndex) {
+    byte[] hashBytes = decodeHex(utxoHash);
+    if (hashBytes != null) {
+      return new UtxoKey(hashBytes, utxoIndex, true);
+    }
+    // non-standard hash: keep raw string bytes
+    return new UtxoKey(utxoHash.getBytes(UTF8), utxoIndex, false);
+  }
+
+  public static UtxoKey of(UnspentOutput utxo) {
+    return of(utxo.tx_hash, utxo.tx_output_n);
+  }
+
+  private static byte[] decodeHex(String hex) {
+    if (hex == null || hex.length() != HASH_LENGTH * 2) {
+      return null;
+    }
+    byte[] bytes = new byte[HASH_LENGTH];
+    for (int i = 0; i < HASH_LENGTH; i++) {
+      int high = Character.digit(hex.charAt(i * 2), 16);
+      int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+      if (high < 0 || low < 0) {
+        return null;
+      }
+      bytes[i] = (byte) ((high << 4) | low);
+    }
+    return bytes;
+  }
+
+  public String getHash() {
+    if (!hexHash) {
+      return new String(hash, UTF8);
+    }
+    char[] chars = new char[hash.length * 2];
+    for (int i = 0; i < hash.length; i++) {
+      chars[i * 2] = HEX_CHARS[(hash[i] >> 4) & 0xF];
+      chars[i * 2 + 1] = HEX_CHARS[hash[i] & 0xF];
+    }
+    return new String(chars);
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof UtxoKey)) {
+      return false;
+    }
+    UtxoKey other = (UtxoKey) o;
+    return hashCode == other.hashCode
+        && index == other.index
+        && hexHash == other.hexHash
+        && Arrays.equals(hash, other.hash);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return getHash() + ':' + index;
+  }
+}
@@ -0,0 +1,53 @@
+package com.samourai.whirlpool.client.wallet.beans;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Utxos added, updated or removed by a single utxos refresh. */
+public class WhirlpoolUtxoChanges {
+  private boolean isFirstFetch;
+  private List<WhirlpoolUtxo> utxosAdded;
+  private Map<WhirlpoolUtxo, UnspentOutput> utxosUpdated; // with previous utxo
+  private List<WhirlpoolUtxo> utxosRemoved;
+
+  public WhirlpoolUtxoChanges(boolean isFirstFetch) {
+    this.isFirstFetch = isFirstFetch;
+    this.utxosAdded = new ArrayList<WhirlpoolUtxo>();
+    this.utxosUpdated = new LinkedHashMap<WhirlpoolUtxo, UnspentOutput>();
+    this.utxosRemoved = new ArrayList<WhirlpoolUtxo>();
+  }
+
+  public boolean isEmpty() {
+    return utxosAdded.isEmpty() && utxosUpdated.isEmpty() && utxosRemoved.isEmpty();
+  }
+
+  public boolean isFirstFetch() {
+    return isFirstFetch;
+  }
+
+  public List<WhirlpoolUtxo> getUtxosAdded() {
+    return utxosAdded;
+  }
+
+  public Map<WhirlpoolUtxo, UnspentOutput> getUtxosUpdated() {
+    return utxosUpdated;
+  }
+
+  public List<WhirlpoolUtxo> getUtxosRemoved() {
+    return utxosRemoved;
+  }
+
+  @Override
+  public String toString() {
+    return "added="
+        + utxosAdded.size()
+        + ", updated="
+        + utxosUpdated.size()
+        + ", removed="
+        + utxosRemoved.size()
+        + (isFirstFetch ? " (first fetch)" : "");
+  }
+}
@@ -3,6 +3,7 @@ package com.samourai.whirlpool.client.wallet.orchestrator;
 import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
 import com.samourai.whirlpool.client.exception.EmptyWalletException;
 import com.samourai.whirlpool.client.exception.UnconfirmedUtxoException;
+import com.samourai.whirlpool.client.tx0.Tx0BatchResult;
 import com.samourai.whirlpool.client.wallet.WhirlpoolWallet;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
@@ -37,9 +38,13 @@ public class AutoTx0Orchestrator extends AbstractOrchestrator {
       if (log.isDebugEnabled()) {
         log.debug("AutoTx0: looking for Tx0...");
       }
-      whirlpoolWallet.autoTx0(); // throws UnconfirmedUtxoException, EmptyWalletException
+      Tx0BatchResult tx0BatchResult =
+          whirlpoolWallet.autoTx0(); // throws UnconfirmedUtxoException, EmptyWalletException
       setLastRun();
-      log.info(" • AutoTx0: SUCCESS");
+      log.info(" • AutoTx0: SUCCESS, " + tx0BatchResult);
+
+      // Tx0Data was used, prepare next one
+      prefetchTx0Data();
 
       // continue for next Tx0...
 
@@ -101,6 +106,7 @@ public class AutoTx0Orchestrator extends AbstractOrchestrator {
         if (log.isDebugEnabled()) {
           log.debug(" o AutoTx0: new DEPOSIT utxo detected, checking for tx0: " + whirlpoolUtxo);
         }
+        prefetchTx0Data();
         notifyOrchestrator();
       } else {
         if (log.isDebugEnabled()) {
@@ -117,7 +123,12 @@ public class AutoTx0Orchestrator extends AbstractOrchestrator {
         && whirlpoolUtxo.getUtxo().confirmations
             >= whirlpoolWallet.getConfig().getTx0MinConfirmations()) {
       log.info(" o AutoTx0: new DEPOSIT utxo CONFIRMED, checking for tx0: " + whirlpoolUtxo);
+      prefetchTx0Data();
       notifyOrchestrator();
     }
   }
+
+  private void prefetchTx0Data() {
+    whirlpoolWallet.getConfig().getTx0Service().prefetchTx0Data(autoTx0PoolId);
+  }
 }
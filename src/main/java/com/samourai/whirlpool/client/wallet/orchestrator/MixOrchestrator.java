@@ -6,7 +6,6 @@ import com.samourai.whirlpool.client.mix.MixParams;
 import com.samourai.whirlpool.client.mix.listener.MixFailReason;
 import com.samourai.whirlpool.client.mix.listener.MixStep;
 import com.samourai.whirlpool.client.mix.listener.MixSuccess;
-import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.wallet.WhirlpoolWallet;
 import com.samourai.whirlpool.client.wallet.beans.*;
 import com.samourai.whirlpool.client.whirlpool.listener.LoggingWhirlpoolClientListener;
@@ -21,9 +20,7 @@ import java8.util.Optional;
 import java8.util.function.Function;
 import java8.util.function.Predicate;
 import java8.util.stream.Collectors;
-import java8.util.stream.Stream;
 import java8.util.stream.StreamSupport;
-import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,9 +34,10 @@ public class MixOrchestrator extends AbstractOrchestrator {
   private Integer maxClients;
   private int maxClientsPerPool;
 
-  private ConcurrentHashMap<String, Mixing> mixing;
+  private ConcurrentHashMap<UtxoKey, Mixing> mixing;
   private Set<String> mixingHashs;
   private Map<String, Integer> mixingPerPool;
+  private MixQueue mixQueue;
 
   public MixOrchestrator(
       int loopDelay,
@@ -53,12 +51,13 @@ public class MixOrchestrator extends AbstractOrchestrator {
     this.mixingState = mixingState;
     this.maxClients = maxClients;
     this.maxClientsPerPool = maxClientsPerPool;
+    this.mixQueue = new MixQueue();
   }
 
   @Override
   protected void resetOrchestrator() {
     super.resetOrchestrator();
-    this.mixing = new ConcurrentHashMap<String, Mixing>();
+    this.mixing = new ConcurrentHashMap<UtxoKey, Mixing>();
     this.mixingHashs = new HashSet<String>();
     this.mixingPerPool = new HashMap<String, Integer>();
   }
@@ -94,9 +93,6 @@ public class MixOrchestrator extends AbstractOrchestrator {
   @Override
   protected void runOrchestrator() {
     try {
-      // refresh all mixableStatus
-      refreshMixableStatus();
-
       if (log.isDebugEnabled()) {
         log.debug(mixing.size() + " threads running => checking for queued utxos to mix...");
       }
@@ -199,28 +195,12 @@ public class MixOrchestrator extends AbstractOrchestrator {
     return toSwap;
   }
 
-  private Stream<WhirlpoolUtxo> getQueue() {
-    try {
-      return StreamSupport.stream(
-              whirlpoolWallet.getUtxos(false, WhirlpoolAccount.PREMIX, WhirlpoolAccount.POSTMIX))
-          .filter(
-              new Predicate<WhirlpoolUtxo>() {
-                @Override
-                public boolean test(WhirlpoolUtxo whirlpoolUtxo) {
-                  // queued
-                  return WhirlpoolUtxoStatus.MIX_QUEUE.equals(
-                      whirlpoolUtxo.getUtxoState().getStatus());
-                }
-              });
-    } catch (Exception e) {
-      return StreamSupport.stream(new ArrayList());
-    }
+  public void clearQueue() {
+    mixQueue.clear();
   }
 
   public boolean hasMoreMixableOrUnconfirmed() {
-    List<WhirlpoolUtxo> unconfirmedUtxos =
-        getQueueByMixableStatus(false, null, MixableStatus.MIXABLE, MixableStatus.UNCONFIRMED);
-    return !unconfirmedUtxos.isEmpty();
+    return mixQueue.hasQueued(MixableStatus.MIXABLE, MixableStatus.UNCONFIRMED);
   }
 
   public boolean hasMoreMixingThreadAvailable(String poolId) {
@@ -238,21 +218,11 @@ public class MixOrchestrator extends AbstractOrchestrator {
   }
 
   private Optional<WhirlpoolUtxo> findMixable() {
-    // find highest priority utxo to mix
-    Predicate<WhirlpoolUtxo> filter =
-        new Predicate<WhirlpoolUtxo>() {
-          @Override
-          public boolean test(WhirlpoolUtxo whirlpoolUtxo) {
-            // enforce maxClientsPerPool
-            String poolId = whirlpoolUtxo.getUtxoConfig().getPoolId();
-            Integer nbMixingInPool = mixingPerPool.get(poolId);
-            return nbMixingInPool == null || nbMixingInPool < maxClientsPerPool;
-          }
-        };
-    List<WhirlpoolUtxo> mixableUtxos = getQueueByMixableStatus(true, filter, MixableStatus.MIXABLE);
-    return mixableUtxos.isEmpty()
-        ? Optional.<WhirlpoolUtxo>empty()
-        : Optional.of(mixableUtxos.get(0));
+    // find highest priority utxo to mix, enforcing maxClientsPerPool & errorDelay
+    final long lastErrorMax = System.currentTimeMillis() - (LAST_ERROR_DELAY * 1000);
+    WhirlpoolUtxo mixableUtxo =
+        mixQueue.findMixable(mixingPerPool, maxClientsPerPool, lastErrorMax);
+    return Optional.ofNullable(mixableUtxo);
   }
 
   private Map<String, Integer> computeMixingPerPool() {
@@ -265,43 +235,6 @@ public class MixOrchestrator extends AbstractOrchestrator {
     return mixingPerPool;
   }
 
-  private List<WhirlpoolUtxo> getQueueByMixableStatus(
-      final boolean filterErrorDelay,
-      Predicate<WhirlpoolUtxo> utxosFilter,
-      final MixableStatus... filterMixableStatuses) {
-    final long lastErrorMax = System.currentTimeMillis() - (LAST_ERROR_DELAY * 1000);
-
-    // find queued
-    Stream<WhirlpoolUtxo> stream =
-        getQueue()
-            .filter(
-                new Predicate<WhirlpoolUtxo>() {
-                  @Override
-                  public boolean test(WhirlpoolUtxo whirlpoolUtxo) {
-                    WhirlpoolUtxoState utxoState = whirlpoolUtxo.getUtxoState();
-                    // don't retry before errorDelay
-                    boolean accepted =
-                        (!filterErrorDelay
-                            || utxoState.getLastError() == null
-                            || utxoState.getLastError() < lastErrorMax);
-                    if (!accepted) {
-                      return false;
-                    }
-
-                    // filter by mixableStatus
-                    return ArrayUtils.contains(filterMixableStatuses, utxoState.getMixableStatus());
-                  }
-                });
-    if (utxosFilter != null) {
-      stream = stream.filter(utxosFilter);
-    }
-    List<WhirlpoolUtxo> whirlpoolUtxos = stream.collect(Collectors.<WhirlpoolUtxo>toList());
-
-    // suffle & sort
-    computeWhirlpoolUtxoPriorityComparator().sortShuffled(whirlpoolUtxos);
-    return whirlpoolUtxos;
-  }
-
   public WhirlpoolUtxoPriorityComparator computeWhirlpoolUtxoPriorityComparator() {
     return new WhirlpoolUtxoPriorityComparator(mixingHashs, mixingPerPool);
   }
@@ -320,8 +253,8 @@ public class MixOrchestrator extends AbstractOrchestrator {
 
     if (!WhirlpoolAccount.DEPOSIT.equals(whirlpoolUtxo.getAccount())) {
       // already mixing?
-      final String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
-      if (!mixing.contains(key)) {
+      final UtxoKey key = whirlpoolUtxo.getUtxoKey();
+      if (!mixing.containsKey(key)) {
 
         // exclude hashs of utxos currently mixing
         if (mixingHashs.contains(whirlpoolUtxo.getUtxo().tx_hash)) {
@@ -337,16 +270,14 @@ public class MixOrchestrator extends AbstractOrchestrator {
   private MixableStatus refreshMixableStatus(WhirlpoolUtxo whirlpoolUtxo) {
     MixableStatus mixableStatus = computeMixableStatus(whirlpoolUtxo);
     whirlpoolUtxo.getUtxoState().setMixableStatus(mixableStatus);
+    mixQueue.update(whirlpoolUtxo);
     return mixableStatus;
   }
 
-  private void refreshMixableStatus() {
-    try {
-      for (WhirlpoolUtxo whirlpoolUtxo : whirlpoolWallet.getUtxos(false)) {
-        refreshMixableStatus(whirlpoolUtxo);
-      }
-    } catch (Exception e) {
-      log.error("", e);
+  private void refreshMixableStatusByHash(String hash) {
+    // refresh utxos sharing a hash which started or stopped mixing
+    for (WhirlpoolUtxo whirlpoolUtxo : mixQueue.getUtxosByHash(hash)) {
+      refreshMixableStatus(whirlpoolUtxo);
     }
   }
 
@@ -360,10 +291,11 @@ public class MixOrchestrator extends AbstractOrchestrator {
     if (whirlpoolUtxo.getUtxoConfig().getPoolId() == null) {
       throw new NotifiableException("cannot add to mix queue: no pool set");
     }
-    final String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    final UtxoKey key = whirlpoolUtxo.getUtxoKey();
     if (!mixing.containsKey(key)) {
       // add to queue
       utxoState.setStatus(WhirlpoolUtxoStatus.MIX_QUEUE, false);
+      refreshMixableStatus(whirlpoolUtxo);
       if (log.isDebugEnabled()) {
         log.debug(" + mixQueue: " + whirlpoolUtxo.toString());
       }
@@ -381,15 +313,16 @@ public class MixOrchestrator extends AbstractOrchestrator {
     // set status (this eventually removes it from queue)
     WhirlpoolUtxoStatus utxoStatus = cancel ? WhirlpoolUtxoStatus.READY : WhirlpoolUtxoStatus.STOP;
     utxoState.setStatus(utxoStatus, false);
+    mixQueue.update(whirlpoolUtxo);
 
-    final String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    final UtxoKey key = whirlpoolUtxo.getUtxoKey();
     Mixing myMixing = mixing.get(key);
     if (myMixing != null) {
       // stop mixing
       mixStop(myMixing, cancel);
     } else if (wasQueued) {
       // recount QUEUE if it was queued
-      mixingState.setUtxosQueued(getQueue().collect(Collectors.<WhirlpoolUtxo>toList()));
+      mixingState.setUtxosQueued(mixQueue.getQueued());
     }
   }
 
@@ -402,22 +335,24 @@ public class MixOrchestrator extends AbstractOrchestrator {
       }
     }
 
-    // stop in new thread for faster response
-    new Thread(
+    // stop asynchronously for faster response
+    whirlpoolWallet
+        .getConfig()
+        .getExecutorService()
+        .submit(
             new Runnable() {
               @Override
               public void run() {
                 mixing.getWhirlpoolClient().stop(cancel);
               }
-            },
-            "stop-whirlpoolClient")
-        .start();
+            });
   }
 
   public Observable<MixProgress> doMix(
       final WhirlpoolUtxo whirlpoolUtxo, MixParams mixParams, WhirlpoolClient mixClient) {
     MixProgress mixProgress = new MixProgress(MixStep.CONNECTING);
     whirlpoolUtxo.getUtxoState().setStatus(WhirlpoolUtxoStatus.MIX_STARTED, true, mixProgress);
+    mixQueue.update(whirlpoolUtxo);
     if (log.isDebugEnabled()) {
       log.info(
           " • Connecting client to pool: "
@@ -519,10 +454,11 @@ public class MixOrchestrator extends AbstractOrchestrator {
   }
 
   private void removeMixing(WhirlpoolUtxo whirlpoolUtxo) {
-    String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    UtxoKey key = whirlpoolUtxo.getUtxoKey();
     mixing.remove(key);
     mixingHashs.remove(whirlpoolUtxo.getUtxo().tx_hash);
     mixingPerPool = computeMixingPerPool();
+    refreshMixableStatusByHash(whirlpoolUtxo.getUtxo().tx_hash);
     mixingState.setUtxosMixing(computeUtxosMixing());
   }
 
@@ -531,17 +467,17 @@ public class MixOrchestrator extends AbstractOrchestrator {
       log.debug("addMixing: " + mixingToAdd.getUtxo());
     }
     WhirlpoolUtxo whirlpoolUtxo = mixingToAdd.getUtxo();
-    String key = ClientUtils.utxoToKey(whirlpoolUtxo.getUtxo());
+    UtxoKey key = whirlpoolUtxo.getUtxoKey();
     mixing.put(key, mixingToAdd);
     mixingHashs.add(whirlpoolUtxo.getUtxo().tx_hash);
     mixingPerPool = computeMixingPerPool();
-    mixingState.set(
-        computeUtxosMixing(),
-        getQueue().collect(Collectors.<WhirlpoolUtxo>toList())); // recount nbQueued too
+    refreshMixableStatusByHash(whirlpoolUtxo.getUtxo().tx_hash);
+    mixingState.set(computeUtxosMixing(), mixQueue.getQueued()); // recount nbQueued too
   }
 
   public void onUtxoDetected(WhirlpoolUtxo whirlpoolUtxo, boolean isFirstFetch) {
     // set mixableStatus
+    mixQueue.onUtxoDetected(whirlpoolUtxo);
     refreshMixableStatus(whirlpoolUtxo);
 
     WhirlpoolUtxoConfig utxoConfig = whirlpoolUtxo.getUtxoConfig();
@@ -577,6 +513,15 @@ public class MixOrchestrator extends AbstractOrchestrator {
     }
   }
 
+  public void onUtxoRemoved(WhirlpoolUtxo whirlpoolUtxo) {
+    mixQueue.onUtxoRemoved(whirlpoolUtxo);
+  }
+
+  public void onUtxoPoolChanged(WhirlpoolUtxo whirlpoolUtxo) {
+    // refresh mixableStatus for this utxo
+    refreshMixableStatus(whirlpoolUtxo);
+  }
+
   public void onUtxoConfirmed(WhirlpoolUtxo whirlpoolUtxo) {
     // refresh mixableStatus for this utxos
     refreshMixableStatus(whirlpoolUtxo);
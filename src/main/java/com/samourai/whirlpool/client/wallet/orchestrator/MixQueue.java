@@ -0,0 +1,302 @@
+package com.samourai.whirlpool.client.wallet.orchestrator;
+
+import com.samourai.whirlpool.client.wallet.beans.*;
+import java.util.*;
+import java8.lang.Longs;
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * Queued PREMIX & POSTMIX utxos (status MIX_QUEUE), indexed by pool and priority so that the next
+ * utxo to mix is found in O(log n) instead of sorting the whole queue. Must be updated on each
+ * status or mixableStatus change with {@link #update(WhirlpoolUtxo)}.
+ */
+public class MixQueue {
+  private static final Random random = new Random();
+
+  private Map<UtxoKey, Entry> queued;
+  private Map<String, PoolQueue> mixableByPool;
+  private Map<String, List<WhirlpoolUtxo>> utxosByHash;
+  private long nextSeq;
+
+  public MixQueue() {
+    this.queued = new HashMap<UtxoKey, Entry>();
+    this.mixableByPool = new HashMap<String, PoolQueue>();
+    this.utxosByHash = new HashMap<String, List<WhirlpoolUtxo>>();
+    this.nextSeq = 0;
+  }
+
+  public synchronized void clear() {
+    queued.clear();
+    mixableByPool.clear();
+    utxosByHash.clear();
+  }
+
+  private boolean isMixAccount(WhirlpoolUtxo whirlpoolUtxo) {
+    return WhirlpoolAccount.PREMIX.equals(whirlpoolUtxo.getAccount())
+        || WhirlpoolAccount.POSTMIX.equals(whirlpoolUtxo.getAccount());
+  }
+
+  public synchronized void onUtxoDetected(WhirlpoolUtxo whirlpoolUtxo) {
+    if (!isMixAccount(whirlpoolUtxo)) {
+      return;
+    }
+    String hash = whirlpoolUtxo.getUtxo().tx_hash;
+    List<WhirlpoolUtxo> utxos = utxosByHash.get(hash);
+    if (utxos == null) {
+      utxos = new ArrayList<WhirlpoolUtxo>(1);
+      utxosByHash.put(hash, utxos);
+    }
+    utxos.add(whirlpoolUtxo);
+    update(whirlpoolUtxo);
+  }
+
+  public synchronized void onUtxoRemoved(WhirlpoolUtxo whirlpoolUtxo) {
+    String hash = whirlpoolUtxo.getUtxo().tx_hash;
+    List<WhirlpoolUtxo> utxos = utxosByHash.get(hash);
+    if (utxos != null) {
+      utxos.remove(whirlpoolUtxo);
+      if (utxos.isEmpty()) {
+        utxosByHash.remove(hash);
+      }
+    }
+    Entry entry = queued.get(whirlpoolUtxo.getUtxoKey());
+    if (entry != null && entry.whirlpoolUtxo == whirlpoolUtxo) {
+      remove(entry);
+    }
+  }
+
+  /** PREMIX & POSTMIX utxos sharing this tx hash. */
+  public synchronized Collection<WhirlpoolUtxo> getUtxosByHash(String hash) {
+    List<WhirlpoolUtxo> utxos = utxosByHash.get(hash);
+    if (utxos == null) {
+      return new ArrayList<WhirlpoolUtxo>();
+    }
+    return new ArrayList<WhirlpoolUtxo>(utxos);
+  }
+
+  /** Reindex utxo after a change of status, mixableStatus or pool. */
+  public synchronized void update(WhirlpoolUtxo whirlpoolUtxo) {
+    if (!isMixAccount(whirlpoolUtxo)) {
+      return;
+    }
+    UtxoKey key = whirlpoolUtxo.getUtxoKey();
+    Entry existing = queued.get(key);
+    WhirlpoolUtxoState utxoState = whirlpoolUtxo.getUtxoState();
+    if (!WhirlpoolUtxoStatus.MIX_QUEUE.equals(utxoState.getStatus())) {
+      // not queued
+      if (existing != null) {
+        remove(existing);
+      }
+      return;
+    }
+
+    String poolId = whirlpoolUtxo.getUtxoConfig().getPoolId();
+    boolean mixable = MixableStatus.MIXABLE.equals(utxoState.getMixableStatus()) && poolId != null;
+    if (existing != null) {
+      if (existing.isUpToDate(whirlpoolUtxo, poolId, mixable)) {
+        // unchanged
+        return;
+      }
+      remove(existing);
+    }
+
+    // add
+    Entry entry = new Entry(whirlpoolUtxo, poolId, mixable, random.nextLong(), nextSeq++);
+    queued.put(key, entry);
+    if (mixable) {
+      PoolQueue poolQueue = mixableByPool.get(poolId);
+      if (poolQueue == null) {
+        poolQueue = new PoolQueue();
+        mixableByPool.put(poolId, poolQueue);
+      }
+      poolQueue.add(entry);
+    }
+  }
+
+  private void remove(Entry entry) {
+    queued.remove(entry.whirlpoolUtxo.getUtxoKey());
+    if (entry.mixable) {
+      PoolQueue poolQueue = mixableByPool.get(entry.poolId);
+      if (poolQueue != null) {
+        poolQueue.remove(entry);
+        if (poolQueue.isEmpty()) {
+          mixableByPool.remove(entry.poolId);
+        }
+      }
+    }
+  }
+
+  /**
+   * Find highest priority mixable utxo: less active pool first, then premix before postmix, then
+   * no error first, then older error first. Same-priority utxos are picked randomly.
+   *
+   * @param mixingPerPool number of utxos currently mixing per pool
+   * @param maxClientsPerPool pools with as many clients mixing are skipped
+   * @param lastErrorMax utxos with an error more recent than this are skipped
+   */
+  public synchronized WhirlpoolUtxo findMixable(
+      Map<String, Integer> mixingPerPool, int maxClientsPerPool, long lastErrorMax) {
+    while (true) {
+      Entry best = null;
+      int bestMixing = 0;
+      for (Map.Entry<String, PoolQueue> poolEntry : mixableByPool.entrySet()) {
+        Integer nbMixing = mixingPerPool.get(poolEntry.getKey());
+        int nbMixingInPool = nbMixing != null ? nbMixing : 0;
+        if (nbMixingInPool >= maxClientsPerPool) {
+          continue;
+        }
+        Entry candidate = poolEntry.getValue().findFirst(lastErrorMax);
+        if (candidate == null) {
+          continue;
+        }
+        if (best == null
+            || nbMixingInPool < bestMixing
+            || (nbMixingInPool == bestMixing && PRIORITY.compare(candidate, best) < 0)) {
+          best = candidate;
+          bestMixing = nbMixingInPool;
+        }
+      }
+      if (best == null) {
+        return null;
+      }
+
+      // utxo may have been modified without notifying us => reindex and retry
+      WhirlpoolUtxo whirlpoolUtxo = best.whirlpoolUtxo;
+      String poolId = whirlpoolUtxo.getUtxoConfig().getPoolId();
+      boolean mixable =
+          WhirlpoolUtxoStatus.MIX_QUEUE.equals(whirlpoolUtxo.getUtxoState().getStatus())
+              && MixableStatus.MIXABLE.equals(whirlpoolUtxo.getUtxoState().getMixableStatus())
+              && poolId != null;
+      if (best.isUpToDate(whirlpoolUtxo, poolId, mixable)) {
+        return whirlpoolUtxo;
+      }
+      update(whirlpoolUtxo);
+    }
+  }
+
+  public synchronized boolean hasQueued(MixableStatus... mixableStatuses) {
+    for (Entry entry : queued.values()) {
+      if (ArrayUtils.contains(
+          mixableStatuses, entry.whirlpoolUtxo.getUtxoState().getMixableStatus())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public synchronized Collection<WhirlpoolUtxo> getQueued() {
+    List<WhirlpoolUtxo> result = new ArrayList<WhirlpoolUtxo>(queued.size());
+    for (Entry entry : queued.values()) {
+      result.add(entry.whirlpoolUtxo);
+    }
+    return result;
+  }
+
+  public synchronized int getNbQueued() {
+    return queued.size();
+  }
+
+  private static final Comparator<Entry> PRIORITY =
+      new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+          // premix before postmix
+          boolean premix1 = WhirlpoolAccount.PREMIX.equals(e1.account);
+          boolean premix2 = WhirlpoolAccount.PREMIX.equals(e2.account);
+          if (premix1 != premix2) {
+            return premix1 ? -1 : 1;
+          }
+
+          // no error first
+          if (e1.lastError != null && e2.lastError == null) {
+            return 1;
+          }
+          if (e2.lastError != null && e1.lastError == null) {
+            return -1;
+          }
+          if (e1.lastError != null && e2.lastError != null) {
+            // both errors: older error first
+            int compareErrors = Longs.compare(e1.lastError, e2.lastError);
+            if (compareErrors != 0) {
+              return compareErrors;
+            }
+          }
+
+          // same priority: random order
+          int compareShuffle = Longs.compare(e1.shuffle, e2.shuffle);
+          if (compareShuffle != 0) {
+            return compareShuffle;
+          }
+          return Longs.compare(e1.seq, e2.seq);
+        }
+      };
+
+  private static class PoolQueue {
+    private TreeSet<Entry> premix = new TreeSet<Entry>(PRIORITY);
+    private TreeSet<Entry> postmix = new TreeSet<Entry>(PRIORITY);
+
+    private TreeSet<Entry> getSet(Entry entry) {
+      return WhirlpoolAccount.PREMIX.equals(entry.account) ? premix : postmix;
+    }
+
+    void add(Entry entry) {
+      getSet(entry).add(entry);
+    }
+
+    void remove(Entry entry) {
+      getSet(entry).remove(entry);
+    }
+
+    boolean isEmpty() {
+      return premix.isEmpty() && postmix.isEmpty();
+    }
+
+    Entry findFirst(long lastErrorMax) {
+      Entry entry = findFirst(premix, lastErrorMax);
+      if (entry == null) {
+        entry = findFirst(postmix, lastErrorMax);
+      }
+      return entry;
+    }
+
+    private Entry findFirst(TreeSet<Entry> set, long lastErrorMax) {
+      if (set.isEmpty()) {
+        return null;
+      }
+      // errors are sorted last & older first: when first entry is too recent, all others are
+      Entry first = set.first();
+      if (first.lastError == null || first.lastError < lastErrorMax) {
+        return first;
+      }
+      return null;
+    }
+  }
+
+  private static class Entry {
+    private final WhirlpoolUtxo whirlpoolUtxo;
+    private final String poolId;
+    private final boolean mixable;
+    private final WhirlpoolAccount account;
+    private final Long lastError;
+    private final long shuffle;
+    private final long seq;
+
+    Entry(WhirlpoolUtxo whirlpoolUtxo, String poolId, boolean mixable, long shuffle, long seq) {
+      this.whirlpoolUtxo = whirlpoolUtxo;
+      this.poolId = poolId;
+      this.mixable = mixable;
+      this.account = whirlpoolUtxo.getAccount();
+      this.lastError = whirlpoolUtxo.getUtxoState().getLastError();
+      this.shuffle = shuffle;
+      this.seq = seq;
+    }
+
+    boolean isUpToDate(WhirlpoolUtxo whirlpoolUtxo, String poolId, boolean mixable) {
+      Long lastError = whirlpoolUtxo.getUtxoState().getLastError();
+      return this.whirlpoolUtxo == whirlpoolUtxo
+          && this.mixable == mixable
+          && (this.poolId != null ? this.poolId.equals(poolId) : poolId == null)
+          && (this.lastError != null ? this.lastError.equals(lastError) : lastError == null);
+    }
+  }
+}
@@ -29,7 +29,6 @@ public class FileWhirlpoolUtxoConfigHandler {
   private Set<String> keysToClean;
   private long lastSet;
   private long lastWrite;
-  private Consumer<WhirlpoolUtxoConfig> consumer;
 
   protected FileWhirlpoolUtxoConfigHandler(File file) {
     this.file = file;
@@ -38,7 +37,6 @@ public class FileWhirlpoolUtxoConfigHandler {
     this.keysToClean = new HashSet<String>();
     this.lastSet = 0;
     this.lastWrite = 0;
-    this.consumer = computeConsumer();
   }
 
   protected WhirlpoolUtxoConfig get(String key) {
@@ -50,24 +48,45 @@ public class FileWhirlpoolUtxoConfigHandler {
     if (existingUtxoConfig != null) {
       // should never happen...
       log.warn("add(" + key + "): utxoConfig already exists!");
-      WhirlpoolUtxoConfig removed = utxoConfigs.remove(key);
-      ((BehaviorSubject<WhirlpoolUtxoConfig>) removed.getObservable()).onComplete();
+      remove(key);
     }
-    utxoConfig.getObservable().subscribe(consumer);
+    attach(key, utxoConfig);
+
+    onChange(key);
+  }
+
+  /** Track an utxoConfig without marking it as modified. */
+  protected synchronized void attach(String key, WhirlpoolUtxoConfig utxoConfig) {
+    utxoConfig.getObservable().subscribe(computeConsumer(key));
     utxoConfigs.put(key, utxoConfig);
+  }
 
-    setLastSet();
+  protected synchronized void remove(String key) {
+    WhirlpoolUtxoConfig removed = utxoConfigs.remove(key);
+    if (removed != null) {
+      ((BehaviorSubject<WhirlpoolUtxoConfig>) removed.getObservable()).onComplete();
+    }
   }
 
-  private Consumer<WhirlpoolUtxoConfig> computeConsumer() {
+  private Consumer<WhirlpoolUtxoConfig> computeConsumer(final String key) {
     return new Consumer<WhirlpoolUtxoConfig>() {
       @Override
       public void accept(WhirlpoolUtxoConfig whirlpoolUtxoConfig) throws Exception {
-        setLastSet();
+        onChange(key);
       }
     };
   }
 
+  /** Called when an utxoConfig is added or modified. */
+  protected void onChange(String key) {
+    setLastSet();
+  }
+
+  /** Called when an obsolete utxoConfig is removed. */
+  protected void onRemove(String key) {
+    setLastSet();
+  }
+
   protected boolean save() throws Exception {
     if (!hasModifications()) {
       return false;
@@ -111,7 +130,7 @@ public class FileWhirlpoolUtxoConfigHandler {
     }
   }
 
-  private synchronized void clearUtxoConfigs() {
+  protected synchronized void clearUtxoConfigs() {
     StreamSupport.parallelStream(utxoConfigs.values())
         .forEach(
             new java8.util.function.Consumer<WhirlpoolUtxoConfig>() {
@@ -145,13 +164,13 @@ public class FileWhirlpoolUtxoConfigHandler {
           iter.remove();
           ((BehaviorSubject<WhirlpoolUtxoConfig>) entry.getValue().getObservable()).onComplete();
           knownUtxosKeys.remove(entryKey);
-          setLastSet();
+          onRemove(entryKey);
         }
       }
     }
   }
 
-  private synchronized void write() throws Exception {
+  protected synchronized void write() throws Exception {
     if (log.isDebugEnabled()) {
       log.debug("write");
     }
@@ -177,10 +196,22 @@ public class FileWhirlpoolUtxoConfigHandler {
 
     // write
     ClientUtils.safeWriteValue(mapper, mapPersisted, file);
-    lastWrite = System.currentTimeMillis();
+    setLastWrite();
   }
 
   public void setLastSet() {
     lastSet = System.currentTimeMillis();
   }
+
+  protected void setLastWrite() {
+    lastWrite = System.currentTimeMillis();
+  }
+
+  protected Map<String, WhirlpoolUtxoConfig> getUtxoConfigs() {
+    return utxoConfigs;
+  }
+
+  protected File getFile() {
+    return file;
+  }
 }
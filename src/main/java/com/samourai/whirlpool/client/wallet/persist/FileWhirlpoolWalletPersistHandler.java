@@ -1,16 +1,19 @@
 package com.samourai.whirlpool.client.wallet.persist;
 
-import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
 import com.samourai.wallet.client.indexHandler.FileIndexHandler;
 import com.samourai.wallet.client.indexHandler.IIndexHandler;
 import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.wallet.WhirlpoolWallet;
+import com.samourai.whirlpool.client.wallet.beans.UtxoKey;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
 import java.io.File;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,13 +21,117 @@ public class FileWhirlpoolWalletPersistHandler implements WhirlpoolWalletPersist
   private static final Logger log =
       LoggerFactory.getLogger(FileWhirlpoolWalletPersistHandler.class);
   private static final String INDEX_INITIALIZED = "init";
+  private static final String JOURNAL_SUFFIX = ".journal";
+  private static final String SNAPSHOT_SUFFIX = ".bin";
+
+  public enum UtxoConfigFormat {
+    /** JSON file rewritten on each save (see {@link FileWhirlpoolUtxoConfigHandler}) */
+    JSON,
+    /** JSON file + append-only journal (see {@link JournalWhirlpoolUtxoConfigHandler}) */
+    JOURNAL,
+    /** binary snapshot, memory-mapped (see {@link MappedWhirlpoolUtxoConfigHandler}) */
+    MAPPED
+  }
 
   private FileIndexHandler fileIndexHandler;
   private FileWhirlpoolUtxoConfigHandler fileUtxoConfigHandler;
+  private Map<UtxoKey, String> persistKeys; // cache of sha256 persist keys
 
   public FileWhirlpoolWalletPersistHandler(File fileIndex, File fileUtxo) {
-    this.fileIndexHandler = new FileIndexHandler(fileIndex);
-    this.fileUtxoConfigHandler = new FileWhirlpoolUtxoConfigHandler(fileUtxo);
+    this(fileIndex, fileUtxo, 0);
+  }
+
+  /**
+   * @param indexWriteBehindDelay max delay (ms) before writing index changes, 0 to write on each
+   *     change (see {@link FileIndexHandler})
+   */
+  public FileWhirlpoolWalletPersistHandler(
+      File fileIndex, File fileUtxo, long indexWriteBehindDelay) {
+    this(fileIndex, fileUtxo, indexWriteBehindDelay, false);
+  }
+
+  /**
+   * @param utxoJournal true to persist utxo configs changes as an append-only journal next to
+   *     fileUtxo (see {@link JournalWhirlpoolUtxoConfigHandler})
+   */
+  public FileWhirlpoolWalletPersistHandler(
+      File fileIndex, File fileUtxo, long indexWriteBehindDelay, boolean utxoJournal) {
+    this(
+        fileIndex,
+        fileUtxo,
+        indexWriteBehindDelay,
+        utxoJournal ? UtxoConfigFormat.JOURNAL : UtxoConfigFormat.JSON);
+  }
+
+  public FileWhirlpoolWalletPersistHandler(
+      File fileIndex, File fileUtxo, long indexWriteBehindDelay, UtxoConfigFormat utxoFormat) {
+    this(fileIndex, fileUtxo, indexWriteBehindDelay, utxoFormat, ClientUtils.getIoExecutor());
+  }
+
+  /**
+   * @param ioExecutorService executor running delayed index writes, usually {@link
+   *     com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig#getIoExecutorService()}
+   */
+  public FileWhirlpoolWalletPersistHandler(
+      File fileIndex,
+      File fileUtxo,
+      long indexWriteBehindDelay,
+      UtxoConfigFormat utxoFormat,
+      ScheduledExecutorService ioExecutorService) {
+    this.fileIndexHandler =
+        new FileIndexHandler(fileIndex, indexWriteBehindDelay, ioExecutorService);
+    this.fileUtxoConfigHandler = computeUtxoConfigHandler(fileUtxo, utxoFormat);
+    this.persistKeys = new ConcurrentHashMap<UtxoKey, String>();
+  }
+
+  /**
+   * When switching from JOURNAL format, pending journal records are merged into fileUtxo first.
+   * JOURNAL format is kept when they can't be merged, so that they are not lost.
+   */
+  protected static FileWhirlpoolUtxoConfigHandler computeUtxoConfigHandler(
+      File fileUtxo, UtxoConfigFormat utxoFormat) {
+    File journalFile = new File(fileUtxo.getPath() + JOURNAL_SUFFIX);
+    File snapshotFile = new File(fileUtxo.getPath() + SNAPSHOT_SUFFIX);
+    if (!UtxoConfigFormat.JOURNAL.equals(utxoFormat) && journalFile.exists()) {
+      if (mergeJournal(fileUtxo, journalFile)) {
+        // snapshot of a previous MAPPED run is older than merged fileUtxo
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+          log.error("Unable to delete obsolete " + snapshotFile.getAbsolutePath());
+          utxoFormat = UtxoConfigFormat.JSON;
+        }
+      } else {
+        log.error("Unable to merge " + journalFile.getAbsolutePath() + ", keeping JOURNAL format");
+        utxoFormat = UtxoConfigFormat.JOURNAL;
+      }
+    }
+    switch (utxoFormat) {
+      case JOURNAL:
+        return new JournalWhirlpoolUtxoConfigHandler(fileUtxo, journalFile);
+      case MAPPED:
+        return new MappedWhirlpoolUtxoConfigHandler(fileUtxo, snapshotFile);
+      default:
+        return new FileWhirlpoolUtxoConfigHandler(fileUtxo);
+    }
+  }
+
+  /** Replay journal into fileUtxo, then remove journal. */
+  private static boolean mergeJournal(File fileUtxo, File journalFile) {
+    try {
+      JournalWhirlpoolUtxoConfigHandler journalHandler =
+          new JournalWhirlpoolUtxoConfigHandler(fileUtxo, journalFile);
+      journalHandler.loadUtxoConfigs(null);
+      if (journalHandler.getNbJournalRecords() > 0) {
+        journalHandler.compact();
+      }
+      if (!journalFile.delete()) {
+        throw new Exception("unable to delete " + journalFile.getAbsolutePath());
+      }
+      log.info("Merged " + journalFile.getAbsolutePath() + " into " + fileUtxo.getAbsolutePath());
+      return true;
+    } catch (Exception e) {
+      log.error("", e);
+      return false;
+    }
   }
 
   // --- IndexHandler
@@ -49,6 +156,11 @@ public class FileWhirlpoolWalletPersistHandler implements WhirlpoolWalletPersist
     fileIndexHandler.set(INDEX_INITIALIZED, 1);
   }
 
+  @Override
+  public void saveIndexs() throws Exception {
+    fileIndexHandler.flush();
+  }
+
   // --- UtxoConfig
 
   @Override
@@ -83,20 +195,36 @@ public class FileWhirlpoolWalletPersistHandler implements WhirlpoolWalletPersist
   @Override
   public void cleanUtxoConfig(Collection<WhirlpoolUtxo> knownUtxos) {
     Set<String> knownUtxoKeys = new HashSet<String>();
+    Set<UtxoKey> knownUtxoKeysCached = new HashSet<UtxoKey>();
     for (WhirlpoolUtxo whirlpoolUtxo : knownUtxos) {
-      UnspentOutput utxo = whirlpoolUtxo.getUtxo();
-      knownUtxoKeys.add(computeUtxoConfigKey(utxo.tx_hash, utxo.tx_output_n));
+      UtxoKey utxoKey = whirlpoolUtxo.getUtxoKey();
+      knownUtxoKeys.add(computeUtxoConfigKey(utxoKey));
+      knownUtxoKeysCached.add(utxoKey);
     }
     fileUtxoConfigHandler.clean(knownUtxoKeys);
+
+    // forget cached keys of obsolete utxos
+    persistKeys.keySet().retainAll(knownUtxoKeysCached);
   }
 
   @Override
   public void save() throws Exception {
+    fileIndexHandler.flush();
     fileUtxoConfigHandler.save();
   }
 
   private String computeUtxoConfigKey(String utxoHash, int utxoIndex) {
-    return ClientUtils.sha256Hash(ClientUtils.utxoToKey(utxoHash, utxoIndex));
+    return computeUtxoConfigKey(UtxoKey.of(utxoHash, utxoIndex));
+  }
+
+  private String computeUtxoConfigKey(UtxoKey utxoKey) {
+    String persistKey = persistKeys.get(utxoKey);
+    if (persistKey == null) {
+      // same format as before: sha256("txhash:index")
+      persistKey = ClientUtils.sha256Hash(utxoKey.toString());
+      persistKeys.put(utxoKey, persistKey);
+    }
+    return persistKey;
   }
 
   private String computeUtxoConfigKey(String utxoHash) {
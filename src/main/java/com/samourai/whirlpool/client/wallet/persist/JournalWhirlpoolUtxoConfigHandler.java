@@ -0,0 +1,224 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samourai.whirlpool.client.wallet.WhirlpoolWallet;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utxo configs persisted as a snapshot file (same format as {@link
+ * FileWhirlpoolUtxoConfigHandler}) plus an append-only journal: saving appends one record per
+ * modified utxoConfig instead of rewriting all of them. Journal is compacted into snapshot when it
+ * gets bigger than the snapshot.
+ *
+ * <p>Records hold full utxoConfig values (not deltas) and are replayed in order on load, so
+ * replaying twice is harmless. A torn last record (crash while appending) is ignored. Compaction
+ * first appends pending changes, then replaces snapshot (synced temp file renamed over it), then
+ * truncates journal only once snapshot was replaced: a crash or failure in between replays a
+ * journal which is consistent with snapshot.
+ */
+public class JournalWhirlpoolUtxoConfigHandler extends FileWhirlpoolUtxoConfigHandler {
+  private static final Logger log =
+      LoggerFactory.getLogger(JournalWhirlpoolUtxoConfigHandler.class);
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int COMPACT_MIN = 1000;
+
+  private final File journalFile;
+  private final ObjectMapper mapper;
+  private final Set<String> changedKeys;
+  private final Set<String> removedKeys;
+  private int nbJournalRecords;
+  private boolean tornTail; // journal doesn't end with a complete record
+
+  protected JournalWhirlpoolUtxoConfigHandler(File file, File journalFile) {
+    super(file);
+    this.journalFile = journalFile;
+    this.mapper = new ObjectMapper();
+    this.changedKeys = new LinkedHashSet<String>();
+    this.removedKeys = new LinkedHashSet<String>();
+    this.nbJournalRecords = 0;
+    this.tornTail = false;
+  }
+
+  @Override
+  protected synchronized void onChange(String key) {
+    super.onChange(key);
+    changedKeys.add(key);
+    removedKeys.remove(key);
+  }
+
+  @Override
+  protected synchronized void onRemove(String key) {
+    super.onRemove(key);
+    removedKeys.add(key);
+    changedKeys.remove(key);
+  }
+
+  @Override
+  public synchronized void loadUtxoConfigs(WhirlpoolWallet whirlpoolWallet) {
+    // load snapshot
+    super.loadUtxoConfigs(whirlpoolWallet);
+
+    // replay journal
+    nbJournalRecords = 0;
+    tornTail = false;
+    if (journalFile.exists() && journalFile.length() > 0) {
+      try {
+        tornTail = !endsWithNewLine();
+        replayJournal();
+      } catch (Exception e) {
+        log.warn("load: unable to read " + journalFile.getAbsolutePath(), e);
+      }
+    }
+    changedKeys.clear();
+    removedKeys.clear();
+  }
+
+  private void replayJournal() throws Exception {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), UTF8));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        JournalRecord record;
+        try {
+          record = mapper.readValue(line, JournalRecord.class);
+        } catch (Exception e) {
+          // torn record
+          log.warn("load: ignoring invalid journal record: " + line);
+          continue;
+        }
+        String key = record.getKey();
+        remove(key);
+        if (record.getUtxoConfig() != null) {
+          add(key, record.getUtxoConfig().toUtxoConfig().copy());
+        }
+        nbJournalRecords++;
+      }
+    } finally {
+      reader.close();
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("load: " + nbJournalRecords + " journal records replayed");
+    }
+  }
+
+  private boolean endsWithNewLine() throws Exception {
+    RandomAccessFile raf = new RandomAccessFile(journalFile, "r");
+    try {
+      raf.seek(raf.length() - 1);
+      return raf.read() == '\n';
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Override
+  protected synchronized boolean save() throws Exception {
+    if (changedKeys.isEmpty() && removedKeys.isEmpty()) {
+      return false;
+    }
+    appendJournal();
+
+    if (nbJournalRecords > Math.max(COMPACT_MIN, getUtxoConfigs().size())) {
+      try {
+        compact();
+      } catch (Exception e) {
+        // changes are safe in journal, compaction will be retried on next save
+        log.error("journal: compaction failed, journal kept", e);
+      }
+    }
+    return true;
+  }
+
+  private void appendJournal() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    if (tornTail) {
+      // don't append to torn record
+      sb.append('\n');
+    }
+    int nbRecords = 0;
+    for (String key : changedKeys) {
+      WhirlpoolUtxoConfig utxoConfig = get(key);
+      if (utxoConfig != null) {
+        JournalRecord record =
+            new JournalRecord(key, new WhirlpoolUtxoConfigPersisted(utxoConfig));
+        sb.append(mapper.writeValueAsString(record)).append('\n');
+        nbRecords++;
+      }
+    }
+    for (String key : removedKeys) {
+      sb.append(mapper.writeValueAsString(new JournalRecord(key, null))).append('\n');
+      nbRecords++;
+    }
+
+    FileOutputStream out = new FileOutputStream(journalFile, true);
+    try {
+      out.write(sb.toString().getBytes(UTF8));
+      out.getFD().sync();
+    } finally {
+      out.close();
+    }
+    nbJournalRecords += nbRecords;
+    tornTail = false;
+    changedKeys.clear();
+    removedKeys.clear();
+    if (log.isDebugEnabled()) {
+      log.debug("journal: " + nbRecords + " records appended");
+    }
+  }
+
+  /**
+   * Write snapshot and truncate journal. Pending changes should be appended before. Journal is
+   * kept when snapshot couldn't be replaced.
+   */
+  protected synchronized void compact() throws Exception {
+    write(); // throws when snapshot was not replaced
+    new FileOutputStream(journalFile, false).close();
+    tornTail = false;
+    if (log.isDebugEnabled()) {
+      log.debug("journal: compacted " + nbJournalRecords + " records");
+    }
+    nbJournalRecords = 0;
+  }
+
+  protected int getNbJournalRecords() {
+    return nbJournalRecords;
+  }
+
+  /** Journal record: utxoConfig value, or null when removed. */
+  public static class JournalRecord {
+    private String key;
+    private WhirlpoolUtxoConfigPersisted utxoConfig;
+
+    public JournalRecord() {
+      this(null, null);
+    }
+
+    public JournalRecord(String key, WhirlpoolUtxoConfigPersisted utxoConfig) {
+      this.key = key;
+      this.utxoConfig = utxoConfig;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public WhirlpoolUtxoConfigPersisted getUtxoConfig() {
+      return utxoConfig;
+    }
+  }
+}
@@ -0,0 +1,316 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.samourai.whirlpool.client.exception.NotifiableException;
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Embedded key-value store backed by a single append-only file. Only keys and record offsets are
+ * kept in memory, values are read from file on demand. Writes are appends (O(1)), made durable by
+ * {@link #sync()}. Replaced values are reclaimed by {@link #compact()}.
+ *
+ * <p>Record: crc32 (int), keyLength (int), valueLength (int, -1 for removal), key, value. On open,
+ * records are scanned to rebuild the key index. A torn or corrupted tail (crash while appending)
+ * is truncated.
+ *
+ * <p>Store is locked through a separate lock file, held until {@link #close()}, so that data file
+ * can be replaced by compaction without releasing the lock.
+ */
+public class KvStore {
+  private static final Logger log = LoggerFactory.getLogger(KvStore.class);
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int HEADER_LENGTH = 12;
+  private static final String COMPACT_SUFFIX = ".compact";
+  private static final String LOCK_SUFFIX = ".lock";
+
+  private final File file;
+  private final File compactFile;
+  private final File lockFile;
+  private RandomAccessFile lockRaf;
+  private RandomAccessFile raf;
+  private FileChannel channel;
+  private FileLock fileLock;
+  private Map<String, Record> records; // by key
+  private long writeOffset;
+  private long garbageLength;
+
+  public KvStore(File file) throws Exception {
+    this.file = file;
+    this.compactFile = new File(file.getPath() + COMPACT_SUFFIX);
+    this.lockFile = new File(file.getPath() + LOCK_SUFFIX);
+    lock();
+    try {
+      recover();
+      open();
+    } catch (Exception e) {
+      unlock();
+      throw e;
+    }
+  }
+
+  private void lock() throws Exception {
+    lockRaf = new RandomAccessFile(lockFile, "rw");
+    try {
+      fileLock = lockRaf.getChannel().tryLock();
+    } catch (OverlappingFileLockException e) {
+      // already locked by this process
+      fileLock = null;
+    }
+    if (fileLock == null) {
+      lockRaf.close();
+      throw new NotifiableException(
+          "Cannot lock file "
+              + file.getAbsolutePath()
+              + ". Make sure no other Whirlpool instance is running in same directory.");
+    }
+  }
+
+  private void unlock() throws Exception {
+    try {
+      fileLock.release();
+    } finally {
+      lockRaf.close();
+    }
+  }
+
+  /** Complete or discard an interrupted compaction. */
+  private void recover() throws Exception {
+    if (!compactFile.exists()) {
+      return;
+    }
+    if (file.exists()) {
+      // interrupted before replacing file, which is unchanged
+      compactFile.delete();
+      return;
+    }
+    // interrupted after deleting file: compacted file is complete
+    log.warn("restoring compacted file " + compactFile.getAbsolutePath());
+    if (!compactFile.renameTo(file)) {
+      throw new Exception("Unable to restore " + compactFile.getAbsolutePath());
+    }
+  }
+
+  private void open() throws Exception {
+    raf = new RandomAccessFile(file, "rw");
+    channel = raf.getChannel();
+    records = new HashMap<String, Record>();
+    writeOffset = 0;
+    garbageLength = 0;
+    scan();
+  }
+
+  private void scan() throws Exception {
+    long fileLength = channel.size();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+    long offset = 0;
+    while (offset + HEADER_LENGTH <= fileLength) {
+      header.clear();
+      readFully(header, offset);
+      header.flip();
+      int crc = header.getInt();
+      int keyLength = header.getInt();
+      int valueLength = header.getInt();
+      long recordLength = (long) HEADER_LENGTH + keyLength + Math.max(valueLength, 0);
+      if (keyLength <= 0 || valueLength < -1 || offset + recordLength > fileLength) {
+        // torn record
+        break;
+      }
+      ByteBuffer body = ByteBuffer.allocate((int) recordLength - HEADER_LENGTH);
+      readFully(body, offset + HEADER_LENGTH);
+      if (computeCrc(keyLength, valueLength, body.array()) != crc) {
+        // corrupted record
+        break;
+      }
+      String key = new String(body.array(), 0, keyLength, UTF8);
+      index(key, new Record(offset, recordLength, keyLength, valueLength));
+      offset += recordLength;
+    }
+    if (offset < fileLength) {
+      log.warn(
+          "truncating invalid tail of "
+              + file.getAbsolutePath()
+              + ": "
+              + (fileLength - offset)
+              + " bytes");
+      channel.truncate(offset);
+    }
+    writeOffset = offset;
+    if (log.isDebugEnabled()) {
+      log.debug("open: " + records.size() + " keys, " + writeOffset + " bytes");
+    }
+  }
+
+  private void index(String key, Record record) {
+    Record previous = record.valueLength >= 0 ? records.put(key, record) : records.remove(key);
+    if (previous != null) {
+      garbageLength += previous.length;
+    }
+    if (record.valueLength < 0) {
+      // removal record is garbage itself
+      garbageLength += record.length;
+    }
+  }
+
+  public synchronized byte[] get(String key) throws Exception {
+    Record record = records.get(key);
+    if (record == null) {
+      return null;
+    }
+    ByteBuffer value = ByteBuffer.allocate(record.valueLength);
+    readFully(value, record.offset + HEADER_LENGTH + record.keyLength);
+    return value.array();
+  }
+
+  public synchronized boolean containsKey(String key) {
+    return records.containsKey(key);
+  }
+
+  public synchronized Collection<String> keys() {
+    return new ArrayList<String>(records.keySet());
+  }
+
+  public synchronized void put(String key, byte[] value) throws Exception {
+    append(key, value);
+  }
+
+  public synchronized void remove(String key) throws Exception {
+    if (records.containsKey(key)) {
+      append(key, null);
+    }
+  }
+
+  private void append(String key, byte[] value) throws Exception {
+    byte[] keyBytes = key.getBytes(UTF8);
+    int valueLength = value != null ? value.length : -1;
+    ByteBuffer buffer = encode(keyBytes, value);
+    int recordLength = buffer.remaining();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, writeOffset + recordLength - buffer.remaining());
+    }
+    index(key, new Record(writeOffset, recordLength, keyBytes.length, valueLength));
+    writeOffset += recordLength;
+  }
+
+  private ByteBuffer encode(byte[] keyBytes, byte[] value) {
+    int valueLength = value != null ? value.length : -1;
+    byte[] body = new byte[keyBytes.length + Math.max(valueLength, 0)];
+    System.arraycopy(keyBytes, 0, body, 0, keyBytes.length);
+    if (value != null) {
+      System.arraycopy(value, 0, body, keyBytes.length, value.length);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + body.length);
+    buffer.putInt(computeCrc(keyBytes.length, valueLength, body));
+    buffer.putInt(keyBytes.length);
+    buffer.putInt(valueLength);
+    buffer.put(body);
+    buffer.flip();
+    return buffer;
+  }
+
+  private int computeCrc(int keyLength, int valueLength, byte[] body) {
+    CRC32 crc32 = new CRC32();
+    crc32.update(ByteBuffer.allocate(8).putInt(keyLength).putInt(valueLength).array());
+    crc32.update(body);
+    return (int) crc32.getValue();
+  }
+
+  private void readFully(ByteBuffer buffer, long offset) throws Exception {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, offset + buffer.position());
+      if (read < 0) {
+        throw new Exception("Unexpected end of file: " + file.getAbsolutePath());
+      }
+    }
+  }
+
+  /** Make previous writes durable. */
+  public synchronized void sync() throws Exception {
+    channel.force(false);
+  }
+
+  /** @return true when more than half of file is replaced or removed values */
+  public synchronized boolean isCompactable() {
+    return garbageLength > 0 && garbageLength * 2 > writeOffset;
+  }
+
+  /**
+   * Rewrite live values to a new file, then replace current file with it. A crash before replacing
+   * leaves current file unchanged, a crash while replacing is completed on next open. Store stays
+   * locked meanwhile.
+   */
+  public synchronized void compact() throws Exception {
+    RandomAccessFile compactRaf = new RandomAccessFile(compactFile, "rw");
+    try {
+      compactRaf.setLength(0);
+      FileChannel compactChannel = compactRaf.getChannel();
+      List<String> keys = new ArrayList<String>(records.keySet());
+      for (String key : keys) {
+        ByteBuffer buffer = encode(key.getBytes(UTF8), get(key));
+        while (buffer.hasRemaining()) {
+          compactChannel.write(buffer);
+        }
+      }
+      compactChannel.force(false);
+    } finally {
+      compactRaf.close();
+    }
+
+    long previousLength = writeOffset;
+    closeFile();
+    boolean replaced = ClientUtils.replaceFile(compactFile, file);
+
+    // on failure: keep current file, or restore compacted file
+    recover();
+    open();
+    if (!replaced) {
+      throw new Exception("compact failed: unable to rename " + compactFile.getAbsolutePath());
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("compact: " + previousLength + " -> " + writeOffset + " bytes");
+    }
+  }
+
+  private void closeFile() throws Exception {
+    try {
+      channel.force(false);
+    } finally {
+      raf.close();
+    }
+  }
+
+  public synchronized void close() throws Exception {
+    try {
+      closeFile();
+    } finally {
+      unlock();
+    }
+  }
+
+  private static class Record {
+    private final long offset;
+    private final long length;
+    private final int keyLength;
+    private final int valueLength;
+
+    Record(long offset, long length, int keyLength, int valueLength) {
+      this.offset = offset;
+      this.length = length;
+      this.keyLength = keyLength;
+      this.valueLength = valueLength;
+    }
+  }
+}
@@ -0,0 +1,297 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.samourai.wallet.client.indexHandler.AbstractIndexHandler;
+import com.samourai.wallet.client.indexHandler.IIndexHandler;
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.wallet.WhirlpoolWallet;
+import com.samourai.whirlpool.client.wallet.beans.UtxoKey;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
+import io.reactivex.functions.Consumer;
+import io.reactivex.subjects.BehaviorSubject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persist handler backed by a {@link KvStore}: indexs and utxo configs are read and written one by
+ * one. Nothing is loaded at startup, utxo configs are read from store on first access.
+ */
+public class KvWhirlpoolWalletPersistHandler implements WhirlpoolWalletPersistHandler {
+  private static final Logger log = LoggerFactory.getLogger(KvWhirlpoolWalletPersistHandler.class);
+  private static final String PREFIX_INDEX = "i:";
+  private static final String PREFIX_UTXO = "u:";
+  private static final String INDEX_INITIALIZED = "init";
+
+  private final KvStore store;
+  private final Map<String, IIndexHandler> indexHandlers;
+  private final Map<String, WhirlpoolUtxoConfig> utxoConfigs; // accessed utxoConfigs by key
+  private final Map<UtxoKey, String> persistKeys; // cache of sha256 persist keys
+  private final Set<String> keysToClean;
+
+  public KvWhirlpoolWalletPersistHandler(File file) throws Exception {
+    this.store = new KvStore(file);
+    this.indexHandlers = new HashMap<String, IIndexHandler>();
+    this.utxoConfigs = new ConcurrentHashMap<String, WhirlpoolUtxoConfig>();
+    this.persistKeys = new ConcurrentHashMap<UtxoKey, String>();
+    this.keysToClean = new HashSet<String>();
+  }
+
+  // --- IndexHandler
+
+  @Override
+  public IIndexHandler getIndexHandler(String key) {
+    return getIndexHandler(key, IIndexHandler.DEFAULT_VALUE);
+  }
+
+  @Override
+  public synchronized IIndexHandler getIndexHandler(String key, int defaultValue) {
+    // one handler per key, to share in-memory value
+    IIndexHandler indexHandler = indexHandlers.get(key);
+    if (indexHandler == null) {
+      indexHandler = new KvIndexHandler(PREFIX_INDEX + key, defaultValue);
+      indexHandlers.put(key, indexHandler);
+    }
+    return indexHandler;
+  }
+
+  @Override
+  public boolean isInitialized() {
+    return getIndexHandler(INDEX_INITIALIZED, 0).get() == 1;
+  }
+
+  @Override
+  public void setInitialized(boolean value) {
+    getIndexHandler(INDEX_INITIALIZED, 0).set(1);
+  }
+
+  @Override
+  public void saveIndexs() throws Exception {
+    store.sync();
+  }
+
+  // --- UtxoConfig
+
+  @Override
+  public void loadUtxoConfigs(WhirlpoolWallet whirlpoolWallet) {
+    // utxoConfigs are read on demand
+    for (WhirlpoolUtxoConfig utxoConfig : utxoConfigs.values()) {
+      ((BehaviorSubject<WhirlpoolUtxoConfig>) utxoConfig.getObservable()).onComplete();
+    }
+    utxoConfigs.clear();
+  }
+
+  @Override
+  public WhirlpoolUtxoConfig getUtxoConfig(String utxoHash, int utxoIndex) {
+    return findUtxoConfig(computeUtxoConfigKey(UtxoKey.of(utxoHash, utxoIndex)));
+  }
+
+  @Override
+  public WhirlpoolUtxoConfig getUtxoConfig(String utxoHash) {
+    return findUtxoConfig(ClientUtils.sha256Hash(utxoHash));
+  }
+
+  private synchronized WhirlpoolUtxoConfig findUtxoConfig(String persistKey) {
+    WhirlpoolUtxoConfig utxoConfig = utxoConfigs.get(persistKey);
+    if (utxoConfig == null) {
+      try {
+        byte[] value = store.get(PREFIX_UTXO + persistKey);
+        if (value == null) {
+          return null;
+        }
+        utxoConfig = decodeUtxoConfig(value);
+        track(persistKey, utxoConfig);
+      } catch (Exception e) {
+        log.error("getUtxoConfig failed: " + persistKey, e);
+        return null;
+      }
+    }
+    return utxoConfig;
+  }
+
+  @Override
+  public void addUtxoConfig(String utxoHash, int utxoIndex, WhirlpoolUtxoConfig value) {
+    addUtxoConfig(computeUtxoConfigKey(UtxoKey.of(utxoHash, utxoIndex)), value);
+  }
+
+  @Override
+  public void addUtxoConfig(String utxoHash, WhirlpoolUtxoConfig value) {
+    addUtxoConfig(ClientUtils.sha256Hash(utxoHash), value);
+  }
+
+  private synchronized void addUtxoConfig(String persistKey, WhirlpoolUtxoConfig utxoConfig) {
+    WhirlpoolUtxoConfig existing = utxoConfigs.remove(persistKey);
+    if (existing != null) {
+      // should never happen...
+      log.warn("add(" + persistKey + "): utxoConfig already exists!");
+      ((BehaviorSubject<WhirlpoolUtxoConfig>) existing.getObservable()).onComplete();
+    }
+    track(persistKey, utxoConfig);
+    write(persistKey, utxoConfig);
+  }
+
+  private void track(final String persistKey, WhirlpoolUtxoConfig utxoConfig) {
+    utxoConfigs.put(persistKey, utxoConfig);
+    utxoConfig
+        .getObservable()
+        .subscribe(
+            new Consumer<WhirlpoolUtxoConfig>() {
+              @Override
+              public void accept(WhirlpoolUtxoConfig utxoConfig) throws Exception {
+                write(persistKey, utxoConfig);
+              }
+            });
+  }
+
+  private void write(String persistKey, WhirlpoolUtxoConfig utxoConfig) {
+    try {
+      store.put(PREFIX_UTXO + persistKey, encodeUtxoConfig(utxoConfig));
+    } catch (Exception e) {
+      log.error("write failed: " + persistKey, e);
+    }
+  }
+
+  @Override
+  public synchronized void cleanUtxoConfig(Collection<WhirlpoolUtxo> knownUtxos) {
+    Set<String> knownKeys = new HashSet<String>();
+    Set<UtxoKey> knownUtxoKeys = new HashSet<UtxoKey>();
+    for (WhirlpoolUtxo whirlpoolUtxo : knownUtxos) {
+      UtxoKey utxoKey = whirlpoolUtxo.getUtxoKey();
+      knownKeys.add(PREFIX_UTXO + computeUtxoConfigKey(utxoKey));
+      knownUtxoKeys.add(utxoKey);
+    }
+
+    // remove obsoletes on second clean
+    for (String key : store.keys()) {
+      if (!key.startsWith(PREFIX_UTXO) || knownKeys.contains(key)) {
+        continue;
+      }
+      if (!keysToClean.contains(key)) {
+        keysToClean.add(key);
+      } else {
+        try {
+          store.remove(key);
+        } catch (Exception e) {
+          log.error("remove failed: " + key, e);
+        }
+        keysToClean.remove(key);
+        WhirlpoolUtxoConfig removed = utxoConfigs.remove(key.substring(PREFIX_UTXO.length()));
+        if (removed != null) {
+          ((BehaviorSubject<WhirlpoolUtxoConfig>) removed.getObservable()).onComplete();
+        }
+      }
+    }
+    keysToClean.retainAll(store.keys());
+
+    // forget cached keys of obsolete utxos
+    persistKeys.keySet().retainAll(knownUtxoKeys);
+  }
+
+  @Override
+  public void save() throws Exception {
+    store.sync();
+    if (store.isCompactable()) {
+      store.compact();
+    }
+  }
+
+  public void close() throws Exception {
+    store.close();
+  }
+
+  private String computeUtxoConfigKey(UtxoKey utxoKey) {
+    String persistKey = persistKeys.get(utxoKey);
+    if (persistKey == null) {
+      // same format as FileWhirlpoolWalletPersistHandler: sha256("txhash:index")
+      persistKey = ClientUtils.sha256Hash(utxoKey.toString());
+      persistKeys.put(utxoKey, persistKey);
+    }
+    return persistKey;
+  }
+
+  protected byte[] encodeUtxoConfig(WhirlpoolUtxoConfig utxoConfig) throws Exception {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bos);
+    String poolId = utxoConfig.getPoolId();
+    out.writeBoolean(poolId != null);
+    if (poolId != null) {
+      out.writeUTF(poolId);
+    }
+    Integer mixsTarget = utxoConfig.getMixsTarget();
+    out.writeBoolean(mixsTarget != null);
+    if (mixsTarget != null) {
+      out.writeInt(mixsTarget);
+    }
+    out.writeInt(utxoConfig.getMixsDone());
+    out.flush();
+    return bos.toByteArray();
+  }
+
+  protected WhirlpoolUtxoConfig decodeUtxoConfig(byte[] value) throws Exception {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+    String poolId = in.readBoolean() ? in.readUTF() : null;
+    Integer mixsTarget = in.readBoolean() ? in.readInt() : null;
+    int mixsDone = in.readInt();
+    return new WhirlpoolUtxoConfig(poolId, mixsTarget, mixsDone, 0);
+  }
+
+  /** Index persisted in store, with current value kept in memory. */
+  private class KvIndexHandler extends AbstractIndexHandler {
+    private final String key;
+    private int value;
+
+    KvIndexHandler(String key, int defaultValue) {
+      super();
+      this.key = key;
+      this.value = read(defaultValue);
+    }
+
+    private int read(int defaultValue) {
+      try {
+        byte[] bytes = store.get(key);
+        return bytes != null ? ByteBuffer.wrap(bytes).getInt() : defaultValue;
+      } catch (Exception e) {
+        log.error("read failed: " + key, e);
+        return defaultValue;
+      }
+    }
+
+    @Override
+    public synchronized int get() {
+      return value;
+    }
+
+    @Override
+    public synchronized int getAndIncrement() {
+      return getAndAdd(1);
+    }
+
+    @Override
+    public synchronized int getAndAdd(int nb) {
+      int result = value;
+      set(value + nb);
+      return result;
+    }
+
+    @Override
+    public synchronized void set(int value) {
+      this.value = value;
+      try {
+        store.put(key, ByteBuffer.allocate(4).putInt(value).array());
+      } catch (Exception e) {
+        log.error("write failed: " + key, e);
+      }
+    }
+  }
+}
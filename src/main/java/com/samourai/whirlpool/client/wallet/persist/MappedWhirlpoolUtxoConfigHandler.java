@@ -0,0 +1,516 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.wallet.WhirlpoolWallet;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utxo configs persisted as a compact binary snapshot, memory-mapped on load. Nothing is decoded at
+ * startup: records are sorted by key and looked up by binary search in the mapped file, then
+ * materialized as {@link WhirlpoolUtxoConfig} on first access. Saving rewrites the snapshot (temp
+ * file then rename), copying untouched records without decoding them. Snapshot is unmapped before
+ * rename, as a mapped file can't be replaced on Windows. Obsolete records are tracked by index,
+ * without materializing them.
+ *
+ * <p>Snapshot: magic, version, pool table (count, then length-prefixed UTF-8 poolIds), record
+ * count, then fixed-length records: key (sha256, 32 bytes), poolId index (short, -1 for null),
+ * mixsTarget (int, -1 for null), mixsDone (int), lastModified (long).
+ *
+ * <p>When no snapshot exists yet, utxo configs are loaded from the JSON file of {@link
+ * FileWhirlpoolUtxoConfigHandler} and converted on next save.
+ */
+public class MappedWhirlpoolUtxoConfigHandler extends FileWhirlpoolUtxoConfigHandler {
+  private static final Logger log = LoggerFactory.getLogger(MappedWhirlpoolUtxoConfigHandler.class);
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int MAGIC = 0x57505543; // "WPUC"
+  private static final int VERSION = 1;
+  private static final int KEY_LENGTH = 32;
+  private static final int RECORD_LENGTH = KEY_LENGTH + 2 + 4 + 4 + 8;
+  private static final int NULL_VALUE = -1;
+  private static final String TMP_SUFFIX = ".tmp";
+
+  private final File snapshotFile;
+  private final File tempFile;
+  private final Set<String> removedKeys; // removed since snapshot
+  private BitSet recordsToClean; // obsolete snapshot records, removed on next clean
+  private ByteBuffer snapshot; // null when no snapshot
+  private boolean tempMapped; // snapshot mapped from tempFile, not renamed yet
+  private String[] snapshotPoolIds;
+  private int recordsOffset;
+  private int nbRecords;
+
+  protected MappedWhirlpoolUtxoConfigHandler(File file, File snapshotFile) {
+    super(file);
+    this.snapshotFile = snapshotFile;
+    this.tempFile = new File(snapshotFile.getPath() + TMP_SUFFIX);
+    this.removedKeys = new HashSet<String>();
+    this.recordsToClean = new BitSet();
+    this.snapshot = null;
+    this.tempMapped = false;
+    this.snapshotPoolIds = new String[0];
+    this.recordsOffset = 0;
+    this.nbRecords = 0;
+  }
+
+  @Override
+  public synchronized void loadUtxoConfigs(WhirlpoolWallet whirlpoolWallet) {
+    clearUtxoConfigs();
+    removedKeys.clear();
+    recordsToClean = new BitSet();
+    unmap();
+    recoverSnapshot();
+
+    if (snapshotFile.exists() && snapshotFile.length() > 0) {
+      try {
+        map(snapshotFile);
+        if (log.isDebugEnabled()) {
+          log.debug("load: " + nbRecords + " utxos mapped");
+        }
+      } catch (Exception e) {
+        log.warn("load: unable to read " + snapshotFile.getAbsolutePath(), e);
+        unmap();
+      }
+    } else {
+      // no snapshot yet: load JSON file, converted on next save
+      super.loadUtxoConfigs(whirlpoolWallet);
+      if (!getUtxoConfigs().isEmpty()) {
+        setLastSet();
+      }
+    }
+  }
+
+  /** Complete or discard an interrupted snapshot replacement. */
+  private void recoverSnapshot() {
+    if (!tempFile.exists()) {
+      return;
+    }
+    if (!snapshotFile.exists()) {
+      // interrupted after deleting previous snapshot (Windows): restore new one when complete
+      try {
+        map(tempFile);
+        unmap();
+        if (tempFile.renameTo(snapshotFile)) {
+          log.warn("load: restored " + tempFile.getAbsolutePath());
+          return;
+        }
+      } catch (Exception e) {
+        // incomplete
+        unmap();
+      }
+    }
+    tempFile.delete();
+  }
+
+  private void map(File f) throws Exception {
+    RandomAccessFile raf = new RandomAccessFile(f, "r");
+    try {
+      // mapping stays valid after channel is closed
+      ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new Exception("invalid snapshot format");
+      }
+      String[] poolIds = new String[buffer.getInt()];
+      for (int i = 0; i < poolIds.length; i++) {
+        byte[] poolId = new byte[buffer.getShort()];
+        buffer.get(poolId);
+        poolIds[i] = new String(poolId, UTF8);
+      }
+      int nbRecords = buffer.getInt();
+      if (buffer.remaining() != (long) nbRecords * RECORD_LENGTH) {
+        throw new Exception("invalid snapshot length");
+      }
+      this.snapshotPoolIds = poolIds;
+      this.recordsOffset = buffer.position();
+      this.nbRecords = nbRecords;
+      this.snapshot = buffer;
+      this.tempMapped = f.equals(tempFile);
+    } finally {
+      raf.close();
+    }
+  }
+
+  private void unmap() {
+    ByteBuffer buffer = snapshot;
+    snapshot = null;
+    tempMapped = false;
+    snapshotPoolIds = new String[0];
+    recordsOffset = 0;
+    nbRecords = 0;
+    if (buffer != null) {
+      release(buffer);
+    }
+  }
+
+  /** Release mapping now instead of on garbage collection. Buffer must not be accessed anymore. */
+  private static void release(ByteBuffer buffer) {
+    try {
+      // java 9+
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return;
+    } catch (Exception e) {
+      // not available
+    }
+    try {
+      // java 6-8
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (Exception e) {
+      // released on garbage collection
+      if (log.isDebugEnabled()) {
+        log.debug("unable to release snapshot mapping: " + e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  protected synchronized WhirlpoolUtxoConfig get(String key) {
+    WhirlpoolUtxoConfig utxoConfig = super.get(key);
+    if (utxoConfig != null || snapshot == null || removedKeys.contains(key)) {
+      return utxoConfig;
+    }
+    int index = find(key);
+    if (index < 0) {
+      return null;
+    }
+    // materialize on first access
+    utxoConfig = decodeRecord(index);
+    attach(key, utxoConfig);
+    return utxoConfig;
+  }
+
+  /** @return snapshot record index of key (hex), or -1 */
+  private int find(String key) {
+    if (!isValidKey(key)) {
+      return -1;
+    }
+    int low = 0;
+    int high = nbRecords - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compareKey(recordOffset(mid), key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private int compareKey(int offset, String key) {
+    // compare with hex key without decoding it
+    for (int i = 0; i < KEY_LENGTH; i++) {
+      int a = snapshot.get(offset + i) & 0xFF;
+      int high = Character.digit(key.charAt(i * 2), 16);
+      int low = Character.digit(key.charAt(i * 2 + 1), 16);
+      int b = (high << 4) | low;
+      if (a != b) {
+        return a - b;
+      }
+    }
+    return 0;
+  }
+
+  private boolean isValidKey(String key) {
+    if (key == null || key.length() != KEY_LENGTH * 2) {
+      return false;
+    }
+    for (int i = 0; i < key.length(); i++) {
+      if (Character.digit(key.charAt(i), 16) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int recordOffset(int index) {
+    return recordsOffset + index * RECORD_LENGTH;
+  }
+
+  private String readKey(int index) {
+    byte[] keyBytes = new byte[KEY_LENGTH];
+    int offset = recordOffset(index);
+    for (int i = 0; i < KEY_LENGTH; i++) {
+      keyBytes[i] = snapshot.get(offset + i);
+    }
+    return Hex.toHexString(keyBytes);
+  }
+
+  private WhirlpoolUtxoConfig decodeRecord(int index) {
+    int offset = recordOffset(index) + KEY_LENGTH;
+    short poolIndex = snapshot.getShort(offset);
+    int mixsTarget = snapshot.getInt(offset + 2);
+    int mixsDone = snapshot.getInt(offset + 6);
+    long lastModified = snapshot.getLong(offset + 10);
+    return new WhirlpoolUtxoConfig(
+        poolIndex != NULL_VALUE ? snapshotPoolIds[poolIndex] : null,
+        mixsTarget != NULL_VALUE ? mixsTarget : null,
+        mixsDone,
+        lastModified);
+  }
+
+  private byte[] decodeKey(String key) {
+    if (!isValidKey(key)) {
+      return null;
+    }
+    return Hex.decode(key);
+  }
+
+  @Override
+  protected synchronized void onChange(String key) {
+    super.onChange(key);
+    removedKeys.remove(key);
+  }
+
+  @Override
+  protected synchronized void onRemove(String key) {
+    super.onRemove(key);
+    removedKeys.add(key);
+  }
+
+  @Override
+  protected synchronized void clean(Set<String> knownUtxosKeys) {
+    // materialized utxoConfigs
+    BitSet skipped = computeSkippedRecords();
+    super.clean(knownUtxosKeys);
+
+    // snapshot records: obsolete ones are found by index, without decoding them
+    BitSet obsoletes = new BitSet(nbRecords);
+    obsoletes.set(0, nbRecords);
+    obsoletes.andNot(skipped);
+    for (String key : knownUtxosKeys) {
+      int index = find(key);
+      if (index >= 0) {
+        obsoletes.clear(index);
+      }
+    }
+
+    // remove records marked on previous clean, mark others
+    BitSet toRemove = (BitSet) obsoletes.clone();
+    toRemove.and(recordsToClean);
+    obsoletes.andNot(toRemove);
+    for (int i = toRemove.nextSetBit(0); i >= 0; i = toRemove.nextSetBit(i + 1)) {
+      String key = readKey(i);
+      if (log.isDebugEnabled()) {
+        log.debug("Remove obsolete key: " + key);
+      }
+      onRemove(key);
+    }
+    recordsToClean = obsoletes;
+  }
+
+  /** @return snapshot records which are materialized or removed */
+  private BitSet computeSkippedRecords() {
+    BitSet skipped = new BitSet(nbRecords);
+    if (snapshot == null) {
+      return skipped;
+    }
+    for (String key : getUtxoConfigs().keySet()) {
+      int index = find(key);
+      if (index >= 0) {
+        skipped.set(index);
+      }
+    }
+    for (String key : removedKeys) {
+      int index = find(key);
+      if (index >= 0) {
+        skipped.set(index);
+      }
+    }
+    return skipped;
+  }
+
+  @Override
+  protected synchronized void write() throws Exception {
+    if (tempMapped) {
+      restoreSnapshot();
+    }
+    Map<String, WhirlpoolUtxoConfig> utxoConfigs = getUtxoConfigs();
+    Map<String, Short> poolIndexs = new LinkedHashMap<String, Short>();
+    List<ByteBuffer> records = new ArrayList<ByteBuffer>(nbRecords + utxoConfigs.size());
+
+    // copy untouched records
+    BitSet skipped = computeSkippedRecords();
+    List<String> keysToClean = new ArrayList<String>();
+    for (int i = 0; i < nbRecords; i++) {
+      if (skipped.get(i)) {
+        continue;
+      }
+      if (recordsToClean.get(i)) {
+        // keep mark for next clean
+        keysToClean.add(readKey(i));
+      }
+      ByteBuffer record = ByteBuffer.allocate(RECORD_LENGTH);
+      int offset = recordOffset(i);
+      for (int j = 0; j < RECORD_LENGTH; j++) {
+        record.put(snapshot.get(offset + j));
+      }
+      short poolIndex = snapshot.getShort(offset + KEY_LENGTH);
+      if (poolIndex != NULL_VALUE) {
+        record.putShort(KEY_LENGTH, indexPool(poolIndexs, snapshotPoolIds[poolIndex]));
+      }
+      records.add(record);
+    }
+
+    // encode materialized records
+    for (Map.Entry<String, WhirlpoolUtxoConfig> entry : utxoConfigs.entrySet()) {
+      byte[] keyBytes = decodeKey(entry.getKey());
+      if (keyBytes == null) {
+        log.warn("write: skipping invalid key " + entry.getKey());
+        continue;
+      }
+      WhirlpoolUtxoConfig utxoConfig = entry.getValue();
+      String poolId = utxoConfig.getPoolId();
+      Integer mixsTarget = utxoConfig.getMixsTarget();
+      ByteBuffer record = ByteBuffer.allocate(RECORD_LENGTH);
+      record.put(keyBytes);
+      record.putShort(poolId != null ? indexPool(poolIndexs, poolId) : (short) NULL_VALUE);
+      record.putInt(mixsTarget != null ? mixsTarget : NULL_VALUE);
+      record.putInt(utxoConfig.getMixsDone());
+      record.putLong(utxoConfig.getLastModified());
+      records.add(record);
+    }
+
+    Collections.sort(
+        records,
+        new Comparator<ByteBuffer>() {
+          @Override
+          public int compare(ByteBuffer a, ByteBuffer b) {
+            for (int i = 0; i < KEY_LENGTH; i++) {
+              int cmp = (a.get(i) & 0xFF) - (b.get(i) & 0xFF);
+              if (cmp != 0) {
+                return cmp;
+              }
+            }
+            return 0;
+          }
+        });
+
+    writeSnapshot(poolIndexs, records);
+
+    // unmap snapshot before replacing it
+    unmap();
+    boolean replaced = ClientUtils.replaceFile(tempFile, snapshotFile);
+    if (!replaced && snapshotFile.exists()) {
+      // keep previous snapshot
+      tempFile.delete();
+      map(snapshotFile);
+      throw new Exception("write failed: unable to rename " + tempFile.getAbsolutePath());
+    }
+    // previous snapshot deleted but not replaced (Windows): map new one from temp file, renamed on
+    // next write or load
+    map(replaced ? snapshotFile : tempFile);
+    removedKeys.clear();
+
+    // records indexes changed
+    recordsToClean = new BitSet(nbRecords);
+    for (String key : keysToClean) {
+      int index = find(key);
+      if (index >= 0) {
+        recordsToClean.set(index);
+      }
+    }
+    if (!replaced) {
+      throw new Exception("write failed: unable to rename " + tempFile.getAbsolutePath());
+    }
+    setLastWrite();
+    if (log.isDebugEnabled()) {
+      log.debug("write: " + nbRecords + " utxos");
+    }
+  }
+
+  /** Rename snapshot mapped from temp file by a previous write which failed to rename it. */
+  private void restoreSnapshot() throws Exception {
+    unmap();
+    if (!tempFile.renameTo(snapshotFile)) {
+      map(tempFile);
+      throw new Exception("write failed: unable to restore " + snapshotFile.getAbsolutePath());
+    }
+    log.warn("write: restored " + snapshotFile.getAbsolutePath());
+    map(snapshotFile);
+  }
+
+  private short indexPool(Map<String, Short> poolIndexs, String poolId) {
+    Short poolIndex = poolIndexs.get(poolId);
+    if (poolIndex == null) {
+      poolIndex = (short) poolIndexs.size();
+      poolIndexs.put(poolId, poolIndex);
+    }
+    return poolIndex;
+  }
+
+  private void writeSnapshot(Map<String, Short> poolIndexs, List<ByteBuffer> records)
+      throws Exception {
+    int headerLength = 4 + 4 + 4 + 4;
+    List<byte[]> poolIds = new ArrayList<byte[]>();
+    for (String poolId : poolIndexs.keySet()) {
+      byte[] poolIdBytes = poolId.getBytes(UTF8);
+      poolIds.add(poolIdBytes);
+      headerLength += 2 + poolIdBytes.length;
+    }
+    ByteBuffer header = ByteBuffer.allocate(headerLength);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(poolIds.size());
+    for (byte[] poolIdBytes : poolIds) {
+      header.putShort((short) poolIdBytes.length);
+      header.put(poolIdBytes);
+    }
+    header.putInt(records.size());
+
+    // write to temp file, then rename
+    FileOutputStream out = new FileOutputStream(tempFile);
+    try {
+      FileChannel channel = out.getChannel();
+      header.flip();
+      writeFully(channel, header);
+      for (ByteBuffer record : records) {
+        record.rewind();
+        writeFully(channel, record);
+      }
+      channel.force(false);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void writeFully(FileChannel channel, ByteBuffer buffer) throws Exception {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  protected int getNbSnapshotRecords() {
+    return nbRecords;
+  }
+}
@@ -18,6 +18,9 @@ public interface WhirlpoolWalletPersistHandler {
 
   void setInitialized(boolean value);
 
+  /** Persist pending index changes now. */
+  void saveIndexs() throws Exception;
+
   // utxo
 
   void loadUtxoConfigs(WhirlpoolWallet whirlpoolWallet);
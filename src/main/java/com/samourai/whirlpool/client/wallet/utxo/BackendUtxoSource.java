@@ -0,0 +1,267 @@
+package com.samourai.whirlpool.client.wallet.utxo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.utils.MessageErrorListener;
+import com.samourai.whirlpool.client.utils.MessageListener;
+import com.samourai.whirlpool.client.wallet.beans.UtxoKey;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * UtxoSource subscribing to backend websocket notifications: transactions of each zpub
+ * ("addr_sub") and new blocks ("blocks_sub"). Outputs and inputs of notified transactions are
+ * pushed as received and spent utxos. New blocks (confirmations), (re)connections and invalid
+ * notifications are notified as gaps, so that accounts are fetched again.
+ */
+public class BackendUtxoSource implements UtxoSource {
+  private static final Logger log = LoggerFactory.getLogger(BackendUtxoSource.class);
+  private static final int RECONNECT_DELAY = 30; // seconds
+
+  private IWebsocketClientService websocketClientService;
+  private String wsUrl;
+  private ScheduledExecutorService scheduler;
+  private ObjectMapper objectMapper;
+
+  private Map<String, WhirlpoolAccount> accountsByZpub; // null when stopped
+  private UtxoSourceListener listener; // null when stopped
+  private IWebsocketClient websocketClient; // null when disconnected
+
+  /**
+   * @param websocketClientService client service for backend connections
+   * @param wsUrl backend websocket url
+   * @param scheduler scheduler running reconnections
+   */
+  public BackendUtxoSource(
+      IWebsocketClientService websocketClientService,
+      String wsUrl,
+      ScheduledExecutorService scheduler) {
+    this.websocketClientService = websocketClientService;
+    this.wsUrl = wsUrl;
+    this.scheduler = scheduler;
+    this.objectMapper = new ObjectMapper();
+  }
+
+  @Override
+  public synchronized void start(Map<WhirlpoolAccount, String> zpubs, UtxoSourceListener listener)
+      throws Exception {
+    this.accountsByZpub = new HashMap<String, WhirlpoolAccount>();
+    for (Map.Entry<WhirlpoolAccount, String> entry : zpubs.entrySet()) {
+      accountsByZpub.put(entry.getValue(), entry.getKey());
+    }
+    this.listener = listener;
+    try {
+      connect();
+    } catch (Exception e) {
+      stop();
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    this.accountsByZpub = null;
+    this.listener = null;
+    if (websocketClient != null) {
+      websocketClient.disconnect();
+      websocketClient = null;
+    }
+  }
+
+  private synchronized void connect() throws Exception {
+    if (listener == null) {
+      // stopped
+      return;
+    }
+    final IWebsocketClient client = websocketClientService.newWebsocketClient();
+    websocketClient = client;
+    client.connect(
+        wsUrl,
+        new MessageErrorListener<Void, Throwable>() {
+          // onConnect
+          @Override
+          public void onMessage(Void foo) {
+            onConnected(client);
+          }
+
+          // onDisconnect
+          @Override
+          public void onError(Throwable e) {
+            onDisconnected(client, e);
+          }
+        },
+        new MessageListener<String>() {
+          @Override
+          public void onMessage(String message) {
+            onNotification(client, message);
+          }
+        });
+  }
+
+  private void onConnected(IWebsocketClient client) {
+    Collection<String> zpubs;
+    synchronized (this) {
+      if (client != websocketClient) {
+        return; // stopped or replaced
+      }
+      zpubs = new ArrayList<String>(accountsByZpub.keySet());
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("connected => subscribing " + zpubs.size() + " zpubs");
+    }
+    for (String zpub : zpubs) {
+      Map<String, String> addrSub = new LinkedHashMap<String, String>();
+      addrSub.put("op", "addr_sub");
+      addrSub.put("addr", zpub);
+      client.send(ClientUtils.toJsonString(addrSub));
+    }
+    Map<String, String> blocksSub = new LinkedHashMap<String, String>();
+    blocksSub.put("op", "blocks_sub");
+    client.send(ClientUtils.toJsonString(blocksSub));
+
+    // notifications may have been missed before subscription
+    notifyGap();
+  }
+
+  private void onDisconnected(IWebsocketClient client, Throwable e) {
+    synchronized (this) {
+      if (client != websocketClient) {
+        return; // stopped or replaced
+      }
+      websocketClient = null;
+    }
+    log.warn(
+        "utxoSource disconnected: "
+            + (e != null ? e.getMessage() : "")
+            + " => reconnecting in "
+            + RECONNECT_DELAY
+            + "s");
+
+    // notifications are missed while disconnected
+    notifyGap();
+    scheduleReconnect();
+  }
+
+  private void scheduleReconnect() {
+    scheduler.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              connect();
+            } catch (Exception e) {
+              log.error("utxoSource reconnection failed => retrying in " + RECONNECT_DELAY + "s");
+              synchronized (BackendUtxoSource.this) {
+                websocketClient = null;
+              }
+              scheduleReconnect();
+            }
+          }
+        },
+        RECONNECT_DELAY,
+        TimeUnit.SECONDS);
+  }
+
+  private void onNotification(IWebsocketClient client, String message) {
+    Map<String, WhirlpoolAccount> accounts;
+    UtxoSourceListener l;
+    synchronized (this) {
+      if (client != websocketClient) {
+        return; // stopped or replaced
+      }
+      accounts = accountsByZpub;
+      l = listener;
+    }
+    try {
+      JsonNode notification = objectMapper.readTree(message);
+      String op = notification.path("op").asText();
+      if ("utx".equals(op)) {
+        onTransaction(notification.path("x"), accounts, l);
+      } else if ("block".equals(op)) {
+        // confirmations changed
+        notifyGap();
+      }
+    } catch (Exception e) {
+      log.error("invalid utxoSource notification => fetching utxos", e);
+      notifyGap();
+    }
+  }
+
+  private void onTransaction(
+      JsonNode tx, Map<String, WhirlpoolAccount> accounts, UtxoSourceListener l) {
+    Map<WhirlpoolAccount, List<UtxoKey>> spentByAccount =
+        new LinkedHashMap<WhirlpoolAccount, List<UtxoKey>>();
+    for (JsonNode input : tx.path("inputs")) {
+      JsonNode prevOut = input.path("prev_out");
+      WhirlpoolAccount account = accounts.get(prevOut.path("xpub").path("m").asText());
+      if (account != null) {
+        if (!spentByAccount.containsKey(account)) {
+          spentByAccount.put(account, new ArrayList<UtxoKey>());
+        }
+        UtxoKey utxoKey = UtxoKey.of(prevOut.path("txid").asText(), prevOut.path("vout").asInt());
+        spentByAccount.get(account).add(utxoKey);
+      }
+    }
+
+    Map<WhirlpoolAccount, List<UnspentOutput>> receivedByAccount =
+        new LinkedHashMap<WhirlpoolAccount, List<UnspentOutput>>();
+    String txid = tx.path("hash").asText();
+    for (JsonNode output : tx.path("outputs")) {
+      JsonNode xpub = output.path("xpub");
+      WhirlpoolAccount account = accounts.get(xpub.path("m").asText());
+      if (account != null) {
+        if (!receivedByAccount.containsKey(account)) {
+          receivedByAccount.put(account, new ArrayList<UnspentOutput>());
+        }
+        UnspentOutput utxo = new UnspentOutput();
+        utxo.tx_hash = txid;
+        utxo.tx_output_n = output.path("n").asInt();
+        utxo.value = output.path("value").asLong();
+        utxo.script = output.path("scriptpubkey").asText();
+        utxo.addr = output.path("addr").asText();
+        utxo.confirmations = 0;
+        utxo.xpub = new UnspentOutput.Xpub();
+        utxo.xpub.m = xpub.path("m").asText();
+        utxo.xpub.path = xpub.path("path").asText();
+        receivedByAccount.get(account).add(utxo);
+      }
+    }
+
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "utxoSource: tx "
+              + txid
+              + ": spent="
+              + spentByAccount.keySet()
+              + ", received="
+              + receivedByAccount.keySet());
+    }
+    for (Map.Entry<WhirlpoolAccount, List<UtxoKey>> entry : spentByAccount.entrySet()) {
+      l.onUtxosSpent(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<WhirlpoolAccount, List<UnspentOutput>> entry : receivedByAccount.entrySet()) {
+      l.onUtxosReceived(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void notifyGap() {
+    Collection<WhirlpoolAccount> accounts;
+    UtxoSourceListener l;
+    synchronized (this) {
+      if (listener == null) {
+        return; // stopped
+      }
+      accounts = new ArrayList<WhirlpoolAccount>(accountsByZpub.values());
+      l = listener;
+    }
+    for (WhirlpoolAccount account : accounts) {
+      l.onGap(account);
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.samourai.whirlpool.client.wallet.utxo;
+
+import com.samourai.whirlpool.client.utils.MessageErrorListener;
+import com.samourai.whirlpool.client.utils.MessageListener;
+
+/** Websocket connection to backend, implemented by the host application (see Tor support). */
+public interface IWebsocketClient {
+  /**
+   * @param onConnectOnDisconnectListener notified on connection, then on disconnection or
+   *     connection failure
+   * @param onMessageListener notified of each text message received
+   */
+  void connect(
+      String url,
+      MessageErrorListener<Void, Throwable> onConnectOnDisconnectListener,
+      MessageListener<String> onMessageListener)
+      throws Exception;
+
+  void send(String message);
+
+  void disconnect();
+}
@@ -0,0 +1,5 @@
+package com.samourai.whirlpool.client.wallet.utxo;
+
+public interface IWebsocketClientService {
+  IWebsocketClient newWebsocketClient();
+}
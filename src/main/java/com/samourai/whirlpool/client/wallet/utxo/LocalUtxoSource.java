@@ -0,0 +1,56 @@
+package com.samourai.whirlpool.client.wallet.utxo;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.whirlpool.client.wallet.beans.UtxoKey;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import java.util.Arrays;
+import java.util.Map;
+
+/** UtxoSource fed locally, for tests or when utxo changes are already known by the caller. */
+public class LocalUtxoSource implements UtxoSource {
+  private Map<WhirlpoolAccount, String> zpubs;
+  private UtxoSourceListener listener;
+
+  public LocalUtxoSource() {
+    this.zpubs = null;
+    this.listener = null;
+  }
+
+  @Override
+  public synchronized void start(Map<WhirlpoolAccount, String> zpubs, UtxoSourceListener listener) {
+    this.zpubs = zpubs;
+    this.listener = listener;
+  }
+
+  @Override
+  public synchronized void stop() {
+    this.zpubs = null;
+    this.listener = null;
+  }
+
+  public synchronized void pushUtxos(WhirlpoolAccount account, UnspentOutput... utxos) {
+    if (listener != null) {
+      listener.onUtxosReceived(account, Arrays.asList(utxos));
+    }
+  }
+
+  public synchronized void pushSpent(WhirlpoolAccount account, UtxoKey... utxoKeys) {
+    if (listener != null) {
+      listener.onUtxosSpent(account, Arrays.asList(utxoKeys));
+    }
+  }
+
+  public synchronized void pushGap(WhirlpoolAccount account) {
+    if (listener != null) {
+      listener.onGap(account);
+    }
+  }
+
+  public synchronized boolean isStarted() {
+    return listener != null;
+  }
+
+  public synchronized Map<WhirlpoolAccount, String> getZpubs() {
+    return zpubs;
+  }
+}
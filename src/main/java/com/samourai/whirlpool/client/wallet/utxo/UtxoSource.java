@@ -0,0 +1,20 @@
+package com.samourai.whirlpool.client.wallet.utxo;
+
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import java.util.Map;
+
+/**
+ * Source pushing utxo changes as they happen, so that utxos don't need to be polled. Utxos are
+ * still fully fetched once on startup and after each gap notified by the source.
+ */
+public interface UtxoSource {
+  /**
+   * Start watching accounts.
+   *
+   * @param zpubs zpub of each account to watch
+   * @param listener notified of utxo changes
+   */
+  void start(Map<WhirlpoolAccount, String> zpubs, UtxoSourceListener listener) throws Exception;
+
+  void stop();
+}
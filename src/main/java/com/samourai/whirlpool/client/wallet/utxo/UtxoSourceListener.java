@@ -0,0 +1,16 @@
+package com.samourai.whirlpool.client.wallet.utxo;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.whirlpool.client.wallet.beans.UtxoKey;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import java.util.Collection;
+
+public interface UtxoSourceListener {
+  /** New utxos, or existing utxos with updated confirmations. */
+  void onUtxosReceived(WhirlpoolAccount account, Collection<UnspentOutput> utxos);
+
+  void onUtxosSpent(WhirlpoolAccount account, Collection<UtxoKey> utxoKeys);
+
+  /** Notifications may have been missed (disconnection...): account will be fully fetched. */
+  void onGap(WhirlpoolAccount account);
+}
@@ -2,8 +2,16 @@ package com.samourai.whirlpool.client.whirlpool;
 
 import com.samourai.http.client.IHttpClient;
 import com.samourai.stomp.client.IStompClientService;
+import com.samourai.stomp.client.IStompLivenessClient;
+import com.samourai.stomp.client.StompTransport;
+import com.samourai.stomp.client.StompTransportPool;
 import com.samourai.whirlpool.client.WhirlpoolClient;
+import com.samourai.whirlpool.client.mix.dialog.ReconnectCoordinator;
+import com.samourai.whirlpool.client.mix.timing.MixTimings;
+import com.samourai.whirlpool.client.utils.ClientUtils;
 import com.samourai.whirlpool.client.wallet.persist.WhirlpoolWalletPersistHandler;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import org.bitcoinj.core.NetworkParameters;
 
 public class WhirlpoolClientConfig {
@@ -16,6 +24,12 @@ public class WhirlpoolClientConfig {
   private int reconnectDelay;
   private int reconnectUntil;
   private String scode;
+  private ExecutorService executorService;
+  private ScheduledExecutorService ioExecutorService;
+  private StompTransportPool stompTransportPool;
+  private ReconnectCoordinator reconnectCoordinator;
+  private long stompHeartbeatDelay;
+  private MixTimings mixTimings;
 
   public WhirlpoolClientConfig(
       IHttpClient httpClient,
@@ -55,6 +69,12 @@ public class WhirlpoolClientConfig {
     this.reconnectDelay = reconnectDelay;
     this.reconnectUntil = reconnectUntil;
     this.scode = scode;
+    this.executorService = ClientUtils.getSharedExecutor();
+    this.ioExecutorService = ClientUtils.getIoExecutor();
+    this.stompTransportPool = null;
+    this.reconnectCoordinator = null;
+    this.stompHeartbeatDelay = 0;
+    this.mixTimings = new MixTimings();
   }
 
   public WhirlpoolClient newClient() {
@@ -120,4 +140,80 @@ public class WhirlpoolClientConfig {
   public void setScode(String scode) {
     this.scode = scode;
   }
+
+  public ExecutorService getExecutorService() {
+    return executorService;
+  }
+
+  /**
+   * Set executor running mix clients. Defaults to a shared bounded executor. On Java 21+, {@link
+   * ClientUtils#newVirtualThreadExecutor()} runs each task in a virtual thread.
+   */
+  public void setExecutorService(ExecutorService executorService) {
+    this.executorService = executorService;
+  }
+
+  public ScheduledExecutorService getIoExecutorService() {
+    return ioExecutorService;
+  }
+
+  /**
+   * Set executor running blocking requests (Tx0Data, utxos refresh, tx0 outputs polling), server
+   * reconnections and STOMP liveness watchdogs. Defaults to {@link ClientUtils#getIoExecutor()}.
+   */
+  public void setIoExecutorService(ScheduledExecutorService ioExecutorService) {
+    this.ioExecutorService = ioExecutorService;
+  }
+
+  public StompTransportPool getStompTransportPool() {
+    return stompTransportPool;
+  }
+
+  /**
+   * Keep transports pre-connected to the server, so that mixes don't wait for a websocket
+   * handshake. Disabled by default (null).
+   */
+  public void setStompTransportPool(StompTransportPool stompTransportPool) {
+    this.stompTransportPool = stompTransportPool;
+  }
+
+  public synchronized ReconnectCoordinator getReconnectCoordinator() {
+    if (reconnectCoordinator == null) {
+      reconnectCoordinator = new ReconnectCoordinator(ioExecutorService);
+    }
+    return reconnectCoordinator;
+  }
+
+  /**
+   * Set coordinator scheduling reconnections. Defaults to a coordinator running reconnections on
+   * {@link #getIoExecutorService()}, shared by all clients of this config.
+   */
+  public void setReconnectCoordinator(ReconnectCoordinator reconnectCoordinator) {
+    this.reconnectCoordinator = reconnectCoordinator;
+  }
+
+  public long getStompHeartbeatDelay() {
+    return stompHeartbeatDelay;
+  }
+
+  /**
+   * Request server STOMP heartbeats every stompHeartbeatDelay (ms), and reconnect when server stays
+   * silent for several heartbeats (see {@link StompTransport}). Disabled by default (0).
+   *
+   * <p><b>Only effective when the {@link IStompClientService} creates {@link
+   * IStompLivenessClient}s. No bundled client implements it: with them, this setting has no effect
+   * and dead connections are not detected.</b>
+   */
+  public void setStompHeartbeatDelay(long stompHeartbeatDelay) {
+    this.stompHeartbeatDelay = stompHeartbeatDelay;
+  }
+
+  /** Durations of mix phases per pool, with listeners notified on each phase. */
+  public MixTimings getMixTimings() {
+    return mixTimings;
+  }
+
+  public void setMixTimings(MixTimings mixTimings) {
+    this.mixTimings = mixTimings;
+  }
 }
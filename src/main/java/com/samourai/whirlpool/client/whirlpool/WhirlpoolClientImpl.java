@@ -19,8 +19,8 @@ public class WhirlpoolClientImpl implements WhirlpoolClient {
   private boolean done;
   private String logPrefix;
 
-  private MixClient mixClient;
-  private Thread mixThread;
+  private volatile MixClient mixClient; // set when mix task runs
+  private MixFailReason stopReason; // stop requested before mix task ran
   private WhirlpoolClientListener listener;
 
   /**
@@ -47,32 +47,40 @@ public class WhirlpoolClientImpl implements WhirlpoolClient {
   public void whirlpool(final MixParams mixParams, WhirlpoolClientListener listener) {
     this.listener = listener;
 
-    this.mixThread =
-        new Thread(
+    // mix is driven by transport callbacks: no need to keep a thread while mixing
+    config
+        .getExecutorService()
+        .submit(
             new Runnable() {
               @Override
-              public synchronized void run() {
-                runClient(mixParams);
-                while (!done) {
-                  try {
-                    synchronized (mixThread) {
-                      mixThread.wait();
-                    }
-                  } catch (Exception e) {
-                  }
+              public void run() {
+                try {
+                  runClient(mixParams);
+                } catch (Exception e) {
+                  log.error("", e);
                 }
               }
-            },
-            "whirlpoolClient-" + logPrefix);
-    this.mixThread.setDaemon(true);
-    this.mixThread.start();
+            });
   }
 
   private void runClient(MixParams mixParams) {
     MixClientListener mixListener = computeMixListener();
 
-    mixClient = new MixClient(config, logPrefix);
-    mixClient.whirlpool(mixParams, mixListener);
+    MixClient newMixClient = null;
+    MixFailReason failReason;
+    synchronized (this) {
+      failReason = stopReason;
+      if (failReason == null) {
+        newMixClient = new MixClient(config, logPrefix);
+        mixClient = newMixClient;
+      }
+    }
+    if (failReason != null) {
+      // stopped while waiting for executor
+      mixListener.fail(failReason, null);
+      return;
+    }
+    newMixClient.whirlpool(mixParams, mixListener);
   }
 
   private MixClientListener computeMixListener() {
@@ -99,7 +107,16 @@ public class WhirlpoolClientImpl implements WhirlpoolClient {
 
   @Override
   public void stop(boolean cancel) {
-    mixClient.stop(cancel);
+    MixClient currentMixClient;
+    synchronized (this) {
+      currentMixClient = mixClient;
+      if (currentMixClient == null) {
+        // mix task not started yet => it will stop itself
+        stopReason = cancel ? MixFailReason.CANCEL : MixFailReason.STOP;
+        return;
+      }
+    }
+    currentMixClient.stop(cancel);
   }
 
   private void disconnect() {
@@ -111,11 +128,6 @@ public class WhirlpoolClientImpl implements WhirlpoolClient {
       if (mixClient != null) {
         mixClient.disconnect();
       }
-      if (mixThread != null) {
-        synchronized (mixThread) {
-          mixThread.notify();
-        }
-      }
     }
   }
 
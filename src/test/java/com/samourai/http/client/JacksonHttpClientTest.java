@@ -0,0 +1,178 @@
+package com.samourai.http.client;
+
+import com.samourai.wallet.api.backend.beans.HttpException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JacksonHttpClientTest {
+  private static final String HOST_A = "http://a.onion/pools";
+  private static final String HOST_B = "http://b.onion/pools";
+
+  private AtomicInteger inProgress = new AtomicInteger();
+  private AtomicInteger maxInProgress = new AtomicInteger();
+
+  @Test
+  public void maxRequestsPerHost() throws Exception {
+    // each request takes 700ms
+    JacksonHttpClient httpClient =
+        new TestHttpClient(1000, 2) {
+          @Override
+          protected String requestJsonGet(String urlStr, Map<String, String> headers)
+              throws Exception {
+            int nb = inProgress.incrementAndGet();
+            synchronized (maxInProgress) {
+              maxInProgress.set(Math.max(maxInProgress.get(), nb));
+            }
+            try {
+              Thread.sleep(700);
+              return "ok";
+            } finally {
+              inProgress.decrementAndGet();
+            }
+          }
+        };
+
+    final AtomicInteger nbTimeouts = new AtomicInteger();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 3; i++) {
+      threads.add(newRequestThread(httpClient, HOST_A, nbTimeouts));
+    }
+    // other host is not limited by HOST_A requests
+    threads.add(newRequestThread(httpClient, HOST_B, nbTimeouts));
+    for (Thread thread : threads) {
+      thread.start();
+    }
+
+    Thread.sleep(350);
+    Assertions.assertEquals(3, maxInProgress.get());
+
+    // 3rd request to HOST_A waits 700ms for a slot, then times out while running
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assertions.assertEquals(1, nbTimeouts.get());
+  }
+
+  @Test
+  public void hungRequest() throws Exception {
+    final AtomicInteger nbInterrupted = new AtomicInteger();
+    JacksonHttpClient httpClient =
+        new TestHttpClient(300, 1) {
+          @Override
+          protected String requestJsonGet(String urlStr, Map<String, String> headers)
+              throws Exception {
+            if (urlStr.endsWith("/hang")) {
+              try {
+                Thread.sleep(60000);
+              } catch (InterruptedException e) {
+                nbInterrupted.incrementAndGet();
+                throw e;
+              }
+            }
+            return "ok";
+          }
+        };
+
+    // hung request times out
+    long start = System.currentTimeMillis();
+    try {
+      httpClient.getJson(HOST_A + "/hang", String.class, null);
+      Assertions.fail();
+    } catch (HttpException e) {
+      // expected
+    }
+    Assertions.assertTrue(System.currentTimeMillis() - start < 1000);
+
+    // abandoned request was interrupted and released its slot
+    Assertions.assertEquals("ok", httpClient.getJson(HOST_A, String.class, null));
+    Thread.sleep(100);
+    Assertions.assertEquals(1, nbInterrupted.get());
+  }
+
+  @Test
+  public void uninterruptibleRequest() throws Exception {
+    final CountDownLatch unblock = new CountDownLatch(1);
+    JacksonHttpClient httpClient =
+        new TestHttpClient(300, 1) {
+          @Override
+          protected String requestJsonGet(String urlStr, Map<String, String> headers)
+              throws Exception {
+            if (urlStr.endsWith("/hang")) {
+              // blocking socket call: ignores interruption
+              while (true) {
+                try {
+                  unblock.await();
+                  break;
+                } catch (InterruptedException e) {
+                  // ignored
+                }
+              }
+            }
+            return "ok";
+          }
+        };
+
+    // hung request times out
+    try {
+      httpClient.getJson(HOST_A + "/hang", String.class, null);
+      Assertions.fail();
+    } catch (HttpException e) {
+      // expected
+    }
+
+    // slot is still held by hung request
+    try {
+      httpClient.getJson(HOST_A, String.class, null);
+      Assertions.fail();
+    } catch (HttpException e) {
+      // expected
+    }
+
+    // slot released once hung request returns
+    unblock.countDown();
+    Assertions.assertEquals("ok", httpClient.getJson(HOST_A, String.class, null));
+  }
+
+  private Thread newRequestThread(
+      final JacksonHttpClient httpClient, final String url, final AtomicInteger nbTimeouts) {
+    return new Thread(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              httpClient.getJson(url, String.class, null);
+            } catch (HttpException e) {
+              nbTimeouts.incrementAndGet();
+            }
+          }
+        });
+  }
+
+  private abstract static class TestHttpClient extends JacksonHttpClient {
+    TestHttpClient(long requestTimeout, int maxRequestsPerHost) {
+      super(requestTimeout, maxRequestsPerHost);
+    }
+
+    @Override
+    protected String requestJsonPost(String urlStr, Map<String, String> headers, String jsonBody) {
+      return null;
+    }
+
+    @Override
+    protected String requestJsonPostOverTor(
+        String urlStr, Map<String, String> headers, String jsonBody) {
+      return null;
+    }
+
+    @Override
+    protected String requestJsonPostUrlEncoded(
+        String urlStr, Map<String, String> headers, Map<String, String> body) {
+      return null;
+    }
+  }
+}
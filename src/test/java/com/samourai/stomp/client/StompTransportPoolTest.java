@@ -0,0 +1,169 @@
+package com.samourai.stomp.client;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.utils.MessageErrorListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StompTransportPoolTest extends AbstractTest {
+  private static final String WS_URL = "ws://test";
+
+  private ScheduledExecutorService executorService;
+  private List<TestStompClient> stompClients;
+  private boolean failOnConnect;
+  private Map<String, String> connectHeaders;
+
+  @BeforeEach
+  public void setup() {
+    executorService = Executors.newSingleThreadScheduledExecutor();
+    stompClients = new ArrayList<TestStompClient>();
+    failOnConnect = false;
+    connectHeaders = new HashMap<String, String>();
+    connectHeaders.put("poolId", "0.01btc");
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void takeConnected() throws Exception {
+    StompTransportPool pool = computePool(1);
+    pool.warmup(WS_URL, connectHeaders);
+    Assertions.assertEquals(1, stompClients.size());
+    stompClients.get(0).onConnect();
+
+    // handed over, connection notified asynchronously
+    TestTransportListener listener = new TestTransportListener();
+    pool.take(WS_URL, connectHeaders, listener, "test");
+    Assertions.assertTrue(listener.connected.await(1, TimeUnit.SECONDS));
+
+    // replenished
+    Assertions.assertEquals(2, stompClients.size());
+    Assertions.assertEquals(1, pool.getNbIdle(WS_URL, connectHeaders));
+  }
+
+  @Test
+  public void takeConnecting() throws Exception {
+    StompTransportPool pool = computePool(1);
+    pool.warmup(WS_URL, connectHeaders);
+
+    // handed over while connecting
+    TestTransportListener listener = new TestTransportListener();
+    pool.take(WS_URL, connectHeaders, listener, "test");
+    Assertions.assertEquals(1, listener.connected.getCount());
+
+    // notified once connected
+    stompClients.get(0).onConnect();
+    Assertions.assertTrue(listener.connected.await(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void disconnectedWhileIdle() throws Exception {
+    StompTransportPool pool = computePool(2);
+    pool.warmup(WS_URL, connectHeaders);
+    stompClients.get(0).onConnect();
+    stompClients.get(1).onConnect();
+
+    // dropped from pool
+    stompClients.get(0).onDisconnect();
+    Assertions.assertEquals(1, pool.getNbIdle(WS_URL, connectHeaders));
+
+    // remaining one is handed over
+    TestTransportListener listener = new TestTransportListener();
+    pool.take(WS_URL, connectHeaders, listener, "test");
+    Assertions.assertTrue(listener.connected.await(1, TimeUnit.SECONDS));
+    Assertions.assertNull(listener.disconnected);
+  }
+
+  @Test
+  public void failOnConnect() throws Exception {
+    // client notifies failure synchronously
+    failOnConnect = true;
+    StompTransportPool pool = computePool(2);
+    pool.warmup(WS_URL, connectHeaders);
+
+    // no connection loop
+    Assertions.assertEquals(2, stompClients.size());
+    Assertions.assertEquals(0, pool.getNbIdle(WS_URL, connectHeaders));
+
+    // new transport connected on take
+    TestTransportListener listener = new TestTransportListener();
+    pool.take(WS_URL, connectHeaders, listener, "test");
+    Assertions.assertNotNull(listener.disconnected);
+    Assertions.assertEquals(5, stompClients.size());
+  }
+
+  private StompTransportPool computePool(int nbWarmTransports) {
+    IStompClientService stompClientService =
+        new IStompClientService() {
+          @Override
+          public IStompClient newStompClient() {
+            TestStompClient stompClient = new TestStompClient();
+            stompClients.add(stompClient);
+            return stompClient;
+          }
+        };
+    return new StompTransportPool(stompClientService, executorService, nbWarmTransports);
+  }
+
+  private class TestStompClient implements IStompClient {
+    private MessageErrorListener<Void, Throwable> listener;
+
+    @Override
+    public void connect(
+        String url,
+        Map<String, String> stompHeaders,
+        MessageErrorListener<Void, Throwable> onConnectOnDisconnectListener) {
+      this.listener = onConnectOnDisconnectListener;
+      if (failOnConnect) {
+        onDisconnect();
+      }
+    }
+
+    void onConnect() {
+      listener.onMessage(null);
+    }
+
+    void onDisconnect() {
+      listener.onError(new Exception("disconnected"));
+    }
+
+    @Override
+    public void subscribe(
+        Map<String, String> stompHeaders,
+        MessageErrorListener<IStompMessage, String> onMessageOnErrorListener) {}
+
+    @Override
+    public void send(Map<String, String> stompHeaders, Object payload) {}
+
+    @Override
+    public void disconnect() {}
+  }
+
+  private static class TestTransportListener implements IStompTransportListener {
+    private final CountDownLatch connected = new CountDownLatch(1);
+    private volatile Throwable disconnected;
+
+    @Override
+    public void onTransportConnected() {
+      connected.countDown();
+    }
+
+    @Override
+    public void onTransportDisconnected(Throwable exception) {
+      disconnected = exception;
+    }
+  }
+}
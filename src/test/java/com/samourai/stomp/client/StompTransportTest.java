@@ -0,0 +1,137 @@
+package com.samourai.stomp.client;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.utils.MessageErrorListener;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StompTransportTest extends AbstractTest {
+  private ScheduledExecutorService scheduler;
+
+  @BeforeEach
+  public void setup() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void livenessWatchdog() throws Exception {
+    TestLivenessStompClient stompClient = new TestLivenessStompClient();
+    TestTransportListener listener = new TestTransportListener();
+    StompTransport transport =
+        new StompTransport(service(stompClient), listener, "test", 50, scheduler);
+    transport.connect("ws://test", new HashMap<String, String>());
+    Assertions.assertEquals("0,50", stompClient.connectHeaders.get("heart-beat"));
+    Assertions.assertTrue(listener.connected);
+
+    // alive while receiving heartbeats
+    for (int i = 0; i < 10; i++) {
+      Thread.sleep(40);
+      stompClient.onFrameReceived.run();
+    }
+    Assertions.assertNull(listener.disconnected);
+
+    // dead when server stays silent
+    Thread.sleep(400);
+    Assertions.assertTrue(listener.disconnected instanceof TimeoutException);
+    Assertions.assertTrue(stompClient.disconnected);
+  }
+
+  @Test
+  public void livenessNotSupported() throws Exception {
+    TestStompClient stompClient = new TestStompClient();
+    TestTransportListener listener = new TestTransportListener();
+    StompTransport transport =
+        new StompTransport(service(stompClient), listener, "test", 50, scheduler);
+    transport.connect("ws://test", new HashMap<String, String>());
+
+    // client can't watch heartbeats => none negotiated
+    Assertions.assertNull(stompClient.connectHeaders.get("heart-beat"));
+    Thread.sleep(200);
+    Assertions.assertNull(listener.disconnected);
+  }
+
+  @Test
+  public void heartbeatDisabled() throws Exception {
+    TestLivenessStompClient stompClient = new TestLivenessStompClient();
+    TestTransportListener listener = new TestTransportListener();
+    StompTransport transport = new StompTransport(service(stompClient), listener, "test");
+    transport.connect("ws://test", new HashMap<String, String>());
+    Assertions.assertNull(stompClient.connectHeaders.get("heart-beat"));
+
+    Thread.sleep(200);
+    Assertions.assertNull(listener.disconnected);
+  }
+
+  private IStompClientService service(final IStompClient stompClient) {
+    return new IStompClientService() {
+      @Override
+      public IStompClient newStompClient() {
+        return stompClient;
+      }
+    };
+  }
+
+  private static class TestStompClient implements IStompClient {
+    protected Map<String, String> connectHeaders;
+    protected boolean disconnected;
+
+    @Override
+    public void connect(
+        String url,
+        Map<String, String> stompHeaders,
+        MessageErrorListener<Void, Throwable> onConnectOnDisconnectListener) {
+      this.connectHeaders = stompHeaders;
+      onConnectOnDisconnectListener.onMessage(null);
+    }
+
+    @Override
+    public void subscribe(
+        Map<String, String> stompHeaders,
+        MessageErrorListener<IStompMessage, String> onMessageOnErrorListener) {}
+
+    @Override
+    public void send(Map<String, String> stompHeaders, Object payload) {}
+
+    @Override
+    public void disconnect() {
+      disconnected = true;
+    }
+  }
+
+  private static class TestLivenessStompClient extends TestStompClient
+      implements IStompLivenessClient {
+    private Runnable onFrameReceived;
+
+    @Override
+    public void setOnFrameReceived(Runnable onFrameReceived) {
+      this.onFrameReceived = onFrameReceived;
+    }
+  }
+
+  private static class TestTransportListener implements IStompTransportListener {
+    private volatile boolean connected;
+    private volatile Throwable disconnected;
+
+    @Override
+    public void onTransportConnected() {
+      connected = true;
+    }
+
+    @Override
+    public void onTransportDisconnected(Throwable exception) {
+      disconnected = exception;
+    }
+  }
+}
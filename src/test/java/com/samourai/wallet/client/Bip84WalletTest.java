@@ -50,6 +50,28 @@ public class Bip84WalletTest extends AbstractTest {
         toBech32(bip84Wallet.getAddressAt(1, 2)), toBech32(bip84Wallet.getNextChangeAddress()));
   }
 
+  @Test
+  public void getCachedAddressAt() throws Exception {
+    CachedAddress cachedAddress = bip84Wallet.getCachedAddressAt(0, 15);
+    Assertions.assertEquals(
+        "tb1q2vw863w92dwpej48maqyjazj4ch3x0krzrw9cs", cachedAddress.getBech32(params));
+
+    // derived once
+    Assertions.assertSame(cachedAddress, bip84Wallet.getCachedAddressAt(0, 15));
+    Assertions.assertArrayEquals(
+        bip84Wallet.getAddressAt(0, 15).getECKey().getPubKey(), cachedAddress.getPubKey());
+
+    // next addresses derived by same call
+    CachedAddress lookahead = bip84Wallet.getCachedAddressAt(0, 35);
+    Assertions.assertEquals(toBech32(bip84Wallet.getAddressAt(0, 35)), lookahead.getBech32(params));
+    Assertions.assertSame(lookahead, bip84Wallet.getCachedAddressAt(0, 35));
+
+    // other chain
+    Assertions.assertEquals(
+        "tb1qtfrd7zug2qkhv3nc6294pls92qru6vvqse40dw",
+        bip84Wallet.getCachedAddressAt(1, 0).getBech32(params));
+  }
+
   @Test
   public void getZpub() throws Exception {
     Assertions.assertEquals(
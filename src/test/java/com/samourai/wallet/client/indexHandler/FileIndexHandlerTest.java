@@ -0,0 +1,128 @@
+package com.samourai.wallet.client.indexHandler;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import java.io.File;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FileIndexHandlerTest extends AbstractTest {
+  private File file;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    file = File.createTempFile("indexes", ".json");
+    file.deleteOnExit();
+    new File(file.getPath() + ".lock").deleteOnExit();
+  }
+
+  @Test
+  public void writeOnEachChange() throws Exception {
+    FileIndexHandler fileIndexHandler = new FileIndexHandler(file);
+    Assertions.assertEquals(0, fileIndexHandler.getAndIncrement("foo", 0));
+    Assertions.assertEquals(1, fileIndexHandler.getAndIncrement("foo", 0));
+    Assertions.assertFalse(fileIndexHandler.isDirty());
+
+    // written
+    Assertions.assertEquals(2, new FileIndexHandler(file).get("foo", 0));
+  }
+
+  @Test
+  public void writeBehind() throws Exception {
+    FileIndexHandler fileIndexHandler = new FileIndexHandler(file, 200);
+    for (int i = 0; i < 600; i++) {
+      fileIndexHandler.getAndIncrement("foo", 0);
+    }
+    Assertions.assertEquals(600, fileIndexHandler.get("foo", 0));
+    Assertions.assertTrue(fileIndexHandler.isDirty());
+
+    // not written yet: crash now would reload previous indexes
+    Assertions.assertEquals(0, new FileIndexHandler(file).get("foo", 0));
+
+    // coalesced changes written after delay
+    Thread.sleep(500);
+    Assertions.assertFalse(fileIndexHandler.isDirty());
+    Assertions.assertEquals(600, new FileIndexHandler(file).get("foo", 0));
+  }
+
+  @Test
+  public void flush() throws Exception {
+    FileIndexHandler fileIndexHandler = new FileIndexHandler(file, 60000);
+    fileIndexHandler.getIndexHandler("foo", 0).getAndAdd(5);
+    Assertions.assertEquals(0, new FileIndexHandler(file).get("foo", 0));
+
+    // barrier
+    fileIndexHandler.flush();
+    Assertions.assertFalse(fileIndexHandler.isDirty());
+    Assertions.assertEquals(5, new FileIndexHandler(file).get("foo", 0));
+  }
+
+  @Test
+  public void flushUnconfirmed() throws Exception {
+    FileIndexHandler fileIndexHandler = new FileIndexHandler(file, 60000);
+    IIndexHandler indexHandler = fileIndexHandler.getIndexHandler("foo", 0);
+    indexHandler.getAndAdd(5);
+
+    // pending changes written before exposing unconfirmed index
+    Assertions.assertEquals(5, indexHandler.getAndIncrementUnconfirmed());
+    Assertions.assertFalse(fileIndexHandler.isDirty());
+    Assertions.assertEquals(5, new FileIndexHandler(file).get("foo", 0));
+  }
+
+  @Test
+  public void failedWrite() throws Exception {
+    File dir = new File(file.getPath() + ".dir");
+    File dirFile = new File(dir, "indexes.json");
+    FileIndexHandler fileIndexHandler = new FileIndexHandler(dirFile, 200);
+    fileIndexHandler.getAndIncrement("foo", 0);
+
+    // directory missing: write fails, changes kept
+    try {
+      fileIndexHandler.flush();
+      Assertions.fail();
+    } catch (Exception e) {
+      // expected
+    }
+    Assertions.assertTrue(fileIndexHandler.isDirty());
+
+    // rescheduled
+    Assertions.assertTrue(dir.mkdir());
+    try {
+      Thread.sleep(500);
+      Assertions.assertFalse(fileIndexHandler.isDirty());
+      Assertions.assertEquals(1, new FileIndexHandler(dirFile).get("foo", 0));
+    } finally {
+      dirFile.delete();
+      new File(dirFile.getPath() + ".lock").delete();
+      dir.delete();
+    }
+  }
+
+  @Test
+  public void failedRenameUnconfirmed() throws Exception {
+    // non-empty directory can't be replaced nor deleted
+    File dir = new File(file.getPath() + ".dir");
+    Assertions.assertTrue(dir.mkdir());
+    File child = new File(dir, "child");
+    Assertions.assertTrue(child.createNewFile());
+    FileIndexHandler fileIndexHandler = new FileIndexHandler(dir, 60000);
+    IIndexHandler indexHandler = fileIndexHandler.getIndexHandler("foo", 0);
+    indexHandler.getAndAdd(5);
+
+    // index still handed out, changes kept for retry
+    Assertions.assertEquals(5, indexHandler.getAndIncrementUnconfirmed());
+    Assertions.assertTrue(fileIndexHandler.isDirty());
+
+    // written once rename succeeds
+    Assertions.assertTrue(child.delete());
+    Assertions.assertTrue(dir.delete());
+    try {
+      fileIndexHandler.flush();
+      Assertions.assertFalse(fileIndexHandler.isDirty());
+      Assertions.assertEquals(5, new FileIndexHandler(dir).get("foo", 0));
+    } finally {
+      dir.delete();
+      new File(dir.getPath() + ".lock").delete();
+    }
+  }
+}
@@ -23,6 +23,9 @@ public class IndexHandlerTest extends AbstractTest {
     indexHandler.set(5);
     Assertions.assertEquals(5, indexHandler.getAndIncrement());
     Assertions.assertEquals(6, indexHandler.getAndIncrement());
+
+    Assertions.assertEquals(7, indexHandler.getAndAdd(10));
+    Assertions.assertEquals(17, indexHandler.get());
   }
 
   @Test
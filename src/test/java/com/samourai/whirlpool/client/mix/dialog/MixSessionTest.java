@@ -0,0 +1,59 @@
+package com.samourai.whirlpool.client.mix.dialog;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.whirlpool.WhirlpoolClientConfig;
+import com.samourai.whirlpool.protocol.WhirlpoolProtocol;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class MixSessionTest extends AbstractTest {
+  private ScheduledExecutorService scheduler;
+  private ReconnectCoordinator coordinator;
+  private WhirlpoolClientConfig config;
+
+  @BeforeEach
+  public void setup() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    coordinator = new ReconnectCoordinator(scheduler, 10, 120, 60);
+    config = Mockito.mock(WhirlpoolClientConfig.class);
+    Mockito.when(config.getReconnectCoordinator()).thenReturn(coordinator);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void sessionsCreatedAtSameTime() throws Exception {
+    // same logPrefix, as mixs started in the same millisecond
+    String logPrefix = Long.toString(System.currentTimeMillis());
+    MixSession mixSession1 = newMixSession(logPrefix);
+    MixSession mixSession2 = newMixSession(logPrefix);
+    Assertions.assertNotEquals(mixSession1.getSessionId(), mixSession2.getSessionId());
+
+    // both waiting for reconnection
+    Runnable reconnect =
+        new Runnable() {
+          @Override
+          public void run() {}
+        };
+    coordinator.schedule(mixSession1.getSessionId(), 60, 0, reconnect);
+    coordinator.schedule(mixSession2.getSessionId(), 60, 0, reconnect);
+
+    // disconnecting one session doesn't cancel the other
+    mixSession2.disconnect();
+    Assertions.assertNull(mixSession2.getReconnectStats());
+    Assertions.assertEquals(1, mixSession1.getReconnectStats().getNbReconnects());
+  }
+
+  private MixSession newMixSession(String logPrefix) {
+    MixDialogListener listener = Mockito.mock(MixDialogListener.class);
+    return new MixSession(listener, new WhirlpoolProtocol(), config, "0.01btc", logPrefix);
+  }
+}
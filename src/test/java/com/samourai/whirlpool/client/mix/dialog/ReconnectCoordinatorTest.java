@@ -0,0 +1,83 @@
+package com.samourai.whirlpool.client.mix.dialog;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ReconnectCoordinatorTest extends AbstractTest {
+  private ScheduledExecutorService scheduler;
+
+  @BeforeEach
+  public void setup() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void computeDelay() {
+    ReconnectCoordinator coordinator = new ReconnectCoordinator(scheduler, 10, 120, 60);
+    for (int i = 0; i < 100; i++) {
+      // exponential backoff with jitter
+      long delay = coordinator.computeDelay(5, 0);
+      Assertions.assertTrue(delay >= 2500 && delay <= 5000);
+      delay = coordinator.computeDelay(5, 3);
+      Assertions.assertTrue(delay >= 20000 && delay <= 40000);
+
+      // capped
+      delay = coordinator.computeDelay(5, 100);
+      Assertions.assertTrue(delay >= 60000 && delay <= 120000);
+    }
+  }
+
+  @Test
+  public void maxConcurrentHandshakes() throws Exception {
+    ReconnectCoordinator coordinator = new ReconnectCoordinator(scheduler, 2, 120, 60);
+    final AtomicInteger nbReconnects = new AtomicInteger(0);
+    Runnable reconnect =
+        new Runnable() {
+          @Override
+          public void run() {
+            nbReconnects.incrementAndGet();
+          }
+        };
+    for (int i = 0; i < 5; i++) {
+      coordinator.schedule("session" + i, 0, 0, reconnect);
+    }
+    Thread.sleep(200);
+
+    // 2 handshakes running, 3 waiting
+    Assertions.assertEquals(2, nbReconnects.get());
+    Assertions.assertEquals(2, coordinator.getNbHandshakes());
+    Assertions.assertEquals(3, coordinator.getNbPendings());
+    Assertions.assertEquals(3, coordinator.getNbThrottled());
+
+    // each handshake done starts next one
+    coordinator.onConnected("session0");
+    coordinator.onConnected("session1");
+    Thread.sleep(200);
+    Assertions.assertEquals(4, nbReconnects.get());
+    Assertions.assertEquals(1, coordinator.getNbPendings());
+
+    // stats
+    ReconnectStats stats = coordinator.getStats("session0");
+    Assertions.assertEquals(1, stats.getNbReconnects());
+    Assertions.assertEquals(1, stats.getNbConnected());
+    Assertions.assertEquals(0, stats.getNbFailuresSinceConnected());
+
+    // cancelled session releases its slot
+    coordinator.cancel("session2");
+    coordinator.cancel("session3");
+    Thread.sleep(200);
+    Assertions.assertEquals(5, nbReconnects.get());
+    Assertions.assertNull(coordinator.getStats("session2"));
+  }
+}
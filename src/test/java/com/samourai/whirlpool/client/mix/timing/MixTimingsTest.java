@@ -0,0 +1,65 @@
+package com.samourai.whirlpool.client.mix.timing;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MixTimingsTest extends AbstractTest {
+
+  @Test
+  public void histogram() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Assertions.assertEquals(0, histogram.getPercentile(50));
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+    Assertions.assertEquals(100, histogram.getCount());
+    Assertions.assertEquals(50, histogram.getMean());
+    Assertions.assertEquals(1, histogram.getMin());
+    Assertions.assertEquals(100, histogram.getMax());
+
+    // approximated by bucket upper bound
+    Assertions.assertEquals(63, histogram.getPercentile(50)); // [32, 64[
+    Assertions.assertEquals(100, histogram.getPercentile(99)); // [64, 128[ capped to max
+  }
+
+  @Test
+  public void timings() throws Exception {
+    MixTimings mixTimings = new MixTimings();
+    final List<MixPhase> phases = new ArrayList<MixPhase>();
+    mixTimings.addListener(
+        new MixTimingListener() {
+          @Override
+          public void onPhase(String poolId, MixPhase phase, long duration) {
+            phases.add(phase);
+          }
+        });
+
+    MixTimer mixTimer = mixTimings.newTimer("0.01btc");
+    mixTimer.start(MixPhase.CONNECT);
+    Thread.sleep(20);
+    mixTimer.next(MixPhase.CONNECT, MixPhase.SUBSCRIBE);
+    mixTimer.end(MixPhase.SUBSCRIBE);
+    mixTimer.end(MixPhase.SIGNING); // not started => ignored
+
+    Assertions.assertEquals(2, phases.size());
+    Assertions.assertEquals(MixPhase.CONNECT, phases.get(0));
+    Assertions.assertEquals(MixPhase.SUBSCRIBE, phases.get(1));
+
+    Map<String, Map<MixPhase, LatencyHistogram>> snapshot = mixTimings.getSnapshot();
+    LatencyHistogram connect = snapshot.get("0.01btc").get(MixPhase.CONNECT);
+    Assertions.assertEquals(1, connect.getCount());
+    Assertions.assertTrue(connect.getMax() >= 20);
+    Assertions.assertNull(snapshot.get("0.01btc").get(MixPhase.SIGNING));
+
+    // snapshot is a copy
+    mixTimer.start(MixPhase.CONNECT);
+    mixTimer.end(MixPhase.CONNECT);
+    Assertions.assertEquals(1, connect.getCount());
+    Assertions.assertEquals(
+        2, mixTimings.getSnapshot().get("0.01btc").get(MixPhase.CONNECT).getCount());
+  }
+}
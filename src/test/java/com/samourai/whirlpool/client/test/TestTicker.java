@@ -0,0 +1,18 @@
+package com.samourai.whirlpool.client.test;
+
+import com.google.common.base.Ticker;
+import java.util.concurrent.TimeUnit;
+
+/** Ticker advanced manually by tests. */
+public class TestTicker extends Ticker {
+  private volatile long nanos = 0;
+
+  public void advance(long millis) {
+    nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  @Override
+  public long read() {
+    return nanos;
+  }
+}
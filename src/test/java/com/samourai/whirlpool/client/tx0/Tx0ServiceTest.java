@@ -4,11 +4,19 @@ import com.samourai.wallet.api.backend.beans.UnspentResponse;
 import com.samourai.wallet.client.Bip84Wallet;
 import com.samourai.wallet.client.indexHandler.MemoryIndexHandler;
 import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.whirlpool.client.exception.NotifiableException;
 import com.samourai.whirlpool.client.test.AbstractTest;
 import com.samourai.whirlpool.client.wallet.WhirlpoolWalletConfig;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolServer;
 import com.samourai.whirlpool.client.wallet.beans.WhirlpoolWalletAccount;
 import com.samourai.whirlpool.client.whirlpool.beans.Tx0Data;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java8.util.Lists;
 import org.bitcoinj.core.*;
 import org.bouncycastle.util.encoders.Hex;
@@ -90,6 +98,37 @@ public class Tx0ServiceTest extends AbstractTest {
     Assertions.assertEquals(nbOutputsExpected, tx0Preview.getNbPremix());
   }
 
+  @Test
+  public void planTx0s() throws Exception {
+    UnspentResponse.UnspentOutput big =
+        newUnspentOutput(
+            "cc588cdcb368f894a41c372d1f905770b61ecb3fb8e5e01a97e7cedbf5e324ae", 1, 500000000);
+    UnspentResponse.UnspentOutput medium =
+        newUnspentOutput(
+            "cc588cdcb368f894a41c372d1f905770b61ecb3fb8e5e01a97e7cedbf5e324ae", 2, 1500000);
+    UnspentResponse.UnspentOutput small1 =
+        newUnspentOutput(
+            "cc588cdcb368f894a41c372d1f905770b61ecb3fb8e5e01a97e7cedbf5e324ae", 3, 800000);
+    UnspentResponse.UnspentOutput small2 =
+        newUnspentOutput(
+            "cc588cdcb368f894a41c372d1f905770b61ecb3fb8e5e01a97e7cedbf5e324ae", 4, 500000);
+    Tx0Config tx0Config = new Tx0Config().setMaxOutputs(10);
+    Tx0Param tx0Param = new Tx0Param(1, 1, pool01btc, null);
+
+    // one tx0 per utxo, utxos too small are left out
+    List<List<UnspentResponse.UnspentOutput>> plans =
+        tx0Service.planTx0s(Lists.of(small2, medium, big, small1), tx0Config, tx0Param, false);
+    Assertions.assertEquals(2, plans.size());
+    Assertions.assertEquals(Lists.of(big), plans.get(0));
+    Assertions.assertEquals(Lists.of(medium), plans.get(1));
+
+    // consolidate small utxos together
+    plans = tx0Service.planTx0s(Lists.of(small2, medium, big, small1), tx0Config, tx0Param, true);
+    Assertions.assertEquals(2, plans.size());
+    Assertions.assertEquals(Lists.of(big), plans.get(0));
+    Assertions.assertEquals(Lists.of(medium, small1, small2), plans.get(1));
+  }
+
   @Test
   public void tx0Preview_overspend() throws Exception {
     String seedWords = "all all all all all all all all all all all all";
@@ -843,6 +882,70 @@ public class Tx0ServiceTest extends AbstractTest {
         tx0Hex);
   }
 
+  @Test
+  public void tx0_5premix_withChange_scode_noFee_parallelBuild() throws Exception {
+    // same tx0 as sequential build
+    config.setTx0ParallelBuild(true);
+    tx0_5premix_withChange_scode_noFee();
+  }
+
+  @Test
+  public void tx0_parallelBuild_sameTx() throws Exception {
+    String seedWords = "all all all all all all all all all all all all";
+    String passphrase = "whirlpool";
+    byte[] seed = hdWalletFactory.computeSeedFromWords(seedWords);
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, passphrase, params);
+
+    // 2 inputs => a few premixs
+    List<UnspentOutputWithKey> spendFroms = new ArrayList<UnspentOutputWithKey>();
+    for (int i = 0; i < 2; i++) {
+      ECKey spendFromKey = bip84w.getAccountAt(0).getChain(0).getAddressAt(i).getECKey();
+      UnspentResponse.UnspentOutput spendFrom =
+          newUnspentOutput(
+              "cc588cdcb368f894a41c372d1f905770b61ecb3fb8e5e01a97e7cedbf5e324ae", i, 3000000);
+      spendFroms.add(new UnspentOutputWithKey(spendFrom, spendFromKey.getPrivKeyBytes()));
+    }
+    Tx0Data tx0Data =
+        new Tx0Data(
+            "PM8TJXp19gCE6hQzqRi719FGJzF6AreRwvoQKLRnQ7dpgaakakFns22jHUqhtPQWmfevPQRCyfFbdDrKvrfw9oZv5PjaCerQMa3BKkPyUf9yN1CDR3w6",
+            0,
+            FEE_VALUE,
+            100,
+            null,
+            "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym",
+            0);
+    Tx0Param tx0Param = new Tx0Param(1, 1, pool01btc, null);
+    Tx0Preview tx0Preview = tx0Service.tx0Preview(spendFroms, new Tx0Config(), tx0Param, tx0Data);
+    Assertions.assertTrue(tx0Preview.getNbPremix() > 1);
+
+    Tx0 tx0Sequential = buildTx0(bip84w, spendFroms, tx0Preview, false);
+    Tx0 tx0Parallel = buildTx0(bip84w, spendFroms, tx0Preview, true);
+    Assertions.assertEquals(
+        tx0Sequential.getTx().getHashAsString(), tx0Parallel.getTx().getHashAsString());
+  }
+
+  private Tx0 buildTx0(
+      HD_Wallet bip84w,
+      List<UnspentOutputWithKey> spendFroms,
+      Tx0Preview tx0Preview,
+      boolean parallelBuild)
+      throws Exception {
+    config.setTx0ParallelBuild(parallelBuild);
+    Bip84Wallet[] wallets = computeWallets(bip84w);
+    Tx0 tx0 =
+        tx0Service.tx0(
+            spendFroms,
+            wallets[0],
+            wallets[1],
+            wallets[2],
+            wallets[3],
+            new Tx0Config(),
+            tx0Preview);
+    Assertions.assertEquals(
+        tx0Preview.getNbPremix(), wallets[1].getIndexHandler().get()); // premix indexs
+    return tx0;
+  }
+
   @Test
   public void tx0_1premix_withChangePostmix_noScode() throws Exception {
     String seedWords = "all all all all all all all all all all all all";
@@ -938,4 +1041,180 @@ public class Tx0ServiceTest extends AbstractTest {
         "01000000000101ae24e3f5dbcee7971ae0e5b83fcb1eb67057901f2d371ca494f868b3dc8c58cc0100000000ffffffff040000000000000000426a409ae6649a7b1fc9ab17f408cbf7b41e27f3a5484650aafdf5167852bd348afa8aa8213dda856188683ab187a902923e7ec3b672a6fbb637a4063c71879f6859171027000000000000160014f6a884f18f4d7e78a4167c3e56773c3ae58e0164ee2b000000000000160014d49377882fdc939d951aa51a3c0ad6dd4a152e26d6420f00000000001600141dffe6e395c95927e4a16e8e6bd6d05604447e4d0247304402204e37d89e31eb2242049605dabc803579c717f41eea9e53e7a460e8ac7a3806800220460816a471b9dd9cae5b937368da68166d7b2d28a946a01bc1d6317018e3063801210349baf197181fe53937d225d0e7bd14d8b5f921813c038a95d7c2648500c119b000000000",
         tx0Hex);
   }
+
+  @Test
+  public void tx0Data_previewsOnly() throws Exception {
+    Tx0Service tx0Service =
+        new Tx0Service(config) {
+          @Override
+          protected Tx0Data fetchTx0Data(String poolId) {
+            return new Tx0Data(null, FEE_VALUE, 0, 0, null, null, 0);
+          }
+        };
+
+    // previews share cached Tx0Data
+    Tx0Data tx0Data = tx0Service.getTx0Data("0.01btc");
+    Assertions.assertSame(tx0Data, tx0Service.getTx0Data("0.01btc"));
+
+    // real tx0 takes it from cache, next one gets a fresh one
+    Assertions.assertSame(tx0Data, tx0Service.takeTx0Data("0.01btc"));
+    Assertions.assertNotSame(tx0Data, tx0Service.takeTx0Data("0.01btc"));
+
+    // used once only
+    Assertions.assertTrue(tx0Service.claimTx0Data(tx0Data));
+    Assertions.assertFalse(tx0Service.claimTx0Data(tx0Data));
+
+    // claimed Tx0Data is not served to previews anymore
+    Tx0Data previewData = tx0Service.getTx0Data("0.01btc");
+    Assertions.assertTrue(tx0Service.claimTx0Data(previewData));
+    Assertions.assertNotSame(previewData, tx0Service.getTx0Data("0.01btc"));
+  }
+
+  @Test
+  public void tx0s() throws Exception {
+    final AtomicInteger nbFetchs = new AtomicInteger();
+    Tx0Service tx0Service =
+        new Tx0Service(config) {
+          @Override
+          protected Tx0Data fetchTx0Data(String poolId) {
+            nbFetchs.incrementAndGet();
+            return newTx0Data();
+          }
+        };
+    HD_Wallet bip84w = computeBip84w();
+    List<List<UnspentOutputWithKey>> spendFromsList = new ArrayList<List<UnspentOutputWithKey>>();
+    spendFromsList.add(Lists.of(newSpendFrom(bip84w, 0, 3000000)));
+    spendFromsList.add(Lists.of(newSpendFrom(bip84w, 1, 5000000)));
+    Bip84Wallet[] wallets = computeWallets(bip84w);
+    List<Tx0> tx0s =
+        tx0Service.tx0s(
+            spendFromsList,
+            wallets[0],
+            wallets[1],
+            wallets[2],
+            wallets[3],
+            new Tx0Config(),
+            new Tx0Param(1, 1, pool01btc, null));
+
+    // one Tx0Data per tx0
+    Assertions.assertEquals(2, tx0s.size());
+    Assertions.assertEquals(2, nbFetchs.get());
+    Assertions.assertNotSame(tx0s.get(0).getTx0Data(), tx0s.get(1).getTx0Data());
+
+    // each tx0 spends its own utxos to its own premix outputs
+    int nbPremix = 0;
+    Set<String> premixScripts = new HashSet<String>();
+    for (int i = 0; i < tx0s.size(); i++) {
+      Tx0 tx0 = tx0s.get(i);
+      Assertions.assertEquals(1, tx0.getTx().getInputs().size());
+      Assertions.assertEquals(
+          spendFromsList.get(i).get(0).tx_output_n,
+          tx0.getTx().getInput(0).getOutpoint().getIndex());
+      Assertions.assertEquals(tx0.getNbPremix(), tx0.getPremixOutputs().size());
+      for (TransactionOutput premixOutput : tx0.getPremixOutputs()) {
+        premixScripts.add(Hex.toHexString(premixOutput.getScriptBytes()));
+      }
+      nbPremix += tx0.getNbPremix();
+    }
+    Assertions.assertTrue(tx0s.get(0).getNbPremix() < tx0s.get(1).getNbPremix());
+    Assertions.assertEquals(nbPremix, premixScripts.size());
+    Assertions.assertEquals(nbPremix, wallets[1].getIndexHandler().get());
+  }
+
+  @Test
+  public void tx0s_cancelAllOnFailure() throws Exception {
+    final CountDownLatch fetching = new CountDownLatch(1);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    Tx0Service tx0Service =
+        new Tx0Service(config) {
+          @Override
+          protected Tx0Data takeTx0Data(String poolId) throws NotifiableException {
+            // first tx0 fails while second one is fetching
+            try {
+              fetching.await();
+            } catch (InterruptedException e) {
+              // ignored
+            }
+            throw new NotifiableException("fetch failed");
+          }
+
+          @Override
+          protected Tx0Data fetchTx0Data(String poolId) throws NotifiableException {
+            fetching.countDown();
+            try {
+              Thread.sleep(60000);
+            } catch (InterruptedException e) {
+              interrupted.countDown();
+            }
+            throw new NotifiableException("interrupted");
+          }
+        };
+    HD_Wallet bip84w = computeBip84w();
+    List<List<UnspentOutputWithKey>> spendFromsList = new ArrayList<List<UnspentOutputWithKey>>();
+    spendFromsList.add(Lists.of(newSpendFrom(bip84w, 0, 3000000)));
+    spendFromsList.add(Lists.of(newSpendFrom(bip84w, 1, 5000000)));
+    Bip84Wallet[] wallets = computeWallets(bip84w);
+    try {
+      tx0Service.tx0s(
+          spendFromsList,
+          wallets[0],
+          wallets[1],
+          wallets[2],
+          wallets[3],
+          new Tx0Config(),
+          new Tx0Param(1, 1, pool01btc, null));
+      Assertions.fail();
+    } catch (NotifiableException e) {
+      Assertions.assertEquals("fetch failed", e.getMessage());
+    }
+
+    // other fetch cancelled, nothing built
+    Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    Assertions.assertEquals(0, wallets[1].getIndexHandler().get());
+  }
+
+  private HD_Wallet computeBip84w() throws Exception {
+    String seedWords = "all all all all all all all all all all all all";
+    byte[] seed = hdWalletFactory.computeSeedFromWords(seedWords);
+    return hdWalletFactory.getBIP84(seed, "whirlpool", params);
+  }
+
+  private UnspentOutputWithKey newSpendFrom(HD_Wallet bip84w, int index, long value) {
+    ECKey spendFromKey = bip84w.getAccountAt(0).getChain(0).getAddressAt(index).getECKey();
+    UnspentResponse.UnspentOutput spendFrom =
+        newUnspentOutput(
+            "cc588cdcb368f894a41c372d1f905770b61ecb3fb8e5e01a97e7cedbf5e324ae", index, value);
+    return new UnspentOutputWithKey(spendFrom, spendFromKey.getPrivKeyBytes());
+  }
+
+  private Bip84Wallet[] computeWallets(HD_Wallet bip84w) {
+    WhirlpoolWalletAccount[] accounts =
+        new WhirlpoolWalletAccount[] {
+          WhirlpoolWalletAccount.DEPOSIT,
+          WhirlpoolWalletAccount.PREMIX,
+          WhirlpoolWalletAccount.POSTMIX,
+          WhirlpoolWalletAccount.BADBANK
+        };
+    Bip84Wallet[] wallets = new Bip84Wallet[accounts.length];
+    for (int i = 0; i < accounts.length; i++) {
+      wallets[i] =
+          new Bip84Wallet(
+              bip84w,
+              accounts[i].getAccountIndex(),
+              new MemoryIndexHandler(),
+              new MemoryIndexHandler());
+    }
+    return wallets;
+  }
+
+  private Tx0Data newTx0Data() {
+    return new Tx0Data(
+        "PM8TJXp19gCE6hQzqRi719FGJzF6AreRwvoQKLRnQ7dpgaakakFns22jHUqhtPQWmfevPQRCyfFbdDrKvrfw9oZv5PjaCerQMa3BKkPyUf9yN1CDR3w6",
+        0,
+        FEE_VALUE,
+        100,
+        null,
+        "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym",
+        0);
+  }
 }
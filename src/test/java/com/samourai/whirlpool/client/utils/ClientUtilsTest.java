@@ -1,7 +1,13 @@
 package com.samourai.whirlpool.client.utils;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samourai.whirlpool.client.test.AbstractTest;
 import com.samourai.whirlpool.client.tx0.*;
+import java.io.File;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java8.util.Lists;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -29,4 +35,66 @@ public class ClientUtilsTest extends AbstractTest {
     Assertions.assertTrue(rand >= -1 && rand <= 1);
     return rand;
   }
+
+  @Test
+  public void publicKeyUnserialize() throws Exception {
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    RSAPublicKey publicKey = (RSAPublicKey) keyPairGenerator.generateKeyPair().getPublic();
+
+    RSAKeyParameters keyParameters = ClientUtils.publicKeyUnserialize(publicKey.getEncoded());
+    Assertions.assertEquals(publicKey.getModulus(), keyParameters.getModulus());
+    Assertions.assertEquals(publicKey.getPublicExponent(), keyParameters.getExponent());
+
+    // cached
+    Assertions.assertSame(
+        keyParameters, ClientUtils.publicKeyUnserialize(publicKey.getEncoded().clone()));
+  }
+
+  @Test
+  public void safeWriteValue() throws Exception {
+    File dir = newTempDir();
+    File file = new File(dir, "value.json");
+    file.deleteOnExit();
+    new File(dir, "value.json.lock").deleteOnExit();
+    ObjectMapper mapper = new ObjectMapper();
+    ClientUtils.safeWriteValue(mapper, Lists.of(1), file);
+
+    // existing file replaced
+    ClientUtils.safeWriteValue(mapper, Lists.of(2), file);
+    Assertions.assertEquals("[2]", mapper.readTree(file).toString());
+    Assertions.assertEquals(2, dir.list().length);
+  }
+
+  @Test
+  public void safeWriteValue_renameFailed() throws Exception {
+    // non-empty directory can't be replaced nor deleted
+    File dir = newTempDir();
+    File file = new File(dir, "value.json");
+    file.deleteOnExit();
+    Assertions.assertTrue(file.mkdir());
+    File child = new File(file, "child");
+    child.deleteOnExit();
+    Assertions.assertTrue(child.createNewFile());
+    new File(dir, "value.json.lock").deleteOnExit();
+
+    try {
+      ClientUtils.safeWriteValue(new ObjectMapper(), Lists.of(1), file);
+      Assertions.fail();
+    } catch (Exception e) {
+      Assertions.assertEquals("rename failed", e.getMessage());
+    }
+
+    // target unchanged, temp file removed
+    Assertions.assertTrue(child.exists());
+    Assertions.assertEquals(2, dir.list().length);
+  }
+
+  private File newTempDir() throws Exception {
+    File dir = File.createTempFile("whirlpool", ".dir");
+    Assertions.assertTrue(dir.delete());
+    Assertions.assertTrue(dir.mkdir());
+    dir.deleteOnExit();
+    return dir;
+  }
 }
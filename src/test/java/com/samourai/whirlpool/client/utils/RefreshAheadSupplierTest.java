@@ -0,0 +1,101 @@
+package com.samourai.whirlpool.client.utils;
+
+import com.google.common.base.Supplier;
+import com.samourai.whirlpool.client.test.TestTicker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class RefreshAheadSupplierTest {
+  private TestTicker ticker;
+  private ScheduledExecutorService scheduler;
+  private List<Runnable> scheduledRefreshs;
+  private List<Long> scheduledDelays;
+  private AtomicInteger nbLoads = new AtomicInteger();
+  private Supplier<Integer> loader =
+      new Supplier<Integer>() {
+        @Override
+        public Integer get() {
+          return nbLoads.incrementAndGet();
+        }
+      };
+
+  @BeforeEach
+  public void setup() {
+    ticker = new TestTicker();
+    scheduledRefreshs = new ArrayList<Runnable>();
+    scheduledDelays = new ArrayList<Long>();
+
+    // refreshs are run manually
+    scheduler = Mockito.mock(ScheduledExecutorService.class);
+    Mockito.doAnswer(
+            new Answer<ScheduledFuture<?>>() {
+              @Override
+              public ScheduledFuture<?> answer(InvocationOnMock invocation) {
+                scheduledRefreshs.add((Runnable) invocation.getArgument(0));
+                scheduledDelays.add((Long) invocation.getArgument(1));
+                return Mockito.mock(ScheduledFuture.class);
+              }
+            })
+        .when(scheduler)
+        .schedule(Mockito.any(Runnable.class), Mockito.anyLong(), Mockito.any(TimeUnit.class));
+  }
+
+  @Test
+  public void refreshAhead() throws Exception {
+    RefreshAheadSupplier<Integer> supplier =
+        new RefreshAheadSupplier<Integer>(loader, 500, scheduler, ticker);
+
+    // first load is synchronous
+    Assertions.assertEquals(1, (int) supplier.get());
+    Assertions.assertEquals(1, (int) supplier.get());
+
+    // refresh scheduled before expiry (80% of ttl +/- 10%)
+    Assertions.assertEquals(1, scheduledRefreshs.size());
+    long delay = scheduledDelays.get(0);
+    Assertions.assertTrue(delay >= 350 && delay <= 450, "delay=" + delay);
+
+    // refreshed in background before expiry
+    ticker.advance(delay);
+    scheduledRefreshs.get(0).run();
+    Assertions.assertEquals(2, nbLoads.get());
+    Assertions.assertEquals(2, scheduledRefreshs.size());
+
+    // served without reload until new expiry
+    ticker.advance(499);
+    Assertions.assertEquals(2, (int) supplier.get());
+    Assertions.assertEquals(2, nbLoads.get());
+    supplier.stop();
+  }
+
+  @Test
+  public void expireWhenNotAccessed() throws Exception {
+    RefreshAheadSupplier<Integer> supplier =
+        new RefreshAheadSupplier<Integer>(loader, 200, scheduler, ticker);
+    Assertions.assertEquals(1, (int) supplier.get());
+
+    // not accessed since load => not refreshed
+    ticker.advance(scheduledDelays.get(0));
+    scheduledRefreshs.get(0).run();
+    Assertions.assertEquals(1, nbLoads.get());
+
+    // still valid
+    ticker.advance(199 - scheduledDelays.get(0));
+    Assertions.assertEquals(1, (int) supplier.get());
+
+    // expired => reloaded synchronously
+    ticker.advance(1);
+    Assertions.assertEquals(2, (int) supplier.get());
+    Assertions.assertEquals(2, nbLoads.get());
+    supplier.stop();
+  }
+}
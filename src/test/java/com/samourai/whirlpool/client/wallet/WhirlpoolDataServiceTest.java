@@ -0,0 +1,381 @@
+package com.samourai.whirlpool.client.wallet;
+
+import com.samourai.wallet.api.backend.BackendApi;
+import com.samourai.wallet.api.backend.beans.MultiAddrResponse;
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.wallet.client.Bip84ApiWallet;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.test.TestTicker;
+import com.samourai.whirlpool.client.wallet.beans.UtxoKey;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolServer;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
+import com.samourai.whirlpool.client.wallet.utxo.LocalUtxoSource;
+import com.samourai.whirlpool.client.wallet.utxo.UtxoSourceListener;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java8.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class WhirlpoolDataServiceTest extends AbstractTest {
+  private static final WhirlpoolAccount ACCOUNT = WhirlpoolAccount.DEPOSIT;
+
+  private WhirlpoolWallet whirlpoolWallet;
+  private WhirlpoolWalletService whirlpoolWalletService;
+  private WhirlpoolWalletConfig config;
+  private TestTicker ticker;
+  private Map<WhirlpoolAccount, List<UnspentOutput>> backendUtxos;
+  private boolean backendDown;
+  private int nbFetchs;
+
+  private UnspentOutput utxo1 = newUnspentOutput("utxo1", 0, 1000000);
+  private UnspentOutput utxo2 = newUnspentOutput("utxo2", 1, 2000000);
+  private UnspentOutput utxo3 = newUnspentOutput("utxo3", 2, 3000000);
+
+  @BeforeEach
+  public void setup() {
+    Bip84ApiWallet wallet = Mockito.mock(Bip84ApiWallet.class);
+    Mockito.when(wallet.getZpub()).thenReturn("zpub");
+    whirlpoolWallet = Mockito.mock(WhirlpoolWallet.class);
+    Mockito.when(whirlpoolWallet.getWallet(Mockito.any(WhirlpoolAccount.class))).thenReturn(wallet);
+    whirlpoolWalletService = Mockito.mock(WhirlpoolWalletService.class);
+    Mockito.when(whirlpoolWalletService.getWhirlpoolWallet())
+        .thenReturn(Optional.of(whirlpoolWallet));
+
+    WhirlpoolServer server = WhirlpoolServer.LOCAL_TESTNET;
+    config =
+        new WhirlpoolWalletConfig(
+            null, null, null, server.getServerUrlClear(), server.getParams(), false, null);
+
+    backendUtxos = new HashMap<WhirlpoolAccount, List<UnspentOutput>>();
+    for (WhirlpoolAccount account : WhirlpoolAccount.values()) {
+      backendUtxos.put(account, new ArrayList<UnspentOutput>());
+    }
+    backendDown = false;
+    nbFetchs = 0;
+    ticker = new TestTicker();
+  }
+
+  @Test
+  public void received() throws Exception {
+    LocalUtxoSource utxoSource = new LocalUtxoSource();
+    WhirlpoolDataService dataService = computeDataService(utxoSource);
+    Assertions.assertTrue(utxoSource.isStarted());
+    Assertions.assertEquals("zpub", utxoSource.getZpubs().get(ACCOUNT));
+
+    backendUtxos.get(ACCOUNT).add(utxo1);
+    assertUtxos(dataService, utxo1);
+
+    // pushed without fetching again
+    utxoSource.pushUtxos(ACCOUNT, utxo2);
+    assertUtxos(dataService, utxo1, utxo2);
+    Assertions.assertEquals(1, nbFetchs);
+  }
+
+  @Test
+  public void spent() throws Exception {
+    LocalUtxoSource utxoSource = new LocalUtxoSource();
+    WhirlpoolDataService dataService = computeDataService(utxoSource);
+
+    backendUtxos.get(ACCOUNT).add(utxo1);
+    backendUtxos.get(ACCOUNT).add(utxo2);
+    assertUtxos(dataService, utxo1, utxo2);
+
+    utxoSource.pushSpent(ACCOUNT, UtxoKey.of(utxo1));
+    assertUtxos(dataService, utxo2);
+    Assertions.assertEquals(1, nbFetchs);
+  }
+
+  @Test
+  public void pushedBeforeFirstFetch() throws Exception {
+    LocalUtxoSource utxoSource = new LocalUtxoSource();
+    WhirlpoolDataService dataService = computeDataService(utxoSource);
+
+    // backend snapshot doesn't include latest changes yet
+    backendUtxos.get(ACCOUNT).add(utxo1);
+    backendUtxos.get(ACCOUNT).add(utxo2);
+    utxoSource.pushUtxos(ACCOUNT, utxo3);
+    utxoSource.pushSpent(ACCOUNT, UtxoKey.of(utxo1));
+
+    // changes are replayed over first fetch
+    assertUtxos(dataService, utxo2, utxo3);
+  }
+
+  @Test
+  public void gap() throws Exception {
+    LocalUtxoSource utxoSource = new LocalUtxoSource();
+    WhirlpoolDataService dataService = computeDataService(utxoSource);
+
+    backendUtxos.get(ACCOUNT).add(utxo1);
+    assertUtxos(dataService, utxo1);
+
+    // missed notification
+    backendUtxos.get(ACCOUNT).add(utxo2);
+    assertUtxos(dataService, utxo1);
+
+    // fetched again on gap
+    utxoSource.pushGap(ACCOUNT);
+    assertUtxos(dataService, utxo1, utxo2);
+  }
+
+  @Test
+  public void failedFirstFetch() throws Exception {
+    LocalUtxoSource utxoSource = new LocalUtxoSource();
+    WhirlpoolDataService dataService = computeDataService(utxoSource);
+
+    backendUtxos.get(ACCOUNT).add(utxo1);
+    backendDown = true;
+    try {
+      dataService.getUtxos(false, ACCOUNT);
+      Assertions.fail();
+    } catch (Exception e) {
+      // expected
+    }
+
+    // pushed while not fetched
+    utxoSource.pushUtxos(ACCOUNT, utxo2);
+
+    // failure was not cached
+    backendDown = false;
+    assertUtxos(dataService, utxo1, utxo2);
+  }
+
+  @Test
+  public void failedStart() throws Exception {
+    LocalUtxoSource utxoSource =
+        new LocalUtxoSource() {
+          @Override
+          public synchronized void start(
+              Map<WhirlpoolAccount, String> zpubs, UtxoSourceListener listener) {
+            throw new RuntimeException("start failed");
+          }
+        };
+    config.setRefreshUtxoDelay(1);
+    WhirlpoolDataService dataService = computeDataService(utxoSource);
+    Assertions.assertFalse(utxoSource.isStarted());
+
+    backendUtxos.get(ACCOUNT).add(utxo1);
+    assertUtxos(dataService, utxo1);
+
+    // polling utxos
+    backendUtxos.get(ACCOUNT).add(utxo2);
+    ticker.advance(999);
+    assertUtxos(dataService, utxo1);
+    ticker.advance(1);
+    assertUtxos(dataService, utxo1, utxo2);
+  }
+
+  @Test
+  public void batchDispatch() throws Exception {
+    BackendApi backendApi = Mockito.mock(BackendApi.class);
+    Map<WhirlpoolAccount, Bip84ApiWallet> wallets = mockWallets();
+    UnspentOutput utxoDeposit = newBackendUtxo("utxo1", 0, WhirlpoolAccount.DEPOSIT);
+    UnspentOutput utxoPremix = newBackendUtxo("utxo2", 1, WhirlpoolAccount.PREMIX);
+    Mockito.when(backendApi.fetchUtxos(Mockito.any(String[].class)))
+        .thenReturn(Arrays.asList(utxoDeposit, utxoPremix));
+    MultiAddrResponse.Address address = new MultiAddrResponse.Address();
+    address.account_index = 5;
+    address.change_index = 3;
+    Map<String, MultiAddrResponse.Address> addresses =
+        new HashMap<String, MultiAddrResponse.Address>();
+    addresses.put(computeZpub(WhirlpoolAccount.PREMIX), address);
+    Mockito.when(backendApi.fetchAddresses(Mockito.any(String[].class))).thenReturn(addresses);
+    WhirlpoolDataService dataService = computeBackendDataService(backendApi);
+
+    // utxos dispatched by zpub
+    assertUtxos(dataService, WhirlpoolAccount.DEPOSIT, utxoDeposit);
+    assertUtxos(dataService, WhirlpoolAccount.PREMIX, utxoPremix);
+    assertUtxos(dataService, WhirlpoolAccount.POSTMIX);
+
+    // all accounts fetched with one request
+    Mockito.verify(backendApi, Mockito.times(1)).fetchUtxos(Mockito.any(String[].class));
+    Mockito.verify(wallets.get(WhirlpoolAccount.PREMIX)).refreshIndexs(address);
+    Mockito.verify(wallets.get(WhirlpoolAccount.DEPOSIT), Mockito.never())
+        .refreshIndexs(Mockito.any(MultiAddrResponse.Address.class));
+    Mockito.verify(wallets.get(WhirlpoolAccount.DEPOSIT), Mockito.never()).fetchUtxos();
+  }
+
+  @Test
+  public void batchUnknownZpub() throws Exception {
+    BackendApi backendApi = Mockito.mock(BackendApi.class);
+    Map<WhirlpoolAccount, Bip84ApiWallet> wallets = mockWallets();
+    UnspentOutput utxoDeposit = newBackendUtxo("utxo1", 0, WhirlpoolAccount.DEPOSIT);
+    UnspentOutput utxoUnknown = newBackendUtxo("utxo2", 1, WhirlpoolAccount.DEPOSIT);
+    utxoUnknown.xpub.m = "zpubUnknown";
+    Mockito.when(backendApi.fetchUtxos(Mockito.any(String[].class)))
+        .thenReturn(Arrays.asList(utxoDeposit, utxoUnknown));
+    UnspentOutput utxoFallback = newBackendUtxo("utxo3", 2, WhirlpoolAccount.DEPOSIT);
+    Mockito.when(wallets.get(WhirlpoolAccount.DEPOSIT).fetchUtxos())
+        .thenReturn(Arrays.asList(utxoFallback));
+    WhirlpoolDataService dataService = computeBackendDataService(backendApi);
+
+    // batch rejected => requesting account fetched alone
+    assertUtxos(dataService, WhirlpoolAccount.DEPOSIT, utxoFallback);
+    Mockito.verify(wallets.get(WhirlpoolAccount.DEPOSIT)).fetchUtxos();
+    Mockito.verify(wallets.get(WhirlpoolAccount.PREMIX), Mockito.never()).fetchUtxos();
+  }
+
+  @Test
+  public void batchFallbackOtherAccount() throws Exception {
+    BackendApi backendApi = Mockito.mock(BackendApi.class);
+    Map<WhirlpoolAccount, Bip84ApiWallet> wallets = mockWallets();
+    final UnspentOutput utxoPremix1 = newBackendUtxo("utxo1", 0, WhirlpoolAccount.PREMIX);
+    UnspentOutput utxoPremix2 = newBackendUtxo("utxo2", 1, WhirlpoolAccount.PREMIX);
+    Mockito.when(wallets.get(WhirlpoolAccount.PREMIX).fetchUtxos())
+        .thenReturn(Arrays.asList(utxoPremix2));
+    final WhirlpoolDataService dataService = computeBackendDataService(backendApi);
+
+    // premix requested while deposit is fetching in batch
+    final AtomicReference<Collection<WhirlpoolUtxo>> premixUtxos =
+        new AtomicReference<Collection<WhirlpoolUtxo>>();
+    final Thread premixThread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  premixUtxos.set(dataService.getUtxos(false, WhirlpoolAccount.PREMIX));
+                } catch (Exception e) {
+                  // premixUtxos stays null
+                }
+              }
+            });
+    final AtomicInteger nbBatchs = new AtomicInteger();
+    Mockito.when(backendApi.fetchUtxos(Mockito.any(String[].class)))
+        .thenAnswer(
+            new Answer<Object>() {
+              @Override
+              public Object answer(InvocationOnMock invocation) throws Throwable {
+                int nb = nbBatchs.incrementAndGet();
+                if (nb == 1) {
+                  return Arrays.asList(utxoPremix1);
+                }
+                if (nb == 2) {
+                  premixThread.start();
+                  awaitWaiting(premixThread);
+                }
+                throw new Exception("batch failed");
+              }
+            });
+
+    // first fetch
+    assertUtxos(dataService, WhirlpoolAccount.PREMIX, utxoPremix1);
+
+    // batch fails => deposit fetched alone
+    ticker.advance(config.getRefreshUtxoDelay() * 1000L);
+    assertUtxos(dataService, WhirlpoolAccount.DEPOSIT);
+    premixThread.join();
+
+    // premix was not fetched by failed batch => not served stale utxos
+    Assertions.assertNotNull(premixUtxos.get());
+    Set<UtxoKey> utxoKeys = new HashSet<UtxoKey>();
+    for (WhirlpoolUtxo whirlpoolUtxo : premixUtxos.get()) {
+      utxoKeys.add(whirlpoolUtxo.getUtxoKey());
+    }
+    Assertions.assertEquals(Collections.singleton(UtxoKey.of(utxoPremix2)), utxoKeys);
+    Mockito.verify(wallets.get(WhirlpoolAccount.PREMIX)).fetchUtxos();
+  }
+
+  private void awaitWaiting(Thread thread) throws Exception {
+    for (int i = 0; i < 500 && thread.getState() != Thread.State.WAITING; i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  private Map<WhirlpoolAccount, Bip84ApiWallet> mockWallets() throws Exception {
+    Map<WhirlpoolAccount, Bip84ApiWallet> wallets =
+        new HashMap<WhirlpoolAccount, Bip84ApiWallet>();
+    for (WhirlpoolAccount account : WhirlpoolAccount.values()) {
+      Bip84ApiWallet wallet = Mockito.mock(Bip84ApiWallet.class);
+      Mockito.when(wallet.getZpub()).thenReturn(computeZpub(account));
+      Mockito.when(wallet.fetchUtxos()).thenReturn(new ArrayList<UnspentOutput>());
+      Mockito.when(whirlpoolWallet.getWallet(account)).thenReturn(wallet);
+      wallets.put(account, wallet);
+    }
+    return wallets;
+  }
+
+  private String computeZpub(WhirlpoolAccount account) {
+    return "zpub" + account.name();
+  }
+
+  private UnspentOutput newBackendUtxo(String hash, int index, WhirlpoolAccount account) {
+    UnspentOutput utxo = newUnspentOutput(hash, index, 1000000);
+    utxo.xpub.m = computeZpub(account);
+    return utxo;
+  }
+
+  private WhirlpoolDataService computeBackendDataService(BackendApi backendApi) {
+    WhirlpoolServer server = WhirlpoolServer.LOCAL_TESTNET;
+    config =
+        new WhirlpoolWalletConfig(
+            null, null, null, server.getServerUrlClear(), server.getParams(), false, backendApi);
+    WhirlpoolDataService dataService =
+        new WhirlpoolDataService(config, whirlpoolWalletService, ticker);
+    dataService.clearUtxos();
+    return dataService;
+  }
+
+  private WhirlpoolDataService computeDataService(LocalUtxoSource utxoSource) {
+    config.setUtxoSource(utxoSource);
+    WhirlpoolDataService dataService =
+        new WhirlpoolDataService(config, whirlpoolWalletService, ticker) {
+          @Override
+          protected Map<WhirlpoolAccount, List<UnspentOutput>> fetchUtxos(
+              Collection<WhirlpoolAccount> whirlpoolAccounts, WhirlpoolWallet whirlpoolWallet)
+              throws Exception {
+            nbFetchs++;
+            if (backendDown) {
+              throw new Exception("backend down");
+            }
+            Map<WhirlpoolAccount, List<UnspentOutput>> result =
+                new LinkedHashMap<WhirlpoolAccount, List<UnspentOutput>>();
+            for (WhirlpoolAccount whirlpoolAccount : whirlpoolAccounts) {
+              List<UnspentOutput> accountUtxos = backendUtxos.get(whirlpoolAccount);
+              result.put(whirlpoolAccount, new ArrayList<UnspentOutput>(accountUtxos));
+            }
+            return result;
+          }
+
+          @Override
+          protected List<UnspentOutput> fetchUtxos(
+              WhirlpoolAccount whirlpoolAccount, WhirlpoolWallet whirlpoolWallet)
+              throws Exception {
+            if (backendDown) {
+              throw new Exception("backend down");
+            }
+            return new ArrayList<UnspentOutput>(backendUtxos.get(whirlpoolAccount));
+          }
+        };
+
+    // same as WhirlpoolWallet.start()
+    dataService.startUtxoSource(whirlpoolWallet);
+    dataService.clearUtxos();
+    return dataService;
+  }
+
+  private void assertUtxos(WhirlpoolDataService dataService, UnspentOutput... expected)
+      throws Exception {
+    assertUtxos(dataService, ACCOUNT, expected);
+  }
+
+  private void assertUtxos(
+      WhirlpoolDataService dataService, WhirlpoolAccount account, UnspentOutput... expected)
+      throws Exception {
+    Set<UtxoKey> utxoKeys = new HashSet<UtxoKey>();
+    for (WhirlpoolUtxo whirlpoolUtxo : dataService.getUtxos(false, account)) {
+      utxoKeys.add(whirlpoolUtxo.getUtxoKey());
+    }
+    Set<UtxoKey> expectedKeys = new HashSet<UtxoKey>();
+    for (UnspentOutput utxo : expected) {
+      expectedKeys.add(UtxoKey.of(utxo));
+    }
+    Assertions.assertEquals(expectedKeys, utxoKeys);
+  }
+}
@@ -0,0 +1,220 @@
+package com.samourai.whirlpool.client.wallet;
+
+import com.samourai.wallet.api.backend.BackendApi;
+import com.samourai.wallet.api.backend.BackendServer;
+import com.samourai.wallet.api.backend.beans.MultiAddrResponse;
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.wallet.client.Bip84Wallet;
+import com.samourai.wallet.hd.HD_Wallet;
+import com.samourai.wallet.util.oauth.OAuthManager;
+import com.samourai.whirlpool.client.exception.NotifiableException;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.tx0.Tx0;
+import com.samourai.whirlpool.client.tx0.Tx0BatchResult;
+import com.samourai.whirlpool.client.tx0.Tx0Config;
+import com.samourai.whirlpool.client.tx0.Tx0Service;
+import com.samourai.whirlpool.client.wallet.beans.*;
+import com.samourai.whirlpool.client.wallet.persist.FileWhirlpoolWalletPersistHandler;
+import com.samourai.whirlpool.client.whirlpool.beans.Tx0Data;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java8.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WhirlpoolWalletTest extends AbstractTest {
+  private static final String UTXO_HASH =
+      "cc588cdcb368f894a41c372d1f905770b61ecb3fb8e5e01a97e7cedbf5e324ae";
+
+  private WhirlpoolWallet whirlpoolWallet;
+  private final AtomicInteger nbPushs = new AtomicInteger();
+  private final List<Tx0Data> tx0Datas = new ArrayList<Tx0Data>();
+  private int pushFailFrom;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    nbPushs.set(0);
+    tx0Datas.clear();
+    pushFailFrom = Integer.MAX_VALUE;
+    this.whirlpoolWallet = computeWallet();
+  }
+
+  @Test
+  public void tx0Batch() throws Exception {
+    List<WhirlpoolUtxo> utxos = computeUtxos(3000000, 5000000, 7000000);
+    Tx0BatchResult tx0BatchResult = tx0Batch(utxos);
+
+    Assertions.assertTrue(tx0BatchResult.isSuccess());
+    Assertions.assertEquals(3, tx0BatchResult.getTx0s().size());
+    Assertions.assertEquals(3, nbPushs.get());
+    assertStatus(utxos, WhirlpoolUtxoStatus.TX0_SUCCESS, 3);
+
+    // one Tx0Data per tx0
+    Assertions.assertEquals(3, tx0Datas.size());
+    Set<Tx0Data> usedTx0Datas = new HashSet<Tx0Data>();
+    int nbPremix = 0;
+    for (Tx0 tx0 : tx0BatchResult.getTx0s()) {
+      Assertions.assertTrue(tx0Datas.contains(tx0.getTx0Data()));
+      usedTx0Datas.add(tx0.getTx0Data());
+      nbPremix += tx0.getNbPremix();
+    }
+    Assertions.assertEquals(3, usedTx0Datas.size());
+
+    // premix indexs reserved by all tx0s
+    Bip84Wallet premixWallet = whirlpoolWallet.getWallet(WhirlpoolAccount.PREMIX);
+    Assertions.assertEquals(nbPremix, premixWallet.getIndexHandler().get());
+  }
+
+  @Test
+  public void tx0Batch_stopOnPushFailure() throws Exception {
+    List<WhirlpoolUtxo> utxos = computeUtxos(3000000, 5000000, 7000000);
+    pushFailFrom = 2;
+    Tx0BatchResult tx0BatchResult = tx0Batch(utxos);
+
+    // first pushed, remaining ones not tried after failure
+    Assertions.assertFalse(tx0BatchResult.isSuccess());
+    Assertions.assertEquals(1, tx0BatchResult.getTx0s().size());
+    Assertions.assertEquals(2, tx0BatchResult.getFailedSpendFroms().size());
+    Assertions.assertEquals("push failed", tx0BatchResult.getError().getMessage());
+    Assertions.assertEquals(2, nbPushs.get());
+
+    // utxos accounted per tx0
+    Tx0 tx0 = tx0BatchResult.getTx0s().get(0);
+    assertStatus(utxos, WhirlpoolUtxoStatus.TX0_SUCCESS, 1);
+    assertStatus(utxos, WhirlpoolUtxoStatus.TX0_FAILED, 2);
+    for (Collection<WhirlpoolUtxo> failedSpendFroms : tx0BatchResult.getFailedSpendFroms()) {
+      for (WhirlpoolUtxo utxo : failedSpendFroms) {
+        Assertions.assertEquals(WhirlpoolUtxoStatus.TX0_FAILED, utxo.getUtxoState().getStatus());
+        Assertions.assertEquals("push failed", utxo.getUtxoState().getError());
+      }
+    }
+
+    // premix indexs of pushed tx0 are kept
+    Bip84Wallet premixWallet = whirlpoolWallet.getWallet(WhirlpoolAccount.PREMIX);
+    Assertions.assertTrue(premixWallet.getIndexHandler().get() >= tx0.getNbPremix());
+  }
+
+  @Test
+  public void tx0Batch_revertIndexsWhenNothingPushed() throws Exception {
+    List<WhirlpoolUtxo> utxos = computeUtxos(3000000, 5000000);
+    pushFailFrom = 1;
+    int[] indexs = getTx0Indexs();
+    Tx0BatchResult tx0BatchResult = tx0Batch(utxos);
+
+    Assertions.assertTrue(tx0BatchResult.getTx0s().isEmpty());
+    Assertions.assertEquals(2, tx0BatchResult.getFailedSpendFroms().size());
+    Assertions.assertEquals(1, nbPushs.get());
+    assertStatus(utxos, WhirlpoolUtxoStatus.TX0_FAILED, 2);
+
+    // premix & change indexs reverted
+    Assertions.assertArrayEquals(indexs, getTx0Indexs());
+  }
+
+  private Tx0BatchResult tx0Batch(List<WhirlpoolUtxo> utxos) throws Exception {
+    return whirlpoolWallet.tx0Batch(
+        utxos, pool01btc, Tx0FeeTarget.BLOCKS_24, new Tx0Config(), false);
+  }
+
+  private void assertStatus(
+      List<WhirlpoolUtxo> utxos, WhirlpoolUtxoStatus status, int nbExpected) {
+    int nb = 0;
+    for (WhirlpoolUtxo utxo : utxos) {
+      if (status.equals(utxo.getUtxoState().getStatus())) {
+        nb++;
+      }
+    }
+    Assertions.assertEquals(nbExpected, nb);
+  }
+
+  private int[] getTx0Indexs() {
+    WhirlpoolAccount[] accounts = WhirlpoolAccount.values();
+    int[] indexs = new int[accounts.length + 1];
+    indexs[0] = whirlpoolWallet.getWallet(WhirlpoolAccount.PREMIX).getIndexHandler().get();
+    for (int i = 0; i < accounts.length; i++) {
+      indexs[i + 1] = whirlpoolWallet.getWallet(accounts[i]).getIndexChangeHandler().get();
+    }
+    return indexs;
+  }
+
+  private List<WhirlpoolUtxo> computeUtxos(long... values) {
+    List<WhirlpoolUtxo> utxos = new ArrayList<WhirlpoolUtxo>();
+    for (int i = 0; i < values.length; i++) {
+      UnspentOutput utxo = newUnspentOutput(UTXO_HASH, i, values[i]);
+      utxo.xpub.path = "M/0/" + i;
+      WhirlpoolAccount account = WhirlpoolAccount.DEPOSIT;
+      WhirlpoolUtxoConfig utxoConfig = whirlpoolWallet.computeUtxoConfig(utxo, account);
+      utxos.add(new WhirlpoolUtxo(utxo, account, utxoConfig, WhirlpoolUtxoStatus.READY));
+    }
+    return utxos;
+  }
+
+  private WhirlpoolWallet computeWallet() throws Exception {
+    File fileState = File.createTempFile("whirlpool", ".state");
+    fileState.deleteOnExit();
+    File fileUtxos = File.createTempFile("whirlpool", ".utxos");
+    fileUtxos.deleteOnExit();
+    FileWhirlpoolWalletPersistHandler persistHandler =
+        new FileWhirlpoolWalletPersistHandler(fileState, fileUtxos);
+    persistHandler.setInitialized(true);
+
+    String backendUrl = BackendServer.TESTNET.getBackendUrl(false);
+    BackendApi backendApi =
+        new BackendApi(null, backendUrl, Optional.<OAuthManager>empty()) {
+          @Override
+          public MultiAddrResponse.Address fetchAddress(String zpub) throws Exception {
+            // MOCK
+            return new MultiAddrResponse.Address();
+          }
+
+          @Override
+          public void pushTx(String txHex) throws Exception {
+            // MOCK
+            if (nbPushs.incrementAndGet() >= pushFailFrom) {
+              throw new Exception("push failed");
+            }
+          }
+        };
+    byte[] seed =
+        hdWalletFactory.computeSeedFromWords("all all all all all all all all all all all all");
+    HD_Wallet bip84w = hdWalletFactory.getBIP84(seed, "foo", params);
+
+    WhirlpoolWalletConfig config =
+        new WhirlpoolWalletConfig(
+            null,
+            null,
+            persistHandler,
+            WhirlpoolServer.LOCAL_TESTNET.getServerUrl(false),
+            WhirlpoolServer.LOCAL_TESTNET.getParams(),
+            false,
+            backendApi);
+    config.setTx0Service(
+        new Tx0Service(config) {
+          @Override
+          protected Tx0Data fetchTx0Data(String poolId) throws NotifiableException {
+            // MOCK
+            Tx0Data tx0Data =
+                new Tx0Data(
+                    "PM8TJXp19gCE6hQzqRi719FGJzF6AreRwvoQKLRnQ7dpgaakakFns22jHUqhtPQWmfevPQRCyfFbdDrKvrfw9oZv5PjaCerQMa3BKkPyUf9yN1CDR3w6",
+                    0,
+                    10000,
+                    100,
+                    null,
+                    "tb1qjara0278vrsr8gvaga7jpy2c9amtgvytr44xym",
+                    0);
+            synchronized (tx0Datas) {
+              tx0Datas.add(tx0Data);
+            }
+            return tx0Data;
+          }
+        });
+    WhirlpoolWalletService whirlpoolWalletService = new WhirlpoolWalletService();
+    WhirlpoolDataService dataService = new WhirlpoolDataService(config, whirlpoolWalletService);
+    return whirlpoolWalletService.openWallet(config, dataService, bip84w);
+  }
+}
@@ -0,0 +1,31 @@
+package com.samourai.whirlpool.client.wallet.beans;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class UtxoKeyTest extends AbstractTest {
+  private static final String HASH =
+      "cb2fad88ae75fdabb2bcc131b2f4f0ff2c82af22b6dd804dc341900195fb6187";
+
+  @Test
+  public void equalsHex() throws Exception {
+    UtxoKey key = UtxoKey.of(HASH, 2);
+    Assertions.assertEquals(UtxoKey.of(HASH, 2), key);
+    Assertions.assertEquals(UtxoKey.of(HASH, 2).hashCode(), key.hashCode());
+    Assertions.assertEquals(UtxoKey.of(newUnspentOutput(HASH, 2, 1000)), key);
+    Assertions.assertNotEquals(UtxoKey.of(HASH, 3), key);
+
+    Assertions.assertEquals(HASH, key.getHash());
+    Assertions.assertEquals(2, key.getIndex());
+    Assertions.assertEquals(HASH + ":2", key.toString());
+  }
+
+  @Test
+  public void equalsNonHex() throws Exception {
+    UtxoKey key = UtxoKey.of("foo", 1);
+    Assertions.assertEquals(UtxoKey.of("foo", 1), key);
+    Assertions.assertNotEquals(UtxoKey.of("bar", 1), key);
+    Assertions.assertEquals("foo:1", key.toString());
+  }
+}
@@ -0,0 +1,87 @@
+package com.samourai.whirlpool.client.wallet.orchestrator;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.wallet.beans.*;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MixQueueTest extends AbstractTest {
+  private MixQueue mixQueue = new MixQueue();
+  private Map<String, Integer> mixingPerPool = new HashMap<String, Integer>();
+
+  @Test
+  public void findMixable() throws Exception {
+    WhirlpoolUtxo postmix = newQueuedUtxo("0.01btc", WhirlpoolAccount.POSTMIX, "postmix", null);
+    WhirlpoolUtxo premixError = newQueuedUtxo("0.01btc", WhirlpoolAccount.PREMIX, "error", 1000L);
+    WhirlpoolUtxo premix = newQueuedUtxo("0.01btc", WhirlpoolAccount.PREMIX, "premix", null);
+    Assertions.assertEquals(3, mixQueue.getNbQueued());
+
+    // premix first, no error first
+    Assertions.assertSame(premix, findMixable(System.currentTimeMillis()));
+
+    // not queued anymore
+    premix.getUtxoState().setStatus(WhirlpoolUtxoStatus.MIX_STARTED, false);
+    mixQueue.update(premix);
+    Assertions.assertEquals(2, mixQueue.getNbQueued());
+
+    // premix with error
+    Assertions.assertSame(premixError, findMixable(System.currentTimeMillis()));
+
+    // skip recent error
+    Assertions.assertSame(postmix, findMixable(500));
+
+    // not mixable anymore
+    postmix.getUtxoState().setMixableStatus(MixableStatus.UNCONFIRMED);
+    mixQueue.update(postmix);
+    Assertions.assertNull(findMixable(500));
+    Assertions.assertTrue(mixQueue.hasQueued(MixableStatus.UNCONFIRMED));
+  }
+
+  @Test
+  public void maxClientsPerPool() throws Exception {
+    WhirlpoolUtxo utxo01 = newQueuedUtxo("0.01btc", WhirlpoolAccount.PREMIX, "utxo01", null);
+    WhirlpoolUtxo utxo05 = newQueuedUtxo("0.05btc", WhirlpoolAccount.POSTMIX, "utxo05", null);
+
+    // less active pool first
+    mixingPerPool.put("0.01btc", 1);
+    Assertions.assertSame(utxo05, mixQueue.findMixable(mixingPerPool, 2, 0));
+
+    // pool full
+    mixingPerPool.put("0.05btc", 2);
+    Assertions.assertSame(utxo01, mixQueue.findMixable(mixingPerPool, 2, 0));
+
+    mixingPerPool.put("0.01btc", 2);
+    Assertions.assertNull(mixQueue.findMixable(mixingPerPool, 2, 0));
+  }
+
+  @Test
+  public void onUtxoRemoved() throws Exception {
+    WhirlpoolUtxo utxo = newQueuedUtxo("0.01btc", WhirlpoolAccount.PREMIX, "utxo", null);
+    Assertions.assertEquals(1, mixQueue.getUtxosByHash("utxo").size());
+
+    mixQueue.onUtxoRemoved(utxo);
+    Assertions.assertEquals(0, mixQueue.getNbQueued());
+    Assertions.assertEquals(0, mixQueue.getUtxosByHash("utxo").size());
+    Assertions.assertNull(findMixable(System.currentTimeMillis()));
+  }
+
+  private WhirlpoolUtxo findMixable(long lastErrorMax) {
+    return mixQueue.findMixable(mixingPerPool, 1, lastErrorMax);
+  }
+
+  private WhirlpoolUtxo newQueuedUtxo(
+      String poolId, WhirlpoolAccount whirlpoolAccount, String hash, Long lastError) {
+    UnspentResponse.UnspentOutput utxo = newUnspentOutput(hash, 0, 100L);
+    WhirlpoolUtxoConfig utxoConfig =
+        new WhirlpoolUtxoConfig(poolId, 5, 0, System.currentTimeMillis());
+    WhirlpoolUtxo whirlpoolUtxo =
+        new WhirlpoolUtxo(utxo, whirlpoolAccount, utxoConfig, WhirlpoolUtxoStatus.MIX_QUEUE);
+    whirlpoolUtxo.getUtxoState().setLastError(lastError);
+    whirlpoolUtxo.getUtxoState().setMixableStatus(MixableStatus.MIXABLE);
+    mixQueue.onUtxoDetected(whirlpoolUtxo);
+    return whirlpoolUtxo;
+  }
+}
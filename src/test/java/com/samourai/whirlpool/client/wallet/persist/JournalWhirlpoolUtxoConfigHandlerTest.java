@@ -0,0 +1,123 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashSet;
+import java8.util.Lists;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JournalWhirlpoolUtxoConfigHandlerTest extends AbstractTest {
+  private File file;
+  private File journalFile;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    file = File.createTempFile("utxos", ".json");
+    file.delete();
+    file.deleteOnExit();
+    journalFile = new File(file.getPath() + ".journal");
+    journalFile.deleteOnExit();
+  }
+
+  private JournalWhirlpoolUtxoConfigHandler load() {
+    JournalWhirlpoolUtxoConfigHandler handler =
+        new JournalWhirlpoolUtxoConfigHandler(file, journalFile);
+    handler.loadUtxoConfigs(null);
+    return handler;
+  }
+
+  @Test
+  public void journal() throws Exception {
+    JournalWhirlpoolUtxoConfigHandler handler = load();
+    handler.add("foo", new WhirlpoolUtxoConfig("0.01btc", 1, 0, 0));
+    handler.add("bar", new WhirlpoolUtxoConfig("0.01btc", 2, 0, 0));
+    Assertions.assertTrue(handler.save());
+    Assertions.assertFalse(handler.save()); // nothing changed
+    Assertions.assertEquals(2, handler.getNbJournalRecords());
+    Assertions.assertFalse(file.exists()); // no snapshot yet
+
+    // one record per change
+    handler.get("foo").incrementMixsDone();
+    Assertions.assertTrue(handler.save());
+    Assertions.assertEquals(3, handler.getNbJournalRecords());
+
+    // replayed on load
+    handler = load();
+    Assertions.assertEquals(1, handler.get("foo").getMixsDone());
+    Assertions.assertEquals(2, handler.get("bar").getMixsTarget());
+
+    // removal: obsolete on second clean
+    handler.clean(new HashSet<String>(Lists.of("foo")));
+    handler.clean(new HashSet<String>(Lists.of("foo")));
+    handler.save();
+    handler = load();
+    Assertions.assertNull(handler.get("bar"));
+    Assertions.assertEquals(1, handler.get("foo").getMixsDone());
+
+    // compaction
+    handler.compact();
+    Assertions.assertTrue(file.exists());
+    Assertions.assertEquals(0, journalFile.length());
+    handler = load();
+    Assertions.assertNull(handler.get("bar"));
+    Assertions.assertEquals(1, handler.get("foo").getMixsDone());
+  }
+
+  @Test
+  public void compactRenameFailed() throws Exception {
+    JournalWhirlpoolUtxoConfigHandler handler =
+        new JournalWhirlpoolUtxoConfigHandler(file, journalFile) {
+          @Override
+          protected synchronized void write() throws Exception {
+            // same as ClientUtils.safeWriteValue() when renaming temp file fails
+            throw new Exception("rename failed");
+          }
+        };
+    handler.loadUtxoConfigs(null);
+    handler.add("foo", new WhirlpoolUtxoConfig("0.01btc", 1, 0, 0));
+    handler.save();
+    long journalLength = journalFile.length();
+
+    // journal kept
+    try {
+      handler.compact();
+      Assertions.fail();
+    } catch (Exception e) {
+      // expected
+    }
+    Assertions.assertFalse(file.exists());
+    Assertions.assertEquals(journalLength, journalFile.length());
+    Assertions.assertEquals(1, handler.getNbJournalRecords());
+
+    // nothing lost
+    handler = load();
+    Assertions.assertEquals(1, handler.get("foo").getMixsTarget());
+  }
+
+  @Test
+  public void tornRecord() throws Exception {
+    JournalWhirlpoolUtxoConfigHandler handler = load();
+    handler.add("foo", new WhirlpoolUtxoConfig("0.01btc", 1, 0, 0));
+    handler.save();
+
+    // crash while appending
+    FileOutputStream out = new FileOutputStream(journalFile, true);
+    out.write("{\"key\":\"bar\",\"utxoCon".getBytes());
+    out.close();
+
+    // torn record ignored
+    handler = load();
+    Assertions.assertEquals(0, handler.get("foo").getMixsDone());
+    Assertions.assertNull(handler.get("bar"));
+
+    // next records still readable
+    handler.get("foo").incrementMixsDone();
+    handler.save();
+    handler = load();
+    Assertions.assertEquals(1, handler.get("foo").getMixsDone());
+  }
+}
@@ -0,0 +1,131 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.samourai.whirlpool.client.exception.NotifiableException;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
+import java.io.File;
+import java.io.FileOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class KvStoreTest extends AbstractTest {
+  private File file;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    file = File.createTempFile("whirlpool", ".kv");
+    file.deleteOnExit();
+    new File(file.getPath() + ".lock").deleteOnExit();
+  }
+
+  @Test
+  public void store() throws Exception {
+    KvStore store = new KvStore(file);
+    store.put("foo", "1".getBytes());
+    store.put("bar", "2".getBytes());
+    store.put("foo", "3".getBytes());
+    store.remove("bar");
+    Assertions.assertEquals("3", new String(store.get("foo")));
+    Assertions.assertNull(store.get("bar"));
+    Assertions.assertEquals(1, store.keys().size());
+    store.close();
+
+    // reopen
+    store = new KvStore(file);
+    Assertions.assertEquals("3", new String(store.get("foo")));
+    Assertions.assertFalse(store.containsKey("bar"));
+
+    // compaction
+    Assertions.assertTrue(store.isCompactable());
+    long length = file.length();
+    store.compact();
+    Assertions.assertTrue(file.length() < length);
+    Assertions.assertFalse(store.isCompactable());
+    Assertions.assertEquals("3", new String(store.get("foo")));
+    store.close();
+  }
+
+  @Test
+  public void tornRecord() throws Exception {
+    KvStore store = new KvStore(file);
+    store.put("foo", "1".getBytes());
+    store.close();
+
+    // crash while appending
+    FileOutputStream out = new FileOutputStream(file, true);
+    out.write(new byte[] {1, 2, 3, 4, 0, 0});
+    out.close();
+
+    // torn record truncated
+    store = new KvStore(file);
+    Assertions.assertEquals("1", new String(store.get("foo")));
+    store.put("bar", "2".getBytes());
+    store.close();
+
+    store = new KvStore(file);
+    Assertions.assertEquals("1", new String(store.get("foo")));
+    Assertions.assertEquals("2", new String(store.get("bar")));
+    store.close();
+  }
+
+  @Test
+  public void interruptedCompact() throws Exception {
+    KvStore store = new KvStore(file);
+    store.put("foo", "1".getBytes());
+    store.close();
+    File compactFile = new File(file.getPath() + ".compact");
+    compactFile.deleteOnExit();
+
+    // crash before replacing file: partial compacted file discarded
+    FileOutputStream out = new FileOutputStream(compactFile);
+    out.write(new byte[] {1, 2, 3});
+    out.close();
+    store = new KvStore(file);
+    Assertions.assertFalse(compactFile.exists());
+    Assertions.assertEquals("1", new String(store.get("foo")));
+    store.close();
+
+    // crash after deleting file (Windows): compacted file restored
+    Assertions.assertTrue(file.renameTo(compactFile));
+    store = new KvStore(file);
+    Assertions.assertFalse(compactFile.exists());
+    Assertions.assertEquals("1", new String(store.get("foo")));
+    store.close();
+  }
+
+  @Test
+  public void locked() throws Exception {
+    KvStore store = new KvStore(file);
+    store.put("foo", "1".getBytes());
+    store.put("foo", "2".getBytes());
+
+    // still locked after compaction
+    store.compact();
+    try {
+      new KvStore(file);
+      Assertions.fail();
+    } catch (NotifiableException e) {
+      // expected
+    }
+    store.close();
+  }
+
+  @Test
+  public void persistHandler() throws Exception {
+    KvWhirlpoolWalletPersistHandler persistHandler = new KvWhirlpoolWalletPersistHandler(file);
+    persistHandler.getIndexHandler("foo").getAndAdd(5);
+    persistHandler.addUtxoConfig("abcd", 1, new WhirlpoolUtxoConfig("0.01btc", 3, 0, 0));
+    persistHandler.getUtxoConfig("abcd", 1).incrementMixsDone();
+    persistHandler.save();
+    persistHandler.close();
+
+    // reopen
+    persistHandler = new KvWhirlpoolWalletPersistHandler(file);
+    Assertions.assertEquals(5, persistHandler.getIndexHandler("foo").get());
+    Assertions.assertEquals(1, persistHandler.getUtxoConfig("abcd", 1).getMixsDone());
+    Assertions.assertEquals("0.01btc", persistHandler.getUtxoConfig("abcd", 1).getPoolId());
+    Assertions.assertNull(persistHandler.getUtxoConfig("abcd", 2));
+    persistHandler.close();
+  }
+}
@@ -0,0 +1,118 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxo;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoStatus;
+import java.io.File;
+import java.util.List;
+import java8.util.Lists;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class KvWhirlpoolWalletPersistHandlerTest extends AbstractTest {
+  private File file;
+  private KvWhirlpoolWalletPersistHandler persistHandler;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    file = File.createTempFile("whirlpool", ".kv");
+    file.deleteOnExit();
+    new File(file.getPath() + ".lock").deleteOnExit();
+    persistHandler = new KvWhirlpoolWalletPersistHandler(file);
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    persistHandler.close();
+  }
+
+  private void reopen() throws Exception {
+    persistHandler.close();
+    persistHandler = new KvWhirlpoolWalletPersistHandler(file);
+  }
+
+  @Test
+  public void load() throws Exception {
+    persistHandler.addUtxoConfig("foo", 1, new WhirlpoolUtxoConfig("0.01btc", 3, 0, 0));
+    WhirlpoolUtxoConfig utxoConfig = persistHandler.getUtxoConfig("foo", 1);
+    Assertions.assertSame(utxoConfig, persistHandler.getUtxoConfig("foo", 1));
+
+    // reloaded from store on next access
+    persistHandler.loadUtxoConfigs(null);
+    Assertions.assertNotSame(utxoConfig, persistHandler.getUtxoConfig("foo", 1));
+    Assertions.assertEquals(3, persistHandler.getUtxoConfig("foo", 1).getMixsTarget());
+
+    // changes of previous instance are not written anymore
+    utxoConfig.incrementMixsDone();
+    persistHandler.loadUtxoConfigs(null);
+    Assertions.assertEquals(0, persistHandler.getUtxoConfig("foo", 1).getMixsDone());
+  }
+
+  @Test
+  public void save() throws Exception {
+    persistHandler.setInitialized(true);
+    persistHandler.getIndexHandler("foo").getAndAdd(5);
+    persistHandler.addUtxoConfig("foo", 1, new WhirlpoolUtxoConfig("0.01btc", 3, 0, 0));
+    persistHandler.addUtxoConfig("bar", new WhirlpoolUtxoConfig(2));
+    persistHandler.getUtxoConfig("foo", 1).incrementMixsDone();
+    persistHandler.save();
+
+    reopen();
+    Assertions.assertTrue(persistHandler.isInitialized());
+    Assertions.assertEquals(5, persistHandler.getIndexHandler("foo").get());
+    Assertions.assertEquals(0, persistHandler.getIndexHandler("bar").get());
+    Assertions.assertEquals(1, persistHandler.getUtxoConfig("foo", 1).getMixsDone());
+    Assertions.assertEquals(3, persistHandler.getUtxoConfig("foo", 1).getMixsTarget());
+    Assertions.assertEquals(2, persistHandler.getUtxoConfig("bar").getMixsDone());
+    Assertions.assertNull(persistHandler.getUtxoConfig("foo", 2));
+  }
+
+  @Test
+  public void compact() throws Exception {
+    persistHandler.getIndexHandler("foo").set(1);
+    persistHandler.addUtxoConfig("foo", 1, new WhirlpoolUtxoConfig("0.01btc", 3, 0, 0));
+    persistHandler.addUtxoConfig("bar", 2, new WhirlpoolUtxoConfig("0.01btc", 3, 0, 0));
+    for (int i = 0; i < 10; i++) {
+      persistHandler.getUtxoConfig("foo", 1).incrementMixsDone();
+      persistHandler.getIndexHandler("foo").getAndIncrement();
+    }
+
+    // "bar" removed on second clean
+    List<WhirlpoolUtxo> knownUtxos = Lists.of(computeUtxo("foo", 1));
+    persistHandler.cleanUtxoConfig(knownUtxos);
+    persistHandler.cleanUtxoConfig(knownUtxos);
+    Assertions.assertNull(persistHandler.getUtxoConfig("bar", 2));
+
+    // replaced values reclaimed on save
+    long length = file.length();
+    persistHandler.save();
+    Assertions.assertTrue(file.length() < length);
+    Assertions.assertEquals(10, persistHandler.getUtxoConfig("foo", 1).getMixsDone());
+
+    // still writable after compaction
+    persistHandler.getUtxoConfig("foo", 1).incrementMixsDone();
+    persistHandler.save();
+
+    reopen();
+    Assertions.assertEquals(11, persistHandler.getIndexHandler("foo").get());
+    Assertions.assertEquals(11, persistHandler.getUtxoConfig("foo", 1).getMixsDone());
+    Assertions.assertNull(persistHandler.getUtxoConfig("bar", 2));
+  }
+
+  private WhirlpoolUtxo computeUtxo(String hash, int index) {
+    UnspentOutput utxo = new UnspentOutput();
+    utxo.tx_hash = hash;
+    utxo.tx_output_n = index;
+    utxo.value = 1234;
+    return new WhirlpoolUtxo(
+        utxo,
+        WhirlpoolAccount.DEPOSIT,
+        persistHandler.getUtxoConfig(hash, index),
+        WhirlpoolUtxoStatus.READY);
+  }
+}
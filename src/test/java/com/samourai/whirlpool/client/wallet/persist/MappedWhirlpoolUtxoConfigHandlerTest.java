@@ -0,0 +1,164 @@
+package com.samourai.whirlpool.client.wallet.persist;
+
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.utils.ClientUtils;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolUtxoConfig;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashSet;
+import java8.util.Lists;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MappedWhirlpoolUtxoConfigHandlerTest extends AbstractTest {
+  private static final String FOO = ClientUtils.sha256Hash("foo");
+  private static final String BAR = ClientUtils.sha256Hash("bar");
+
+  private File file;
+  private File snapshotFile;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    file = File.createTempFile("utxos", ".json");
+    file.delete();
+    file.deleteOnExit();
+    snapshotFile = new File(file.getPath() + ".bin");
+    snapshotFile.deleteOnExit();
+    new File(file.getPath() + ".lock").deleteOnExit();
+  }
+
+  private MappedWhirlpoolUtxoConfigHandler load() {
+    MappedWhirlpoolUtxoConfigHandler handler =
+        new MappedWhirlpoolUtxoConfigHandler(file, snapshotFile);
+    handler.loadUtxoConfigs(null);
+    return handler;
+  }
+
+  @Test
+  public void snapshot() throws Exception {
+    MappedWhirlpoolUtxoConfigHandler handler = load();
+    handler.add(FOO, new WhirlpoolUtxoConfig("0.01btc", 1, 0, 0));
+    handler.add(BAR, new WhirlpoolUtxoConfig(null, null, 2, 0));
+    Assertions.assertTrue(handler.save());
+    Assertions.assertEquals(2, handler.getNbSnapshotRecords());
+
+    // mapped, nothing materialized
+    handler = load();
+    Assertions.assertEquals(2, handler.getNbSnapshotRecords());
+    Assertions.assertTrue(handler.getUtxoConfigs().isEmpty());
+
+    // materialized on access
+    WhirlpoolUtxoConfig foo = handler.get(FOO);
+    Assertions.assertEquals("0.01btc", foo.getPoolId());
+    Assertions.assertEquals(1, foo.getMixsTarget().intValue());
+    Assertions.assertSame(foo, handler.get(FOO));
+    Assertions.assertEquals(1, handler.getUtxoConfigs().size());
+    Assertions.assertNull(handler.get(ClientUtils.sha256Hash("unknown")));
+
+    // untouched records are kept
+    foo.incrementMixsDone();
+    Assertions.assertTrue(handler.save());
+    handler = load();
+    Assertions.assertEquals(1, handler.get(FOO).getMixsDone());
+    Assertions.assertNull(handler.get(BAR).getPoolId());
+    Assertions.assertNull(handler.get(BAR).getMixsTarget());
+    Assertions.assertEquals(2, handler.get(BAR).getMixsDone());
+
+    // removal: obsolete on second clean
+    handler = load();
+    handler.clean(new HashSet<String>(Lists.of(FOO)));
+    handler.clean(new HashSet<String>(Lists.of(FOO)));
+    handler.save();
+    handler = load();
+    Assertions.assertEquals(1, handler.getNbSnapshotRecords());
+    Assertions.assertNull(handler.get(BAR));
+    Assertions.assertEquals(1, handler.get(FOO).getMixsDone());
+  }
+
+  @Test
+  public void cleanSnapshot() throws Exception {
+    MappedWhirlpoolUtxoConfigHandler handler = load();
+    handler.add(FOO, new WhirlpoolUtxoConfig("0.01btc", 1, 0, 0));
+    handler.add(BAR, new WhirlpoolUtxoConfig("0.01btc", 1, 0, 0));
+    handler.save();
+    handler = load();
+
+    // obsolete records are not materialized
+    handler.clean(new HashSet<String>(Lists.of(FOO)));
+    Assertions.assertTrue(handler.getUtxoConfigs().isEmpty());
+
+    // mark kept when snapshot is rewritten in between
+    handler.get(FOO).incrementMixsDone();
+    Assertions.assertTrue(handler.save());
+    Thread.sleep(10); // modifications are detected by timestamp
+    handler.clean(new HashSet<String>(Lists.of(FOO)));
+    Assertions.assertNull(handler.get(BAR));
+    Assertions.assertTrue(handler.save());
+
+    handler = load();
+    Assertions.assertEquals(1, handler.getNbSnapshotRecords());
+    Assertions.assertEquals(1, handler.get(FOO).getMixsDone());
+  }
+
+  @Test
+  public void interruptedReplace() throws Exception {
+    MappedWhirlpoolUtxoConfigHandler handler = load();
+    handler.add(FOO, new WhirlpoolUtxoConfig("0.01btc", 1, 0, 0));
+    handler.save();
+    File tempFile = new File(snapshotFile.getPath() + ".tmp");
+    tempFile.deleteOnExit();
+
+    // crash after deleting previous snapshot: new snapshot restored
+    Assertions.assertTrue(snapshotFile.renameTo(tempFile));
+    handler = load();
+    Assertions.assertFalse(tempFile.exists());
+    Assertions.assertEquals(1, handler.getNbSnapshotRecords());
+
+    // crash while writing: partial snapshot discarded
+    FileOutputStream out = new FileOutputStream(tempFile);
+    out.write(new byte[] {1, 2, 3});
+    out.close();
+    handler = load();
+    Assertions.assertFalse(tempFile.exists());
+    Assertions.assertEquals(1, handler.getNbSnapshotRecords());
+  }
+
+  @Test
+  public void convertJson() throws Exception {
+    FileWhirlpoolUtxoConfigHandler jsonHandler = new FileWhirlpoolUtxoConfigHandler(file);
+    jsonHandler.add(FOO, new WhirlpoolUtxoConfig("0.01btc", 1, 3, 0));
+    jsonHandler.save();
+
+    // loaded from JSON, converted on save
+    MappedWhirlpoolUtxoConfigHandler handler = load();
+    Assertions.assertEquals(3, handler.get(FOO).getMixsDone());
+    Assertions.assertTrue(handler.save());
+    Assertions.assertTrue(snapshotFile.exists());
+
+    handler = load();
+    Assertions.assertEquals(1, handler.getNbSnapshotRecords());
+    Assertions.assertEquals(3, handler.get(FOO).getMixsDone());
+  }
+
+  @Test
+  public void convertJournal() throws Exception {
+    File journalFile = new File(file.getPath() + ".journal");
+    journalFile.deleteOnExit();
+    JournalWhirlpoolUtxoConfigHandler journalHandler =
+        new JournalWhirlpoolUtxoConfigHandler(file, journalFile);
+    journalHandler.loadUtxoConfigs(null);
+    journalHandler.add(FOO, new WhirlpoolUtxoConfig("0.01btc", 1, 3, 0));
+    Assertions.assertTrue(journalHandler.save());
+    Assertions.assertEquals(1, journalHandler.getNbJournalRecords());
+
+    // pending journal merged before switching format
+    FileWhirlpoolUtxoConfigHandler handler =
+        FileWhirlpoolWalletPersistHandler.computeUtxoConfigHandler(
+            file, FileWhirlpoolWalletPersistHandler.UtxoConfigFormat.MAPPED);
+    Assertions.assertTrue(handler instanceof MappedWhirlpoolUtxoConfigHandler);
+    Assertions.assertFalse(journalFile.exists());
+    handler.loadUtxoConfigs(null);
+    Assertions.assertEquals(3, handler.get(FOO).getMixsDone());
+  }
+}
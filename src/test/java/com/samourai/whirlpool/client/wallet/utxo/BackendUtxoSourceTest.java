@@ -0,0 +1,243 @@
+package com.samourai.whirlpool.client.wallet.utxo;
+
+import com.samourai.wallet.api.backend.beans.UnspentResponse.UnspentOutput;
+import com.samourai.whirlpool.client.test.AbstractTest;
+import com.samourai.whirlpool.client.utils.MessageErrorListener;
+import com.samourai.whirlpool.client.utils.MessageListener;
+import com.samourai.whirlpool.client.wallet.beans.UtxoKey;
+import com.samourai.whirlpool.client.wallet.beans.WhirlpoolAccount;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class BackendUtxoSourceTest extends AbstractTest {
+  private static final String ZPUB_DEPOSIT = "zpubDeposit";
+  private static final String ZPUB_PREMIX = "zpubPremix";
+
+  private List<TestWebsocketClient> websocketClients;
+  private List<Runnable> scheduledReconnects;
+  private TestUtxoSourceListener listener;
+  private BackendUtxoSource utxoSource;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    websocketClients = new ArrayList<TestWebsocketClient>();
+    IWebsocketClientService websocketClientService =
+        new IWebsocketClientService() {
+          @Override
+          public IWebsocketClient newWebsocketClient() {
+            TestWebsocketClient websocketClient = new TestWebsocketClient();
+            websocketClients.add(websocketClient);
+            return websocketClient;
+          }
+        };
+
+    // reconnections are run manually
+    scheduledReconnects = new ArrayList<Runnable>();
+    ScheduledExecutorService scheduler = Mockito.mock(ScheduledExecutorService.class);
+    Mockito.doAnswer(
+            new Answer<ScheduledFuture<?>>() {
+              @Override
+              public ScheduledFuture<?> answer(InvocationOnMock invocation) {
+                scheduledReconnects.add((Runnable) invocation.getArgument(0));
+                return Mockito.mock(ScheduledFuture.class);
+              }
+            })
+        .when(scheduler)
+        .schedule(Mockito.any(Runnable.class), Mockito.anyLong(), Mockito.any(TimeUnit.class));
+
+    Map<WhirlpoolAccount, String> zpubs = new LinkedHashMap<WhirlpoolAccount, String>();
+    zpubs.put(WhirlpoolAccount.DEPOSIT, ZPUB_DEPOSIT);
+    zpubs.put(WhirlpoolAccount.PREMIX, ZPUB_PREMIX);
+    listener = new TestUtxoSourceListener();
+    utxoSource = new BackendUtxoSource(websocketClientService, "ws://backend", scheduler);
+    utxoSource.start(zpubs, listener);
+  }
+
+  @Test
+  public void subscribe() throws Exception {
+    TestWebsocketClient websocketClient = websocketClients.get(0);
+    Assertions.assertEquals("ws://backend", websocketClient.url);
+    Assertions.assertTrue(websocketClient.sent.isEmpty());
+
+    // subscribed on connect, accounts fetched again as notifications may have been missed
+    websocketClient.onConnect();
+    Assertions.assertEquals(
+        Arrays.asList(
+            "{\"op\":\"addr_sub\",\"addr\":\"" + ZPUB_DEPOSIT + "\"}",
+            "{\"op\":\"addr_sub\",\"addr\":\"" + ZPUB_PREMIX + "\"}",
+            "{\"op\":\"blocks_sub\"}"),
+        sorted(websocketClient.sent));
+    Assertions.assertEquals(2, listener.gaps.size());
+  }
+
+  @Test
+  public void transaction() throws Exception {
+    TestWebsocketClient websocketClient = websocketClients.get(0);
+    websocketClient.onConnect();
+    listener.gaps.clear();
+
+    // deposit utxo spent to premix and unknown zpub
+    websocketClient.onNotification(
+        "{\"op\":\"utx\",\"x\":{\"hash\":\"tx1\","
+            + "\"inputs\":[{\"prev_out\":{\"txid\":\"tx0\",\"vout\":3,\"value\":5000,"
+            + "\"xpub\":{\"m\":\""
+            + ZPUB_DEPOSIT
+            + "\",\"path\":\"M/0/1\"}}}],"
+            + "\"outputs\":["
+            + "{\"n\":0,\"value\":1000,\"addr\":\"addr0\",\"scriptpubkey\":\"script0\","
+            + "\"xpub\":{\"m\":\""
+            + ZPUB_PREMIX
+            + "\",\"path\":\"M/0/2\"}},"
+            + "{\"n\":1,\"value\":3000,\"addr\":\"addr1\",\"scriptpubkey\":\"script1\","
+            + "\"xpub\":{\"m\":\"zpubOther\",\"path\":\"M/0/0\"}}]}}");
+
+    Assertions.assertEquals(
+        Arrays.asList(UtxoKey.of("tx0", 3)), listener.spent.get(WhirlpoolAccount.DEPOSIT));
+    Assertions.assertEquals(1, listener.spent.size());
+
+    Assertions.assertEquals(1, listener.received.size());
+    List<UnspentOutput> received = listener.received.get(WhirlpoolAccount.PREMIX);
+    Assertions.assertEquals(1, received.size());
+    UnspentOutput utxo = received.get(0);
+    Assertions.assertEquals("tx1", utxo.tx_hash);
+    Assertions.assertEquals(0, utxo.tx_output_n);
+    Assertions.assertEquals(1000, utxo.value);
+    Assertions.assertEquals("addr0", utxo.addr);
+    Assertions.assertEquals("script0", utxo.script);
+    Assertions.assertEquals(0, utxo.confirmations);
+    Assertions.assertEquals(ZPUB_PREMIX, utxo.xpub.m);
+    Assertions.assertEquals("M/0/2", utxo.xpub.path);
+    Assertions.assertTrue(listener.gaps.isEmpty());
+  }
+
+  @Test
+  public void blockAndInvalidNotification() throws Exception {
+    TestWebsocketClient websocketClient = websocketClients.get(0);
+    websocketClient.onConnect();
+    listener.gaps.clear();
+
+    // confirmations changed
+    websocketClient.onNotification("{\"op\":\"block\",\"x\":{\"height\":100}}");
+    Assertions.assertEquals(2, listener.gaps.size());
+
+    // notification lost
+    websocketClient.onNotification("{invalid");
+    Assertions.assertEquals(4, listener.gaps.size());
+  }
+
+  @Test
+  public void reconnect() throws Exception {
+    TestWebsocketClient websocketClient = websocketClients.get(0);
+    websocketClient.onConnect();
+    listener.gaps.clear();
+
+    // notifications missed while disconnected
+    websocketClient.onDisconnect();
+    Assertions.assertEquals(2, listener.gaps.size());
+    Assertions.assertEquals(1, scheduledReconnects.size());
+
+    // late notifications of previous connection are ignored
+    websocketClient.onNotification("{\"op\":\"block\"}");
+    Assertions.assertEquals(2, listener.gaps.size());
+
+    // reconnected
+    scheduledReconnects.get(0).run();
+    Assertions.assertEquals(2, websocketClients.size());
+    websocketClients.get(1).onConnect();
+    Assertions.assertEquals(3, websocketClients.get(1).sent.size());
+    Assertions.assertEquals(4, listener.gaps.size());
+  }
+
+  @Test
+  public void stop() throws Exception {
+    TestWebsocketClient websocketClient = websocketClients.get(0);
+    websocketClient.onConnect();
+    listener.gaps.clear();
+
+    utxoSource.stop();
+    Assertions.assertTrue(websocketClient.disconnected);
+
+    // nothing notified anymore, no reconnection
+    websocketClient.onNotification("{\"op\":\"block\"}");
+    websocketClient.onDisconnect();
+    Assertions.assertTrue(listener.gaps.isEmpty());
+    Assertions.assertTrue(scheduledReconnects.isEmpty());
+  }
+
+  private List<String> sorted(List<String> list) {
+    List<String> result = new ArrayList<String>(list);
+    Collections.sort(result);
+    return result;
+  }
+
+  private static class TestWebsocketClient implements IWebsocketClient {
+    private String url;
+    private MessageErrorListener<Void, Throwable> onConnectOnDisconnectListener;
+    private MessageListener<String> onMessageListener;
+    private List<String> sent = new ArrayList<String>();
+    private boolean disconnected;
+
+    @Override
+    public void connect(
+        String url,
+        MessageErrorListener<Void, Throwable> onConnectOnDisconnectListener,
+        MessageListener<String> onMessageListener) {
+      this.url = url;
+      this.onConnectOnDisconnectListener = onConnectOnDisconnectListener;
+      this.onMessageListener = onMessageListener;
+    }
+
+    void onConnect() {
+      onConnectOnDisconnectListener.onMessage(null);
+    }
+
+    void onDisconnect() {
+      onConnectOnDisconnectListener.onError(new Exception("disconnected"));
+    }
+
+    void onNotification(String message) {
+      onMessageListener.onMessage(message);
+    }
+
+    @Override
+    public void send(String message) {
+      sent.add(message);
+    }
+
+    @Override
+    public void disconnect() {
+      disconnected = true;
+    }
+  }
+
+  private static class TestUtxoSourceListener implements UtxoSourceListener {
+    private Map<WhirlpoolAccount, List<UnspentOutput>> received =
+        new HashMap<WhirlpoolAccount, List<UnspentOutput>>();
+    private Map<WhirlpoolAccount, List<UtxoKey>> spent =
+        new HashMap<WhirlpoolAccount, List<UtxoKey>>();
+    private List<WhirlpoolAccount> gaps = new ArrayList<WhirlpoolAccount>();
+
+    @Override
+    public void onUtxosReceived(WhirlpoolAccount account, Collection<UnspentOutput> utxos) {
+      received.put(account, new ArrayList<UnspentOutput>(utxos));
+    }
+
+    @Override
+    public void onUtxosSpent(WhirlpoolAccount account, Collection<UtxoKey> utxoKeys) {
+      spent.put(account, new ArrayList<UtxoKey>(utxoKeys));
+    }
+
+    @Override
+    public void onGap(WhirlpoolAccount account) {
+      gaps.add(account);
+    }
+  }
+}